@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.persistence;
+
+import com.netflix.spinnaker.rosco.api.Bake;
+import com.netflix.spinnaker.rosco.api.BakeRequest;
+import com.netflix.spinnaker.rosco.api.BakeStatus;
+import com.netflix.spinnaker.rosco.jobs.BakeRecipe;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the formats of BakeFieldSerializer on the objects the redis bake store writes for an aws bake. The stored
+ * size of each payload, base64 encoding included, is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BakeFieldSerializerBenchmark {
+
+  // As stored by rosco for a bake of a debian package on an aws base image.
+  private static final String BAKE_STATUS =
+      """
+      {"id":"b1a2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d","state":"COMPLETED","result":"SUCCESS",\
+      "resource_id":"b1a2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d"}""";
+
+  private static final String BAKE_REQUEST =
+      """
+      {"user":"someuser@netflix.com","request_id":"6a1f4c0e-2b7d-4d9e-9c3a-5f8e7d6c5b4a",\
+      "package":"kato_1.0-h150.3f7a2c1_all","package_artifacts":[],"build_host":"https://jenkins.example.com/",\
+      "job":"kato-build","build_number":"150","commit_hash":"3f7a2c1e9b8d7c6a5f4e3d2c1b0a9f8e7d6c5b4a",\
+      "build_info_url":"https://jenkins.example.com/job/kato-build/150/","cloud_provider_type":"aws",\
+      "base_label":"release","base_os":"bionic","base_name":null,"base_ami":null,"vm_type":"hvm",\
+      "store_type":"ebs","enhanced_networking":true,"ami_name":null,"ami_suffix":"20261017","upgrade":false,\
+      "instance_type":null,"organization":null,"template_file_name":"aws-ebs.json",\
+      "extended_attributes":{"copy_to_regions":"us-west-2,eu-west-1","aws_associate_public_ip_address":"false"},\
+      "var_file_name":null,"account_name":"prod","spinnaker_execution_id":"01HZX4K9R7M2N3P4Q5S6T7V8W9",\
+      "publisher":null,"offer":null,"sku":null,"os_type":"linux","package_type":"DEB",\
+      "custom_managed_image_name":null}""";
+
+  private static final String BAKE_RECIPE =
+      """
+      {"name":"kato-all-20261017-bionic","version":"1.0-h150.3f7a2c1",\
+      "command":["packer","build","-color=false","-var","aws_region=us-east-1","-var","aws_ssh_username=ubuntu",\
+      "-var","aws_instance_type=t3.medium","-var","aws_source_ami=ami-0a1b2c3d4e5f60718",\
+      "-var","aws_target_ami=kato-all-20261017-bionic","-var","aws_ena_support=true",\
+      "-var","aws_spot_price=0","-var","aws_associate_public_ip_address=false",\
+      "-var","repository=https://dl.bintray.com/spinnaker/debians trusty main",\
+      "-var","package_type=deb","-var","packages=kato_1.0-h150.3f7a2c1_all",\
+      "-var","configDir=/opt/rosco/config/packer","-var","copy_to_regions=us-west-2,eu-west-1",\
+      "/opt/rosco/config/packer/aws-ebs.json"]}""";
+
+  private static final String BAKE_DETAILS =
+      """
+      {"id":"b1a2c3d4-e5f6-4a7b-8c9d-0e1f2a3b4c5d","ami":"ami-0f1e2d3c4b5a69788",\
+      "image_name":"kato-all-20261017-bionic","regions":["us-east-1","us-west-2","eu-west-1"],\
+      "artifact":{"type":"aws/image","customKind":false,"name":"kato-all-20261017-bionic","version":null,\
+      "location":"us-east-1","reference":"ami-0f1e2d3c4b5a69788",\
+      "metadata":{"build_info_url":"https://jenkins.example.com/job/kato-build/150/","build_number":"150"},\
+      "artifactAccount":null,"provenance":null,"uuid":null},"base_ami":"ami-0a1b2c3d4e5f60718"}""";
+
+  @Param({"JSON", "SMILE", "CBOR"})
+  public BakeFieldSerializer.Format format;
+
+  @Param({"true", "false"})
+  public boolean blackbird;
+
+  @Param({"status", "request", "recipe", "details"})
+  public String payload;
+
+  private BakeFieldSerializer serializer;
+  private Class<?> type;
+  private Object value;
+  private String stored;
+
+  @Setup
+  public void setUp() {
+    String json;
+
+    switch (payload) {
+      case "status":
+        type = BakeStatus.class;
+        json = BAKE_STATUS;
+        break;
+      case "request":
+        type = BakeRequest.class;
+        json = BAKE_REQUEST;
+        break;
+      case "recipe":
+        type = BakeRecipe.class;
+        json = BAKE_RECIPE;
+        break;
+      default:
+        type = Bake.class;
+        json = BAKE_DETAILS;
+    }
+
+    serializer = new BakeFieldSerializer(format, blackbird);
+    value = BakeFieldSerializer.json().deserialize(json, type);
+    stored = serializer.serialize(value);
+
+    System.out.printf(
+        "%n%s as %s: %d bytes stored, %d bytes as JSON%n",
+        payload, format, stored.length(), BakeFieldSerializer.json().serialize(value).length());
+  }
+
+  @Benchmark
+  public String serialize() {
+    return serializer.serialize(value);
+  }
+
+  @Benchmark
+  public Object deserialize() {
+    return serializer.deserialize(stored, type);
+  }
+}
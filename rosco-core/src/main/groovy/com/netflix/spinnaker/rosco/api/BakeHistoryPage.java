@@ -0,0 +1,36 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/** A page of the bake history, oldest bake first. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BakeHistoryPage {
+
+  private List<BakeSummary> bakes = new ArrayList<>();
+
+  /** Pass back in to retrieve the next page. Null once there are no more bakes. */
+  private String nextCursor;
+}
@@ -93,6 +93,9 @@ class BakeRequest {
 
   String custom_managed_image_name
 
+  @Schema(description="Bakes with a higher priority start first when the bakery is at capacity (defaults to 0)")
+  Integer priority
+
   static enum CloudProviderType {
     alicloud, aws, azure, docker, gce, huaweicloud, oracle, tencentcloud
   }
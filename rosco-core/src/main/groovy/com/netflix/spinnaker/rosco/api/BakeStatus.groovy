@@ -55,6 +55,13 @@ class BakeStatus implements Serializable {
   @JsonIgnore
   String logsContent
 
+  /**
+   * The offset in the bake's logs at which logsContent starts. Executors that report only the logs written since they
+   * were last polled set it; 0 means logsContent holds the logs in full.
+   */
+  @JsonIgnore
+  long logsOffset
+
   @JsonIgnore
   long createdTimestamp
 
@@ -62,7 +69,16 @@ class BakeStatus implements Serializable {
   long updatedTimestamp
 
   static enum State {
-    RUNNING, COMPLETED, CANCELED
+    RUNNING, COMPLETED, CANCELED,
+    // Waiting for the job executor to start the bake.
+    QUEUED
+
+    /**
+     * Whether the bake has yet to finish, either because it is waiting to start or because it is underway.
+     */
+    boolean isIncomplete() {
+      return this == QUEUED || this == RUNNING
+    }
   }
 
   static enum Result {
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.api;
+
+import java.util.List;
+import lombok.Data;
+
+/** The progress of a {@link DeleteBakesRequest}, whose bakes are deleted in the background. */
+@Data
+public class DeleteBakesRequestStatus {
+
+  public enum State {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+  }
+
+  private String id;
+
+  private volatile State state = State.QUEUED;
+
+  private List<String> pipelineExecutionIds;
+
+  /** The number of pipeline executions whose bakes are deleted so far. */
+  private volatile int pipelineExecutionsDeleted;
+
+  private volatile long bakesDeleted;
+
+  private long createdTimestamp;
+
+  private volatile long updatedTimestamp;
+
+  private volatile String error;
+}
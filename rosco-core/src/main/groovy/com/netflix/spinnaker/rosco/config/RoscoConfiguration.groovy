@@ -16,20 +16,28 @@
 
 package com.netflix.spinnaker.rosco.config
 
+import com.netflix.spectator.api.Registry
 import com.netflix.spinnaker.config.PluginsAutoConfiguration
 import com.netflix.spinnaker.kork.artifacts.artifactstore.ArtifactStoreConfiguration;
 import com.netflix.spinnaker.kork.jedis.JedisClientDelegate
 import com.netflix.spinnaker.kork.jedis.RedisClientDelegate
 import com.netflix.spinnaker.rosco.executor.BakePoller
+import com.netflix.spinnaker.rosco.persistence.BakeFieldCompressor
+import com.netflix.spinnaker.rosco.persistence.BakeFieldSerializer
 import com.netflix.spinnaker.rosco.persistence.BakeStore
 import com.netflix.spinnaker.rosco.persistence.RedisBackedBakeStore
+import com.netflix.spinnaker.rosco.persistence.RedisClock
+import com.netflix.spinnaker.rosco.persistence.config.BakeStoreConfigurationProperties
 import com.netflix.spinnaker.rosco.providers.registry.CloudProviderBakeHandlerRegistry
 import com.netflix.spinnaker.rosco.providers.registry.DefaultCloudProviderBakeHandlerRegistry
 import com.netflix.spinnaker.rosco.providers.util.LocalJobFriendlyPackerCommandFactory
 import com.netflix.spinnaker.rosco.providers.util.PackerCommandFactory
+import groovy.transform.CompileDynamic
 import groovy.transform.CompileStatic
 import groovy.util.logging.Slf4j
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
 import org.springframework.context.annotation.Import
@@ -41,6 +49,7 @@ import redis.clients.jedis.JedisPool
 @CompileStatic
 @Slf4j
 @Import([ PluginsAutoConfiguration.class, ArtifactStoreConfiguration.class ])
+@EnableConfigurationProperties(BakeStoreConfigurationProperties)
 class RoscoConfiguration {
 
   @Bean
@@ -63,12 +72,24 @@ class RoscoConfiguration {
     new BakePoller()
   }
 
+  // Dynamic, since the Lombok-generated accessors of the configuration properties aren't visible to static compilation.
   @Bean
-  BakeStore bakeStore(JedisPool jedisPool, RedisClientDelegate redisClientDelegate) {
-    new RedisBackedBakeStore(jedisPool, redisClientDelegate)
+  @CompileDynamic
+  @ConditionalOnProperty(value = "rosco.bake-store.type", havingValue = "redis", matchIfMissing = true)
+  BakeStore bakeStore(JedisPool jedisPool, RedisClientDelegate redisClientDelegate, BakeStoreConfigurationProperties bakeStoreProperties, Registry registry) {
+    def compression = bakeStoreProperties.compression
+    def serialization = bakeStoreProperties.serialization
+    def clock = bakeStoreProperties.clock.enabled ? new RedisClock(jedisPool, bakeStoreProperties.clock, registry) : null
+    clock?.start()
+    new RedisBackedBakeStore(jedisPool,
+                             redisClientDelegate,
+                             new BakeFieldCompressor(compression.codec, compression.minSizeBytes),
+                             new BakeFieldSerializer(serialization.format, serialization.blackbird),
+                             clock)
   }
 
   @Bean
+  @ConditionalOnProperty(value = "rosco.bake-store.type", havingValue = "redis", matchIfMissing = true)
   RedisClientDelegate redisClientDelegate(JedisPool jedisPool) {
     return new JedisClientDelegate(jedisPool)
   }
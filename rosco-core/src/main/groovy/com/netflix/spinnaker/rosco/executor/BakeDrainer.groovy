@@ -0,0 +1,137 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.executor
+
+import com.netflix.spectator.api.Registry
+import com.netflix.spinnaker.rosco.jobs.JobExecutor
+import com.netflix.spinnaker.rosco.persistence.BakeStore
+import groovy.util.logging.Slf4j
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.boot.actuate.health.Health
+import org.springframework.boot.actuate.health.HealthIndicator
+import org.springframework.context.ApplicationListener
+import org.springframework.context.event.ContextClosedEvent
+import org.springframework.stereotype.Component
+
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+
+/**
+ * Drains this rosco instance when it shuts down. A draining instance refuses new bakes and reports itself out of
+ * service, so the load balancer stops sending it requests. It holds the draining lease while it drains, which lets the
+ * orphan reaper on another rosco instance adopt the bakes whose jobs that instance's job executor can see, such as those
+ * run by a remote job executor. Bakes run as local processes are polled to completion here.
+ *
+ * Shutdown waits until this instance has no incomplete bakes and no running jobs, or for at most
+ * rosco.drain.timeout-seconds. Whatever is left is reclaimed by the orphan reaper once this instance's heartbeat
+ * expires.
+ */
+@Slf4j
+@Component
+class BakeDrainer implements ApplicationListener<ContextClosedEvent>, HealthIndicator {
+
+  @Autowired
+  String roscoInstanceId
+
+  @Autowired
+  BakeStore bakeStore
+
+  @Autowired
+  JobExecutor executor
+
+  @Autowired
+  Registry registry
+
+  @Value('${rosco.drain.timeout-seconds:300}')
+  long drainTimeoutSeconds = 300
+
+  @Value('${rosco.drain.polling-interval-millis:1000}')
+  long drainPollingIntervalMillis = 1000
+
+  @Value('${rosco.polling.heartbeat-timeout-seconds:20}')
+  long heartbeatTimeoutSeconds = 20
+
+  private final AtomicBoolean draining = new AtomicBoolean()
+
+  boolean isDraining() {
+    return draining.get()
+  }
+
+  @Override
+  void onApplicationEvent(ContextClosedEvent event) {
+    drain()
+  }
+
+  @Override
+  Health health() {
+    return draining.get() ? Health.outOfService().withDetail("draining", true).build() : Health.up().build()
+  }
+
+  /**
+   * Stop accepting bakes and wait for this instance's bakes to be completed or adopted, for at most
+   * drainTimeoutSeconds. Returns whether everything was drained in time.
+   */
+  boolean drain() {
+    if (!draining.compareAndSet(false, true)) {
+      return false
+    }
+
+    log.info("Draining rosco instance $roscoInstanceId...")
+
+    long drainStart = registry.clock().monotonicTime()
+    long deadline = drainStart + TimeUnit.SECONDS.toNanos(drainTimeoutSeconds)
+    Set<String> incompleteBakeIds = Collections.emptySet()
+    boolean drained
+
+    while (true) {
+      try {
+        bakeStore.acquireLease(drainingLease(roscoInstanceId), TimeUnit.SECONDS.toMillis(heartbeatTimeoutSeconds))
+        incompleteBakeIds = bakeStore.thisInstanceIncompleteBakeIds
+      } catch (Exception e) {
+        log.error("Drain Error:", e)
+      }
+
+      int jobCount = executor.runningJobCount()
+      drained = !incompleteBakeIds && jobCount == 0
+
+      if (drained) {
+        log.info("Drained rosco instance $roscoInstanceId.")
+        break
+      }
+
+      if (registry.clock().monotonicTime() >= deadline) {
+        log.warn("Giving up on draining ${incompleteBakeIds.size()} bakes and $jobCount jobs after " +
+                 "$drainTimeoutSeconds seconds; they will be reclaimed once this instance stops heartbeating.")
+        break
+      }
+
+      log.info("Waiting on ${incompleteBakeIds.size()} bakes and $jobCount jobs before shutting down...")
+      sleep(drainPollingIntervalMillis)
+    }
+
+    registry.timer(registry.createId("instanceDrains", [drained: drained.toString()]))
+      .record(registry.clock().monotonicTime() - drainStart, TimeUnit.NANOSECONDS)
+
+    return drained
+  }
+
+  static String drainingLease(String roscoInstanceId) {
+    return "draining:$roscoInstanceId"
+  }
+}
@@ -22,7 +22,9 @@ import com.netflix.spinnaker.rosco.api.Bake
 import com.netflix.spinnaker.rosco.api.BakeRequest
 import com.netflix.spinnaker.rosco.api.BakeStatus
 import com.netflix.spinnaker.rosco.jobs.BakeRecipe
+import com.netflix.spinnaker.rosco.jobs.JobCompletedEvent
 import com.netflix.spinnaker.rosco.jobs.JobExecutor
+import com.netflix.spinnaker.rosco.persistence.BakeCompletionContext
 import com.netflix.spinnaker.rosco.persistence.BakeStore
 import com.netflix.spinnaker.rosco.providers.registry.CloudProviderBakeHandlerRegistry
 import groovy.util.logging.Slf4j
@@ -30,11 +32,24 @@ import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.beans.factory.annotation.Value
 import org.springframework.context.ApplicationListener
 import org.springframework.context.event.ContextRefreshedEvent
+import org.springframework.context.event.EventListener
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory
 import org.springframework.stereotype.Component
 import rx.functions.Action0
+import rx.functions.Action1
+import rx.functions.Func1
 import rx.schedulers.Schedulers
 
+import javax.annotation.PreDestroy
+import java.util.concurrent.ArrayBlockingQueue
+import java.util.concurrent.Callable
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.ThreadPoolExecutor
 import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicBoolean
+import java.util.function.ToDoubleFunction
 
 /**
  * BakePoller periodically queries the bake store for incomplete bakes. For each incomplete bake, it queries
@@ -42,23 +57,88 @@ import java.util.concurrent.TimeUnit
  * store. When a bake completes, it is the BakePoller that persists the completed bake details via the bake store.
  * The polling interval defaults to 15 seconds and can be overridden by specifying the
  * rosco.polling.pollingIntervalSeconds property.
+ *
+ * Each bake is polled on its own schedule (see BakePollingSchedule), between rosco.polling.min-polling-interval-seconds
+ * and rosco.polling.max-polling-interval-seconds apart, depending on its age and how long bakes of the same recipe
+ * have taken. The polling interval above sets how often this instance's registration is refreshed.
+ *
+ * Up to rosco.polling.max-concurrent-polls bakes are polled at once. A poll that takes longer than
+ * rosco.polling.poll-timeout-seconds is abandoned by its cycle, but the bake is not polled again until that poll
+ * returns, so no bake is ever polled twice at the same time.
+ *
+ * Orphaned bakes, those whose rosco instance stopped updating them, are looked for by one rosco instance at a time: the
+ * holder of the orphan reaper lease, which it renews every rosco.polling.orphaned-job-polling-interval-seconds. Should
+ * it go away, another instance takes over once the lease, rosco.polling.orphan-reaper-lease-seconds long, expires.
+ *
+ * Each rosco instance also heartbeats every rosco.polling.heartbeat-interval-seconds. Once an instance's heartbeat has
+ * gone unrenewed for rosco.polling.heartbeat-timeout-seconds, the orphan reaper adopts its bakes if the job executor can
+ * still see their jobs, and cancels them otherwise, without waiting for rosco.polling.orphaned-job-timeout-minutes.
+ * The bakes of a draining instance (see BakeDrainer) whose jobs the job executor can see are adopted the same way, and
+ * a draining instance lets go of the orphan reaper lease.
+ *
+ * Job executors that know when a job finishes publish a JobCompletedEvent, and that bake is polled at once; polling
+ * on an interval remains the fallback for everything else. With such an executor, bakes are polled less often as they
+ * age rather than more often as they near their expected duration.
+ *
+ * Completed bakes are scraped, decorated and stored by rosco.polling.completion.threads completion threads, so a slow
+ * completion doesn't hold up polling. Up to rosco.polling.completion.queue-size completions wait for a thread; beyond
+ * that the poll thread completes the bake itself. A bake stays running until its details are stored, and a completion
+ * that fails rosco.polling.completion.max-attempts times cancels the bake.
  */
 @Slf4j
 @Component
 class BakePoller implements ApplicationListener<ContextRefreshedEvent> {
 
+  static final String ORPHAN_REAPER_LEASE = "orphanReaper"
+
   @Autowired
   String roscoInstanceId
 
   @Value('${rosco.polling.polling-interval-seconds:15}')
   int pollingIntervalSeconds
 
+  @Value('${rosco.polling.min-polling-interval-seconds:5}')
+  long minPollingIntervalSeconds = 5
+
+  @Value('${rosco.polling.max-polling-interval-seconds:60}')
+  long maxPollingIntervalSeconds = 60
+
+  @Value('${rosco.polling.polling-jitter:0.1}')
+  double pollingJitter = 0.1
+
+  @Value('${rosco.polling.max-concurrent-polls:8}')
+  int maxConcurrentPolls = 8
+
+  @Value('${rosco.polling.poll-timeout-seconds:60}')
+  long pollTimeoutSeconds = 60
+
   @Value('${rosco.polling.orphaned-job-polling-interval-seconds:30}')
   int orphanedJobPollingIntervalSeconds
 
   @Value('${rosco.polling.orphaned-job-timeout-minutes:30}')
   long orphanedJobTimeoutMinutes
 
+  @Value('${rosco.polling.orphan-reaper-lease-seconds:90}')
+  long orphanReaperLeaseSeconds = 90
+
+  @Value('${rosco.polling.heartbeat-interval-seconds:5}')
+  long heartbeatIntervalSeconds = 5
+
+  @Value('${rosco.polling.heartbeat-timeout-seconds:20}')
+  long heartbeatTimeoutSeconds = 20
+
+  @Value('${rosco.polling.completion.threads:4}')
+  int completionThreads = 4
+
+  @Value('${rosco.polling.completion.queue-size:100}')
+  int completionQueueSize = 100
+
+  @Value('${rosco.polling.completion.max-attempts:3}')
+  int completionMaxAttempts = 3
+
+  @Value('${rosco.polling.completion.retry-backoff-millis:1000}')
+  long completionRetryBackoffMillis = 1000
+
   @Autowired
   BakeStore bakeStore
 
@@ -71,37 +151,99 @@ class BakePoller implements ApplicationListener<ContextRefreshedEvent> {
   @Autowired
   Registry registry
 
+  @Autowired(required = false)
+  BakeDrainer bakeDrainer
+
+  // The bakes being polled right now, and when each bake was last polled.
+  private final Map<String, Long> inFlightPolls = new ConcurrentHashMap<>()
+  private final Map<String, Long> lastPolled = new ConcurrentHashMap<>()
+
+  // Bakes that completed since the incomplete bakes were last read, so a cycle doesn't poll them again.
+  private final Set<String> completedBakeIds = ConcurrentHashMap.newKeySet()
+
+  // Bakes whose jobs have completed but whose details are still being stored.
+  private final Set<String> completingBakeIds = ConcurrentHashMap.newKeySet()
+
+  // Until the polling agent starts, bakes are completed on the thread that polled them.
+  Executor completionExecutor
+
+  @Lazy
+  BakePollingSchedule pollingSchedule = new BakePollingSchedule(TimeUnit.SECONDS.toMillis(minPollingIntervalSeconds),
+                                                                TimeUnit.SECONDS.toMillis(maxPollingIntervalSeconds),
+                                                                pollingJitter,
+                                                                executor.publishesJobCompletedEvents())
+
+  private volatile long lastRegistrationRefresh
+
+  private final AtomicBoolean orphanReaperLeader = new AtomicBoolean()
+
   @Override
   void onApplicationEvent(ContextRefreshedEvent event) {
     log.info("Starting polling agent for rosco instance $roscoInstanceId...")
 
+    completionExecutor = completionExecutor ?: new ThreadPoolExecutor(
+      completionThreads, completionThreads, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<Runnable>(completionQueueSize),
+      new CustomizableThreadFactory("bakeCompletion-"),
+      new ThreadPoolExecutor.CallerRunsPolicy()
+    )
+
+    registry.gauge(registry.createId("bakeCompletionsPending"), completingBakeIds, { Set<String> bakeIds ->
+      bakeIds.size()
+    } as ToDoubleFunction<Set<String>>)
+
     // Update this rosco instance's incomplete bakes.
     Schedulers.io().createWorker().schedulePeriodically(
       {
+        long now = registry.clock().wallTime()
+
+        if (now - lastRegistrationRefresh >= TimeUnit.SECONDS.toMillis(pollingIntervalSeconds)) {
+          try {
+            bakeStore.refreshInstanceRegistration()
+            lastRegistrationRefresh = now
+          } catch (Exception e) {
+            log.error("Instance Registration Error:", e)
+          }
+        }
+
         try {
-          rx.Observable.from(bakeStore.thisInstanceIncompleteBakeIds)
-            .subscribe(
-              { String incompleteBakeId ->
-                try {
-                  updateBakeStatusAndLogs(incompleteBakeId)
-                } catch (Exception e) {
-                  log.error("Update Polling Error:", e)
-                }
-              },
-              {
-                log.error("Update Error: ${it.message}")
-              },
-              {} as Action0
-            )
+          pollIncompleteBakes()
         } catch (Exception e) {
           log.error("Update Polling Error:", e)
         }
-      } as Action0, 0, pollingIntervalSeconds, TimeUnit.SECONDS
+      } as Action0, 0, Math.min(minPollingIntervalSeconds, pollingIntervalSeconds), TimeUnit.SECONDS
     )
 
+    // Let the other rosco instances know this one is alive.
+    Schedulers.io().createWorker().schedulePeriodically(
+      {
+        try {
+          bakeStore.acquireLease(heartbeatLease(roscoInstanceId), TimeUnit.SECONDS.toMillis(heartbeatTimeoutSeconds))
+          bakeStore.recordHeartbeating()
+        } catch (Exception e) {
+          log.error("Heartbeat Error:", e)
+        }
+      } as Action0, 0, heartbeatIntervalSeconds, TimeUnit.SECONDS
+    )
+
+    registry.gauge(registry.createId("orphanReaperLeader"), orphanReaperLeader, { AtomicBoolean leader ->
+      leader.get() ? 1 : 0
+    } as ToDoubleFunction<AtomicBoolean>)
+
     // Check _all_ rosco instances' incomplete bakes for staleness.
     Schedulers.io().createWorker().schedulePeriodically(
       {
+        if (!holdsOrphanReaperLease()) {
+          return
+        }
+
+        try {
+          // An instance that has not been heard from in this long has gone away, along with any bakes it owned.
+          bakeStore.expireInstances(TimeUnit.MINUTES.toMillis(orphanedJobTimeoutMinutes))
+        } catch (Exception e) {
+          log.error("Instance Expiry Error:", e)
+        }
+
         try {
           rx.Observable.from(bakeStore.allIncompleteBakeIds.entrySet())
             .subscribe(
@@ -111,10 +253,22 @@ class BakePoller implements ApplicationListener<ContextRefreshedEvent> {
 
                 if (roscoInstanceId != this.roscoInstanceId) {
                   try {
-                    rx.Observable.from(incompleteBakeIds)
+                    if (hasStoppedHeartbeating(roscoInstanceId)) {
+                      reclaimOrphanedBakes(roscoInstanceId, incompleteBakeIds)
+                      return
+                    }
+
+                    if (bakeStore.isLeaseHeld(BakeDrainer.drainingLease(roscoInstanceId))) {
+                      incompleteBakeIds = adoptDrainingBakes(roscoInstanceId, incompleteBakeIds)
+                    }
+
+                    Map<String, BakeStatus> bakeStatuses = bakeStore.retrieveBakeStatusesByIds(incompleteBakeIds)
+
+                    rx.Observable.from(bakeStatuses.entrySet())
                       .subscribe(
-                        { String statusId ->
-                          BakeStatus bakeStatus = bakeStore.retrieveBakeStatusById(statusId)
+                        { Map.Entry<String, BakeStatus> bakeStatusEntry ->
+                          String statusId = bakeStatusEntry.key
+                          BakeStatus bakeStatus = bakeStatusEntry.value
 
                           // The updatedTimestamp key will not be present if the in-flight bake is managed by an
                           // older-style (i.e. rosco/rush) rosco instance.
@@ -131,17 +285,7 @@ class BakePoller implements ApplicationListener<ContextRefreshedEvent> {
                                        "value of orphanedJobTimeoutMinutes ($orphanedJobTimeoutMinutes minutes)" +
                                        "(executionId: $bakeRequest.spinnaker_execution_id).")
 
-                              boolean cancellationSucceeded = bakeStore.cancelBakeById(statusId)
-
-                              if (!cancellationSucceeded) {
-                                bakeStore.removeFromIncompletes(roscoInstanceId, statusId)
-                              }
-
-                              // This will have the most up-to-date timestamp.
-                              bakeStatus = bakeStore.retrieveBakeStatusById(statusId)
-                              def tags = [success: "false", cause: "orphanTimedOut", region: bakeStore.retrieveRegionById(statusId)]
-                              long millis = bakeStatus.updatedTimestamp - bakeStatus.createdTimestamp
-                              registry.timer(registry.createId("bakesCompleted", tags)).record(millis, TimeUnit.MILLISECONDS)
+                              cancelOrphanedBake(roscoInstanceId, statusId, "orphanTimedOut")
                             }
                           }
                         },
@@ -167,14 +311,233 @@ class BakePoller implements ApplicationListener<ContextRefreshedEvent> {
     )
   }
 
+  /**
+   * Whether a rosco instance has stopped heartbeating. Older rosco instances never heartbeat, so only instances that
+   * have recorded heartbeating in the bake store count, whichever instance held the orphan reaper lease at the time.
+   */
+  boolean hasStoppedHeartbeating(String roscoInstanceId) {
+    return !bakeStore.isLeaseHeld(heartbeatLease(roscoInstanceId)) && bakeStore.hasRecordedHeartbeating(roscoInstanceId)
+  }
+
+  /**
+   * Take over the bakes of a rosco instance that has gone away. Bakes whose jobs this instance's job executor can see
+   * are adopted and polled from now on; the rest died with their instance and are canceled.
+   */
+  void reclaimOrphanedBakes(String roscoInstanceId, Set<String> incompleteBakeIds) {
+    log.info("Rosco instance $roscoInstanceId has stopped heartbeating, reclaiming its ${incompleteBakeIds.size()} " +
+             "incomplete bakes.")
+
+    incompleteBakeIds.each { String statusId ->
+      try {
+        if (executor.jobExists(statusId)) {
+          if (bakeStore.adoptBake(roscoInstanceId, statusId)) {
+            log.info("Adopted bake $statusId from rosco instance $roscoInstanceId.")
+            registry.counter(registry.createId("orphanedBakesAdopted")).increment()
+          }
+        } else {
+          cancelOrphanedBake(roscoInstanceId, statusId, "ownerGone")
+        }
+      } catch (Exception e) {
+        log.error("Zombie Killer Polling Error:", e)
+      }
+    }
+
+    // Any bake that couldn't be reclaimed is left to time out.
+    bakeStore.forgetHeartbeating(roscoInstanceId)
+  }
+
+  /**
+   * Take over the bakes of a draining rosco instance whose jobs this instance's job executor can see. Returns the bakes
+   * left to the draining instance.
+   */
+  Set<String> adoptDrainingBakes(String roscoInstanceId, Set<String> incompleteBakeIds) {
+    return incompleteBakeIds.findAll { String statusId ->
+      try {
+        if (executor.jobExists(statusId) && bakeStore.adoptBake(roscoInstanceId, statusId)) {
+          log.info("Adopted bake $statusId from draining rosco instance $roscoInstanceId.")
+          registry.counter(registry.createId("drainedBakesAdopted")).increment()
+
+          return false
+        }
+      } catch (Exception e) {
+        log.error("Zombie Killer Polling Error:", e)
+      }
+
+      return true
+    } as Set<String>
+  }
+
+  private void cancelOrphanedBake(String roscoInstanceId, String statusId, String cause) {
+    boolean cancellationSucceeded = bakeStore.cancelBakeById(statusId)
+
+    if (!cancellationSucceeded) {
+      bakeStore.removeFromIncompletes(roscoInstanceId, statusId)
+    }
+
+    // This will have the most up-to-date timestamp.
+    BakeStatus bakeStatus = bakeStore.retrieveBakeStatusById(statusId)
+
+    if (bakeStatus) {
+      def tags = [success: "false", cause: cause, region: bakeStore.retrieveRegionById(statusId)]
+      long millis = bakeStatus.updatedTimestamp - bakeStatus.createdTimestamp
+      registry.timer(registry.createId("bakesCompleted", tags)).record(millis, TimeUnit.MILLISECONDS)
+    }
+
+    registry.counter(registry.createId("orphanedBakesReaped", [cause: cause])).increment()
+  }
+
+  static String heartbeatLease(String roscoInstanceId) {
+    return "heartbeat:$roscoInstanceId"
+  }
+
+  /**
+   * Acquire or renew the orphan reaper lease, and return whether this instance holds it.
+   */
+  boolean holdsOrphanReaperLease() {
+    boolean leader = false
+
+    try {
+      if (bakeDrainer?.draining) {
+        // Renewing the lease for a millisecond lets another instance take over at once.
+        if (orphanReaperLeader.get()) {
+          bakeStore.acquireLease(ORPHAN_REAPER_LEASE, 1)
+        }
+      } else {
+        leader = bakeStore.acquireLease(ORPHAN_REAPER_LEASE, TimeUnit.SECONDS.toMillis(orphanReaperLeaseSeconds))
+      }
+    } catch (Exception e) {
+      log.error("Orphan Reaper Lease Error:", e)
+    }
+
+    if (orphanReaperLeader.getAndSet(leader) != leader) {
+      if (leader) {
+        log.info("Rosco instance $roscoInstanceId is now looking for orphaned bakes.")
+        registry.counter(registry.createId("orphanReaperLeadershipAcquired")).increment()
+      } else {
+        log.info("Rosco instance $roscoInstanceId is no longer looking for orphaned bakes.")
+      }
+    }
+
+    return leader
+  }
+
+  /**
+   * Poll each of this instance's incomplete bakes that is due and isn't still being polled, maxConcurrentPolls at a
+   * time. Returns once every poll has completed or timed out.
+   */
+  void pollIncompleteBakes() {
+    long cycleStart = registry.clock().monotonicTime()
+    long now = registry.clock().wallTime()
+    Set<String> incompleteBakeIds = bakeStore.thisInstanceIncompleteBakeIds
+
+    lastPolled.keySet().retainAll(incompleteBakeIds)
+    completedBakeIds.retainAll(incompleteBakeIds)
+
+    // Bakes are as old as their stored creation time, however recently this instance picked them up.
+    Set<String> untrackedBakeIds = pollingSchedule.untracked(incompleteBakeIds)
+    Map<String, Long> createdTimestamps = untrackedBakeIds ? bakeStore.retrieveBakeStatusesByIds(untrackedBakeIds).collectEntries { String bakeId, BakeStatus bakeStatus ->
+      [(bakeId): bakeStatus.createdTimestamp]
+    } : [:]
+
+    pollingSchedule.track(incompleteBakeIds, createdTimestamps, now)
+
+    rx.Observable.from(pollingSchedule.due(now))
+      .filter { String incompleteBakeId ->
+        if (inFlightPolls.containsKey(incompleteBakeId)) {
+          registry.counter(registry.createId("bakePollsSkipped", [cause: "inFlight"])).increment()
+          return false
+        }
+
+        return true
+      }
+      .flatMap({ String incompleteBakeId -> pollBake(incompleteBakeId) }, maxConcurrentPolls)
+      .toBlocking()
+      .lastOrDefault(null)
+
+    registry.timer(registry.createId("bakePollCycles"))
+      .record(registry.clock().monotonicTime() - cycleStart, TimeUnit.NANOSECONDS)
+  }
+
+  @EventListener
+  void onJobCompleted(JobCompletedEvent event) {
+    // A job can finish before its bake is stored; the next polling cycle picks those up.
+    if (!bakeStore.retrieveBakeStatusById(event.jobId)?.state?.incomplete) {
+      return
+    }
+
+    log.info("Job $event.jobId completed, polling its bake...")
+
+    pollBake(event.jobId).subscribe(
+      {} as Action1<String>,
+      { Throwable t -> log.error("Update Polling Error:", t) } as Action1<Throwable>
+    )
+  }
+
+  private rx.Observable<String> pollBake(String statusId) {
+    return rx.Observable.fromCallable(
+      {
+        long pollStart = registry.clock().monotonicTime()
+
+        // A poll abandoned by an earlier cycle may still be running.
+        if (inFlightPolls.putIfAbsent(statusId, pollStart) != null) {
+          return statusId
+        }
+
+        if (completedBakeIds.contains(statusId) || completingBakeIds.contains(statusId)) {
+          inFlightPolls.remove(statusId)
+          return statusId
+        }
+
+        try {
+          Long previousPoll = lastPolled.put(statusId, pollStart)
+
+          if (previousPoll != null) {
+            registry.timer(registry.createId("bakePollLag")).record(pollStart - previousPoll, TimeUnit.NANOSECONDS)
+          }
+
+          if (!pollingSchedule.hasRecipe(statusId)) {
+            pollingSchedule.setRecipe(statusId, recipeOf(bakeStore.retrieveBakeRequestById(statusId)))
+          }
+
+          updateBakeStatusAndLogs(statusId)
+        } catch (Exception e) {
+          log.error("Update Polling Error:", e)
+        } finally {
+          pollingSchedule.polled(statusId, registry.clock().wallTime())
+          inFlightPolls.remove(statusId)
+        }
+
+        return statusId
+      } as Callable<String>)
+      .subscribeOn(Schedulers.io())
+      .timeout(pollTimeoutSeconds, TimeUnit.SECONDS)
+      .onErrorResumeNext({ Throwable t ->
+        log.warn("Polling bake $statusId took more than $pollTimeoutSeconds seconds; it will not be polled again " +
+                 "until the poll returns.")
+        registry.counter(registry.createId("bakePollsSkipped", [cause: "timeout"])).increment()
+
+        return rx.Observable.<String>empty()
+      } as Func1<Throwable, rx.Observable<String>>)
+  }
+
+  /**
+   * Bakes of the same packages on the same base image and cloud provider are expected to take about as long.
+   */
+  private static String recipeOf(BakeRequest bakeRequest) {
+    return bakeRequest ? [bakeRequest.cloud_provider_type, bakeRequest.base_os, bakeRequest.package_name].join(":") : ""
+  }
+
   void updateBakeStatusAndLogs(String statusId) {
     BakeStatus bakeStatus = executor.updateJob(statusId)
     def tags
 
     if (bakeStatus) {
       if (bakeStatus.state == BakeStatus.State.COMPLETED) {
-        completeBake(statusId, bakeStatus.logsContent)
-        tags = [success: "true"]
+        // The job has finished, so its status must not be stored until the bake's details are.
+        completingBakeIds.add(statusId)
+        submitCompletion(statusId, bakeStatus)
+
+        return
       } else if (bakeStatus.state == BakeStatus.State.CANCELED) {
         tags = [success: "false", cause: "jobFailed"]
       }
@@ -190,39 +553,99 @@ class BakePoller implements ApplicationListener<ContextRefreshedEvent> {
     }
 
     if (tags) {
-      // This will have the most up-to-date timestamp.
-      bakeStatus = bakeStore.retrieveBakeStatusById(statusId)
+      recordBakeCompleted(statusId, tags)
+    }
+  }
+
+  private void submitCompletion(String statusId, BakeStatus bakeStatus) {
+    Runnable completion = { finishBake(statusId, bakeStatus) } as Runnable
+
+    if (completionExecutor) {
+      completionExecutor.execute(completion)
+    } else {
+      completion.run()
+    }
+  }
+
+  /**
+   * Store the details and then the status of a bake whose job has completed, retrying up to completionMaxAttempts
+   * times. A bake that still can't be completed is canceled.
+   */
+  void finishBake(String statusId, BakeStatus bakeStatus) {
+    try {
+      def tags = [success: "true"]
+
+      for (int attempt = 1; ; attempt++) {
+        try {
+          completeBake(statusId, bakeStatus.logsContent)
+          timeCompletionStep("storeStatus") { bakeStore.updateBakeStatus(bakeStatus) }
+
+          break
+        } catch (Exception e) {
+          if (attempt >= completionMaxAttempts) {
+            log.error("Unable to complete bake $statusId after $attempt attempts:", e)
+            bakeStore.storeBakeError(statusId, "Unable to complete bake '$statusId'.")
+            bakeStore.cancelBakeById(statusId)
 
-      if (bakeStatus) {
-        tags.region = bakeStore.retrieveRegionById(statusId)
-        long millis = bakeStatus.updatedTimestamp - bakeStatus.createdTimestamp
-        registry.timer(registry.createId("bakesCompleted", tags)).record(millis, TimeUnit.MILLISECONDS)
+            tags = [success: "false", cause: "completionFailed"]
+            break
+          }
+
+          log.warn("Completing bake $statusId failed (attempt $attempt of $completionMaxAttempts), retrying...", e)
+          registry.counter(registry.createId("bakeCompletionRetries")).increment()
+          Thread.sleep(completionRetryBackoffMillis * attempt)
+        }
       }
+
+      recordBakeCompleted(statusId, tags)
+    } catch (Exception e) {
+      log.error("Bake Completion Error:", e)
+    } finally {
+      completingBakeIds.remove(statusId)
     }
   }
 
+  private void recordBakeCompleted(String statusId, Map<String, String> tags) {
+    completedBakeIds.add(statusId)
+
+    // This will have the most up-to-date timestamp.
+    BakeStatus bakeStatus = bakeStore.retrieveBakeStatusById(statusId)
+
+    if (bakeStatus) {
+      tags.region = bakeStore.retrieveRegionById(statusId)
+      long millis = bakeStatus.updatedTimestamp - bakeStatus.createdTimestamp
+      registry.timer(registry.createId("bakesCompleted", tags)).record(millis, TimeUnit.MILLISECONDS)
+
+      // Only successful bakes say how long a recipe takes.
+      pollingSchedule.completed(statusId, tags.success == "true" ? millis : 0)
+    }
+  }
 
   void completeBake(String bakeId, String logsContent) {
     if (logsContent) {
-      def cloudProvider = bakeStore.retrieveCloudProviderById(bakeId)
+      BakeCompletionContext context = timeCompletionStep("read") { bakeStore.retrieveBakeCompletionContextById(bakeId) }
+      def cloudProvider = context?.cloudProvider
 
       if (cloudProvider) {
         def cloudProviderType = BakeRequest.CloudProviderType.valueOf(cloudProvider)
         def cloudProviderBakeHandler = cloudProviderBakeHandlerRegistry.lookup(cloudProviderType)
 
         if (cloudProviderBakeHandler) {
-          String region = bakeStore.retrieveRegionById(bakeId)
+          String region = context.region
           cloudProviderBakeHandler.deleteArtifactFile(bakeId)
 
           if (region) {
-            Bake bakeDetails = cloudProviderBakeHandler.scrapeCompletedBakeResults(region, bakeId, logsContent)
+            Bake bakeDetails = timeCompletionStep("scrape") {
+              cloudProviderBakeHandler.scrapeCompletedBakeResults(region, bakeId, logsContent)
+            }
 
             if (bakeDetails) {
-              BakeRequest bakeRequest = bakeStore.retrieveBakeRequestById(bakeId)
-              BakeRecipe bakeRecipe = bakeStore.retrieveBakeRecipeById(bakeId)
-              bakeDetails.artifact = cloudProviderBakeHandler.produceArtifactDecorationFrom(
-                bakeRequest, bakeRecipe, bakeDetails, cloudProvider, region
-              )
+              BakeRecipe bakeRecipe = context.bakeRecipe
+              bakeDetails.artifact = timeCompletionStep("decorate") {
+                cloudProviderBakeHandler.produceArtifactDecorationFrom(
+                  context.bakeRequest, bakeRecipe, bakeDetails, cloudProvider, region
+                )
+              }
 
               // The artifacts that are found does not have the complete context as they are extracted from the logs.
               bakeDetails.artifacts = bakeDetails.artifacts.collect { Artifact artifact ->
@@ -232,7 +655,7 @@ class BakePoller implements ApplicationListener<ContextRefreshedEvent> {
                   .build()
               }
 
-              bakeStore.updateBakeDetails(bakeDetails)
+              timeCompletionStep("storeDetails") { bakeStore.updateBakeDetails(bakeDetails) }
             }
 
             return
@@ -243,4 +666,22 @@ class BakePoller implements ApplicationListener<ContextRefreshedEvent> {
 
     log.error("Unable to retrieve bake details for '$bakeId'.")
   }
+
+  private <T> T timeCompletionStep(String step, Closure<T> closure) {
+    long start = registry.clock().monotonicTime()
+
+    try {
+      return closure.call()
+    } finally {
+      registry.timer(registry.createId("bakeCompletionSteps", [step: step]))
+        .record(registry.clock().monotonicTime() - start, TimeUnit.NANOSECONDS)
+    }
+  }
+
+  @PreDestroy
+  void stop() {
+    if (completionExecutor instanceof ExecutorService) {
+      ((ExecutorService) completionExecutor).shutdown()
+    }
+  }
 }
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.executor
+
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+
+import java.util.concurrent.ThreadLocalRandom
+
+/**
+ * Decides when each of this instance's incomplete bakes is next polled, and keeps the bakes ordered by when they are
+ * due.
+ *
+ * Bakes are polled as soon as they are first seen. After that, a bake whose recipe has completed before is polled
+ * every half of its expected remaining time, so polls close in on the expected completion, and a bake with no history
+ * or that has run past its expected duration is polled less often the older it gets. A bake's age is counted from when
+ * it was created, so bakes picked up from another instance aren't treated as new.
+ *
+ * When the job executor publishes job completions, a bake is polled as soon as its job completes, so polls only keep
+ * its status and logs fresh: they back off with the bake's age and don't close in on its expected completion.
+ *
+ * Intervals are kept between minIntervalMillis and maxIntervalMillis and spread by +/- jitter so bakes started together
+ * aren't polled together.
+ */
+class BakePollingSchedule {
+
+  // The weight given to each newly completed bake in a recipe's expected duration.
+  private static final double DURATION_WEIGHT = 0.3
+
+  // The fraction of its age that a bake without a useful expected duration waits between polls.
+  private static final double AGE_FRACTION = 0.2
+
+  private final long minIntervalMillis
+  private final long maxIntervalMillis
+  private final double jitter
+  private final boolean completionsPublished
+
+  private final Map<String, ScheduledBake> scheduledBakes = [:]
+  private final PriorityQueue<ScheduledPoll> polls = new PriorityQueue<>()
+  private final Cache<String, Long> expectedDurations = Caffeine.newBuilder().maximumSize(10_000).build()
+
+  BakePollingSchedule(long minIntervalMillis, long maxIntervalMillis, double jitter, boolean completionsPublished) {
+    this.minIntervalMillis = minIntervalMillis
+    this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis)
+    this.jitter = jitter
+    this.completionsPublished = completionsPublished
+  }
+
+  /**
+   * The bakes in incompleteBakeIds that aren't scheduled yet.
+   */
+  synchronized Set<String> untracked(Set<String> incompleteBakeIds) {
+    return incompleteBakeIds.findAll { String bakeId -> !scheduledBakes.containsKey(bakeId) }
+  }
+
+  /**
+   * Start scheduling bakes that are new in incompleteBakeIds, due right away, and stop scheduling bakes that aren't in
+   * it anymore. New bakes are as old as their entry in createdTimestamps says; those without one are created at now.
+   */
+  synchronized void track(Set<String> incompleteBakeIds, Map<String, Long> createdTimestamps, long now) {
+    scheduledBakes.keySet().retainAll(incompleteBakeIds)
+
+    incompleteBakeIds.each { String bakeId ->
+      if (!scheduledBakes.containsKey(bakeId)) {
+        Long createdTimestamp = createdTimestamps[bakeId]
+
+        schedule(new ScheduledBake(bakeId: bakeId, createdTimestamp: createdTimestamp ? Math.min(createdTimestamp, now) : now), now)
+      }
+    }
+  }
+
+  /**
+   * The bakes due to be polled at now, soonest due first. They stay due until they have been polled.
+   */
+  synchronized List<String> due(long now) {
+    List<String> dueBakeIds = []
+    List<ScheduledPoll> duePolls = []
+
+    while (polls.peek() && polls.peek().dueAt <= now) {
+      ScheduledPoll poll = polls.poll()
+
+      // Polls of bakes that were rescheduled or dropped are left in the queue until they come up.
+      if (scheduledBakes[poll.bakeId]?.dueAt == poll.dueAt) {
+        dueBakeIds << poll.bakeId
+        duePolls << poll
+      }
+    }
+
+    polls.addAll(duePolls)
+
+    return dueBakeIds
+  }
+
+  synchronized boolean hasRecipe(String bakeId) {
+    return scheduledBakes[bakeId]?.recipe != null
+  }
+
+  /**
+   * Set what recipe a bake follows, so its expected duration can be looked up. Bakes of the same recipe are expected to
+   * take about as long as each other.
+   */
+  synchronized void setRecipe(String bakeId, String recipe) {
+    scheduledBakes[bakeId]?.recipe = recipe
+  }
+
+  /**
+   * Schedule the next poll of a bake that was just polled.
+   */
+  synchronized void polled(String bakeId, long now) {
+    ScheduledBake scheduledBake = scheduledBakes[bakeId]
+
+    if (scheduledBake) {
+      schedule(scheduledBake, now + nextInterval(scheduledBake, now))
+    }
+  }
+
+  /**
+   * Record how long a bake took, and stop scheduling it.
+   */
+  synchronized void completed(String bakeId, long durationMillis) {
+    ScheduledBake scheduledBake = scheduledBakes.remove(bakeId)
+
+    if (scheduledBake?.recipe && durationMillis > 0) {
+      Long expectedDuration = expectedDurations.getIfPresent(scheduledBake.recipe)
+
+      expectedDurations.put(scheduledBake.recipe, expectedDuration == null
+        ? durationMillis
+        : Math.round(DURATION_WEIGHT * durationMillis + (1 - DURATION_WEIGHT) * expectedDuration))
+    }
+  }
+
+  Long getExpectedDuration(String recipe) {
+    return expectedDurations.getIfPresent(recipe)
+  }
+
+  long nextInterval(ScheduledBake scheduledBake, long now) {
+    long age = now - scheduledBake.createdTimestamp
+    Long expectedDuration = scheduledBake.recipe ? expectedDurations.getIfPresent(scheduledBake.recipe) : null
+    double interval
+
+    if (completionsPublished) {
+      interval = age * AGE_FRACTION
+    } else if (expectedDuration != null && expectedDuration > age) {
+      interval = (expectedDuration - age) / 2
+    } else {
+      interval = (age - (expectedDuration ?: 0)) * AGE_FRACTION
+    }
+
+    interval *= 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1)
+
+    return Math.min(maxIntervalMillis, Math.max(minIntervalMillis, Math.round(interval)))
+  }
+
+  private void schedule(ScheduledBake scheduledBake, long dueAt) {
+    scheduledBake.dueAt = dueAt
+    scheduledBakes[scheduledBake.bakeId] = scheduledBake
+    polls.add(new ScheduledPoll(bakeId: scheduledBake.bakeId, dueAt: dueAt))
+  }
+
+  static class ScheduledBake {
+    String bakeId
+    String recipe
+    long createdTimestamp
+    long dueAt
+  }
+
+  static class ScheduledPoll implements Comparable<ScheduledPoll> {
+    String bakeId
+    long dueAt
+
+    @Override
+    int compareTo(ScheduledPoll other) {
+      return Long.compare(dueAt, other.dueAt)
+    }
+  }
+}
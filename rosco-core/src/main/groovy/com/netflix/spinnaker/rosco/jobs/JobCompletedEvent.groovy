@@ -0,0 +1,34 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.jobs
+
+import org.springframework.context.ApplicationEvent
+
+/**
+ * Published by a job executor as soon as it learns that a job has finished, so the bake can be updated right away
+ * rather than at the next polling interval. Executors that can't tell when jobs finish are simply polled.
+ */
+class JobCompletedEvent extends ApplicationEvent {
+
+  final String jobId
+
+  JobCompletedEvent(Object source, String jobId) {
+    super(source)
+    this.jobId = jobId
+  }
+}
@@ -24,4 +24,12 @@ interface JobExecutor {
   BakeStatus updateJob(String jobId)
   void cancelJob(String jobId)
   int runningJobCount()
+
+  /**
+   * Whether a JobCompletedEvent is published as soon as each job completes, so its bake needn't be polled to notice.
+   * Executors that don't publish them needn't override this.
+   */
+  default boolean publishesJobCompletedEvents() {
+    return false
+  }
 }
\ No newline at end of file
@@ -31,6 +31,10 @@ class JobRequest {
   String executionId
   /** Whether to merge command output and error streams. */
   boolean combineStdOutAndErr = true
+  /** The cloud provider the job bakes for. Only bakes are subject to the executor's concurrency limits. */
+  String cloudProvider
+  /** Among jobs waiting to start, those with a higher priority start first. */
+  int priority
 
   List<String> getMaskedTokenizedCommand() {
     return tokenizedCommand.collect { String masked ->
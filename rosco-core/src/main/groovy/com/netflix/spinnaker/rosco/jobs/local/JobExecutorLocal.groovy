@@ -18,40 +18,128 @@ package com.netflix.spinnaker.rosco.jobs.local
 
 import com.netflix.spectator.api.Registry
 import com.netflix.spinnaker.rosco.api.BakeStatus
+import com.netflix.spinnaker.rosco.jobs.JobCompletedEvent
 import com.netflix.spinnaker.rosco.jobs.JobExecutor
+import com.netflix.spinnaker.rosco.jobs.JobQueueFullException
 import com.netflix.spinnaker.rosco.jobs.JobRequest
+import groovy.transform.Canonical
 import groovy.util.logging.Slf4j
 import org.apache.commons.exec.CommandLine
 import org.apache.commons.exec.DefaultExecuteResultHandler
 import org.apache.commons.exec.DefaultExecutor
+import org.apache.commons.exec.ExecuteException
 import org.apache.commons.exec.ExecuteWatchdog
 import org.apache.commons.exec.Executor
 import org.apache.commons.exec.PumpStreamHandler
 import org.apache.commons.exec.Watchdog
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.beans.factory.annotation.Value
+import org.springframework.context.ApplicationEventPublisher
 import rx.Scheduler
 import rx.functions.Action0
 import rx.schedulers.Schedulers
 
 import javax.annotation.PostConstruct
+import java.nio.charset.StandardCharsets
 import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
 import java.util.function.ToDoubleFunction
 
+/**
+ * Runs jobs as local processes. The output of each job is captured in JobOutputBuffers, which hold at most
+ * rosco.jobs.local.max-buffered-output-bytes of it in memory and spill the rest to a temporary file in
+ * rosco.jobs.local.output-spill-directory. Each poll reads just the logs written since the last one, and reports them
+ * from that offset, including the last poll, once the job completes. Then its output is read in full, and no more
+ * than rosco.jobs.local.max-output-bytes of either stream is read at once. Where more logs are unread, only the last
+ * that many bytes of them are reported, since that is where bake results are scraped from; a job whose output, as
+ * opposed to its logs, is longer fails rather than report it cut short.
+ *
+ * At most rosco.jobs.local.max-concurrent-jobs bakes run at once, and, where
+ * rosco.jobs.local.max-concurrent-jobs-per-provider sets a limit for their cloud provider (e.g. {aws: 10, gce: 5}), at
+ * most that many of the provider's bakes. Further bakes wait in a queue, highest priority first and then in the order
+ * they arrived, and are reported as QUEUED until a slot frees up. Once rosco.jobs.local.max-queued-jobs bakes are
+ * waiting, startJob throws a JobQueueFullException. Jobs that don't bake for a cloud provider, such as manifest
+ * renders, are short and have callers waiting on them, so they always start right away.
+ */
 @Slf4j
 class JobExecutorLocal implements JobExecutor {
 
   @Value('${rosco.jobs.local.timeout-minutes:10}')
   long timeoutMinutes
 
+  @Value('${rosco.jobs.local.max-buffered-output-bytes:262144}')
+  int maxBufferedOutputBytes = 262144
+
+  // Defaults to the system's temporary-file directory.
+  @Value('${rosco.jobs.local.output-spill-directory:}')
+  String outputSpillDirectory
+
+  // How much of each output stream is read into memory once a job completes. 0 means no limit.
+  @Value('${rosco.jobs.local.max-output-bytes:16777216}')
+  long maxOutputBytes = 16777216
+
+  // 0 means no limit.
+  @Value('${rosco.jobs.local.max-concurrent-jobs:20}')
+  int maxConcurrentJobs = 20
+
+  @Value('#{${rosco.jobs.local.max-concurrent-jobs-per-provider:{:}}}')
+  Map<String, Integer> maxConcurrentJobsPerProvider = [:]
+
+  @Value('${rosco.jobs.local.max-queued-jobs:500}')
+  int maxQueuedJobs = 500
+
+  @Value('${rosco.jobs.local.queue-full-retry-after-seconds:30}')
+  long queueFullRetryAfterSeconds = 30
+
   @Autowired
   Registry registry
 
-  Scheduler scheduler = Schedulers.computation()
+  @Autowired(required = false)
+  ApplicationEventPublisher applicationEventPublisher
+
+  // Starting a job blocks while it spins up, so jobs are started on the io scheduler; how many run is bounded above.
+  Scheduler scheduler = Schedulers.io()
   Map<String, Map> jobIdToHandlerMap = new ConcurrentHashMap<String, Map>()
 
+  // Bakes waiting to start, in the order they are to start. The queue also guards the counts of running bakes.
+  private final NavigableSet<QueuedJob> queuedJobs = new TreeSet<QueuedJob>()
+  private final Map<String, Integer> runningJobsByProvider = [:]
+  private int runningJobs
+  private final AtomicLong queuedJobSequence = new AtomicLong()
+
   @Override
   String startJob(JobRequest jobRequest) {
+    String jobId = jobRequest.jobId
+
+    if (jobRequest.cloudProvider) {
+      synchronized (queuedJobs) {
+        if (hasCapacity(jobRequest.cloudProvider)) {
+          acquireSlot(jobRequest.cloudProvider)
+        } else if (queuedJobs.size() >= maxQueuedJobs) {
+          registry.counter(registry.createId("bakesRejected", [cause: "queueFull"])).increment()
+
+          throw new JobQueueFullException("Unable to start job $jobId: $maxQueuedJobs jobs are already waiting to start.",
+            queueFullRetryAfterSeconds)
+        } else {
+          log.info("Queueing job: $jobRequest.maskedTokenizedCommand (priority: $jobRequest.priority)...")
+
+          def queuedJob = new QueuedJob(jobRequest, queuedJobSequence.getAndIncrement())
+
+          // The job is known, and reported as QUEUED, until it has started.
+          jobIdToHandlerMap.put(jobId, [queuedJob: queuedJob, executionId: jobRequest.executionId])
+          queuedJobs.add(queuedJob)
+
+          return jobId
+        }
+      }
+    }
+
+    runJob(jobRequest, false)
+
+    return jobId
+  }
+
+  private void runJob(JobRequest jobRequest, boolean dequeued) {
     log.info("Starting job: $jobRequest.maskedTokenizedCommand...")
     String jobId = jobRequest.jobId
 
@@ -59,72 +147,122 @@ class JobExecutorLocal implements JobExecutor {
       new Action0() {
         @Override
         public void call() {
-          PumpStreamHandler pumpStreamHandler
-          ByteArrayOutputStream stdOut
-          ByteArrayOutputStream stdErr
-          if (jobRequest.combineStdOutAndErr) {
-            stdOut = new ByteArrayOutputStream()
-            stdErr = null
-            pumpStreamHandler = new PumpStreamHandler(stdOut)
-          } else {
-            stdOut = new ByteArrayOutputStream()
-            stdErr = new ByteArrayOutputStream()
-            pumpStreamHandler = new PumpStreamHandler(stdOut, stdErr)
+          // The job may have been canceled after it was taken off the queue.
+          if (dequeued && !jobIdToHandlerMap.containsKey(jobId)) {
+            releaseSlot(jobRequest)
+
+            return
           }
-          CommandLine commandLine
 
-          if (jobRequest.tokenizedCommand) {
-            log.info("Executing $jobId with tokenized command: $jobRequest.maskedTokenizedCommand " +
-              "(executionId: $jobRequest.executionId)")
+          JobOutputBuffer stdOut = null
+          JobOutputBuffer stdErr = null
+          DefaultExecuteResultHandler resultHandler
+          ExecuteWatchdog watchdog
+
+          // Until the job is executing, nothing else will free its slot.
+          try {
+            PumpStreamHandler pumpStreamHandler
+            if (jobRequest.combineStdOutAndErr) {
+              stdOut = newOutputBuffer()
+              pumpStreamHandler = new PumpStreamHandler(stdOut)
+            } else {
+              stdOut = newOutputBuffer()
+              stdErr = newOutputBuffer()
+              pumpStreamHandler = new PumpStreamHandler(stdOut, stdErr)
+            }
+            CommandLine commandLine
 
-            // Grab the first element as the command.
-            commandLine = new CommandLine(jobRequest.tokenizedCommand[0])
+            if (jobRequest.tokenizedCommand) {
+              log.info("Executing $jobId with tokenized command: $jobRequest.maskedTokenizedCommand " +
+                "(executionId: $jobRequest.executionId)")
 
-            // Treat the rest as arguments.
-            String[] arguments = Arrays.copyOfRange(jobRequest.tokenizedCommand.toArray(), 1, jobRequest.tokenizedCommand.size())
+              // Grab the first element as the command.
+              commandLine = new CommandLine(jobRequest.tokenizedCommand[0])
 
-            commandLine.addArguments(arguments, false)
-          } else {
-            log.info("No tokenizedCommand specified for $jobId. (executionId: $jobRequest.executionId)")
+              // Treat the rest as arguments.
+              String[] arguments = Arrays.copyOfRange(jobRequest.tokenizedCommand.toArray(), 1, jobRequest.tokenizedCommand.size())
 
-            throw new IllegalArgumentException("No tokenizedCommand specified for $jobId.")
-          }
+              commandLine.addArguments(arguments, false)
+            } else {
+              log.info("No tokenizedCommand specified for $jobId. (executionId: $jobRequest.executionId)")
 
-          DefaultExecuteResultHandler resultHandler = new DefaultExecuteResultHandler()
-          ExecuteWatchdog watchdog = new ExecuteWatchdog(timeoutMinutes * 60 * 1000){
-            @Override
-            void timeoutOccured(Watchdog w) {
-              // If a watchdog is passed in, this was an actual time-out. Otherwise, it is likely
-              // the result of calling watchdog.destroyProcess().
-              if (w) {
-                log.info("Job $jobId timed-out (after $timeoutMinutes minutes, executionId: $jobRequest.executionId)")
+              throw new IllegalArgumentException("No tokenizedCommand specified for $jobId.")
+            }
 
-                cancelJob(jobId)
+            resultHandler = new DefaultExecuteResultHandler() {
+              @Override
+              void onProcessComplete(int exitValue) {
+                super.onProcessComplete(exitValue)
+                releaseSlot(jobRequest)
+                publishJobCompleted(jobId)
               }
 
-              super.timeoutOccured(w)
+              @Override
+              void onProcessFailed(ExecuteException e) {
+                super.onProcessFailed(e)
+                releaseSlot(jobRequest)
+                publishJobCompleted(jobId)
+              }
             }
+            watchdog = new ExecuteWatchdog(timeoutMinutes * 60 * 1000){
+              @Override
+              void timeoutOccured(Watchdog w) {
+                // If a watchdog is passed in, this was an actual time-out. Otherwise, it is likely
+                // the result of calling watchdog.destroyProcess().
+                if (w) {
+                  log.info("Job $jobId timed-out (after $timeoutMinutes minutes, executionId: $jobRequest.executionId)")
+
+                  cancelJob(jobId)
+                }
+
+                super.timeoutOccured(w)
+              }
+            }
+            Executor executor = new DefaultExecutor()
+            executor.setStreamHandler(pumpStreamHandler)
+            executor.setWatchdog(watchdog)
+            executor.execute(commandLine, resultHandler)
+          } catch (Exception e) {
+            log.error("Unable to start job $jobId (executionId: $jobRequest.executionId).", e)
+
+            jobIdToHandlerMap.remove(jobId)
+            closeOutput([stdOut: stdOut, stdErr: stdErr])
+            releaseSlot(jobRequest)
+
+            throw e
           }
-          Executor executor = new DefaultExecutor()
-          executor.setStreamHandler(pumpStreamHandler)
-          executor.setWatchdog(watchdog)
-          executor.execute(commandLine, resultHandler)
 
           // Give the job some time to spin up.
           sleep(500)
 
-          jobIdToHandlerMap.put(jobId, [
+          Map job = [
             handler: resultHandler,
             watchdog: watchdog,
             stdOut: stdOut,
             stdErr: stdErr,
+            // How much of the logs has been reported so far, in bytes and in characters.
+            logsBytesRead: 0L,
+            logsCharsRead: 0L,
             executionId: jobRequest.executionId
-          ])
+          ]
+
+          if (!dequeued) {
+            jobIdToHandlerMap.put(jobId, job)
+          } else if (jobIdToHandlerMap.replace(jobId, job) == null) {
+            // The job was canceled while it spun up.
+            watchdog.destroyProcess()
+            closeOutput(job)
+
+            return
+          }
+
+          // Jobs that finished while spinning up weren't announced.
+          if (resultHandler.hasResult()) {
+            publishJobCompleted(jobId)
+          }
         }
       }
     )
-
-    return jobId
   }
 
   @Override
@@ -139,30 +277,38 @@ class JobExecutorLocal implements JobExecutor {
     try {
       log.info("Polling state for $jobId (executionId: $executionId)...")
 
-      if (jobIdToHandlerMap[jobId]) {
-        BakeStatus bakeStatus = new BakeStatus(id: jobId, resource_id: jobId)
-
-        DefaultExecuteResultHandler resultHandler
-        ByteArrayOutputStream stdOut
-        ByteArrayOutputStream stdErr
+      Map job = jobIdToHandlerMap[jobId]
 
-        jobIdToHandlerMap[jobId].with {
-          resultHandler = it.handler
-          stdOut = it.stdOut
-          stdErr = it.stdErr
-        }
+      if (job?.queuedJob) {
+        return new BakeStatus(id: jobId, resource_id: jobId, state: BakeStatus.State.QUEUED)
+      } else if (job) {
+        BakeStatus bakeStatus = new BakeStatus(id: jobId, resource_id: jobId)
 
-        String outputContent = new String(stdOut.toByteArray())
-        String logsContent = (stdErr == null) ? outputContent : new String(stdErr.toByteArray())
+        DefaultExecuteResultHandler resultHandler = job.handler
+        JobOutputBuffer stdOut = job.stdOut
+        JobOutputBuffer stdErr = job.stdErr
 
         if (resultHandler.hasResult()) {
           log.info("State for $jobId changed with exit code $resultHandler.exitValue (executionId: $executionId).")
 
-          if (!logsContent) {
-            logsContent = resultHandler.exception ? resultHandler.exception.message : "No output from command."
+          // The job is done, so its output is read once, and only as much of it as maxOutputBytes allows. Its logs
+          // are reported from where the last poll left off, as they are while it runs.
+          String noOutput = resultHandler.exception ? resultHandler.exception.message : "No output from command."
+          String logsContent = readOutput(stdErr ?: stdOut, job.logsBytesRead as long)
+          long logsOffset = job.logsCharsRead as long
+          boolean outputTooLong = stdErr != null && exceedsMaxOutputBytes(stdOut)
+          String outputContent = outputTooLong ? "" : readOutput(stdOut, 0) ?: (stdErr == null ? noOutput : "")
+
+          if (!logsContent && !logsOffset) {
+            logsContent = noOutput
           }
 
-          if (resultHandler.exitValue == 0) {
+          if (outputTooLong) {
+            log.warn("Output of job $jobId is longer than $maxOutputBytes bytes (executionId: $executionId).")
+            logsContent += "\nThe output of the job is longer than rosco.jobs.local.max-output-bytes ($maxOutputBytes bytes)."
+          }
+
+          if (resultHandler.exitValue == 0 && !outputTooLong) {
             bakeStatus.state = BakeStatus.State.COMPLETED
             bakeStatus.result = BakeStatus.Result.SUCCESS
           } else {
@@ -173,14 +319,29 @@ class JobExecutorLocal implements JobExecutor {
           }
 
           jobIdToHandlerMap.remove(jobId)
+          closeOutput(job)
+
+          bakeStatus.outputContent = outputContent
+
+          if (logsContent) {
+            bakeStatus.logsContent = logsContent
+            bakeStatus.logsOffset = logsOffset
+          }
         } else {
           bakeStatus.state = BakeStatus.State.RUNNING
-        }
 
-        bakeStatus.outputContent = outputContent
+          // Read just the logs written since the last poll, leaving any partly written character for the next one.
+          byte[] newLogs = (stdErr ?: stdOut).read(job.logsBytesRead as long)
+          int newLogsLength = JobOutputBuffer.completeUtf8Length(newLogs)
+          String logsContent = new String(newLogs, 0, newLogsLength, StandardCharsets.UTF_8)
 
-        if (logsContent) {
-          bakeStatus.logsContent = logsContent
+          if (logsContent) {
+            bakeStatus.logsContent = logsContent
+            bakeStatus.logsOffset = job.logsCharsRead as long
+
+            job.logsBytesRead += newLogsLength
+            job.logsCharsRead += logsContent.length()
+          }
         }
 
         return bakeStatus
@@ -205,17 +366,124 @@ class JobExecutorLocal implements JobExecutor {
     // Remove the job from this rosco instance's handler map.
     def canceledJob = jobIdToHandlerMap.remove(jobId)
 
-    // Terminate the process.
+    if (canceledJob?.queuedJob) {
+      // The job hasn't started; if it has just been taken off the queue, it won't start now.
+      synchronized (queuedJobs) {
+        queuedJobs.remove(canceledJob.queuedJob)
+      }
+
+      return
+    }
+
+    // Terminate the process; its slot is released once it exits.
     canceledJob?.watchdog?.destroyProcess()
 
+    if (canceledJob) {
+      closeOutput(canceledJob)
+    }
+
     // The next polling interval will be unable to retrieve the job status and will mark the bake as canceled.
   }
 
+  /**
+   * Announce that a job has finished, once it can be looked up. A job may be announced twice.
+   */
+  void publishJobCompleted(String jobId) {
+    if (applicationEventPublisher && jobIdToHandlerMap.containsKey(jobId)) {
+      applicationEventPublisher.publishEvent(new JobCompletedEvent(this, jobId))
+    }
+  }
+
+  private boolean hasCapacity(String cloudProvider) {
+    if (maxConcurrentJobs > 0 && runningJobs >= maxConcurrentJobs) {
+      return false
+    }
+
+    Integer maxProviderJobs = maxConcurrentJobsPerProvider[cloudProvider]
+
+    return !maxProviderJobs || runningJobsByProvider.getOrDefault(cloudProvider, 0) < maxProviderJobs
+  }
+
+  private void acquireSlot(String cloudProvider) {
+    runningJobs++
+    runningJobsByProvider[cloudProvider] = runningJobsByProvider.getOrDefault(cloudProvider, 0) + 1
+  }
+
+  /**
+   * Free the slot of a bake that has finished or failed to start, and start whichever queued bakes now fit.
+   */
+  private void releaseSlot(JobRequest jobRequest) {
+    if (!jobRequest.cloudProvider) {
+      return
+    }
+
+    List<QueuedJob> dequeuedJobs = []
+
+    synchronized (queuedJobs) {
+      runningJobs--
+      runningJobsByProvider[jobRequest.cloudProvider] = runningJobsByProvider[jobRequest.cloudProvider] - 1
+
+      // A bake held back by its provider's limit doesn't hold up the bakes of other providers behind it.
+      Iterator<QueuedJob> iterator = queuedJobs.iterator()
+
+      while (iterator.hasNext() && (maxConcurrentJobs <= 0 || runningJobs < maxConcurrentJobs)) {
+        QueuedJob queuedJob = iterator.next()
+
+        if (hasCapacity(queuedJob.jobRequest.cloudProvider)) {
+          iterator.remove()
+          acquireSlot(queuedJob.jobRequest.cloudProvider)
+          dequeuedJobs << queuedJob
+        }
+      }
+    }
+
+    dequeuedJobs.each { QueuedJob queuedJob ->
+      runJob(queuedJob.jobRequest, true)
+    }
+  }
+
+  protected JobOutputBuffer newOutputBuffer() {
+    return new JobOutputBuffer(maxBufferedOutputBytes, outputSpillDirectory ? new File(outputSpillDirectory) : null)
+  }
+
+  private boolean exceedsMaxOutputBytes(JobOutputBuffer output) {
+    return maxOutputBytes > 0 && output.size() > maxOutputBytes
+  }
+
+  /**
+   * Read the output from the given byte offset on, or, if more than maxOutputBytes of it are left, from the first whole
+   * character of its last maxOutputBytes bytes on, noting how much was left out.
+   */
+  private String readOutput(JobOutputBuffer output, long from) {
+    long offset = maxOutputBytes > 0 && output.size() - from > maxOutputBytes ? output.size() - maxOutputBytes : from
+    byte[] bytes = output.read(offset)
+    int start = offset > from ? JobOutputBuffer.partialUtf8Length(bytes) : 0
+    String content = new String(bytes, start, bytes.length - start, StandardCharsets.UTF_8)
+    long leftOut = offset + start - from
+
+    return leftOut > 0 ? "[$leftOut bytes of earlier output left out]\n$content" : content
+  }
+
+  private static void closeOutput(Map job) {
+    [job.stdOut, job.stdErr].each { JobOutputBuffer output ->
+      try {
+        output?.close()
+      } catch (IOException e) {
+        log.warn("Unable to discard job output:", e)
+      }
+    }
+  }
+
   @Override
   int runningJobCount() {
     return jobIdToHandlerMap.keySet().size()
   }
 
+  @Override
+  boolean publishesJobCompletedEvents() {
+    return applicationEventPublisher != null
+  }
+
   @PostConstruct
   void initializeMetrics() {
     // We need to have at least one tag.
@@ -226,5 +494,28 @@ class JobExecutorLocal implements JobExecutor {
         return jobIdToHandlerMap.size()
       }
     })
+    registry.gauge(registry.createId("bakesQueued", [queued: "true"]), queuedJobs, new ToDoubleFunction<Set>() {
+
+      @Override
+      double applyAsDouble(Set value) {
+        synchronized (queuedJobs) {
+          return queuedJobs.size()
+        }
+      }
+    })
+  }
+
+  /**
+   * A bake waiting to start. Bakes with a higher priority sort first, then those that arrived earlier.
+   */
+  @Canonical
+  static class QueuedJob implements Comparable<QueuedJob> {
+    JobRequest jobRequest
+    long sequence
+
+    @Override
+    int compareTo(QueuedJob other) {
+      return other.jobRequest.priority <=> jobRequest.priority ?: sequence <=> other.sequence
+    }
   }
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.jobs.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+
+/**
+ * Captures the output of a job. Only the most recent output, at most maxBufferedBytes of it, is held in memory; older
+ * output is spilled to a temporary file, created the first time it is needed. Output can be read back from any offset,
+ * so a reader that keeps track of how far it has read copies only what was written since.
+ *
+ * <p>Writes after the buffer is closed are discarded, since a canceled job's output may still be draining.
+ */
+public class JobOutputBuffer extends OutputStream {
+
+  private final byte[] buffer;
+
+  private final File spillDirectory;
+
+  private RandomAccessFile spillFile;
+
+  private File spillFilePath;
+
+  // The offset in the output of buffer[0], which is also how many bytes have been spilled.
+  private long bufferStart;
+
+  private int bufferLength;
+
+  private boolean closed;
+
+  /** spillDirectory may be null, to spill to the default temporary-file directory. */
+  public JobOutputBuffer(int maxBufferedBytes, File spillDirectory) {
+    this.buffer = new byte[Math.max(maxBufferedBytes, 1)];
+    this.spillDirectory = spillDirectory;
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[] {(byte) b}, 0, 1);
+  }
+
+  @Override
+  public synchronized void write(byte[] bytes, int offset, int length) throws IOException {
+    if (closed || length == 0) {
+      return;
+    }
+
+    if (bufferLength + length > buffer.length) {
+      spill(buffer, 0, bufferLength);
+      bufferStart += bufferLength;
+      bufferLength = 0;
+    }
+
+    if (length > buffer.length) {
+      spill(bytes, offset, length);
+      bufferStart += length;
+    } else {
+      System.arraycopy(bytes, offset, buffer, bufferLength, length);
+      bufferLength += length;
+    }
+  }
+
+  /** The number of bytes written so far. */
+  public synchronized long size() {
+    return bufferStart + bufferLength;
+  }
+
+  /** Whether any output had to be spilled to disk. */
+  public synchronized boolean hasSpilled() {
+    return spillFilePath != null;
+  }
+
+  /** Read the output written from offset on. */
+  public synchronized byte[] read(long offset) throws IOException {
+    if (closed) {
+      throw new IOException("The job output buffer is closed.");
+    }
+
+    offset = Math.max(0, Math.min(offset, size()));
+
+    byte[] bytes = new byte[(int) (size() - offset)];
+    int spilledLength = (int) Math.max(0, bufferStart - offset);
+
+    if (spilledLength > 0) {
+      spillFile.seek(offset);
+      spillFile.readFully(bytes, 0, spilledLength);
+    }
+
+    int bufferOffset = (int) Math.max(0, offset - bufferStart);
+    System.arraycopy(buffer, bufferOffset, bytes, spilledLength, bufferLength - bufferOffset);
+
+    return bytes;
+  }
+
+  /** Discard the output, deleting the spill file if there is one. */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+
+    closed = true;
+
+    if (spillFile != null) {
+      try {
+        spillFile.close();
+      } finally {
+        spillFilePath.delete();
+      }
+    }
+  }
+
+  private void spill(byte[] bytes, int offset, int length) throws IOException {
+    if (length == 0) {
+      return;
+    }
+
+    if (spillFile == null) {
+      spillFilePath = File.createTempFile("rosco-job-output-", ".log", spillDirectory);
+      spillFile = new RandomAccessFile(spillFilePath, "rw");
+    }
+
+    spillFile.seek(spillFile.length());
+    spillFile.write(bytes, offset, length);
+  }
+
+  /**
+   * The number of bytes at the start of bytes that finish a UTF-8 encoded character begun before them, so output read
+   * from an arbitrary offset can be decoded from its first whole character.
+   */
+  public static int partialUtf8Length(byte[] bytes) {
+    int length = 0;
+
+    // A character is at most 4 bytes long, so at most 3 of its bytes follow the first.
+    while (length < Math.min(bytes.length, 3) && (bytes[length] & 0xC0) == 0x80) {
+      length++;
+    }
+
+    return length;
+  }
+
+  /**
+   * The length of the longest prefix of bytes that doesn't end part way through a UTF-8 encoded character, so output
+   * read while it is still being written can be decoded a piece at a time.
+   */
+  public static int completeUtf8Length(byte[] bytes) {
+    int length = bytes.length;
+
+    // A character is at most 4 bytes long, so its first byte is at most 3 bytes from the end.
+    for (int i = length - 1; i >= Math.max(0, length - 4); i--) {
+      int b = bytes[i] & 0xFF;
+
+      if ((b & 0xC0) == 0x80) {
+        // A continuation byte; keep looking for the first byte of the character.
+        continue;
+      }
+
+      int characterLength = b >= 0xF0 ? 4 : b >= 0xE0 ? 3 : b >= 0xC0 ? 2 : 1;
+
+      return i + characterLength <= length ? length : i;
+    }
+
+    return length;
+  }
+}
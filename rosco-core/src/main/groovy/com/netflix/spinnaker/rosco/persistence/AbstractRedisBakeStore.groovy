@@ -0,0 +1,892 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spinnaker.rosco.api.Bake
+import com.netflix.spinnaker.rosco.api.BakeHistoryPage
+import com.netflix.spinnaker.rosco.api.BakeRequest
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import com.netflix.spinnaker.rosco.api.BakeSummary
+import com.netflix.spinnaker.rosco.jobs.BakeRecipe
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.beans.factory.annotation.Value
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+
+import static com.netflix.spinnaker.rosco.persistence.RedisBakeStoreKeys.IMAGE_FIELD_PREFIX
+
+/**
+ * The bake store logic shared by the redis bake stores. Builds the keys and arguments of every command and lua script,
+ * and reads their replies; subclasses only issue the commands on their redis client. Reads are implemented once, as
+ * non-blocking variants, and blocking clients complete them before returning.
+ */
+abstract class AbstractRedisBakeStore implements BakeStore {
+
+  // The cursor that starts a scan, and that the server hands back once the scan is done.
+  protected static final String SCAN_POINTER_START = "0"
+
+  @Autowired
+  String roscoInstanceId
+
+  @Value('${rosco.bake-store.redis.seed-instance-registry:true}')
+  boolean seedInstanceRegistry = true
+
+  // Older bakes with the same bake key beyond this many are handed to the compactor. 0 keeps them all.
+  @Value('${rosco.bake-store.retention.keep-latest-per-key:0}')
+  int keepLatestBakesPerKey = 0
+
+  @Value('${rosco.bake-store.redis.hash-tagged-keys:false}')
+  boolean hashTaggedKeys = false
+
+  // Members of a pipeline execution set deleted per round trip.
+  @Value('${rosco.bake-store.redis.delete-batch-size:500}')
+  int deleteBatchSize = 500
+
+  protected BakeFieldCompressor compressor
+  protected BakeFieldSerializer serializer
+  protected RedisClock clock
+  protected final AtomicBoolean instanceRegistrySeeded = new AtomicBoolean()
+
+  // Length of the logs this instance last stored for each of its incomplete bakes. Entries are dropped once a bake is
+  // no longer this instance's to update; a missing entry is read back from redis.
+  protected Map<String, Integer> storedLogsLengths = new ConcurrentHashMap<String, Integer>()
+
+  /**
+   * When clock is null, the redis server time is read on every call to getTimeInMilliseconds().
+   */
+  protected AbstractRedisBakeStore(BakeFieldCompressor compressor, BakeFieldSerializer serializer, RedisClock clock) {
+    this.compressor = compressor
+    this.serializer = serializer
+    this.clock = clock
+  }
+
+  /**
+   * How a lua script's reply is read.
+   */
+  protected static enum ScriptReply {
+    BOOLEAN, INTEGER, VALUE, MULTI
+  }
+
+  /**
+   * A page of a set's members, along with the cursor the next page is read from.
+   */
+  protected static class SetScanPage {
+    String cursor
+    List<String> members
+  }
+
+  protected abstract CompletableFuture<Object> evalSHAAsync(String scriptName, ScriptReply reply, List<String> keyList, List<String> argList)
+
+  protected abstract CompletableFuture<String> hgetAsync(String key, String field)
+
+  protected abstract CompletableFuture<List<String>> hmgetAsync(String key, String... fields)
+
+  // Reads the same fields of many hashes in a single round trip.
+  protected abstract CompletableFuture<List<List<String>>> hmgetEachAsync(List<String> keyList, String... fields)
+
+  protected abstract CompletableFuture<List<String>> mgetAsync(List<String> keyList)
+
+  protected abstract void hset(String key, String field, String value)
+
+  protected abstract void hdel(String key, String field)
+
+  protected abstract Set<String> hkeys(String key)
+
+  protected abstract long del(String key)
+
+  protected abstract boolean exists(String key)
+
+  protected abstract boolean smove(String source, String destination, String member)
+
+  protected abstract void sadd(String key, String member)
+
+  protected abstract boolean sismember(String key, String member)
+
+  protected abstract void srem(String key, String member)
+
+  protected abstract Set<String> smembers(String key)
+
+  // Reads the members of many sets in a single round trip.
+  protected abstract List<Set<String>> smembersEach(List<String> keyList)
+
+  // Reads the next page of many sets in a single round trip, keyed by set.
+  protected abstract Map<String, SetScanPage> sscanEach(Map<String, String> cursors, int count)
+
+  protected abstract void zadd(String key, double score, String member)
+
+  // Only adds the members that aren't in the sorted set yet.
+  protected abstract void zaddIfAbsent(String key, Map<String, Double> scoreMembers)
+
+  protected abstract List<String> zrange(String key, long start, long stop)
+
+  protected abstract List<String> zrangeByScore(String key, double min, double max)
+
+  // Reads a page of the members scored from min up to, but excluding, max, in order, along with their scores.
+  protected abstract Map<String, Double> zrangeByScoreWithScores(String key, long min, long max, int offset, int count)
+
+  // Large bake records and logs are reclaimed by redis in the background.
+  protected abstract void unlink(Collection<String> keyList)
+
+  protected abstract Set<String> scanKeys(String pattern)
+
+  protected abstract long retrieveServerTimeMillis()
+
+  RedisBakeStoreKeys getKeys() {
+    return RedisBakeStoreKeys.forLayout(hashTaggedKeys)
+  }
+
+  protected String getThisInstanceIncompleteBakesKey() {
+    return keys.incompleteBakes(roscoInstanceId)
+  }
+
+  @Override
+  public boolean acquireBakeLock(String bakeKey) {
+    def ttlMilliseconds = "5000"
+    def keyList = [keys.lock(bakeKey), keys.index(bakeKey)]
+    def argList = [ttlMilliseconds]
+
+    return evalSHA("acquireBakeLock", ScriptReply.BOOLEAN, keyList, argList) == Boolean.TRUE
+  }
+
+  @Override
+  public void releaseBakeLock(String bakeKey) {
+    del(keys.lock(bakeKey))
+  }
+
+  @Override
+  public boolean acquireLease(String leaseName, long leaseMilliseconds) {
+    def keyList = [keys.lease(leaseName)]
+    def argList = [roscoInstanceId, leaseMilliseconds as String]
+
+    return evalSHA("acquireLease", ScriptReply.BOOLEAN, keyList, argList) == Boolean.TRUE
+  }
+
+  @Override
+  public boolean isLeaseHeld(String leaseName) {
+    return exists(keys.lease(leaseName))
+  }
+
+  @Override
+  public BakeStatus storeNewBakeStatus(String bakeKey, String region, BakeRecipe bakeRecipe, BakeRequest bakeRequest, BakeStatus bakeStatus, String command) {
+    def pipelineExecutionKey = RedisBakeStoreKeys.pipelineExecutionKey(getPipelineExecutionId(bakeRequest.spinnaker_execution_id))
+    def storedBakeRecipe = compressor.compress(serializer.serialize(bakeRecipe))
+    def storedBakeRequest = compressor.compress(serializer.serialize(bakeRequest))
+    def storedBakeStatus = serializer.serialize(bakeStatus)
+    def bakeLogs = bakeStatus.logsContent ?: ""
+    def createdTimestampMilliseconds = timeInMilliseconds as String
+    def bakeKeyList = [keys.bake(bakeStatus.id), keys.bakeLogs(bakeStatus.id)]
+    def bakeArgList = [createdTimestampMilliseconds, region, storedBakeRecipe, storedBakeRequest, storedBakeStatus, compressor.compress(bakeLogs), command, roscoInstanceId, bakeLogs.length() as String, bakeKey, pipelineExecutionKey, RedisBakeStoreScripts.bakeState(bakeStatus)]
+
+    evalSHA("storeNewBake", ScriptReply.VALUE, bakeKeyList, bakeArgList)
+
+    def indexKeyList = [keys.allBakes, keys.index(bakeKey), thisInstanceIncompleteBakesKey, keys.lock(bakeKey), keys.index(pipelineExecutionKey), keys.instanceRegistry, keys.bakeIds, keys.trimmedBakeIds, keys.bakeHistory(bakeKey)]
+    def danglingBakeId = ""
+
+    while (true) {
+      def indexArgList = [createdTimestampMilliseconds, bakeStatus.id, bakeKey, roscoInstanceId, keepLatestBakesPerKey as String, keys.bakeLogs(bakeStatus.id), danglingBakeId]
+      def winningBakeId = evalSHA("indexNewBake", ScriptReply.VALUE, indexKeyList, indexArgList) as String
+
+      if (!winningBakeId) {
+        break
+      }
+
+      // If we lost a race to initiate a new bake, drop the bake just stored and return the race winner's bake status.
+      def winningBakeStatus = retrieveBakeStatusById(winningBakeId)
+
+      if (winningBakeStatus) {
+        deleteBake(bakeStatus.id)
+
+        return winningBakeStatus
+      }
+
+      // The bake key points at a bake that has since been deleted.
+      danglingBakeId = winningBakeId
+    }
+
+    storedLogsLengths.put(bakeStatus.id, bakeLogs.length())
+
+    return bakeStatus
+  }
+
+  @Override
+  public void updateBakeDetails(Bake bakeDetails) {
+    def storedBakeDetails = compressor.compress(serializer.serialize(bakeDetails))
+    def keyList = [keys.bake(bakeDetails.id)]
+    def argList = [storedBakeDetails]
+
+    saveImageToBakeRelationship(bakeDetails.artifact.getLocation(), bakeDetails.artifact.getReference(), bakeDetails.id)
+
+    evalSHA("updateBakeDetails", ScriptReply.VALUE, keyList, argList)
+  }
+
+  @Override
+  public void updateBakeStatus(BakeStatus bakeStatus) {
+    def storedBakeStatus = serializer.serialize(bakeStatus)
+    def bakeState = RedisBakeStoreScripts.bakeState(bakeStatus)
+    def updatedTimestampMilliseconds = timeInMilliseconds
+    def keyList = [keys.bake(bakeStatus.id), keys.bakeLogs(bakeStatus.id)]
+    String logsContent = bakeStatus.logsContent ?: ""
+    int logsOffset = 0
+    String newLogsContent = logsContent
+    int logsLength = logsContent.length()
+    boolean logsStored = true
+
+    if (bakeStatus.logsOffset > 0) {
+      // The executor reported just the output added since it was last polled.
+      logsOffset = bakeStatus.logsOffset as int
+      logsLength += logsOffset
+    } else if (logsContent) {
+      // Other executors report the logs in full on every poll; only the output added since the last poll is sent to
+      // redis.
+      Integer storedLogsLength = storedLogsLengths.get(bakeStatus.id)
+
+      if (storedLogsLength == null) {
+        storedLogsLength = retrieveStoredLogsLength(bakeStatus.id)
+      }
+
+      if (storedLogsLength != null && storedLogsLength <= logsContent.length()) {
+        logsOffset = storedLogsLength
+        newLogsContent = logsContent.substring(logsOffset)
+      }
+    }
+
+    def argList = [storedBakeStatus, updatedTimestampMilliseconds + "", logsOffset + "", compressor.compress(newLogsContent), logsLength + "", bakeState]
+    def result = evalSHA("updateBakeStatus", ScriptReply.VALUE, keyList, argList)
+
+    // Something else changed the stored logs since we last looked, so rewrite them in full. Logs reported from an
+    // offset can't be, so they are left as they are.
+    if (result == RedisBakeStoreScripts.LOGS_OFFSET_MISMATCH) {
+      if (bakeStatus.logsOffset > 0) {
+        logsStored = false
+        argList = [storedBakeStatus, updatedTimestampMilliseconds + "", "0", "", "0", bakeState]
+      } else {
+        argList = [storedBakeStatus, updatedTimestampMilliseconds + "", "0", compressor.compress(logsContent), logsLength + "", bakeState]
+      }
+
+      result = evalSHA("updateBakeStatus", ScriptReply.VALUE, keyList, argList)
+    }
+
+    if (bakeStatus.state?.incomplete) {
+      if (logsContent && logsStored) {
+        storedLogsLengths.put(bakeStatus.id, logsLength)
+      }
+    } else {
+      storedLogsLengths.remove(bakeStatus.id)
+
+      if (result != RedisBakeStoreScripts.BAKE_CANCELED) {
+        completeBake(bakeStatus.id, result as String)
+      }
+    }
+  }
+
+  protected Integer retrieveStoredLogsLength(String bakeId) {
+    def storedLogsLength = hget(keys.bake(bakeId), "bakeLogsLength")
+
+    return storedLogsLength ? Integer.parseInt(storedLogsLength) : null
+  }
+
+  // Remove the bake from this instance's incomplete bakes, and strip any copy of the bake record left on its bake key.
+  protected void completeBake(String bakeId, String bakeKey) {
+    def keyList = [thisInstanceIncompleteBakesKey]
+
+    if (bakeKey) {
+      keyList << keys.index(bakeKey)
+    }
+
+    evalSHA("completeBake", ScriptReply.VALUE, keyList, [bakeId])
+  }
+
+  @Override
+  public void storeBakeError(String bakeId, String error) {
+    def keyList = [keys.bake(bakeId)]
+    def argList = [error]
+
+    evalSHA("storeBakeError", ScriptReply.VALUE, keyList, argList)
+  }
+
+  @Override
+  public String retrieveRegionById(String bakeId) {
+    return bakeId ? hget(keys.bake(bakeId), "region") : null
+  }
+
+  @Override
+  public String retrieveCloudProviderById(String bakeId) {
+    def bakeKey = bakeId ? hget(keys.bake(bakeId), "bakeKey") : null
+
+    // Bake key is always bake:$cloudProvider:...
+    return bakeKey?.split(":")?.getAt(1)
+  }
+
+  @Override
+  public BakeStatus retrieveBakeStatusByKey(String bakeKey) {
+    return await(retrieveBakeStatusByKeyAsync(bakeKey))
+  }
+
+  public CompletableFuture<BakeStatus> retrieveBakeStatusByKeyAsync(String bakeKey) {
+    if (!bakeKey) {
+      return CompletableFuture.completedFuture(null)
+    }
+
+    // Resolve the bake id the bake key points at.
+    return hmgetAsync(keys.index(bakeKey), "id", "bakeStatus").thenCompose { List<String> fields ->
+      def (String bakeId, String legacyBakeStatusJson) = fields
+
+      // Fall back to bake keys written before they became pointers.
+      if (!bakeId) {
+        return CompletableFuture.completedFuture(legacyBakeStatusJson)
+      }
+
+      return hgetAsync(keys.bake(bakeId), "bakeStatus").thenApply { String storedBakeStatus ->
+        storedBakeStatus ?: legacyBakeStatusJson
+      }
+    }.thenApply { String storedBakeStatus ->
+      serializer.deserialize(storedBakeStatus, BakeStatus)
+    }
+  }
+
+  @Override
+  public BakeStatus retrieveBakeStatusById(String bakeId) {
+    return await(retrieveBakeStatusByIdAsync(bakeId))
+  }
+
+  public CompletableFuture<BakeStatus> retrieveBakeStatusByIdAsync(String bakeId) {
+    if (!bakeId) {
+      return CompletableFuture.completedFuture(null)
+    }
+
+    return hmgetAsync(keys.bake(bakeId), RedisBakeStoreScripts.BAKE_STATUS_FIELDS).thenApply { List<String> fields ->
+      RedisBakeStoreScripts.readBakeStatus(fields, serializer)
+    }
+  }
+
+  @Override
+  public Map<String, BakeStatus> retrieveBakeStatusesByIds(Collection<String> bakeIds) {
+    return await(retrieveBakeStatusesByIdsAsync(bakeIds))
+  }
+
+  public CompletableFuture<Map<String, BakeStatus>> retrieveBakeStatusesByIdsAsync(Collection<String> bakeIds) {
+    if (!bakeIds) {
+      return CompletableFuture.completedFuture(new LinkedHashMap<String, BakeStatus>())
+    }
+
+    List<String> bakeIdList = new ArrayList<String>(bakeIds)
+    List<String> keyList = bakeIdList.collect { String bakeId -> keys.bake(bakeId) }
+
+    return hmgetEachAsync(keyList, RedisBakeStoreScripts.BAKE_STATUS_FIELDS).thenApply { List<List<String>> bakeStatusFields ->
+      Map<String, BakeStatus> bakeStatuses = new LinkedHashMap<>()
+
+      bakeIdList.eachWithIndex { String bakeId, int i ->
+        BakeStatus bakeStatus = RedisBakeStoreScripts.readBakeStatus(bakeStatusFields[i], serializer)
+
+        if (bakeStatus) {
+          bakeStatuses[bakeId] = bakeStatus
+        }
+      }
+
+      return bakeStatuses
+    }
+  }
+
+  @Override
+  public BakeRequest retrieveBakeRequestById(String bakeId) {
+    def storedBakeRequest = bakeId ? compressor.decompress(hget(keys.bake(bakeId), "bakeRequest")) : null
+
+    return serializer.deserialize(storedBakeRequest, BakeRequest)
+  }
+
+  @Override
+  public BakeRecipe retrieveBakeRecipeById(String bakeId) {
+    def storedBakeRecipe = bakeId ? compressor.decompress(hget(keys.bake(bakeId), "bakeRecipe")) : null
+
+    return serializer.deserialize(storedBakeRecipe, BakeRecipe)
+  }
+
+  @Override
+  public BakeCompletionContext retrieveBakeCompletionContextById(String bakeId) {
+    if (!bakeId) {
+      return null
+    }
+
+    def (String bakeKey, String region, String storedBakeRequest, String storedBakeRecipe) =
+      hmget(keys.bake(bakeId), "bakeKey", "region", "bakeRequest", "bakeRecipe")
+
+    if (!bakeKey) {
+      return null
+    }
+
+    // Bake key is always bake:$cloudProvider:...
+    return new BakeCompletionContext(bakeKey.split(":").getAt(1),
+                                     region,
+                                     serializer.deserialize(compressor.decompress(storedBakeRequest), BakeRequest),
+                                     serializer.deserialize(compressor.decompress(storedBakeRecipe), BakeRecipe))
+  }
+
+  @Override
+  public Bake retrieveBakeDetailsById(String bakeId) {
+    return await(retrieveBakeDetailsByIdAsync(bakeId))
+  }
+
+  public CompletableFuture<Bake> retrieveBakeDetailsByIdAsync(String bakeId) {
+    if (!bakeId) {
+      return CompletableFuture.completedFuture(null)
+    }
+
+    return hgetAsync(keys.bake(bakeId), "bakeDetails").thenApply { String storedBakeDetails ->
+      serializer.deserialize(compressor.decompress(storedBakeDetails), Bake)
+    }
+  }
+
+  @Override
+  public Map<String, String> retrieveBakeLogsById(String bakeId) {
+    def bakeLogs = retrieveBakeLogsById(bakeId, 0)
+
+    return bakeLogs != null ? [logsContent: bakeLogs.logsContent] : null
+  }
+
+  @Override
+  public Map<String, String> retrieveBakeLogsById(String bakeId, long offset) {
+    return await(retrieveBakeLogsByIdAsync(bakeId, offset))
+  }
+
+  public CompletableFuture<Map<String, String>> retrieveBakeLogsByIdAsync(String bakeId, long offset) {
+    if (!bakeId) {
+      return CompletableFuture.completedFuture(null)
+    }
+
+    def keyList = [keys.bake(bakeId), keys.bakeLogs(bakeId)]
+    def argList = [Math.max(offset, 0) + ""]
+
+    return evalSHAAsync("retrieveBakeLogs", ScriptReply.MULTI, keyList, argList).thenApply { result ->
+      RedisBakeStoreScripts.readBakeLogs(result as List, offset, compressor, serializer)
+    }
+  }
+
+  @Override
+  public String deleteBakeByKey(String bakeKey) {
+    def bakeId = unindexBakeKey(bakeKey, false)
+
+    if (bakeId) {
+      // Delete the bake id key and its logs.
+      deleteBake(bakeId)
+      storedLogsLengths.remove(bakeId)
+    }
+
+    return bakeId
+  }
+
+  @Override
+  public String deleteBakeByKeyPreserveDetails(String bakeKey) {
+    def bakeId = unindexBakeKey(bakeKey, true)
+
+    if (bakeId) {
+      cancelRunningBake(bakeId)
+      storedLogsLengths.remove(bakeId)
+    }
+
+    return bakeId
+  }
+
+  // The bake status may not be stored as JSON, so the canceled bake status is put together here. The script only
+  // stores it if the bake is still incomplete by then.
+  protected void cancelRunningBake(String bakeId) {
+    BakeStatus bakeStatus = retrieveBakeStatusById(bakeId)
+
+    if (bakeStatus?.state?.incomplete) {
+      bakeStatus.state = BakeStatus.State.CANCELED
+      bakeStatus.result = BakeStatus.Result.FAILURE
+
+      def keyList = [keys.bake(bakeId)]
+      def argList = [serializer.serialize(bakeStatus), timeInMilliseconds + ""]
+
+      evalSHA("cancelRunningBake", ScriptReply.INTEGER, keyList, argList)
+    }
+  }
+
+  protected String unindexBakeKey(String bakeKey, boolean preserveBakeId) {
+    def keyList = [keys.index(bakeKey), keys.allBakes, keys.bakeIds, keys.bakeHistory(bakeKey)] + registeredIncompleteBakesKeys
+    def argList = [bakeKey, preserveBakeId ? "1" : "0"]
+
+    return evalSHA("unindexBakeKey", ScriptReply.VALUE, keyList, argList)
+  }
+
+  protected long deleteBake(String bakeId) {
+    long deleted = del(keys.bake(bakeId))
+    del(keys.bakeLogs(bakeId))
+
+    return deleted
+  }
+
+  @Override
+  public void deleteBakeByPipelineExecutionId(String pipelineExecutionId) {
+    deleteBakesByPipelineExecutionIds([pipelineExecutionId])
+  }
+
+  @Override
+  public long deleteBakesByPipelineExecutionIds(Collection<String> pipelineExecutionIds) {
+    // The SSCAN cursor of each pipeline execution set with members left to delete.
+    Map<String, String> cursors = pipelineExecutionIds.collectEntries { String pipelineExecutionId ->
+      [(keys.index(RedisBakeStoreKeys.pipelineExecutionKey(pipelineExecutionId))): SCAN_POINTER_START]
+    }
+    long deleted = 0
+
+    while (cursors) {
+      // Read the next page of every pipeline execution set at once.
+      Map<String, SetScanPage> pages = sscanEach(cursors, deleteBatchSize)
+      Set<String> bakeRecordKeys = new LinkedHashSet<>()
+
+      pages.each { String pipelineExecutionKey, SetScanPage page ->
+        if (page.cursor == SCAN_POINTER_START) {
+          cursors.remove(pipelineExecutionKey)
+        } else {
+          cursors[pipelineExecutionKey] = page.cursor
+        }
+
+        if (page.members) {
+          def members = new RedisBakeStoreScripts.PipelineExecutionMembers(page.members)
+
+          // Only the members of this page are unindexed, so the script stays short however many bakes there are.
+          evalSHA("unindexPipelineExecution", ScriptReply.VALUE, members.unindexKeyList(keys, pipelineExecutionKey), members.unindexArgList())
+
+          bakeRecordKeys.addAll(members.bakeRecordKeys(keys))
+          storedLogsLengths.keySet().removeAll(members.bakeIds)
+          deleted += members.bakeIds.size()
+        }
+      }
+
+      if (bakeRecordKeys) {
+        unlink(bakeRecordKeys)
+      }
+    }
+
+    return deleted
+  }
+
+  @Override
+  public boolean cancelBakeById(String bakeId) {
+    def bakeStatus = new BakeStatus(id: bakeId,
+                                    resource_id: bakeId,
+                                    state: BakeStatus.State.CANCELED,
+                                    result: BakeStatus.Result.FAILURE)
+    def storedBakeStatus = serializer.serialize(bakeStatus)
+    def updatedTimestampMilliseconds = timeInMilliseconds
+    def (String bakeKey, String owningRoscoInstanceId) = evalSHA("cancelBake", ScriptReply.MULTI, [keys.bake(bakeId)], [storedBakeStatus, updatedTimestampMilliseconds + ""]) as List
+    def keyList = [keys.allBakes]
+
+    if (bakeKey) {
+      keyList << keys.index(bakeKey)
+    }
+
+    if (owningRoscoInstanceId) {
+      keyList << keys.incompleteBakes(owningRoscoInstanceId)
+    }
+
+    def argList = [bakeId, bakeKey ?: "", owningRoscoInstanceId ? "1" : "0"]
+
+    storedLogsLengths.remove(bakeId)
+
+    return evalSHA("unindexCanceledBake", ScriptReply.INTEGER, keyList, argList) == 1
+  }
+
+  @Override
+  public void removeFromIncompletes(String roscoInstanceId, String bakeId) {
+    srem(keys.incompleteBakes(roscoInstanceId), bakeId)
+    storedLogsLengths.remove(bakeId)
+  }
+
+  @Override
+  public boolean adoptBake(String roscoInstanceId, String bakeId) {
+    // The incomplete bake sets and the bake id hash may live in different slots, so the bake is moved first.
+    if (!smove(keys.incompleteBakes(roscoInstanceId), thisInstanceIncompleteBakesKey, bakeId)) {
+      return false
+    }
+
+    hset(keys.bake(bakeId), "roscoInstanceId", this.roscoInstanceId)
+
+    // Any logs length remembered from when this instance last owned the bake is stale by now.
+    storedLogsLengths.remove(bakeId)
+
+    return true
+  }
+
+  @Override
+  public Set<String> getThisInstanceIncompleteBakeIds() {
+    return smembers(thisInstanceIncompleteBakesKey)
+  }
+
+  @Override
+  public Map<String, Set<String>> getAllIncompleteBakeIds() {
+    List<String> roscoInstanceIds = new ArrayList<String>(registeredInstanceIds)
+    List<Set<String>> incompleteBakeIds = smembersEach(roscoInstanceIds.collect { String roscoInstanceId -> keys.incompleteBakes(roscoInstanceId) })
+    Map<String, Set<String>> allIncompleteBakeIds = [:]
+
+    // Registered instances without incomplete bakes are left out, just as when their keys were scanned for.
+    roscoInstanceIds.eachWithIndex { String roscoInstanceId, int i ->
+      if (incompleteBakeIds[i]) {
+        allIncompleteBakeIds[roscoInstanceId] = incompleteBakeIds[i]
+      }
+    }
+
+    return allIncompleteBakeIds
+  }
+
+  @Override
+  public void refreshInstanceRegistration() {
+    // Instances running an older rosco never register themselves, so pick up their incomplete bakes once.
+    if (seedInstanceRegistry && instanceRegistrySeeded.compareAndSet(false, true)) {
+      seedInstanceRegistryFromIncompleteBakes()
+    }
+
+    zadd(keys.instanceRegistry, timeInMilliseconds as double, roscoInstanceId)
+  }
+
+  @Override
+  public long expireInstances(long expiryMilliseconds) {
+    def expiryTimestampMilliseconds = timeInMilliseconds - expiryMilliseconds
+    List<String> staleInstanceIds = zrangeByScore(keys.instanceRegistry, Double.NEGATIVE_INFINITY, expiryTimestampMilliseconds as double)
+
+    if (!staleInstanceIds) {
+      return 0
+    }
+
+    def keyList = [keys.instanceRegistry] + staleInstanceIds.collect { String staleInstanceId -> keys.incompleteBakes(staleInstanceId) } + [keys.heartbeatingInstances]
+    def argList = [expiryTimestampMilliseconds + ""] + staleInstanceIds
+
+    return evalSHA("expireInstances", ScriptReply.INTEGER, keyList, argList) as long
+  }
+
+  @Override
+  public void recordHeartbeating() {
+    sadd(keys.heartbeatingInstances, roscoInstanceId)
+  }
+
+  @Override
+  public boolean hasRecordedHeartbeating(String roscoInstanceId) {
+    return sismember(keys.heartbeatingInstances, roscoInstanceId)
+  }
+
+  @Override
+  public void forgetHeartbeating(String roscoInstanceId) {
+    srem(keys.heartbeatingInstances, roscoInstanceId)
+  }
+
+  protected Set<String> getRegisteredInstanceIds() {
+    return new LinkedHashSet<String>(zrange(keys.instanceRegistry, 0, -1))
+  }
+
+  protected List<String> getRegisteredIncompleteBakesKeys() {
+    return registeredInstanceIds.collect { String roscoInstanceId -> keys.incompleteBakes(roscoInstanceId) }
+  }
+
+  /**
+   * Register every rosco instance that has incomplete bakes, found by scanning for their incomplete bake sets. Only
+   * needed while instances that predate the instance registry may still be running.
+   */
+  public void seedInstanceRegistryFromIncompleteBakes() {
+    def incompleteBakesPrefix = keys.incompleteBakesPrefix
+    Set<String> incompleteBakesKeys = scanKeys(incompleteBakesPrefix + "*")
+
+    if (!incompleteBakesKeys) {
+      return
+    }
+
+    def registeredTimestampMilliseconds = timeInMilliseconds as double
+    Map<String, Double> scoreMembers = incompleteBakesKeys.collectEntries { String incompleteBakesKey ->
+      [(incompleteBakesKey.substring(incompleteBakesPrefix.length())): registeredTimestampMilliseconds]
+    }
+
+    // Don't push back the registration of instances that are already registered.
+    zaddIfAbsent(keys.instanceRegistry, scoreMembers)
+  }
+
+  @Override
+  public void saveImageToBakeRelationship(String region, String image, String bakeId) {
+    def keyList = [keys.imageIndex(region)]
+    def legacyImageKey = keys.legacyImage(region, image)
+
+    if (legacyImageKey) {
+      keyList << legacyImageKey
+    }
+
+    def previousBakeId = evalSHA("indexImage", ScriptReply.VALUE, keyList, [image, bakeId])
+    def imageField = "$IMAGE_FIELD_PREFIX$region:$image".toString()
+
+    // Drop the image from the bake it used to point at.
+    if (previousBakeId && previousBakeId != bakeId) {
+      hdel(keys.bake(previousBakeId as String), imageField)
+    }
+
+    evalSHA("addBakeImage", ScriptReply.VALUE, [keys.bake(bakeId)], [imageField])
+  }
+
+  @Override
+  public String getBakeIdFromImage(String region, String image) {
+    return getBakeIdsFromImages(region, [image])[image]
+  }
+
+  @Override
+  public Map<String, String> getBakeIdsFromImages(String region, Collection<String> images) {
+    return await(getBakeIdsFromImagesAsync(region, images))
+  }
+
+  public CompletableFuture<Map<String, String>> getBakeIdsFromImagesAsync(String region, Collection<String> images) {
+    if (!images) {
+      return CompletableFuture.completedFuture(new LinkedHashMap<String, String>())
+    }
+
+    List<String> distinctImages = new ArrayList<String>(new LinkedHashSet<String>(images))
+
+    return hmgetAsync(keys.imageIndex(region), distinctImages as String[]).thenCompose { List<String> indexedBakeIds ->
+      // Fall back to the image keys written before the region image index was kept.
+      List<String> legacyImages = keys.hashTagged ? [] : (0..<distinctImages.size()).findAll { int i -> !indexedBakeIds[i] }.collect { int i -> distinctImages[i] }
+      CompletableFuture<List<String>> legacyBakeIds = legacyImages ?
+        mgetAsync(legacyImages.collect { String image -> keys.legacyImage(region, image) }) :
+        CompletableFuture.completedFuture([])
+
+      return legacyBakeIds.thenApply { List<String> legacyImageBakeIds ->
+        Map<String, String> legacyBakeIdsByImage = [:]
+        Map<String, String> bakeIds = new LinkedHashMap<String, String>()
+
+        legacyImages.eachWithIndex { String image, int i ->
+          legacyBakeIdsByImage[image] = legacyImageBakeIds[i]
+        }
+
+        distinctImages.eachWithIndex { String image, int i ->
+          def bakeId = indexedBakeIds[i] ?: legacyBakeIdsByImage[image]
+
+          if (bakeId) {
+            bakeIds[image] = bakeId
+          }
+        }
+
+        return bakeIds
+      }
+    }
+  }
+
+  @Override
+  public Map<String, Set<String>> getImagesFromBakeId(String bakeId) {
+    Map<String, Set<String>> images = new LinkedHashMap<String, Set<String>>()
+
+    if (!bakeId) {
+      return images
+    }
+
+    hkeys(keys.bake(bakeId)).findAll { String field -> field.startsWith(IMAGE_FIELD_PREFIX) }.sort().each { String field ->
+      // Regions never contain a colon, images might.
+      def (String region, String image) = field.substring(IMAGE_FIELD_PREFIX.length()).split(":", 2)
+
+      images.computeIfAbsent(region, { new LinkedHashSet<String>() }).add(image)
+    }
+
+    return images
+  }
+
+  @Override
+  public BakeHistoryPage retrieveBakeHistory(long since, long until, String cloudProvider, BakeStatus.State state, String cursor, int limit) {
+    def after = BakeHistoryCursor.parse(cursor)
+    long min = after ? Math.max(since, after.createdTimestamp) : since
+    List<BakeSummary> bakes = []
+    BakeHistoryCursor last = after
+    boolean exhausted = false
+    int offset = 0
+
+    // The bake id index outlives the bake keys, so it lists every bake. The hashes of each page are read in one go.
+    while (bakes.size() < limit && offset < RedisBakeStoreScripts.BAKE_HISTORY_MAX_READ) {
+      Map<String, Double> page = zrangeByScoreWithScores(keys.bakeIds, min, until, offset, RedisBakeStoreScripts.BAKE_HISTORY_READ_SIZE)
+      List<String> pageBakeIds = new ArrayList<String>(page.keySet())
+      List<List<String>> bakeSummaryFields = await(hmgetEachAsync(pageBakeIds.collect { String bakeId -> keys.bake(bakeId) }, RedisBakeStoreScripts.BAKE_SUMMARY_FIELDS))
+
+      offset += page.size()
+      int consumed = 0
+
+      for (int i = 0; i < pageBakeIds.size(); i++) {
+        if (bakes.size() >= limit) {
+          break
+        }
+
+        consumed++
+
+        String bakeId = pageBakeIds[i]
+        long createdTimestamp = page[bakeId] as long
+
+        // Bakes created in the same millisecond as the last bake returned are told apart by id.
+        if (after && !after.precedes(createdTimestamp, bakeId)) {
+          continue
+        }
+
+        last = new BakeHistoryCursor(createdTimestamp, bakeId)
+
+        def bakeSummary = RedisBakeStoreScripts.readBakeSummary(bakeId, bakeSummaryFields[i], cloudProvider, state, serializer)
+
+        if (bakeSummary) {
+          bakes << bakeSummary
+        }
+      }
+
+      if (consumed == page.size() && page.size() < RedisBakeStoreScripts.BAKE_HISTORY_READ_SIZE) {
+        exhausted = true
+        break
+      }
+    }
+
+    return new BakeHistoryPage(bakes, exhausted ? null : last?.toString())
+  }
+
+  @Override
+  public long getTimeInMilliseconds() {
+    return clock ? clock.currentTimeMillis() : retrieveServerTimeMillis()
+  }
+
+  protected Object evalSHA(String scriptName, ScriptReply reply, List<String> keyList, List<String> argList) {
+    return await(evalSHAAsync(scriptName, reply, keyList, argList))
+  }
+
+  protected String hget(String key, String field) {
+    return await(hgetAsync(key, field))
+  }
+
+  protected List<String> hmget(String key, String... fields) {
+    return await(hmgetAsync(key, fields))
+  }
+
+  // Bakes stored before the pipeline execution key was recorded on the bake id hash only carry it in the bake request.
+  protected String retrieveFallbackPipelineExecutionKey(String storedBakeRequest) {
+    if (!storedBakeRequest) {
+      return null
+    }
+
+    def spinnakerExecutionId = serializer.deserialize(compressor.decompress(storedBakeRequest), BakeRequest).spinnaker_execution_id
+
+    return spinnakerExecutionId ? RedisBakeStoreKeys.pipelineExecutionKey(getPipelineExecutionId(spinnakerExecutionId)) : null
+  }
+
+  // Surfaces failures as the exceptions the blocking redis client throws, rather than wrapped in a CompletionException.
+  protected static <T> T await(CompletableFuture<T> future) {
+    try {
+      return future.join()
+    } catch (CompletionException e) {
+      throw e.cause instanceof RuntimeException ? (RuntimeException) e.cause : e
+    }
+  }
+
+  protected static String getPipelineExecutionId(String spinnakerExecutionId) {
+    return spinnakerExecutionId.split(":")[0]
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spinnaker.rosco.api.Bake
+import com.netflix.spinnaker.rosco.api.BakeStatus
+
+import java.util.concurrent.CompletableFuture
+
+/**
+ * Non-blocking variants of the bake store's read methods, for bake stores on asynchronous redis clients. Each method
+ * behaves as its blocking counterpart on BakeStore, without tying up the calling thread while redis responds.
+ */
+interface AsyncBakeStore {
+
+  public CompletableFuture<BakeStatus> retrieveBakeStatusByKeyAsync(String bakeKey)
+
+  public CompletableFuture<BakeStatus> retrieveBakeStatusByIdAsync(String bakeId)
+
+  public CompletableFuture<Map<String, BakeStatus>> retrieveBakeStatusesByIdsAsync(Collection<String> bakeIds)
+
+  public CompletableFuture<Bake> retrieveBakeDetailsByIdAsync(String bakeId)
+
+  public CompletableFuture<Map<String, String>> retrieveBakeLogsByIdAsync(String bakeId, long offset)
+
+  public CompletableFuture<Map<String, String>> getBakeIdsFromImagesAsync(String region, Collection<String> images)
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses the large string fields of a bake (recipe, request, details and logs) before they are written to the
+ * bake store. Compressed values are tagged with a marker, so values written uncompressed, or with a different codec
+ * configured, always read back correctly. The bake status is never compressed since the bake store scripts decode it.
+ */
+public class BakeFieldCompressor {
+
+  public enum Codec {
+    NONE,
+    GZIP
+  }
+
+  // Neither JSON nor packer output starts with a NUL character. Any value that does is compressed regardless of its
+  // size, so the marker is never ambiguous.
+  static final String GZIP_MARKER = "\u0000gzip:";
+
+  private final Codec codec;
+  private final int minSizeBytes;
+
+  public BakeFieldCompressor(Codec codec, int minSizeBytes) {
+    this.codec = codec != null ? codec : Codec.NONE;
+    this.minSizeBytes = minSizeBytes;
+  }
+
+  public static BakeFieldCompressor none() {
+    return new BakeFieldCompressor(Codec.NONE, 0);
+  }
+
+  public String compress(String value) {
+    if (value == null || value.isEmpty()) {
+      return value;
+    }
+
+    boolean ambiguous = value.startsWith(GZIP_MARKER);
+
+    if (!ambiguous && (codec == Codec.NONE || value.length() < minSizeBytes)) {
+      return value;
+    }
+
+    String compressed = GZIP_MARKER + Base64.getEncoder().encodeToString(gzip(value));
+
+    // Short or already dense values can grow once base64-encoded.
+    return ambiguous || compressed.length() < value.length() ? compressed : value;
+  }
+
+  public String decompress(String value) {
+    if (value == null || !value.startsWith(GZIP_MARKER)) {
+      return value;
+    }
+
+    return gunzip(Base64.getDecoder().decode(value.substring(GZIP_MARKER.length())));
+  }
+
+  private static byte[] gzip(String value) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+      gzip.write(value.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return bytes.toByteArray();
+  }
+
+  private static String gunzip(byte[] value) {
+    try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(value))) {
+      return new String(gzip.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+
+/**
+ * Serializes the objects of a bake (status, recipe, request and details) before they are written to the bake store.
+ * Values in a binary format are tagged with a marker and base64-encoded, since the redis clients store strings. Values
+ * written as JSON, or with a different format configured, always read back correctly.
+ */
+public class BakeFieldSerializer {
+
+  public enum Format {
+    JSON,
+    SMILE,
+    CBOR
+  }
+
+  // JSON never starts with a NUL character, and these markers differ from the one of the compressor.
+  static final String SMILE_MARKER = "\u0000smile:";
+  static final String CBOR_MARKER = "\u0000cbor:";
+
+  private final Format format;
+  private final ObjectMapper jsonMapper;
+  private final ObjectMapper smileMapper;
+  private final ObjectMapper cborMapper;
+
+  public BakeFieldSerializer(Format format, boolean blackbird) {
+    this.format = format != null ? format : Format.JSON;
+    this.jsonMapper = configure(new ObjectMapper(), blackbird);
+    this.smileMapper = configure(new SmileMapper(), blackbird);
+    this.cborMapper = configure(new CBORMapper(), blackbird);
+  }
+
+  public static BakeFieldSerializer json() {
+    return new BakeFieldSerializer(Format.JSON, false);
+  }
+
+  public Format getFormat() {
+    return format;
+  }
+
+  public String serialize(Object value) {
+    try {
+      switch (format) {
+        case SMILE:
+          return SMILE_MARKER + Base64.getEncoder().encodeToString(smileMapper.writeValueAsBytes(value));
+        case CBOR:
+          return CBOR_MARKER + Base64.getEncoder().encodeToString(cborMapper.writeValueAsBytes(value));
+        default:
+          return jsonMapper.writeValueAsString(value);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public <T> T deserialize(String value, Class<T> type) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+
+    try {
+      if (value.startsWith(SMILE_MARKER)) {
+        return smileMapper.readValue(decode(value, SMILE_MARKER), type);
+      } else if (value.startsWith(CBOR_MARKER)) {
+        return cborMapper.readValue(decode(value, CBOR_MARKER), type);
+      }
+
+      return jsonMapper.readValue(value, type);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static byte[] decode(String value, String marker) {
+    return Base64.getDecoder().decode(value.substring(marker.length()));
+  }
+
+  private static ObjectMapper configure(ObjectMapper mapper, boolean blackbird) {
+    // Generates accessors in place of reflection; the output is unchanged.
+    return blackbird ? mapper.registerModule(new BlackbirdModule()) : mapper;
+  }
+}
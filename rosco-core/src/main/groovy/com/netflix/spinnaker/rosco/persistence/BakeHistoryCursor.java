@@ -0,0 +1,103 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.persistence;
+
+import com.netflix.spinnaker.rosco.api.BakeHistoryPage;
+import com.netflix.spinnaker.rosco.api.BakeSummary;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * The position in the bake history after the last bake returned. Bakes are ordered by created timestamp, and bakes
+ * created in the same millisecond by id, so a cursor stays valid while bakes are added and deleted. Cursors are opaque
+ * to callers.
+ */
+public class BakeHistoryCursor {
+
+  private final long createdTimestamp;
+  private final String bakeId;
+
+  public BakeHistoryCursor(long createdTimestamp, String bakeId) {
+    this.createdTimestamp = createdTimestamp;
+    this.bakeId = bakeId;
+  }
+
+  /** Returns null when cursor is null or empty, to start at the first bake. */
+  public static BakeHistoryCursor parse(String cursor) {
+    if (cursor == null || cursor.isEmpty()) {
+      return null;
+    }
+
+    String decoded;
+
+    try {
+      decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid bake history cursor '" + cursor + "'.", e);
+    }
+
+    int separator = decoded.indexOf(':');
+
+    try {
+      return new BakeHistoryCursor(
+          Long.parseLong(decoded.substring(0, Math.max(separator, 0))),
+          decoded.substring(separator + 1));
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid bake history cursor '" + cursor + "'.", e);
+    }
+  }
+
+  /**
+   * Build a page out of the bakes that follow a cursor, in order. Pass in up to limit + 1 bakes: the page is the last
+   * one unless there are more than limit.
+   */
+  public static BakeHistoryPage page(List<BakeSummary> bakes, int limit) {
+    if (bakes.size() <= limit) {
+      return new BakeHistoryPage(new ArrayList<>(bakes), null);
+    }
+
+    BakeSummary lastBake = bakes.get(limit - 1);
+
+    return new BakeHistoryPage(
+        new ArrayList<>(bakes.subList(0, limit)),
+        new BakeHistoryCursor(lastBake.getCreatedTimestamp(), lastBake.getId()).toString());
+  }
+
+  public long getCreatedTimestamp() {
+    return createdTimestamp;
+  }
+
+  public String getBakeId() {
+    return bakeId;
+  }
+
+  /** Whether the bake comes after this cursor in the bake history. */
+  public boolean precedes(long createdTimestamp, String bakeId) {
+    return createdTimestamp > this.createdTimestamp
+        || (createdTimestamp == this.createdTimestamp && bakeId.compareTo(this.bakeId) > 0);
+  }
+
+  @Override
+  public String toString() {
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString((createdTimestamp + ":" + bakeId).getBytes(StandardCharsets.UTF_8));
+  }
+}
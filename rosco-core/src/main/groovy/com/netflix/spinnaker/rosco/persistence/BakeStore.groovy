@@ -17,6 +17,7 @@
 package com.netflix.spinnaker.rosco.persistence
 
 import com.netflix.spinnaker.rosco.api.Bake
+import com.netflix.spinnaker.rosco.api.BakeHistoryPage
 import com.netflix.spinnaker.rosco.api.BakeRequest
 import com.netflix.spinnaker.rosco.api.BakeStatus
 import com.netflix.spinnaker.rosco.jobs.BakeRecipe
@@ -31,6 +32,12 @@ interface BakeStore {
    */
   public boolean acquireBakeLock(String bakeKey)
 
+  /**
+   * Release the lock on bakeKey acquired with acquireBakeLock, for a bake that won't be stored after all, so the next
+   * request for it needn't wait out the lock's TTL. Storing the bake releases the lock by itself.
+   */
+  public void releaseBakeLock(String bakeKey)
+
   /**
    * Store the region, bakeRecipe, bakeRequest and bakeStatus in association with both the bakeKey and bakeId. If bake key
    * has already been set, return a bakeStatus with that bake's id instead. None of the arguments may be null.
@@ -73,6 +80,12 @@ interface BakeStore {
    */
   public BakeStatus retrieveBakeStatusById(String bakeId)
 
+  /**
+   * Retrieve the bake statuses associated with the bakeIds in a single round trip. The returned map is keyed by bake
+   * id, in the order the ids were given, and omits any bake that is not found.
+   */
+  public Map<String, BakeStatus> retrieveBakeStatusesByIds(Collection<String> bakeIds)
+
   /**
    * Retrieve the bake request associated with the bakeId.
    */
@@ -83,6 +96,12 @@ interface BakeStore {
    */
   public BakeRecipe retrieveBakeRecipeById(String bakeId)
 
+  /**
+   * Retrieve the cloud provider, region, request and recipe associated with the bakeId in a single read, or null if
+   * there is no such bake. bakeId may be null.
+   */
+  public BakeCompletionContext retrieveBakeCompletionContextById(String bakeId)
+
   /**
    * Retrieve the completed bake details associated with the bakeId. bakeId may be null.
    */
@@ -93,6 +112,13 @@ interface BakeStore {
    */
   public Map<String, String> retrieveBakeLogsById(String bakeId)
 
+  /**
+   * Retrieve the logs associated with the bakeId, starting at the given character offset. Along with logsContent, the
+   * returned map holds the offset to pass in to read just the logs written after this call, under nextOffset. bakeId
+   * may be null.
+   */
+  public Map<String, String> retrieveBakeLogsById(String bakeId, long offset)
+
   /**
    * Delete the bake status, completed bake details and logs associated with the bakeKey. If the bake is still
    * incomplete, remove the bake id from the set of incomplete bakes. Returns the bake id of the deleted bake or null
@@ -112,6 +138,12 @@ interface BakeStore {
    */
   void deleteBakeByPipelineExecutionId(String pipelineExecutionId);
 
+  /**
+   * Delete the bake entities associated with each of the given pipeline execution ids. Stores that can delete them a
+   * batch at a time, so other callers aren't held up for long. Returns the number of bakes deleted.
+   */
+  public long deleteBakesByPipelineExecutionIds(Collection<String> pipelineExecutionIds)
+
   /**
    * Cancel the incomplete bake associated with the bake id and delete the completed bake details associated with the
    * bake id. If the bake is still incomplete, remove the bake id from the set of incomplete bakes.
@@ -123,6 +155,12 @@ interface BakeStore {
    */
   public void removeFromIncompletes(String roscoInstanceId, String bakeId)
 
+  /**
+   * Take over an incomplete bake from another rosco instance, so that this instance polls it from now on. Returns false
+   * if the bake is no longer among that instance's incomplete bakes.
+   */
+  public boolean adoptBake(String roscoInstanceId, String bakeId)
+
   /**
    * Retrieve the set of incomplete bake ids for this rosco instance.
    */
@@ -133,10 +171,69 @@ interface BakeStore {
    */
   public Map<String, Set<String>> getAllIncompleteBakeIds()
 
+  /**
+   * Register this rosco instance as alive. Rosco instances are registered when they first store a bake, and are
+   * expected to refresh their registration periodically.
+   */
+  public void refreshInstanceRegistration()
+
+  /**
+   * Forget rosco instances that have not refreshed their registration within expiryMilliseconds and have no
+   * incomplete bakes left. Returns the number of rosco instances forgotten.
+   */
+  public long expireInstances(long expiryMilliseconds)
+
+  /**
+   * Record that this rosco instance heartbeats. Unlike its heartbeat lease, the record doesn't expire, so any rosco
+   * instance can tell an instance that stopped heartbeating from an older one that never did. The record is forgotten
+   * along with the instance's registration.
+   */
+  public void recordHeartbeating()
+
+  /**
+   * Whether the rosco instance roscoInstanceId has recorded that it heartbeats.
+   */
+  public boolean hasRecordedHeartbeating(String roscoInstanceId)
+
+  /**
+   * Forget that the rosco instance roscoInstanceId heartbeats, until it next records so.
+   */
+  public void forgetHeartbeating(String roscoInstanceId)
+
+  /**
+   * Acquire the lease called leaseName for this rosco instance for leaseMilliseconds, or renew it if this instance
+   * already holds it. Returns whether this instance holds the lease. A lease lets one rosco instance at a time do work
+   * on behalf of all of them; once its holder stops renewing it, it expires and another instance can acquire it.
+   */
+  public boolean acquireLease(String leaseName, long leaseMilliseconds)
+
+  /**
+   * Whether any rosco instance holds the lease called leaseName.
+   */
+  public boolean isLeaseHeld(String leaseName)
+
   public void saveImageToBakeRelationship(String region, String image, String bakeId)
 
   public String getBakeIdFromImage(String region, String image)
 
+  /**
+   * Retrieve the ids of the bakes that produced the images in the region, in a single round trip. The returned map is
+   * keyed by image, in the order the images were given, and omits any image that is not found.
+   */
+  public Map<String, String> getBakeIdsFromImages(String region, Collection<String> images)
+
+  /**
+   * Retrieve the images produced by the bake, keyed by region. bakeId may be null.
+   */
+  public Map<String, Set<String>> getImagesFromBakeId(String bakeId)
+
+  /**
+   * Retrieve a page of at most limit bakes created at or after since and before until, oldest first. cloudProvider and
+   * state narrow down the bakes listed, and may be null. Pass in the cursor of the previous page to retrieve the next
+   * one, or null to start at the first. Filtered pages may hold fewer bakes than asked for without being the last.
+   */
+  public BakeHistoryPage retrieveBakeHistory(long since, long until, String cloudProvider, BakeStatus.State state, String cursor, int limit)
+
   /**
    * Get the current redis server time in milliseconds.
    */
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spectator.api.Registry
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import com.netflix.spinnaker.rosco.persistence.config.BakeStoreConfigurationProperties
+import groovy.util.logging.Slf4j
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.boot.context.event.ApplicationReadyEvent
+import org.springframework.context.ApplicationListener
+import org.springframework.stereotype.Component
+import rx.functions.Action0
+import rx.schedulers.Schedulers
+
+import java.util.concurrent.TimeUnit
+
+/**
+ * Periodically deletes bakes from the redis bake store that fall outside the retention policy: done bakes older than
+ * the configured maximum age for their result, and bakes trimmed by the keep-latest-per-key policy. Bakes are deleted
+ * in batches, spaced out to stay under the configured deletion rate. Running bakes are never deleted.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("rosco.bake-store.retention.enabled")
+class BakeStoreCompactor implements ApplicationListener<ApplicationReadyEvent> {
+
+  @Autowired
+  BakeStore bakeStore
+
+  @Autowired
+  BakeStoreConfigurationProperties bakeStoreProperties
+
+  @Autowired
+  Registry registry
+
+  @Override
+  void onApplicationEvent(ApplicationReadyEvent event) {
+    def store = redisBakeStore
+
+    if (!store) {
+      log.warn("Bake retention is only supported by the redis bake store.")
+      return
+    }
+
+    Schedulers.io().createWorker().schedulePeriodically(
+      {
+        try {
+          compact(store)
+        } catch (Exception e) {
+          log.error("Bake Compaction Error:", e)
+        }
+      } as Action0, 0, bakeStoreProperties.retention.intervalMinutes, TimeUnit.MINUTES
+    )
+  }
+
+  /**
+   * Returns the number of bakes deleted.
+   */
+  long compact(RedisBackedBakeStore store) {
+    def retention = bakeStoreProperties.retention
+    long backfilled = store.backfillBakeIdIndex(retention.batchSize)
+
+    if (backfilled) {
+      log.info("Indexed $backfilled bakes stored before the bake id index was kept.")
+    }
+
+    long trimmed = compactTrimmedBakes(store)
+    long expired = compactExpiredBakes(store)
+
+    if (trimmed || expired) {
+      log.info("Deleted $trimmed bakes beyond the latest ${retention.keepLatestPerKey} per bake key and $expired expired bakes.")
+    }
+
+    return trimmed + expired
+  }
+
+  private long compactTrimmedBakes(RedisBackedBakeStore store) {
+    def retrievePage = { int offset, int limit -> store.retrieveTrimmedBakeIds(offset, limit) }
+
+    return compactPages(store, "trimmed", retrievePage) { BakeStatus bakeStatus ->
+      !bakeStatus.state?.incomplete
+    }
+  }
+
+  private long compactExpiredBakes(RedisBackedBakeStore store) {
+    def retention = bakeStoreProperties.retention
+    long now = store.timeInMilliseconds
+    Long successfulBefore = retention.successfulMaxAgeDays ? now - TimeUnit.DAYS.toMillis(retention.successfulMaxAgeDays) : null
+    Long failedBefore = retention.failedMaxAgeDays ? now - TimeUnit.DAYS.toMillis(retention.failedMaxAgeDays) : null
+
+    if (successfulBefore == null && failedBefore == null) {
+      return 0
+    }
+
+    // Every bake that might have expired was created before the later of the two cutoffs.
+    long createdBefore = [successfulBefore, failedBefore].findAll { it != null }.max()
+
+    def retrievePage = { int offset, int limit -> store.retrieveBakeIdsCreatedBefore(createdBefore, offset, limit) }
+
+    return compactPages(store, "expired", retrievePage) { BakeStatus bakeStatus ->
+      isExpired(bakeStatus, successfulBefore, failedBefore)
+    }
+  }
+
+  private long compactPages(RedisBackedBakeStore store, String reason, Closure<List<String>> retrievePage, Closure<Boolean> isDeletable) {
+    def batchSize = bakeStoreProperties.retention.batchSize
+    long deleted = 0
+    int offset = 0
+
+    while (true) {
+      def bakeIds = retrievePage(offset, batchSize)
+
+      if (!bakeIds) {
+        return deleted
+      }
+
+      def bakeStatuses = store.retrieveBakeStatusesByIds(bakeIds)
+      def deletableBakeIds = bakeIds.findAll { String bakeId ->
+        def bakeStatus = bakeStatuses[bakeId]
+
+        // Ids whose bake is already gone are only dropped from the index.
+        return !bakeStatus || isDeletable(bakeStatus)
+      }
+
+      if (deletableBakeIds) {
+        deleted += deleteBatch(store, deletableBakeIds, reason)
+      }
+
+      // The bakes kept from this page are still indexed, ahead of the next page.
+      offset += bakeIds.size() - deletableBakeIds.size()
+
+      if (bakeIds.size() < batchSize) {
+        return deleted
+      }
+    }
+  }
+
+  private long deleteBatch(RedisBackedBakeStore store, List<String> bakeIds, String reason) {
+    long deleted = store.deleteBakesById(bakeIds)
+
+    registry.counter(registry.createId("bakesCompacted", [reason: reason])).increment(deleted)
+
+    def maxDeletesPerSecond = bakeStoreProperties.retention.maxDeletesPerSecond
+
+    if (maxDeletesPerSecond > 0) {
+      TimeUnit.MILLISECONDS.sleep(TimeUnit.SECONDS.toMillis(bakeIds.size()) / maxDeletesPerSecond as long)
+    }
+
+    return deleted
+  }
+
+  private static boolean isExpired(BakeStatus bakeStatus, Long successfulBefore, Long failedBefore) {
+    if (bakeStatus.state?.incomplete) {
+      return false
+    }
+
+    def before = bakeStatus.state == BakeStatus.State.COMPLETED && bakeStatus.result == BakeStatus.Result.SUCCESS ? successfulBefore : failedBefore
+
+    return before != null && bakeStatus.createdTimestamp < before
+  }
+
+  private RedisBackedBakeStore getRedisBakeStore() {
+    def store = CachingBakeStore.unwrap(bakeStore)
+
+    return store instanceof RedisBackedBakeStore ? (RedisBackedBakeStore) store : null
+  }
+}
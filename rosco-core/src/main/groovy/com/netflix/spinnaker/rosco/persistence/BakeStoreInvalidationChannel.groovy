@@ -0,0 +1,40 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import java.util.function.Consumer
+
+/**
+ * Broadcasts the ids of changed bakes to every rosco instance, so that cached copies of them can be dropped.
+ */
+interface BakeStoreInvalidationChannel extends Closeable {
+
+  /**
+   * Sent in place of a bake id when any number of bakes may have changed.
+   */
+  public static final String ALL_BAKES = "*"
+
+  /**
+   * Tell every rosco instance, including this one, that the bake with the given id has changed.
+   */
+  public void publish(String bakeId)
+
+  /**
+   * Call listener with each published bake id, until the channel is closed.
+   */
+  public void subscribe(Consumer<String> listener)
+}
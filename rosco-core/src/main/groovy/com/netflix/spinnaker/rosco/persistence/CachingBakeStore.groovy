@@ -0,0 +1,407 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.netflix.spectator.api.Id
+import com.netflix.spectator.api.Registry
+import com.netflix.spinnaker.rosco.api.Bake
+import com.netflix.spinnaker.rosco.api.BakeHistoryPage
+import com.netflix.spinnaker.rosco.api.BakeRequest
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import com.netflix.spinnaker.rosco.jobs.BakeRecipe
+import groovy.util.logging.Slf4j
+
+import java.util.concurrent.TimeUnit
+import java.util.function.Function
+
+/**
+ * Keeps a bounded, local copy of the statuses of completed and canceled bakes and of completed bake details in front
+ * of another bake store. Once a bake is done, only deleting, canceling or rebaking it changes these records; every
+ * change made through any rosco instance is broadcast on the invalidation channel, if there is one.
+ */
+@Slf4j
+class CachingBakeStore implements BakeStore, Closeable {
+
+  private static final String STATUS_CACHE = "status"
+  private static final String DETAILS_CACHE = "details"
+
+  private final BakeStore delegate
+  private final BakeStoreInvalidationChannel invalidationChannel
+  private final ObjectMapper mapper = new ObjectMapper()
+
+  // Records are held as json, so callers never share mutable state with the cache.
+  private final Cache<String, CachedBakeStatus> bakeStatuses
+  private final Cache<String, String> bakeDetails
+
+  private final Registry registry
+  private final Id hitsId
+  private final Id missesId
+
+  /**
+   * When invalidationChannel is null, only changes made through this instance invalidate its cache.
+   */
+  CachingBakeStore(BakeStore delegate,
+                   BakeStoreInvalidationChannel invalidationChannel,
+                   long maximumSize,
+                   long expireAfterWriteSeconds,
+                   Registry registry) {
+    this.delegate = delegate
+    this.invalidationChannel = invalidationChannel
+    this.bakeStatuses = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS).build()
+    this.bakeDetails = Caffeine.newBuilder().maximumSize(maximumSize).expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS).build()
+    this.registry = registry
+    this.hitsId = registry.createId("bakeStoreNearCacheHits")
+    this.missesId = registry.createId("bakeStoreNearCacheMisses")
+
+    invalidationChannel?.subscribe(this.&invalidateLocally)
+  }
+
+  BakeStore getDelegate() {
+    return delegate
+  }
+
+  /**
+   * The bake store behind bakeStore's cache, if it has one.
+   */
+  static BakeStore unwrap(BakeStore bakeStore) {
+    return bakeStore instanceof CachingBakeStore ? ((CachingBakeStore) bakeStore).delegate : bakeStore
+  }
+
+  @Override
+  public boolean acquireBakeLock(String bakeKey) {
+    return delegate.acquireBakeLock(bakeKey)
+  }
+
+  @Override
+  public void releaseBakeLock(String bakeKey) {
+    delegate.releaseBakeLock(bakeKey)
+  }
+
+  @Override
+  public boolean acquireLease(String leaseName, long leaseMilliseconds) {
+    return delegate.acquireLease(leaseName, leaseMilliseconds)
+  }
+
+  @Override
+  public boolean isLeaseHeld(String leaseName) {
+    return delegate.isLeaseHeld(leaseName)
+  }
+
+  @Override
+  public BakeStatus storeNewBakeStatus(String bakeKey, String region, BakeRecipe bakeRecipe, BakeRequest bakeRequest, BakeStatus bakeStatus, String command) {
+    return delegate.storeNewBakeStatus(bakeKey, region, bakeRecipe, bakeRequest, bakeStatus, command)
+  }
+
+  @Override
+  public void updateBakeDetails(Bake bakeDetails) {
+    delegate.updateBakeDetails(bakeDetails)
+    invalidate(bakeDetails.id)
+  }
+
+  @Override
+  public void updateBakeStatus(BakeStatus bakeStatus) {
+    delegate.updateBakeStatus(bakeStatus)
+
+    // Only done bakes are cached, and a status update can't make a bake pending or running again.
+    if (isDone(bakeStatus)) {
+      invalidate(bakeStatus.id)
+    }
+  }
+
+  @Override
+  public void storeBakeError(String bakeId, String error) {
+    delegate.storeBakeError(bakeId, error)
+  }
+
+  @Override
+  public String retrieveRegionById(String bakeId) {
+    return delegate.retrieveRegionById(bakeId)
+  }
+
+  @Override
+  public String retrieveCloudProviderById(String bakeId) {
+    return delegate.retrieveCloudProviderById(bakeId)
+  }
+
+  @Override
+  public BakeStatus retrieveBakeStatusByKey(String bakeKey) {
+    // Bake keys are repointed by rebakes, so they aren't cached.
+    return delegate.retrieveBakeStatusByKey(bakeKey)
+  }
+
+  @Override
+  public BakeStatus retrieveBakeStatusById(String bakeId) {
+    if (!bakeId) {
+      return delegate.retrieveBakeStatusById(bakeId)
+    }
+
+    BakeStatus bakeStatus = null
+    def cachedBakeStatus = retrieve(bakeStatuses, STATUS_CACHE, bakeId) { String id ->
+      bakeStatus = this.delegate.retrieveBakeStatusById(id)
+
+      return isDone(bakeStatus) ? new CachedBakeStatus(bakeStatus) : null
+    }
+
+    // On a miss, the delegate's status is handed back as it is.
+    return bakeStatus ?: cachedBakeStatus?.toBakeStatus()
+  }
+
+  @Override
+  public Map<String, BakeStatus> retrieveBakeStatusesByIds(Collection<String> bakeIds) {
+    return delegate.retrieveBakeStatusesByIds(bakeIds)
+  }
+
+  @Override
+  public BakeRequest retrieveBakeRequestById(String bakeId) {
+    return delegate.retrieveBakeRequestById(bakeId)
+  }
+
+  @Override
+  public BakeRecipe retrieveBakeRecipeById(String bakeId) {
+    return delegate.retrieveBakeRecipeById(bakeId)
+  }
+
+  @Override
+  public BakeCompletionContext retrieveBakeCompletionContextById(String bakeId) {
+    return delegate.retrieveBakeCompletionContextById(bakeId)
+  }
+
+  @Override
+  public Bake retrieveBakeDetailsById(String bakeId) {
+    if (!bakeId) {
+      return delegate.retrieveBakeDetailsById(bakeId)
+    }
+
+    // Bake details are only stored once a bake completes.
+    def bakeDetailsJson = retrieve(bakeDetails, DETAILS_CACHE, bakeId) { String id ->
+      def bake = this.delegate.retrieveBakeDetailsById(id)
+
+      return bake ? mapper.writeValueAsString(bake) : null
+    }
+
+    return bakeDetailsJson ? mapper.readValue(bakeDetailsJson, Bake) : null
+  }
+
+  @Override
+  public Map<String, String> retrieveBakeLogsById(String bakeId) {
+    return delegate.retrieveBakeLogsById(bakeId)
+  }
+
+  @Override
+  public Map<String, String> retrieveBakeLogsById(String bakeId, long offset) {
+    return delegate.retrieveBakeLogsById(bakeId, offset)
+  }
+
+  @Override
+  public String deleteBakeByKey(String bakeKey) {
+    def bakeId = delegate.deleteBakeByKey(bakeKey)
+    invalidate(bakeId)
+
+    return bakeId
+  }
+
+  @Override
+  public String deleteBakeByKeyPreserveDetails(String bakeKey) {
+    def bakeId = delegate.deleteBakeByKeyPreserveDetails(bakeKey)
+    invalidate(bakeId)
+
+    return bakeId
+  }
+
+  @Override
+  public void deleteBakeByPipelineExecutionId(String pipelineExecutionId) {
+    delegate.deleteBakeByPipelineExecutionId(pipelineExecutionId)
+
+    // The ids of the deleted bakes aren't known here.
+    invalidate(BakeStoreInvalidationChannel.ALL_BAKES)
+  }
+
+  @Override
+  public long deleteBakesByPipelineExecutionIds(Collection<String> pipelineExecutionIds) {
+    def deleted = delegate.deleteBakesByPipelineExecutionIds(pipelineExecutionIds)
+
+    // The ids of the deleted bakes aren't known here.
+    invalidate(BakeStoreInvalidationChannel.ALL_BAKES)
+
+    return deleted
+  }
+
+  @Override
+  public boolean cancelBakeById(String bakeId) {
+    def canceled = delegate.cancelBakeById(bakeId)
+    invalidate(bakeId)
+
+    return canceled
+  }
+
+  @Override
+  public void removeFromIncompletes(String roscoInstanceId, String bakeId) {
+    delegate.removeFromIncompletes(roscoInstanceId, bakeId)
+  }
+
+  @Override
+  public boolean adoptBake(String roscoInstanceId, String bakeId) {
+    return delegate.adoptBake(roscoInstanceId, bakeId)
+  }
+
+  @Override
+  public Set<String> getThisInstanceIncompleteBakeIds() {
+    return delegate.getThisInstanceIncompleteBakeIds()
+  }
+
+  @Override
+  public Map<String, Set<String>> getAllIncompleteBakeIds() {
+    return delegate.getAllIncompleteBakeIds()
+  }
+
+  @Override
+  public void refreshInstanceRegistration() {
+    delegate.refreshInstanceRegistration()
+  }
+
+  @Override
+  public long expireInstances(long expiryMilliseconds) {
+    return delegate.expireInstances(expiryMilliseconds)
+  }
+
+  @Override
+  public void recordHeartbeating() {
+    delegate.recordHeartbeating()
+  }
+
+  @Override
+  public boolean hasRecordedHeartbeating(String roscoInstanceId) {
+    return delegate.hasRecordedHeartbeating(roscoInstanceId)
+  }
+
+  @Override
+  public void forgetHeartbeating(String roscoInstanceId) {
+    delegate.forgetHeartbeating(roscoInstanceId)
+  }
+
+  @Override
+  public void saveImageToBakeRelationship(String region, String image, String bakeId) {
+    delegate.saveImageToBakeRelationship(region, image, bakeId)
+  }
+
+  @Override
+  public String getBakeIdFromImage(String region, String image) {
+    return delegate.getBakeIdFromImage(region, image)
+  }
+
+  @Override
+  public Map<String, String> getBakeIdsFromImages(String region, Collection<String> images) {
+    return delegate.getBakeIdsFromImages(region, images)
+  }
+
+  @Override
+  public Map<String, Set<String>> getImagesFromBakeId(String bakeId) {
+    return delegate.getImagesFromBakeId(bakeId)
+  }
+
+  @Override
+  public BakeHistoryPage retrieveBakeHistory(long since, long until, String cloudProvider, BakeStatus.State state, String cursor, int limit) {
+    return delegate.retrieveBakeHistory(since, until, cloudProvider, state, cursor, limit)
+  }
+
+  @Override
+  public long getTimeInMilliseconds() {
+    return delegate.getTimeInMilliseconds()
+  }
+
+  @Override
+  public void close() {
+    invalidationChannel?.close()
+
+    if (delegate instanceof AutoCloseable) {
+      ((AutoCloseable) delegate).close()
+    }
+  }
+
+  private <T> T retrieve(Cache<String, T> cache, String cacheName, String bakeId, Closure<T> loader) {
+    boolean loaded = false
+
+    // Loading through the cache holds off invalidation of this bake until the load completes, so an invalidation that
+    // arrives mid-load can't be overwritten by the stale value.
+    T cached = cache.get(bakeId, { String id ->
+      loaded = true
+      return loader.call(id)
+    } as Function<String, T>)
+
+    registry.counter(loaded ? missesId.withTag("cache", cacheName) : hitsId.withTag("cache", cacheName)).increment()
+
+    return cached
+  }
+
+  private void invalidate(String bakeId) {
+    if (!bakeId) {
+      return
+    }
+
+    invalidateLocally(bakeId)
+
+    if (invalidationChannel) {
+      try {
+        invalidationChannel.publish(bakeId)
+      } catch (Exception e) {
+        // Other instances pick the change up once their copies expire.
+        log.warn("Unable to publish invalidation of bake '$bakeId'.", e)
+      }
+    }
+  }
+
+  private void invalidateLocally(String bakeId) {
+    if (bakeId == BakeStoreInvalidationChannel.ALL_BAKES) {
+      bakeStatuses.invalidateAll()
+      bakeDetails.invalidateAll()
+    } else {
+      bakeStatuses.invalidate(bakeId)
+      bakeDetails.invalidate(bakeId)
+    }
+  }
+
+  private static boolean isDone(BakeStatus bakeStatus) {
+    return bakeStatus?.state in [BakeStatus.State.COMPLETED, BakeStatus.State.CANCELED]
+  }
+
+  /**
+   * A done bake status. Its timestamps aren't serialized, so they are held next to the json.
+   */
+  private class CachedBakeStatus {
+
+    final String json
+    final long createdTimestamp
+    final long updatedTimestamp
+
+    CachedBakeStatus(BakeStatus bakeStatus) {
+      this.json = mapper.writeValueAsString(bakeStatus)
+      this.createdTimestamp = bakeStatus.createdTimestamp
+      this.updatedTimestamp = bakeStatus.updatedTimestamp
+    }
+
+    BakeStatus toBakeStatus() {
+      def bakeStatus = mapper.readValue(json, BakeStatus)
+      bakeStatus.createdTimestamp = createdTimestamp
+      bakeStatus.updatedTimestamp = updatedTimestamp
+
+      return bakeStatus
+    }
+  }
+}
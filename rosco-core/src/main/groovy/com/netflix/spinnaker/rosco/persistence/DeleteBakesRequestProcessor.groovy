@@ -0,0 +1,144 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.github.benmanes.caffeine.cache.Cache
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.netflix.spectator.api.Registry
+import com.netflix.spinnaker.rosco.api.DeleteBakesRequest
+import com.netflix.spinnaker.rosco.api.DeleteBakesRequestStatus
+import groovy.util.logging.Slf4j
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory
+import org.springframework.stereotype.Component
+
+import javax.annotation.PostConstruct
+import javax.annotation.PreDestroy
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+import java.util.concurrent.atomic.AtomicInteger
+import java.util.function.ToDoubleFunction
+
+/**
+ * Deletes the bakes of the pipeline executions in a DeleteBakesRequest in the background, a batch of pipeline
+ * executions at a time. Requests are processed one after the other, so deleting the bakes of many pipeline executions
+ * never ties up more than one connection to the bake store. The progress of a request can be looked up on the rosco
+ * instance that accepted it, until a while after it is done.
+ */
+@Slf4j
+@Component
+class DeleteBakesRequestProcessor {
+
+  @Autowired
+  BakeStore bakeStore
+
+  @Autowired
+  Registry registry
+
+  // Pipeline executions whose bakes are deleted per call to the bake store.
+  @Value('${rosco.bake-store.delete-requests.batch-size:50}')
+  int batchSize = 50
+
+  @Value('${rosco.bake-store.delete-requests.retention-minutes:60}')
+  long retentionMinutes = 60
+
+  private final AtomicInteger queued = new AtomicInteger()
+  private ExecutorService executor
+  private Cache<String, DeleteBakesRequestStatus> statuses
+
+  @PostConstruct
+  void start() {
+    executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("deleteBakesRequests-"))
+    statuses = Caffeine.newBuilder().expireAfterWrite(retentionMinutes, TimeUnit.MINUTES).build()
+
+    registry.gauge(registry.createId("deleteBakesRequestsQueued"), queued, { AtomicInteger value ->
+      value.doubleValue()
+    } as ToDoubleFunction<AtomicInteger>)
+  }
+
+  @PreDestroy
+  void stop() {
+    executor?.shutdownNow()
+  }
+
+  /**
+   * Queue the request and return its status right away.
+   */
+  DeleteBakesRequestStatus submit(DeleteBakesRequest deleteBakesRequest) {
+    long now = System.currentTimeMillis()
+    def status = new DeleteBakesRequestStatus(id: UUID.randomUUID().toString(),
+                                              pipelineExecutionIds: new ArrayList<>(deleteBakesRequest.pipelineExecutionIds),
+                                              createdTimestamp: now,
+                                              updatedTimestamp: now)
+
+    statuses.put(status.id, status)
+    queued.incrementAndGet()
+
+    executor.execute {
+      queued.decrementAndGet()
+      process(status)
+    }
+
+    return status
+  }
+
+  /**
+   * Returns null once the request is forgotten, or if another rosco instance accepted it.
+   */
+  DeleteBakesRequestStatus getStatus(String id) {
+    return statuses.getIfPresent(id)
+  }
+
+  void process(DeleteBakesRequestStatus status) {
+    long startTime = System.currentTimeMillis()
+
+    status.state = DeleteBakesRequestStatus.State.RUNNING
+
+    try {
+      status.pipelineExecutionIds.collate(batchSize).each { List<String> pipelineExecutionIds ->
+        long deleted = bakeStore.deleteBakesByPipelineExecutionIds(pipelineExecutionIds)
+
+        registry.counter(registry.createId("pipelineExecutionBakesDeleted")).increment(deleted)
+
+        status.bakesDeleted += deleted
+        status.pipelineExecutionsDeleted += pipelineExecutionIds.size()
+        touch(status)
+      }
+
+      status.state = DeleteBakesRequestStatus.State.COMPLETED
+      log.info("Deleted $status.bakesDeleted bakes of $status.pipelineExecutionsDeleted pipeline executions for delete bakes request $status.id.")
+    } catch (Exception e) {
+      status.state = DeleteBakesRequestStatus.State.FAILED
+      status.error = e.message
+      log.error("Delete bakes request $status.id failed after deleting $status.bakesDeleted bakes:", e)
+    } finally {
+      touch(status)
+
+      def success = status.state == DeleteBakesRequestStatus.State.COMPLETED
+      registry.timer(registry.createId("deleteBakesRequests", [success: success as String])).record(System.currentTimeMillis() - startTime, TimeUnit.MILLISECONDS)
+    }
+  }
+
+  // Keep the status around until a while after its last update.
+  private void touch(DeleteBakesRequestStatus status) {
+    status.updatedTimestamp = System.currentTimeMillis()
+    statuses?.put(status.id, status)
+  }
+}
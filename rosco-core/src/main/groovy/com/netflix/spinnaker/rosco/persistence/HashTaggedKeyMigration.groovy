@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import groovy.util.logging.Slf4j
+import org.springframework.beans.factory.SmartInitializingSingleton
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.stereotype.Component
+
+/**
+ * Moves the bakes stored in the legacy redis key layout over to the hash-tagged layout, which a redis cluster can
+ * serve. Enable rosco.bake-store.redis.hash-tagged-keys and rosco.bake-store.redis.migrate-to-hash-tagged-keys
+ * together, while rosco still runs against the redis holding the legacy keys. The migration runs once, before rosco
+ * starts serving, so no bakes go missing while it runs.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("rosco.bake-store.redis.migrate-to-hash-tagged-keys")
+class HashTaggedKeyMigration implements SmartInitializingSingleton {
+
+  @Autowired
+  BakeStore bakeStore
+
+  @Value('${rosco.bake-store.redis.migrate-to-hash-tagged-keys-page-size:500}')
+  int pageSize
+
+  @Override
+  void afterSingletonsInstantiated() {
+    def store = CachingBakeStore.unwrap(bakeStore)
+
+    if (!(store instanceof RedisBackedBakeStore)) {
+      log.warn("Only the redis bake store can migrate to hash-tagged keys, skipping.")
+      return
+    }
+
+    log.info("Migrating bakes to hash-tagged keys...")
+
+    long moved = ((RedisBackedBakeStore) store).migrateToHashTaggedKeys(pageSize)
+
+    log.info("Moved $moved keys to hash-tagged keys.")
+  }
+}
@@ -0,0 +1,794 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.spinnaker.rosco.api.Bake;
+import com.netflix.spinnaker.rosco.api.BakeHistoryPage;
+import com.netflix.spinnaker.rosco.api.BakeRequest;
+import com.netflix.spinnaker.rosco.api.BakeStatus;
+import com.netflix.spinnaker.rosco.api.BakeSummary;
+import com.netflix.spinnaker.rosco.jobs.BakeRecipe;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps bakes in memory, for a single rosco instance that doesn't need redis. Bakes can optionally be snapshotted to a
+ * file and restored from it on startup. Bake records are replaced rather than modified, so readers never see a
+ * half-applied update; operations that span more than one map hold the store's monitor.
+ */
+@Slf4j
+public class InMemoryBakeStore implements BakeStore, Closeable {
+
+  private static final long BAKE_LOCK_TTL_MILLISECONDS = 5000;
+
+  private final String roscoInstanceId;
+  private final Path snapshotPath;
+  private final LongSupplier clock;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private final Map<String, StoredBake> bakes = new ConcurrentHashMap<>();
+  private final Map<String, String> bakeKeys = new ConcurrentHashMap<>();
+  private final Map<String, Long> bakeLocks = new ConcurrentHashMap<>();
+  private final Map<String, String> images = new ConcurrentHashMap<>();
+  private final Map<String, Long> instances = new ConcurrentHashMap<>();
+  private final Set<String> heartbeatingInstanceIds = ConcurrentHashMap.newKeySet();
+  private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+
+  private final AtomicLong version = new AtomicLong();
+  private volatile long snapshotVersion = 0;
+
+  /** When snapshotPath is null, bakes are lost when rosco stops. */
+  public InMemoryBakeStore(String roscoInstanceId, Path snapshotPath) {
+    this(roscoInstanceId, snapshotPath, System::currentTimeMillis);
+  }
+
+  InMemoryBakeStore(String roscoInstanceId, Path snapshotPath, LongSupplier clock) {
+    this.roscoInstanceId = roscoInstanceId;
+    this.snapshotPath = snapshotPath;
+    this.clock = clock;
+  }
+
+  @Override
+  public boolean acquireBakeLock(String bakeKey) {
+    long now = getTimeInMilliseconds();
+    AtomicBoolean acquired = new AtomicBoolean();
+
+    bakeLocks.compute(
+        bakeKey,
+        (key, expiresAt) -> {
+          if (expiresAt != null && expiresAt > now) {
+            return expiresAt;
+          }
+
+          acquired.set(true);
+
+          return now + BAKE_LOCK_TTL_MILLISECONDS;
+        });
+
+    if (acquired.get()) {
+      // The bake key is about to be pointed at a new bake.
+      bakeKeys.remove(bakeKey);
+      changed();
+    }
+
+    return acquired.get();
+  }
+
+  @Override
+  public void releaseBakeLock(String bakeKey) {
+    bakeLocks.remove(bakeKey);
+  }
+
+  @Override
+  public synchronized BakeStatus storeNewBakeStatus(
+      String bakeKey,
+      String region,
+      BakeRecipe bakeRecipe,
+      BakeRequest bakeRequest,
+      BakeStatus bakeStatus,
+      String command) {
+    // If we lost a race to initiate a new bake, just return the race winner's bake status.
+    BakeStatus existingBakeStatus = retrieveBakeStatusByKey(bakeKey);
+
+    if (existingBakeStatus != null) {
+      return existingBakeStatus;
+    }
+
+    long createdTimestampMilliseconds = getTimeInMilliseconds();
+    String spinnakerExecutionId = bakeRequest.getSpinnaker_execution_id();
+
+    bakes.put(
+        bakeStatus.getId(),
+        StoredBake.builder()
+            .id(bakeStatus.getId())
+            .bakeKey(bakeKey)
+            .region(region)
+            .bakeRecipe(toJson(bakeRecipe))
+            .bakeRequest(toJson(bakeRequest))
+            .bakeStatus(toJson(bakeStatus))
+            .state(bakeStatus.getState())
+            .bakeLogs(bakeStatus.getLogsContent())
+            .command(command)
+            .roscoInstanceId(roscoInstanceId)
+            .incompleteInstanceId(roscoInstanceId)
+            .pipelineExecutionId(
+                spinnakerExecutionId != null ? spinnakerExecutionId.split(":")[0] : null)
+            .createdTimestamp(createdTimestampMilliseconds)
+            .updatedTimestamp(createdTimestampMilliseconds)
+            .build());
+    bakeKeys.put(bakeKey, bakeStatus.getId());
+
+    // Release the lock instead of just allowing it to wait out the TTL.
+    bakeLocks.remove(bakeKey);
+    instances.put(roscoInstanceId, createdTimestampMilliseconds);
+    changed();
+
+    return bakeStatus;
+  }
+
+  @Override
+  public void updateBakeDetails(Bake bakeDetails) {
+    saveImageToBakeRelationship(
+        bakeDetails.getArtifact().getLocation(),
+        bakeDetails.getArtifact().getReference(),
+        bakeDetails.getId());
+
+    String bakeDetailsJson = toJson(bakeDetails);
+
+    updateBake(
+        bakeDetails.getId(),
+        bake ->
+            // Ensure we don't update/resurrect a canceled bake (can happen due to a race).
+            bake.getState() == BakeStatus.State.CANCELED
+                ? bake
+                : bake.toBuilder().bakeDetails(bakeDetailsJson).build());
+  }
+
+  @Override
+  public void updateBakeStatus(BakeStatus bakeStatus) {
+    String bakeStatusJson = toJson(bakeStatus);
+    long updatedTimestampMilliseconds = getTimeInMilliseconds();
+    String logsContent = bakeStatus.getLogsContent();
+
+    updateBake(
+        bakeStatus.getId(),
+        bake -> {
+          // Ensure we don't update/resurrect a canceled bake (can happen due to a race).
+          if (bake.getState() == BakeStatus.State.CANCELED) {
+            return bake;
+          }
+
+          StoredBake.StoredBakeBuilder updated =
+              bake.toBuilder()
+                  .bakeStatus(bakeStatusJson)
+                  .state(bakeStatus.getState())
+                  .updatedTimestamp(updatedTimestampMilliseconds);
+
+          if (logsContent != null && !logsContent.isEmpty()) {
+            String storedLogs = bake.getBakeLogs() != null ? bake.getBakeLogs() : "";
+
+            if (bakeStatus.getLogsOffset() == 0) {
+              updated.bakeLogs(logsContent);
+            } else if (storedLogs.length() == bakeStatus.getLogsOffset()) {
+              // Only append logs that pick up exactly where the stored logs leave off.
+              updated.bakeLogs(storedLogs + logsContent);
+            }
+          }
+
+          if (bakeStatus.getState() == null || !bakeStatus.getState().isIncomplete()) {
+            updated.incompleteInstanceId(null);
+          }
+
+          return updated.build();
+        });
+  }
+
+  @Override
+  public void storeBakeError(String bakeId, String error) {
+    updateBake(bakeId, bake -> bake.toBuilder().bakeError(error).build());
+  }
+
+  @Override
+  public String retrieveRegionById(String bakeId) {
+    StoredBake bake = getBake(bakeId);
+
+    return bake != null ? bake.getRegion() : null;
+  }
+
+  @Override
+  public String retrieveCloudProviderById(String bakeId) {
+    StoredBake bake = getBake(bakeId);
+
+    if (bake == null) {
+      return null;
+    }
+
+    // Bake key is always bake:$cloudProvider:...
+    String[] bakeKeyParts = bake.getBakeKey().split(":");
+
+    return bakeKeyParts.length > 1 ? bakeKeyParts[1] : null;
+  }
+
+  @Override
+  public BakeStatus retrieveBakeStatusByKey(String bakeKey) {
+    return bakeKey != null ? retrieveBakeStatusById(bakeKeys.get(bakeKey)) : null;
+  }
+
+  @Override
+  public BakeStatus retrieveBakeStatusById(String bakeId) {
+    StoredBake bake = getBake(bakeId);
+
+    if (bake == null) {
+      return null;
+    }
+
+    BakeStatus bakeStatus = fromJson(bake.getBakeStatus(), BakeStatus.class);
+    bakeStatus.setCreatedTimestamp(bake.getCreatedTimestamp());
+    bakeStatus.setUpdatedTimestamp(bake.getUpdatedTimestamp());
+
+    return bakeStatus;
+  }
+
+  @Override
+  public Map<String, BakeStatus> retrieveBakeStatusesByIds(Collection<String> bakeIds) {
+    Map<String, BakeStatus> bakeStatuses = new LinkedHashMap<>();
+
+    if (bakeIds != null) {
+      for (String bakeId : bakeIds) {
+        BakeStatus bakeStatus = retrieveBakeStatusById(bakeId);
+
+        if (bakeStatus != null) {
+          bakeStatuses.put(bakeId, bakeStatus);
+        }
+      }
+    }
+
+    return bakeStatuses;
+  }
+
+  @Override
+  public BakeRequest retrieveBakeRequestById(String bakeId) {
+    StoredBake bake = getBake(bakeId);
+
+    return bake != null ? fromJson(bake.getBakeRequest(), BakeRequest.class) : null;
+  }
+
+  @Override
+  public BakeRecipe retrieveBakeRecipeById(String bakeId) {
+    StoredBake bake = getBake(bakeId);
+
+    return bake != null ? fromJson(bake.getBakeRecipe(), BakeRecipe.class) : null;
+  }
+
+  @Override
+  public BakeCompletionContext retrieveBakeCompletionContextById(String bakeId) {
+    StoredBake bake = getBake(bakeId);
+
+    if (bake == null) {
+      return null;
+    }
+
+    return new BakeCompletionContext(
+        retrieveCloudProviderById(bakeId),
+        bake.getRegion(),
+        fromJson(bake.getBakeRequest(), BakeRequest.class),
+        fromJson(bake.getBakeRecipe(), BakeRecipe.class));
+  }
+
+  @Override
+  public Bake retrieveBakeDetailsById(String bakeId) {
+    StoredBake bake = getBake(bakeId);
+
+    return bake != null ? fromJson(bake.getBakeDetails(), Bake.class) : null;
+  }
+
+  @Override
+  public Map<String, String> retrieveBakeLogsById(String bakeId) {
+    Map<String, String> bakeLogs = retrieveBakeLogsById(bakeId, 0);
+
+    return bakeLogs != null
+        ? Collections.singletonMap("logsContent", bakeLogs.get("logsContent"))
+        : null;
+  }
+
+  @Override
+  public Map<String, String> retrieveBakeLogsById(String bakeId, long offset) {
+    StoredBake bake = getBake(bakeId);
+
+    if (bake == null) {
+      return null;
+    }
+
+    String logsContent = bake.getBakeLogs() != null ? bake.getBakeLogs() : "";
+    long start = Math.max(offset, 0);
+    Map<String, String> result = new HashMap<>();
+
+    result.put(
+        "logsContent", start < logsContent.length() ? logsContent.substring((int) start) : "");
+    result.put("nextOffset", String.valueOf(Math.max(start, logsContent.length())));
+
+    return result;
+  }
+
+  @Override
+  public synchronized String deleteBakeByKey(String bakeKey) {
+    String bakeId = bakeKeys.remove(bakeKey);
+
+    if (bakeId != null) {
+      bakes.remove(bakeId);
+    }
+
+    changed();
+
+    return bakeId;
+  }
+
+  @Override
+  public synchronized String deleteBakeByKeyPreserveDetails(String bakeKey) {
+    String bakeId = bakeKeys.remove(bakeKey);
+
+    if (bakeId == null) {
+      return null;
+    }
+
+    long updatedTimestampMilliseconds = getTimeInMilliseconds();
+
+    updateBake(
+        bakeId,
+        bake -> {
+          StoredBake.StoredBakeBuilder updated = bake.toBuilder().incompleteInstanceId(null);
+
+          // Set bake state to CANCELED if still incomplete.
+          if (bake.getState() != null && bake.getState().isIncomplete()) {
+            BakeStatus bakeStatus = fromJson(bake.getBakeStatus(), BakeStatus.class);
+            bakeStatus.setState(BakeStatus.State.CANCELED);
+            bakeStatus.setResult(BakeStatus.Result.FAILURE);
+
+            updated
+                .bakeStatus(toJson(bakeStatus))
+                .state(BakeStatus.State.CANCELED)
+                .updatedTimestamp(updatedTimestampMilliseconds);
+          }
+
+          return updated.build();
+        });
+
+    return bakeId;
+  }
+
+  @Override
+  public void deleteBakeByPipelineExecutionId(String pipelineExecutionId) {
+    deleteBakesByPipelineExecutionIds(Collections.singleton(pipelineExecutionId));
+  }
+
+  @Override
+  public synchronized long deleteBakesByPipelineExecutionIds(
+      Collection<String> pipelineExecutionIds) {
+    Set<String> bakeIds =
+        bakes.values().stream()
+            .filter(bake -> pipelineExecutionIds.contains(bake.getPipelineExecutionId()))
+            .map(StoredBake::getId)
+            .collect(Collectors.toSet());
+
+    bakeKeys.values().removeAll(bakeIds);
+    bakes.keySet().removeAll(bakeIds);
+    changed();
+
+    return bakeIds.size();
+  }
+
+  @Override
+  public synchronized boolean cancelBakeById(String bakeId) {
+    StoredBake bake = getBake(bakeId);
+
+    if (bake == null) {
+      return false;
+    }
+
+    BakeStatus bakeStatus = new BakeStatus();
+    bakeStatus.setId(bakeId);
+    bakeStatus.setResource_id(bakeId);
+    bakeStatus.setState(BakeStatus.State.CANCELED);
+    bakeStatus.setResult(BakeStatus.Result.FAILURE);
+
+    bakes.put(
+        bakeId,
+        bake.toBuilder()
+            .bakeStatus(toJson(bakeStatus))
+            .state(BakeStatus.State.CANCELED)
+            .updatedTimestamp(getTimeInMilliseconds())
+            .incompleteInstanceId(null)
+            .build());
+    bakeKeys.remove(bake.getBakeKey(), bakeId);
+    changed();
+
+    return bake.getIncompleteInstanceId() != null;
+  }
+
+  @Override
+  public void removeFromIncompletes(String roscoInstanceId, String bakeId) {
+    updateBake(
+        bakeId,
+        bake ->
+            roscoInstanceId.equals(bake.getIncompleteInstanceId())
+                ? bake.toBuilder().incompleteInstanceId(null).build()
+                : bake);
+  }
+
+  @Override
+  public boolean adoptBake(String roscoInstanceId, String bakeId) {
+    AtomicBoolean adopted = new AtomicBoolean();
+
+    updateBake(
+        bakeId,
+        bake -> {
+          if (!roscoInstanceId.equals(bake.getIncompleteInstanceId())) {
+            return bake;
+          }
+
+          adopted.set(true);
+
+          return bake.toBuilder()
+              .incompleteInstanceId(this.roscoInstanceId)
+              .roscoInstanceId(this.roscoInstanceId)
+              .build();
+        });
+
+    return adopted.get();
+  }
+
+  @Override
+  public Set<String> getThisInstanceIncompleteBakeIds() {
+    return getAllIncompleteBakeIds().getOrDefault(roscoInstanceId, new LinkedHashSet<>());
+  }
+
+  @Override
+  public Map<String, Set<String>> getAllIncompleteBakeIds() {
+    return bakes.values().stream()
+        .filter(bake -> bake.getIncompleteInstanceId() != null)
+        .collect(
+            Collectors.groupingBy(
+                StoredBake::getIncompleteInstanceId,
+                Collectors.mapping(
+                    StoredBake::getId, Collectors.toCollection(LinkedHashSet::new))));
+  }
+
+  @Override
+  public void refreshInstanceRegistration() {
+    instances.put(roscoInstanceId, getTimeInMilliseconds());
+  }
+
+  @Override
+  public synchronized long expireInstances(long expiryMilliseconds) {
+    long expiryTimestampMilliseconds = getTimeInMilliseconds() - expiryMilliseconds;
+    Set<String> incompleteInstanceIds = getAllIncompleteBakeIds().keySet();
+    Set<String> expiredInstanceIds =
+        instances.entrySet().stream()
+            .filter(instance -> instance.getValue() <= expiryTimestampMilliseconds)
+            .map(Map.Entry::getKey)
+            .filter(instanceId -> !incompleteInstanceIds.contains(instanceId))
+            .collect(Collectors.toSet());
+
+    instances.keySet().removeAll(expiredInstanceIds);
+    heartbeatingInstanceIds.removeAll(expiredInstanceIds);
+
+    return expiredInstanceIds.size();
+  }
+
+  @Override
+  public void recordHeartbeating() {
+    heartbeatingInstanceIds.add(roscoInstanceId);
+  }
+
+  @Override
+  public boolean hasRecordedHeartbeating(String roscoInstanceId) {
+    return heartbeatingInstanceIds.contains(roscoInstanceId);
+  }
+
+  @Override
+  public void forgetHeartbeating(String roscoInstanceId) {
+    heartbeatingInstanceIds.remove(roscoInstanceId);
+  }
+
+  @Override
+  public boolean acquireLease(String leaseName, long leaseMilliseconds) {
+    long now = getTimeInMilliseconds();
+    Lease lease =
+        leases.compute(
+            leaseName,
+            (name, heldLease) -> {
+              if (heldLease != null
+                  && heldLease.getExpiresAt() > now
+                  && !heldLease.getHolder().equals(roscoInstanceId)) {
+                return heldLease;
+              }
+
+              return new Lease(roscoInstanceId, now + leaseMilliseconds);
+            });
+
+    return lease.getHolder().equals(roscoInstanceId);
+  }
+
+  @Override
+  public boolean isLeaseHeld(String leaseName) {
+    Lease lease = leases.get(leaseName);
+
+    return lease != null && lease.getExpiresAt() > getTimeInMilliseconds();
+  }
+
+  @Override
+  public void saveImageToBakeRelationship(String region, String image, String bakeId) {
+    images.put(region + ":" + image, bakeId);
+    changed();
+  }
+
+  @Override
+  public String getBakeIdFromImage(String region, String image) {
+    return images.get(region + ":" + image);
+  }
+
+  @Override
+  public Map<String, String> getBakeIdsFromImages(String region, Collection<String> images) {
+    Map<String, String> bakeIds = new LinkedHashMap<>();
+
+    if (images != null) {
+      for (String image : images) {
+        String bakeId = getBakeIdFromImage(region, image);
+
+        if (bakeId != null) {
+          bakeIds.put(image, bakeId);
+        }
+      }
+    }
+
+    return bakeIds;
+  }
+
+  @Override
+  public Map<String, Set<String>> getImagesFromBakeId(String bakeId) {
+    Map<String, Set<String>> bakeImages = new TreeMap<>();
+
+    if (bakeId == null) {
+      return bakeImages;
+    }
+
+    images.forEach(
+        (imageKey, imageBakeId) -> {
+          if (bakeId.equals(imageBakeId)) {
+            // Regions never contain a colon, images might.
+            String[] regionAndImage = imageKey.split(":", 2);
+
+            bakeImages
+                .computeIfAbsent(regionAndImage[0], k -> new TreeSet<>())
+                .add(regionAndImage[1]);
+          }
+        });
+
+    return bakeImages;
+  }
+
+  @Override
+  public synchronized BakeHistoryPage retrieveBakeHistory(
+      long since,
+      long until,
+      String cloudProvider,
+      BakeStatus.State state,
+      String cursor,
+      int limit) {
+    BakeHistoryCursor after = BakeHistoryCursor.parse(cursor);
+    List<BakeSummary> bakeSummaries =
+        bakes.values().stream()
+            .filter(
+                bake -> bake.getCreatedTimestamp() >= since && bake.getCreatedTimestamp() < until)
+            .filter(
+                bake -> after == null || after.precedes(bake.getCreatedTimestamp(), bake.getId()))
+            .sorted(
+                Comparator.comparingLong(StoredBake::getCreatedTimestamp)
+                    .thenComparing(StoredBake::getId))
+            .map(this::toBakeSummary)
+            .filter(
+                bakeSummary ->
+                    (cloudProvider == null || cloudProvider.equals(bakeSummary.getCloudProvider()))
+                        && (state == null || state == bakeSummary.getState()))
+            .limit(limit + 1L)
+            .collect(Collectors.toList());
+
+    return BakeHistoryCursor.page(bakeSummaries, limit);
+  }
+
+  private BakeSummary toBakeSummary(StoredBake bake) {
+    BakeStatus bakeStatus = fromJson(bake.getBakeStatus(), BakeStatus.class);
+    BakeSummary bakeSummary = new BakeSummary();
+
+    // Bake key is always bake:$cloudProvider:...
+    String[] bakeKeyParts = bake.getBakeKey().split(":");
+
+    bakeSummary.setId(bake.getId());
+    bakeSummary.setCloudProvider(bakeKeyParts.length > 1 ? bakeKeyParts[1] : null);
+    bakeSummary.setRegion(bake.getRegion());
+    bakeSummary.setState(bakeStatus.getState());
+    bakeSummary.setResult(bakeStatus.getResult());
+    bakeSummary.setCreatedTimestamp(bake.getCreatedTimestamp());
+    bakeSummary.setUpdatedTimestamp(bake.getUpdatedTimestamp());
+
+    return bakeSummary;
+  }
+
+  @Override
+  public long getTimeInMilliseconds() {
+    return clock.getAsLong();
+  }
+
+  /** Restore the bakes from the snapshot file, if there is one. */
+  public synchronized void loadSnapshot() {
+    if (snapshotPath == null || !Files.exists(snapshotPath)) {
+      return;
+    }
+
+    try {
+      Snapshot snapshot = mapper.readValue(snapshotPath.toFile(), Snapshot.class);
+
+      bakes.putAll(snapshot.getBakes());
+      bakeKeys.putAll(snapshot.getBakeKeys());
+      images.putAll(snapshot.getImages());
+
+      log.info("Restored {} bakes from {}.", snapshot.getBakes().size(), snapshotPath);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to restore bakes from " + snapshotPath, e);
+    }
+  }
+
+  /**
+   * Write the bakes to the snapshot file if anything changed since the last snapshot. The file is replaced
+   * atomically, so a crash mid-write leaves the previous snapshot intact.
+   */
+  public synchronized void writeSnapshot() {
+    long currentVersion = version.get();
+
+    if (snapshotPath == null || currentVersion == snapshotVersion) {
+      return;
+    }
+
+    try {
+      Path parent = snapshotPath.toAbsolutePath().getParent();
+      Files.createDirectories(parent);
+
+      Path tempFile = Files.createTempFile(parent, snapshotPath.getFileName().toString(), ".tmp");
+      Snapshot snapshot =
+          new Snapshot(new HashMap<>(bakes), new HashMap<>(bakeKeys), new HashMap<>(images));
+
+      mapper.writeValue(tempFile.toFile(), snapshot);
+      Files.move(
+          tempFile, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+      snapshotVersion = currentVersion;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Unable to snapshot bakes to " + snapshotPath, e);
+    }
+  }
+
+  @Override
+  public void close() {
+    writeSnapshot();
+  }
+
+  private StoredBake getBake(String bakeId) {
+    return bakeId != null ? bakes.get(bakeId) : null;
+  }
+
+  private void updateBake(String bakeId, UnaryOperator<StoredBake> update) {
+    if (bakeId != null
+        && bakes.computeIfPresent(bakeId, (id, bake) -> update.apply(bake)) != null) {
+      changed();
+    }
+  }
+
+  private void changed() {
+    version.incrementAndGet();
+  }
+
+  private String toJson(Object value) {
+    try {
+      return mapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException(
+          "Unable to serialize " + value.getClass().getSimpleName(), e);
+    }
+  }
+
+  private <T> T fromJson(String json, Class<T> type) {
+    if (json == null || json.isEmpty()) {
+      return null;
+    }
+
+    try {
+      return mapper.readValue(json, type);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Unable to deserialize " + type.getSimpleName(), e);
+    }
+  }
+
+  /**
+   * A bake as it is held in memory. Values are held as json, so callers never share mutable state with the store.
+   */
+  @Data
+  @Builder(toBuilder = true)
+  @NoArgsConstructor
+  @AllArgsConstructor
+  static class StoredBake {
+    private String id;
+    private String bakeKey;
+    private String region;
+    private String bakeRecipe;
+    private String bakeRequest;
+    private String bakeStatus;
+    private BakeStatus.State state;
+    private String bakeLogs;
+    private String bakeDetails;
+    private String bakeError;
+    private String command;
+    private String roscoInstanceId;
+    private String incompleteInstanceId;
+    private String pipelineExecutionId;
+    private long createdTimestamp;
+    private long updatedTimestamp;
+  }
+
+  @Data
+  @AllArgsConstructor
+  static class Lease {
+    private String holder;
+    private long expiresAt;
+  }
+
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  static class Snapshot {
+    private Map<String, StoredBake> bakes = new HashMap<>();
+    private Map<String, String> bakeKeys = new HashMap<>();
+    private Map<String, String> images = new HashMap<>();
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import groovy.util.logging.Slf4j
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.beans.factory.annotation.Value
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.boot.context.event.ApplicationReadyEvent
+import org.springframework.context.ApplicationListener
+import org.springframework.stereotype.Component
+import rx.functions.Action0
+import rx.schedulers.Schedulers
+
+/**
+ * Older rosco instances stored a full copy of each bake record under the bake key as well as under the bake id. Bake
+ * keys are now small pointers to the bake id. Records are migrated lazily whenever a bake is updated; enabling
+ * rosco.bake-store.redis.migrate-legacy-bake-keys migrates every remaining bake key once, in the background, at
+ * startup.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty("rosco.bake-store.redis.migrate-legacy-bake-keys")
+class LegacyBakeKeyMigration implements ApplicationListener<ApplicationReadyEvent> {
+
+  @Autowired
+  BakeStore bakeStore
+
+  @Value('${rosco.bake-store.redis.migrate-legacy-bake-keys-page-size:500}')
+  int pageSize
+
+  @Override
+  void onApplicationEvent(ApplicationReadyEvent event) {
+    def store = CachingBakeStore.unwrap(bakeStore)
+
+    if (!(store instanceof RedisBackedBakeStore)) {
+      return
+    }
+
+    Schedulers.io().createWorker().schedule(
+      {
+        try {
+          log.info("Migrating legacy bake key records...")
+
+          long migrated = ((RedisBackedBakeStore) store).migrateLegacyBakeKeys(pageSize)
+
+          log.info("Migrated $migrated legacy bake key records.")
+        } catch (Exception e) {
+          log.error("Legacy bake key migration failed:", e)
+        }
+      } as Action0
+    )
+  }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import io.lettuce.core.KeyValue
+import io.lettuce.core.Limit
+import io.lettuce.core.Range
+import io.lettuce.core.RedisCommandExecutionException
+import io.lettuce.core.ScanArgs
+import io.lettuce.core.ScanCursor
+import io.lettuce.core.ScanIterator
+import io.lettuce.core.ScoredValue
+import io.lettuce.core.ScriptOutputType
+import io.lettuce.core.ValueScanCursor
+import io.lettuce.core.ZAddArgs
+import io.lettuce.core.api.StatefulRedisConnection
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands
+
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.TimeUnit
+
+/**
+ * A redis bake store on the lettuce client. All callers share a single, multiplexed connection instead of borrowing
+ * connections from a pool, and reads are also available as non-blocking variants. Runs the same lua scripts against
+ * the same keys as RedisBackedBakeStore, so rosco instances on either client can share a redis. With hash-tagged keys,
+ * the connection can also be to a redis cluster.
+ */
+class LettuceBakeStore extends AbstractRedisBakeStore implements AsyncBakeStore {
+
+  private RedisClusterCommands<String, String> sync
+  private RedisClusterAsyncCommands<String, String> async
+
+  private Map<String, String> scriptNameToSHAMap = new ConcurrentHashMap<String, String>()
+
+  /**
+   * When clock is null, the redis server time is read on every call to getTimeInMilliseconds().
+   */
+  public LettuceBakeStore(StatefulRedisConnection<String, String> connection, BakeFieldCompressor compressor, RedisClock clock) {
+    this(connection, compressor, BakeFieldSerializer.json(), clock)
+  }
+
+  public LettuceBakeStore(StatefulRedisConnection<String, String> connection, BakeFieldCompressor compressor, BakeFieldSerializer serializer, RedisClock clock) {
+    this(connection.sync(), connection.async(), compressor, serializer, clock)
+  }
+
+  public LettuceBakeStore(StatefulRedisClusterConnection<String, String> connection, BakeFieldCompressor compressor, RedisClock clock) {
+    this(connection, compressor, BakeFieldSerializer.json(), clock)
+  }
+
+  public LettuceBakeStore(StatefulRedisClusterConnection<String, String> connection, BakeFieldCompressor compressor, BakeFieldSerializer serializer, RedisClock clock) {
+    this(connection.sync(), connection.async(), compressor, serializer, clock)
+  }
+
+  private LettuceBakeStore(RedisClusterCommands<String, String> sync, RedisClusterAsyncCommands<String, String> async, BakeFieldCompressor compressor, BakeFieldSerializer serializer, RedisClock clock) {
+    super(compressor, serializer, clock)
+    this.sync = sync
+    this.async = async
+  }
+
+  private void cacheAllScripts() {
+    RedisBakeStoreScripts.SCRIPTS.each { String scriptName, String script ->
+      scriptNameToSHAMap[scriptName] = sync.scriptLoad(script)
+    }
+  }
+
+  @Override
+  protected CompletableFuture<Object> evalSHAAsync(String scriptName, ScriptReply reply, List<String> keyList, List<String> argList) {
+    if (!scriptNameToSHAMap[scriptName]) {
+      cacheAllScripts()
+    }
+
+    def outputType = ScriptOutputType.valueOf(reply.name())
+    String[] keyArray = keyList as String[]
+    String[] argArray = argList as String[]
+
+    return async.evalsha(scriptNameToSHAMap[scriptName], outputType, keyArray, argArray).toCompletableFuture().handle { Object result, Throwable e ->
+      Throwable cause = e instanceof CompletionException ? e.cause : e
+
+      // If the redis server doesn't recognize the SHA1 hash, cache the scripts and try again.
+      if (cause instanceof RedisCommandExecutionException && cause.message?.startsWith("NOSCRIPT")) {
+        cacheAllScripts()
+
+        return async.evalsha(scriptNameToSHAMap[scriptName], outputType, keyArray, argArray).toCompletableFuture()
+      }
+
+      return e ? CompletableFuture.failedFuture(cause) : CompletableFuture.completedFuture(result)
+    }.thenCompose { CompletableFuture<Object> future -> future }
+  }
+
+  @Override
+  protected CompletableFuture<String> hgetAsync(String key, String field) {
+    return async.hget(key, field).toCompletableFuture()
+  }
+
+  @Override
+  protected CompletableFuture<List<String>> hmgetAsync(String key, String... fields) {
+    return async.hmget(key, fields).toCompletableFuture().thenApply { List<KeyValue<String, String>> keyValues -> values(keyValues) }
+  }
+
+  @Override
+  protected CompletableFuture<List<List<String>>> hmgetEachAsync(List<String> keyList, String... fields) {
+    // Commands issued back to back on the shared connection are pipelined.
+    List<CompletableFuture<List<String>>> futures = keyList.collect { String key -> hmgetAsync(key, fields) }
+
+    return CompletableFuture.allOf(futures as CompletableFuture[]).thenApply {
+      futures.collect { CompletableFuture<List<String>> future -> future.join() }
+    }
+  }
+
+  @Override
+  protected CompletableFuture<List<String>> mgetAsync(List<String> keyList) {
+    return async.mget(keyList as String[]).toCompletableFuture().thenApply { List<KeyValue<String, String>> keyValues -> values(keyValues) }
+  }
+
+  @Override
+  protected void hset(String key, String field, String value) {
+    sync.hset(key, field, value)
+  }
+
+  @Override
+  protected void hdel(String key, String field) {
+    sync.hdel(key, field)
+  }
+
+  @Override
+  protected Set<String> hkeys(String key) {
+    return new LinkedHashSet<String>(sync.hkeys(key))
+  }
+
+  @Override
+  protected long del(String key) {
+    return sync.del(key)
+  }
+
+  @Override
+  protected boolean exists(String key) {
+    return sync.exists(key) > 0
+  }
+
+  @Override
+  protected boolean smove(String source, String destination, String member) {
+    return sync.smove(source, destination, member)
+  }
+
+  @Override
+  protected void sadd(String key, String member) {
+    sync.sadd(key, member)
+  }
+
+  @Override
+  protected boolean sismember(String key, String member) {
+    return sync.sismember(key, member)
+  }
+
+  @Override
+  protected void srem(String key, String member) {
+    sync.srem(key, member)
+  }
+
+  @Override
+  protected Set<String> smembers(String key) {
+    return sync.smembers(key)
+  }
+
+  @Override
+  protected List<Set<String>> smembersEach(List<String> keyList) {
+    List<CompletableFuture<Set<String>>> futures = keyList.collect { String key -> async.smembers(key).toCompletableFuture() }
+
+    await(CompletableFuture.allOf(futures as CompletableFuture[]))
+
+    return futures.collect { CompletableFuture<Set<String>> future -> future.join() }
+  }
+
+  @Override
+  protected Map<String, SetScanPage> sscanEach(Map<String, String> cursors, int count) {
+    def scanArgs = ScanArgs.Builder.limit(count)
+    Map<String, CompletableFuture<ValueScanCursor<String>>> futures = cursors.collectEntries { String key, String cursor ->
+      [(key): async.sscan(key, new ScanCursor(cursor, false), scanArgs).toCompletableFuture()]
+    }
+
+    await(CompletableFuture.allOf(futures.values() as CompletableFuture[]))
+
+    return futures.collectEntries { String key, CompletableFuture<ValueScanCursor<String>> future ->
+      ValueScanCursor<String> page = future.join()
+
+      [(key): new SetScanPage(cursor: page.finished ? SCAN_POINTER_START : page.cursor, members: page.values)]
+    }
+  }
+
+  @Override
+  protected void zadd(String key, double score, String member) {
+    sync.zadd(key, score, member)
+  }
+
+  @Override
+  protected void zaddIfAbsent(String key, Map<String, Double> scoreMembers) {
+    List<ScoredValue<String>> scoredValues = scoreMembers.collect { String member, Double score -> ScoredValue.just(score, member) }
+
+    sync.zadd(key, ZAddArgs.Builder.nx(), scoredValues as ScoredValue<String>[])
+  }
+
+  @Override
+  protected List<String> zrange(String key, long start, long stop) {
+    return sync.zrange(key, start, stop)
+  }
+
+  @Override
+  protected List<String> zrangeByScore(String key, double min, double max) {
+    return sync.zrangebyscore(key, Range.create(min, max))
+  }
+
+  @Override
+  protected Map<String, Double> zrangeByScoreWithScores(String key, long min, long max, int offset, int count) {
+    def range = Range.from(Range.Boundary.including(min), Range.Boundary.excluding(max))
+    Map<String, Double> page = new LinkedHashMap<>()
+
+    sync.zrangebyscoreWithScores(key, range, Limit.create(offset, count)).each { ScoredValue<String> entry ->
+      page[entry.value] = entry.score
+    }
+
+    return page
+  }
+
+  @Override
+  protected void unlink(Collection<String> keyList) {
+    // Commands issued back to back on the shared connection are pipelined.
+    List<CompletableFuture<Long>> unlinks = keyList.collect { String key -> async.unlink(key).toCompletableFuture() }
+
+    await(CompletableFuture.allOf(unlinks as CompletableFuture[]))
+  }
+
+  @Override
+  protected Set<String> scanKeys(String pattern) {
+    def scanArgs = ScanArgs.Builder.matches(pattern).limit(100)
+
+    return new LinkedHashSet<String>(ScanIterator.scan(sync, scanArgs).stream().toList())
+  }
+
+  @Override
+  protected long retrieveServerTimeMillis() {
+    return readServerTimeMillis(sync)
+  }
+
+  /**
+   * The redis server time in milliseconds, read with a round trip.
+   */
+  static long readServerTimeMillis(RedisClusterCommands<String, String> commands) {
+    def (String timeSecondsStr, String microsecondsStr) = commands.time()
+
+    return TimeUnit.SECONDS.toMillis(Long.parseLong(timeSecondsStr)) + TimeUnit.MICROSECONDS.toMillis(Long.parseLong(microsecondsStr))
+  }
+
+  private static List<String> values(List<KeyValue<String, String>> keyValues) {
+    return keyValues.collect { KeyValue<String, String> keyValue -> keyValue.getValueOrElse(null) }
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import io.lettuce.core.AbstractRedisClient
+import io.lettuce.core.RedisChannelHandler
+import io.lettuce.core.RedisClient
+import io.lettuce.core.RedisConnectionStateAdapter
+import io.lettuce.core.cluster.RedisClusterClient
+import io.lettuce.core.pubsub.RedisPubSubAdapter
+import io.lettuce.core.pubsub.StatefulRedisPubSubConnection
+
+import java.net.SocketAddress
+import java.util.function.Consumer
+
+/**
+ * Publishes bake invalidations on the same redis pub/sub channel as RedisBakeStoreInvalidationChannel, over lettuce.
+ * Each subscription has a pub/sub connection of its own, which lettuce reconnects and resubscribes on its own. Messages
+ * published on any node of a redis cluster reach subscribers on every node.
+ */
+class LettuceBakeStoreInvalidationChannel implements BakeStoreInvalidationChannel {
+
+  private AbstractRedisClient redisClient
+  private StatefulRedisPubSubConnection<String, String> publishConnection
+  private List<StatefulRedisPubSubConnection<String, String>> subscriptions = [].asSynchronized()
+
+  public LettuceBakeStoreInvalidationChannel(AbstractRedisClient redisClient) {
+    this.redisClient = redisClient
+  }
+
+  private StatefulRedisPubSubConnection<String, String> connectPubSub() {
+    return redisClient instanceof RedisClusterClient ?
+      ((RedisClusterClient) redisClient).connectPubSub() :
+      ((RedisClient) redisClient).connectPubSub()
+  }
+
+  @Override
+  public void publish(String bakeId) {
+    synchronized (this) {
+      if (!publishConnection) {
+        publishConnection = connectPubSub()
+      }
+    }
+
+    publishConnection.async().publish(RedisBakeStoreInvalidationChannel.CHANNEL, bakeId)
+  }
+
+  @Override
+  public void subscribe(Consumer<String> listener) {
+    def subscription = connectPubSub()
+
+    subscription.addListener(new RedisPubSubAdapter<String, String>() {
+      @Override
+      void message(String channel, String message) {
+        listener.accept(message)
+      }
+    })
+    redisClient.addListener(new RedisConnectionStateAdapter() {
+      @Override
+      void onRedisConnected(RedisChannelHandler<?, ?> connection, SocketAddress socketAddress) {
+        // Anything published while disconnected was missed.
+        if (connection.is(subscription)) {
+          listener.accept(ALL_BAKES)
+        }
+      }
+    })
+    subscription.sync().subscribe(RedisBakeStoreInvalidationChannel.CHANNEL)
+    subscriptions << subscription
+  }
+
+  @Override
+  public void close() {
+    new ArrayList<StatefulRedisPubSubConnection<String, String>>(subscriptions).each { it.close() }
+    subscriptions.clear()
+    publishConnection?.close()
+  }
+}
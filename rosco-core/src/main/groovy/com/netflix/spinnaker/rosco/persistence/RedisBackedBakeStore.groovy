@@ -16,33 +16,53 @@
 
 package com.netflix.spinnaker.rosco.persistence
 
-import com.fasterxml.jackson.databind.ObjectMapper
 import com.netflix.spinnaker.kork.jedis.RedisClientDelegate
-import com.netflix.spinnaker.rosco.api.Bake
-import com.netflix.spinnaker.rosco.api.BakeRequest
-import com.netflix.spinnaker.rosco.api.BakeStatus
-import com.netflix.spinnaker.rosco.jobs.BakeRecipe
 import groovy.transform.CompileStatic
-import org.springframework.beans.factory.annotation.Autowired
+import groovy.util.logging.Slf4j
 import redis.clients.jedis.JedisPool
+import redis.clients.jedis.Pipeline
+import redis.clients.jedis.Response
+import redis.clients.jedis.ScanParams
+import redis.clients.jedis.ScanResult
+import redis.clients.jedis.Tuple
+import redis.clients.jedis.ZParams
 import redis.clients.jedis.exceptions.JedisDataException
+import redis.clients.jedis.params.ZAddParams
 
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
 import java.util.concurrent.TimeUnit
 
-class RedisBackedBakeStore implements BakeStore {
+import static com.netflix.spinnaker.rosco.persistence.RedisBakeStoreKeys.IMAGE_FIELD_PREFIX
 
-  public static final String INCOMPLETE_BAKES_PREFIX = "allBakes:incomplete:"
+@Slf4j
+class RedisBackedBakeStore extends AbstractRedisBakeStore {
 
-  @Autowired
-  String roscoInstanceId
+  // Prefixes of the legacy names of the keys that are index keys in the hash-tagged layout.
+  private static final List<String> LEGACY_INDEX_KEY_PREFIXES = ["allBakes", "bake:", "images:"]
 
-  private ObjectMapper mapper = new ObjectMapper()
   private JedisPool jedisPool
   private RedisClientDelegate redisClientDelegate
 
-  def scriptNameToSHAMap = [:]
+  private Map<String, String> scriptNameToSHAMap = new ConcurrentHashMap<String, String>()
 
   public RedisBackedBakeStore(JedisPool jedisPool, RedisClientDelegate redisClientDelegate) {
+    this(jedisPool, redisClientDelegate, BakeFieldCompressor.none())
+  }
+
+  public RedisBackedBakeStore(JedisPool jedisPool, RedisClientDelegate redisClientDelegate, BakeFieldCompressor compressor) {
+    this(jedisPool, redisClientDelegate, compressor, null)
+  }
+
+  /**
+   * When clock is null, the redis server time is read on every call to getTimeInMilliseconds().
+   */
+  public RedisBackedBakeStore(JedisPool jedisPool, RedisClientDelegate redisClientDelegate, BakeFieldCompressor compressor, RedisClock clock) {
+    this(jedisPool, redisClientDelegate, compressor, BakeFieldSerializer.json(), clock)
+  }
+
+  public RedisBackedBakeStore(JedisPool jedisPool, RedisClientDelegate redisClientDelegate, BakeFieldCompressor compressor, BakeFieldSerializer serializer, RedisClock clock) {
+    super(compressor, serializer, clock)
     this.jedisPool = jedisPool;
     this.redisClientDelegate = redisClientDelegate;
   }
@@ -51,579 +71,636 @@ class RedisBackedBakeStore implements BakeStore {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      scriptNameToSHAMap.with {
-        // Expected key list: lock key, bake key
-        // Expected arg list: ttlMilliseconds
-        acquireBakeLockSHA = jedis.scriptLoad("""\
-          -- Set the lock key key if it's not already set.
-          if redis.call('SETNX', KEYS[1], 'locked') == 1 then
-            -- Set TTL of 5 seconds.
-            redis.call('PEXPIRE', KEYS[1], ARGV[1])
-
-            -- Delete the bake key key.
-            redis.call('DEL', KEYS[2])
-
-            -- We acquired the lock.
-            return true
-          else
-            -- We failed to acquire the lock.
-            return false
-          end
-        """)
-        // Expected key list: "allBakes", bake id, bake key, this instance incomplete bakes key, lock key, pipeline execution key
-        // Expected arg list: createdTimestampMilliseconds, region, bake request json, bake status json, bake logs json, command, rosco instance id
-        storeNewBakeStatusSHA = jedis.scriptLoad("""\
-          -- Delete the bake id key.
-          redis.call('DEL', KEYS[2])
-
-          -- Add bake id and bake key to set identified by pipeline execution key.
-          redis.call('SADD', KEYS[6], KEYS[2])
-          redis.call('SADD', KEYS[6], KEYS[3])
-
-          -- Add bake key to set of bakes.
-          redis.call('ZADD', KEYS[1], ARGV[1], KEYS[3])
-
-          -- If we lost a race to initiate a new bake, just return the race winner's bake status.
-          if redis.call('EXISTS', KEYS[3]) == 1 then
-            return redis.call('HMGET', KEYS[3], 'bakeStatus')
-          end
-
-          -- Set bake id hash values.
-          redis.call('HMSET', KEYS[2],
-                     'bakeKey', KEYS[3],
-                     'region', ARGV[2],
-                     'bakeRecipe', ARGV[3],
-                     'bakeRequest', ARGV[4],
-                     'bakeStatus', ARGV[5],
-                     'bakeLogs', ARGV[6],
-                     'command', ARGV[7],
-                     'roscoInstanceId', ARGV[8],
-                     'createdTimestamp', ARGV[1],
-                     'updatedTimestamp', ARGV[1])
-
-          -- Set bake key hash values.
-          redis.call('HMSET', KEYS[3],
-                     'id', KEYS[2],
-                     'region', ARGV[2],
-                     'bakeRecipe', ARGV[3],
-                     'bakeRequest', ARGV[4],
-                     'bakeStatus', ARGV[5],
-                     'bakeLogs', ARGV[6],
-                     'command', ARGV[7],
-                     'roscoInstanceId', ARGV[8],
-                     'createdTimestamp', ARGV[1],
-                     'updatedTimestamp', ARGV[1])
-
-          -- Add bake id to set of incomplete bakes.
-          redis.call('SADD', KEYS[4], KEYS[2])
-
-          -- Delete the lock key key instead of just allowing it to wait out the TTL.
-          redis.call('DEL', KEYS[5])
-        """)
-        // Expected key list: bake id
-        // Expected arg list: bake details json
-        updateBakeDetailsSHA = jedis.scriptLoad("""\
-          local existing_bake_status = redis.call('HGET', KEYS[1], 'bakeStatus')
-
-          -- Ensure we don't update/resurrect a canceled bake (can happen due to a race).
-          if existing_bake_status and cjson.decode(existing_bake_status)['state'] == '$BakeStatus.State.CANCELED' then
-            return
-          end
-
-          -- Retrieve the bake key associated with bake id.
-          local bake_key = redis.call('HGET', KEYS[1], 'bakeKey')
-
-          -- Update the bake details set on the bake id hash.
-          redis.call('HSET', KEYS[1], 'bakeDetails', ARGV[1])
-
-          -- Update the bake details set on the bake key hash.
-          redis.call('HSET', bake_key, 'bakeDetails', ARGV[1])
-        """)
-        // Expected key list: bake id, this instance incomplete bakes key
-        // Expected arg list: bake status json, bake logs json, updatedTimestampMilliseconds
-        def updateBakeStatusBaseScript = """\
-          local existing_bake_status = redis.call('HGET', KEYS[1], 'bakeStatus')
-
-          -- Ensure we don't update/resurrect a canceled bake (can happen due to a race).
-          if existing_bake_status and cjson.decode(existing_bake_status)['state'] == '$BakeStatus.State.CANCELED' then
-            return
-          end
-
-          -- Retrieve the bake key associated with bake id.
-          local bake_key = redis.call('HGET', KEYS[1], 'bakeKey')
-
-          -- Update the bake status and logs set on the bake id hash.
-          redis.call('HMSET', KEYS[1],
-                     'bakeStatus', ARGV[1],
-                     'bakeLogs', ARGV[2],
-                     'updatedTimestamp', ARGV[3])
-
-          if bake_key then
-            -- Update the bake status and logs set on the bake key hash.
-            redis.call('HMSET', bake_key,
-                       'bakeStatus', ARGV[1],
-                       'bakeLogs', ARGV[2],
-                       'updatedTimestamp', ARGV[3])
-          end
-        """
-        updateBakeStatusSHA = jedis.scriptLoad(updateBakeStatusBaseScript)
-        // Expected key list: bake id, this instance incomplete bakes key
-        // Expected arg list: bake status json, bake logs json, updatedTimestampMilliseconds
-        def updateBakeStatusWithIncompleteRemovalScript = updateBakeStatusBaseScript + """\
-          -- Remove bake id from set of incomplete bakes.
-          redis.call('SREM', KEYS[2], KEYS[1])
-        """
-        updateBakeStatusWithIncompleteRemovalSHA = jedis.scriptLoad(updateBakeStatusWithIncompleteRemovalScript)
-        // Expected key list: bake id
-        // Expected arg list: error
-        storeBakeErrorSHA = jedis.scriptLoad("""\
-          -- Retrieve the bake key associated with bake id.
-          local bake_key = redis.call('HGET', KEYS[1], 'bakeKey')
-
-          -- Update the error set on the bake id hash.
-          redis.call('HSET', KEYS[1], 'bakeError', ARGV[1])
-
-          if bake_key then
-            -- Update the error set on the bake key hash.
-            redis.call('HSET', bake_key, 'bakeError', ARGV[1])
-          end
-        """)
-        // Expected key list: bake key, "allBakes", incomplete bake keys...
-        // Expected arg list:
-        deleteBakeByKeySHA = jedis.scriptLoad("""\
-          -- Retrieve the bake id associated with bake key.
-          local bake_id = redis.call('HGET', KEYS[1], 'id')
-
-          -- Remove bake key from the set of bakes.
-          redis.call('ZREM', KEYS[2], KEYS[1])
-
-          -- Delete the bake key key.
-          redis.call('DEL', KEYS[1])
-
-          if bake_id then
-            -- Retrieve the rosco instance id associated with bake id.
-            local rosco_instance_id = redis.call('HGET', bake_id, 'roscoInstanceId')
-
-            if rosco_instance_id then
-              -- Remove bake id from that rosco instance's set of incomplete bakes.
-              redis.call('SREM', 'allBakes:incomplete:' .. rosco_instance_id, bake_id)
-            end
-
-            -- Delete the bake id key.
-            redis.call('DEL', bake_id)
-          end
-
-          return bake_id
-        """)
-        // Expected key list: bake key, "allBakes", incomplete bake keys...
-        // Expected arg list: updatedTimestampMilliseconds
-        deleteBakeByKeyPreserveDetailsSHA = jedis.scriptLoad("""\
-          -- Retrieve the bake id associated with bake key.
-          local bake_id = redis.call('HGET', KEYS[1], 'id')
-
-          -- Remove bake key from the set of bakes.
-          redis.call('ZREM', KEYS[2], KEYS[1])
-
-          -- Delete the bake key key.
-          redis.call('DEL', KEYS[1])
-
-          if bake_id then
-            -- Retrieve the rosco instance id associated with bake id.
-            local rosco_instance_id = redis.call('HGET', bake_id, 'roscoInstanceId')
-
-            if rosco_instance_id then
-              -- Remove bake id from that rosco instance's set of incomplete bakes.
-              redis.call('SREM', 'allBakes:incomplete:' .. rosco_instance_id, bake_id)
-            end
-
-            -- Set bake state to CANCELED if still running.
-            local bake_status = redis.call('HGET', bake_id, 'bakeStatus')
-
-            if bake_status then
-              local bake_status_json = cjson.decode(bake_status)
-
-              if bake_status_json['state'] == '$BakeStatus.State.RUNNING' then
-                bake_status_json['state'] = '$BakeStatus.State.CANCELED'
-                bake_status_json['result'] = '$BakeStatus.Result.FAILURE'
-
-                -- Update the bake status set on the bake id hash.
-                 redis.call('HMSET', bake_id,
-                            'bakeStatus', cjson.encode(bake_status_json),
-                            'updatedTimestamp', ARGV[1])
-              end
-            end
-          end
-
-          return bake_id
-        """)
-        // Expected key list: bake id, "allBakes", incomplete bake keys...
-        // Expected arg list: bake status json, updatedTimestampMilliseconds
-        cancelBakeByIdSHA = jedis.scriptLoad("""
-          -- Retrieve the bake key associated with bake id.
-          local bake_key = redis.call('HGET', KEYS[1], 'bakeKey')
-
-          -- Retrieve the rosco instance id associated with bake id.
-          local rosco_instance_id = redis.call('HGET', KEYS[1], 'roscoInstanceId')
-
-          local ret
-
-          if rosco_instance_id then
-            -- Remove bake id from that rosco instance's set of incomplete bakes.
-            ret = redis.call('SREM', 'allBakes:incomplete:' .. rosco_instance_id, KEYS[1])
-          end
-
-          -- Update the bake status set on the bake id hash.
-          redis.call('HMSET', KEYS[1],
-                     'bakeStatus', ARGV[1],
-                     'updatedTimestamp', ARGV[2])
-
-          if bake_key then
-            -- Remove the bake key from the set of bakes.
-            redis.call('ZREM', KEYS[2], bake_key)
-
-            -- Delete the bake key key.
-            redis.call('DEL', bake_key)
-          end
-
-          return ret
-        """)
-        // Expected key list: pipeline execution key
-        // Expected arg list:
-        deleteBakeByPipelineExecutionKeySHA = jedis.scriptLoad("""
-          -- Get all bake entities' keys by pipeline execution key.
-          local bake_keys = redis.call('SMEMBERS', KEYS[1])
-
-          for _,key in ipairs(bake_keys)
-          do
-            redis.call('DEL', key)
-          end
-
-          redis.call('DEL', KEYS[1])
-        """)
+      RedisBakeStoreScripts.SCRIPTS.each { String scriptName, String script ->
+        scriptNameToSHAMap[scriptName] = jedis.scriptLoad(script)
       }
     }
   }
 
-  private String getAllIncompleteBakesKeyPattern() {
-    return "$INCOMPLETE_BAKES_PREFIX*"
-  }
+  // Jedis blocks until redis replies, so the replies are complete by the time they're handed back.
+  @Override
+  protected CompletableFuture<Object> evalSHAAsync(String scriptName, ScriptReply reply, List<String> keyList, List<String> argList) {
+    def result = evalScript(scriptName, keyList, argList)
 
-  private String getThisInstanceIncompleteBakesKey() {
-    return "$INCOMPLETE_BAKES_PREFIX$roscoInstanceId".toString()
+    // Lua true comes back as 1, and false as nil.
+    return CompletableFuture.completedFuture(reply == ScriptReply.BOOLEAN ? result == 1L : result)
   }
 
   @Override
-  public boolean acquireBakeLock(String bakeKey) {
-    def lockKey = "lock:$bakeKey"
-    def ttlMilliseconds = "5000"
-    def keyList = [lockKey.toString(), bakeKey]
-    def argList = [ttlMilliseconds]
+  protected CompletableFuture<String> hgetAsync(String key, String field) {
+    def jedis = jedisPool.getResource()
 
-    return evalSHA("acquireBakeLockSHA", keyList, argList)
+    jedis.withCloseable {
+      return CompletableFuture.completedFuture(jedis.hget(key, field))
+    }
   }
 
   @Override
-  public BakeStatus storeNewBakeStatus(String bakeKey, String region, BakeRecipe bakeRecipe, BakeRequest bakeRequest, BakeStatus bakeStatus, String command) {
-    def lockKey = "lock:$bakeKey"
-    def pipelineExecutionId = getPipelineExecutionId(bakeRequest.spinnaker_execution_id)
-    def pipelineExecutionKey = getBakePipelineExecutionKey(pipelineExecutionId)
-    def bakeRecipeJson = mapper.writeValueAsString(bakeRecipe)
-    def bakeRequestJson = mapper.writeValueAsString(bakeRequest)
-    def bakeStatusJson = mapper.writeValueAsString(bakeStatus)
-    def bakeLogsJson = mapper.writeValueAsString(bakeStatus.logsContent ? [logsContent: bakeStatus.logsContent] : [:])
-    def createdTimestampMilliseconds = timeInMilliseconds
-    def keyList = ["allBakes", bakeStatus.id, bakeKey, thisInstanceIncompleteBakesKey, lockKey.toString(), pipelineExecutionKey.toString()]
-    def argList = [createdTimestampMilliseconds as String, region, bakeRecipeJson, bakeRequestJson, bakeStatusJson, bakeLogsJson, command, roscoInstanceId]
-    def result = evalSHA("storeNewBakeStatusSHA", keyList, argList)
+  protected CompletableFuture<List<String>> hmgetAsync(String key, String... fields) {
+    def jedis = jedisPool.getResource()
 
-    // Check if the script returned a bake status set by the winner of a race.
-    if (result?.getAt(0)) {
-      bakeStatus = mapper.readValue(result[0], BakeStatus)
+    jedis.withCloseable {
+      return CompletableFuture.completedFuture(jedis.hmget(key, fields))
     }
-
-    return bakeStatus
   }
 
   @Override
-  public void updateBakeDetails(Bake bakeDetails) {
-    def bakeDetailsJson = mapper.writeValueAsString(bakeDetails)
-    def keyList = [bakeDetails.id]
-    def argList = [bakeDetailsJson]
+  protected CompletableFuture<List<List<String>>> hmgetEachAsync(List<String> keyList, String... fields) {
+    List<Response<List<String>>> responses = []
+    def jedis = jedisPool.getResource()
+
+    jedis.withCloseable {
+      Pipeline pipeline = jedis.pipelined()
 
-    saveImageToBakeRelationship(bakeDetails.artifact.getLocation(), bakeDetails.artifact.getReference(), bakeDetails.id)
+      keyList.each { String key ->
+        responses << pipeline.hmget(key, fields)
+      }
 
-    evalSHA("updateBakeDetailsSHA", keyList, argList)
+      pipeline.sync()
+    }
+
+    return CompletableFuture.completedFuture(responses.collect { Response<List<String>> response -> response.get() })
   }
 
   @Override
-  public void updateBakeStatus(BakeStatus bakeStatus) {
-    def bakeStatusJson = mapper.writeValueAsString(bakeStatus)
-    def bakeLogsJson = mapper.writeValueAsString(bakeStatus.logsContent ? [logsContent: bakeStatus.logsContent] : [:])
-    def updatedTimestampMilliseconds = timeInMilliseconds
-    def scriptSHA = "updateBakeStatusSHA"
+  protected CompletableFuture<List<String>> mgetAsync(List<String> keyList) {
+    def jedis = jedisPool.getResource()
 
-    if (bakeStatus.state != BakeStatus.State.RUNNING) {
-      scriptSHA = "updateBakeStatusWithIncompleteRemovalSHA"
+    jedis.withCloseable {
+      return CompletableFuture.completedFuture(jedis.mget(keyList as String[]))
     }
+  }
 
-    def keyList = [bakeStatus.id, thisInstanceIncompleteBakesKey]
-    def argList = [bakeStatusJson, bakeLogsJson, updatedTimestampMilliseconds + ""]
+  @Override
+  protected void hset(String key, String field, String value) {
+    def jedis = jedisPool.getResource()
 
-    evalSHA(scriptSHA, keyList, argList)
+    jedis.withCloseable {
+      jedis.hset(key, field, value)
+    }
   }
 
   @Override
-  public void storeBakeError(String bakeId, String error) {
-    def keyList = [bakeId]
-    def argList = [error]
+  protected void hdel(String key, String field) {
+    def jedis = jedisPool.getResource()
 
-    evalSHA("storeBakeErrorSHA", keyList, argList)
+    jedis.withCloseable {
+      jedis.hdel(key, field)
+    }
   }
 
   @Override
-  public String retrieveRegionById(String bakeId) {
+  protected Set<String> hkeys(String key) {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      return jedis.hget(bakeId, "region")
+      return jedis.hkeys(key)
     }
   }
 
   @Override
-  public String retrieveCloudProviderById(String bakeId) {
+  protected long del(String key) {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      def bakeKey = jedis.hget(bakeId, "bakeKey")
-
-      // Bake key is always bake:$cloudProvider:...
-      return bakeKey?.split(":")?.getAt(1)
+      return jedis.del(key)
     }
   }
 
   @Override
-  public BakeStatus retrieveBakeStatusByKey(String bakeKey) {
+  protected boolean exists(String key) {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      def bakeStatusJson = jedis.hget(bakeKey, "bakeStatus")
-
-      return bakeStatusJson ? mapper.readValue(bakeStatusJson, BakeStatus) : null
+      return jedis.exists(key)
     }
   }
 
   @Override
-  public BakeStatus retrieveBakeStatusById(String bakeId) {
+  protected boolean smove(String source, String destination, String member) {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      def (String bakeStatusJson,
-           String createdTimestampStr,
-           String updatedTimestampStr) = jedis.hmget(bakeId, "bakeStatus", "createdTimestamp", "updatedTimestamp")
+      return jedis.smove(source, destination, member) == 1
+    }
+  }
 
-      BakeStatus bakeStatus = bakeStatusJson ? mapper.readValue(bakeStatusJson, BakeStatus) : null
+  @Override
+  protected void sadd(String key, String member) {
+    def jedis = jedisPool.getResource()
 
-      if (bakeStatus && createdTimestampStr) {
-        bakeStatus.createdTimestamp = Long.parseLong(createdTimestampStr)
-        bakeStatus.updatedTimestamp = Long.parseLong(updatedTimestampStr)
-      }
+    jedis.withCloseable {
+      jedis.sadd(key, member)
+    }
+  }
 
-      return bakeStatus
+  @Override
+  protected boolean sismember(String key, String member) {
+    def jedis = jedisPool.getResource()
+
+    jedis.withCloseable {
+      return jedis.sismember(key, member)
     }
   }
 
   @Override
-  public BakeRequest retrieveBakeRequestById(String bakeId) {
+  protected void srem(String key, String member) {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      def bakeRequestJson = jedis.hget(bakeId, "bakeRequest")
-      return bakeRequestJson ? mapper.readValue(bakeRequestJson, BakeRequest) : null
+      jedis.srem(key, member)
     }
   }
 
   @Override
-  public BakeRecipe retrieveBakeRecipeById(String bakeId) {
+  protected Set<String> smembers(String key) {
     def jedis = jedisPool.getResource()
+
     jedis.withCloseable {
-      def bakeRecipeJson = jedis.hget(bakeId, "bakeRecipe")
-      return bakeRecipeJson ? mapper.readValue(bakeRecipeJson, BakeRecipe) : null
+      return jedis.smembers(key)
     }
   }
 
   @Override
-  public Bake retrieveBakeDetailsById(String bakeId) {
+  protected List<Set<String>> smembersEach(List<String> keyList) {
+    List<Response<Set<String>>> responses = []
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      def bakeDetailsJson = jedis.hget(bakeId, "bakeDetails")
+      Pipeline pipeline = jedis.pipelined()
 
-      return bakeDetailsJson ? mapper.readValue(bakeDetailsJson, Bake) : null
+      keyList.each { String key ->
+        responses << pipeline.smembers(key)
+      }
+
+      pipeline.sync()
     }
+
+    return responses.collect { Response<Set<String>> response -> response.get() }
   }
 
   @Override
-  public Map<String, String> retrieveBakeLogsById(String bakeId) {
+  protected Map<String, SetScanPage> sscanEach(Map<String, String> cursors, int count) {
+    Map<String, Response<ScanResult<String>>> responses = [:]
+    def scanParams = new ScanParams().count(count)
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      def bakeLogsJson = jedis.hget(bakeId, "bakeLogs")
+      Pipeline pipeline = jedis.pipelined()
 
-      return bakeLogsJson ? mapper.readValue(bakeLogsJson, Map) : null
+      cursors.each { String key, String cursor ->
+        responses[key] = pipeline.sscan(key, cursor, scanParams)
+      }
+
+      pipeline.sync()
+    }
+
+    return responses.collectEntries { String key, Response<ScanResult<String>> response ->
+      ScanResult<String> page = response.get()
+
+      [(key): new SetScanPage(cursor: page.cursor, members: page.result)]
     }
   }
 
   @Override
-  public String deleteBakeByKey(String bakeKey) {
-    def keyList = [bakeKey, "allBakes"]
-    keyList += scanIncompleteBakesKeys()
+  protected void zadd(String key, double score, String member) {
+    def jedis = jedisPool.getResource()
 
-    return evalSHA("deleteBakeByKeySHA", keyList, [])
+    jedis.withCloseable {
+      jedis.zadd(key, score, member)
+    }
   }
 
   @Override
-  public String deleteBakeByKeyPreserveDetails(String bakeKey) {
-    def updatedTimestampMilliseconds = timeInMilliseconds
-    def keyList = [bakeKey, "allBakes"]
-    keyList += scanIncompleteBakesKeys()
+  protected void zaddIfAbsent(String key, Map<String, Double> scoreMembers) {
+    def jedis = jedisPool.getResource()
 
-    def argList = [updatedTimestampMilliseconds + ""]
+    jedis.withCloseable {
+      jedis.zadd(key, scoreMembers, ZAddParams.zAddParams().nx())
+    }
+  }
+
+  @Override
+  protected List<String> zrange(String key, long start, long stop) {
+    def jedis = jedisPool.getResource()
 
-    return evalSHA("deleteBakeByKeyPreserveDetailsSHA", keyList, argList)
+    jedis.withCloseable {
+      return jedis.zrange(key, start, stop) as List<String>
+    }
   }
 
   @Override
-  public void deleteBakeByPipelineExecutionId(String pipelineExecutionId) {
-    def keyList = [getBakePipelineExecutionKey(pipelineExecutionId)]
+  protected List<String> zrangeByScore(String key, double min, double max) {
+    def jedis = jedisPool.getResource()
 
-    evalSHA("deleteBakeByPipelineExecutionKeySHA", keyList, [])
+    jedis.withCloseable {
+      return jedis.zrangeByScore(key, min, max) as List<String>
+    }
   }
 
   @Override
-  public boolean cancelBakeById(String bakeId) {
-    def bakeStatus = new BakeStatus(id: bakeId,
-                                    resource_id: bakeId,
-                                    state: BakeStatus.State.CANCELED,
-                                    result: BakeStatus.Result.FAILURE)
-    def bakeStatusJson = mapper.writeValueAsString(bakeStatus)
-    def updatedTimestampMilliseconds = timeInMilliseconds
-    def keyList = [bakeId, "allBakes"]
-    keyList += scanIncompleteBakesKeys()
+  protected Map<String, Double> zrangeByScoreWithScores(String key, long min, long max, int offset, int count) {
+    Map<String, Double> page = new LinkedHashMap<>()
+    def jedis = jedisPool.getResource()
 
-    def argList = [bakeStatusJson, updatedTimestampMilliseconds + ""]
+    jedis.withCloseable {
+      jedis.zrangeByScoreWithScores(key, min as String, "(" + max, offset, count).each { Tuple entry ->
+        page[entry.element] = entry.score
+      }
+    }
 
-    return evalSHA("cancelBakeByIdSHA", keyList, argList) == 1
+    return page
   }
 
   @Override
-  public void removeFromIncompletes(String roscoInstanceId, String bakeId) {
+  protected void unlink(Collection<String> keyList) {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      jedis.srem("$INCOMPLETE_BAKES_PREFIX$roscoInstanceId", bakeId)
+      Pipeline pipeline = jedis.pipelined()
+
+      keyList.each { String key ->
+        pipeline.unlink(key)
+      }
+
+      pipeline.sync()
     }
   }
 
   @Override
-  public Set<String> getThisInstanceIncompleteBakeIds() {
+  @CompileStatic
+  protected Set<String> scanKeys(String pattern) {
+    def scannedKeys = new HashSet()
+    redisClientDelegate.withKeyScan(pattern, 100, { page ->
+      scannedKeys.addAll(page.getResults())
+    })
+    return scannedKeys
+  }
+
+  @Override
+  protected long retrieveServerTimeMillis() {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      return jedis.smembers(thisInstanceIncompleteBakesKey)
+      def (String timeSecondsStr, String microsecondsStr) = jedis.time()
+      long timeSeconds = Long.parseLong(timeSecondsStr)
+      long microseconds = Long.parseLong(microsecondsStr)
+
+      return TimeUnit.SECONDS.toMillis(timeSeconds) + TimeUnit.MICROSECONDS.toMillis(microseconds)
     }
   }
 
-  @Override
-  public Map<String, Set<String>> getAllIncompleteBakeIds() {
-    Set<String> incompleteBakesKeys = scanIncompleteBakesKeys()
+  /**
+   * Strip the duplicated bake record from bake keys written before bake keys became pointers to the bake id. Walks
+   * the allBakes index in pages, so it never needs a keyspace scan. Returns the number of bake keys migrated.
+   */
+  public long migrateLegacyBakeKeys(int pageSize) {
+    // Bake keys are stripped on their way into the hash-tagged layout.
+    return keys.hashTagged ? 0 : migrateLegacyBakeKeysIn(RedisBakeStoreKeys.LEGACY, pageSize)
+  }
+
+  private long migrateLegacyBakeKeysIn(RedisBakeStoreKeys keys, int pageSize) {
+    long migrated = 0
+    long start = 0
+
+    while (true) {
+      Set<String> bakeKeys
+
+      def jedis = jedisPool.getResource()
+      jedis.withCloseable {
+        bakeKeys = jedis.zrange(keys.allBakes, start, start + pageSize - 1)
+      }
+
+      if (!bakeKeys) {
+        break
+      }
+
+      bakeKeys.each { String bakeKey ->
+        String bakeId
+
+        jedis = jedisPool.getResource()
+        jedis.withCloseable {
+          bakeId = jedis.hget(keys.index(bakeKey), "id")
+        }
+
+        if (bakeId) {
+          migrated += evalSHA("migrateLegacyBakeKey", ScriptReply.INTEGER, [keys.index(bakeKey), keys.bake(bakeId)], [bakeId]) as long
+        }
+      }
+
+      start += pageSize
+    }
+
+    return migrated
+  }
+
+  /**
+   * Index the bakes stored before the set of bake ids was kept, by walking the allBakes index in pages. Only runs
+   * once per redis; returns the number of bake ids added.
+   */
+  public long backfillBakeIdIndex(int pageSize) {
+    return backfillBakeIdIndexIn(keys, pageSize)
+  }
+
+  private long backfillBakeIdIndexIn(RedisBakeStoreKeys keys, int pageSize) {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      return incompleteBakesKeys.collectEntries { incompleteBakesKey ->
-        String roscoInstanceId = incompleteBakesKey.substring(INCOMPLETE_BAKES_PREFIX.length())
+      if (jedis.exists(keys.bakeIdsBackfilled)) {
+        return 0
+      }
+    }
+
+    long backfilled = 0
+    long start = 0
+
+    while (true) {
+      def bakeKeys
+
+      jedis = jedisPool.getResource()
+      jedis.withCloseable {
+        bakeKeys = jedis.zrangeWithScores(keys.allBakes, start, start + pageSize - 1)
+      }
+
+      if (!bakeKeys) {
+        break
+      }
+
+      Map<Double, Response<String>> bakeIds = [:]
 
-        [(roscoInstanceId): jedis.smembers(incompleteBakesKey)]
+      jedis = jedisPool.getResource()
+      jedis.withCloseable {
+        Pipeline pipeline = jedis.pipelined()
+        def responses = bakeKeys.collect { bakeKey -> [bakeKey.score, pipeline.hget(keys.index(bakeKey.element), "id")] }
+        pipeline.sync()
+
+        pipeline = jedis.pipelined()
+        List<Response<Long>> added = []
+        responses.each { score, Response<String> bakeId ->
+          if (bakeId.get()) {
+            added << pipeline.zadd(keys.bakeIds, score as double, bakeId.get(), ZAddParams.zAddParams().nx())
+          }
+        }
+        pipeline.sync()
+
+        backfilled += added.sum(0) { Response<Long> response -> response.get() } as long
       }
+
+      start += pageSize
+    }
+
+    jedis = jedisPool.getResource()
+    jedis.withCloseable {
+      jedis.set(keys.bakeIdsBackfilled, timeInMilliseconds as String)
     }
+
+    return backfilled
   }
 
-  @Override
-  public void saveImageToBakeRelationship(String region, String image, String bakeId) {
+  /**
+   * Retrieve a page of the bake ids trimmed by the keep-latest-per-key policy, oldest first.
+   */
+  public List<String> retrieveTrimmedBakeIds(int offset, int limit) {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      jedis.set("${region}:${image}", bakeId)
+      return jedis.zrangeByScore(keys.trimmedBakeIds, "-inf", "+inf", offset, limit) as List<String>
     }
   }
 
-  @Override
-  String getBakeIdFromImage(String region, String image) {
+  /**
+   * Retrieve a page of the ids of bakes created before createdTimestampMilliseconds, oldest first.
+   */
+  public List<String> retrieveBakeIdsCreatedBefore(long createdTimestampMilliseconds, int offset, int limit) {
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      return jedis.get("${region}:${image}")
+      return jedis.zrangeByScore(keys.bakeIds, "-inf", "(" + createdTimestampMilliseconds, offset, limit) as List<String>
     }
   }
 
-  @Override
-  public long getTimeInMilliseconds() {
+  /**
+   * Delete the bakes with the given ids, along with their bake keys if those still point at them, their logs, the
+   * image keys pointing at them and their entries in the pipeline execution sets. Returns the number of bakes deleted.
+   */
+  public long deleteBakesById(List<String> bakeIds) {
+    if (!bakeIds) {
+      return 0
+    }
+
+    // Find out what each bake is indexed under before unindexing and then deleting it.
+    List<Response<List<String>>> fieldResponses = []
+    List<Response<Set<String>>> fieldNameResponses = []
     def jedis = jedisPool.getResource()
 
     jedis.withCloseable {
-      def (String timeSecondsStr, String microsecondsStr) = jedis.time()
-      long timeSeconds = Long.parseLong(timeSecondsStr)
-      long microseconds = Long.parseLong(microsecondsStr)
+      Pipeline pipeline = jedis.pipelined()
 
-      return TimeUnit.SECONDS.toMillis(timeSeconds) + TimeUnit.MICROSECONDS.toMillis(microseconds)
+      bakeIds.each { String bakeId ->
+        fieldResponses << pipeline.hmget(keys.bake(bakeId), "bakeKey", "pipelineExecutionKey", "roscoInstanceId", "bakeRequest")
+        fieldNameResponses << pipeline.hkeys(keys.bake(bakeId))
+      }
+
+      pipeline.sync()
     }
+
+    long deleted = 0
+
+    bakeIds.eachWithIndex { String bakeId, int i ->
+      def (String bakeKey, String pipelineExecutionKey, String owningRoscoInstanceId, String storedBakeRequest) = fieldResponses[i].get()
+      def imageFields = fieldNameResponses[i].get().findAll { String field -> field.startsWith(IMAGE_FIELD_PREFIX) }
+
+      pipelineExecutionKey = pipelineExecutionKey ?: retrieveFallbackPipelineExecutionKey(storedBakeRequest)
+
+      def keyList = [keys.allBakes, keys.bakeIds, keys.trimmedBakeIds]
+      def argList = [bakeId, bakeKey ?: "", owningRoscoInstanceId ? "1" : "0", pipelineExecutionKey ? "1" : "0", keys.hashTagged ? "0" : "1"]
+
+      if (owningRoscoInstanceId) {
+        keyList << keys.incompleteBakes(owningRoscoInstanceId)
+      }
+
+      if (pipelineExecutionKey) {
+        keyList << keys.index(pipelineExecutionKey)
+      }
+
+      if (bakeKey) {
+        keyList << keys.index(bakeKey) << keys.bakeHistory(bakeKey)
+      }
+
+      imageFields.each { String field ->
+        // Regions never contain a colon, images might.
+        def (String region, String image) = field.substring(IMAGE_FIELD_PREFIX.length()).split(":", 2)
+
+        keyList << keys.imageIndex(region)
+
+        if (!keys.hashTagged) {
+          keyList << keys.legacyImage(region, image)
+        }
+
+        argList << image
+      }
+
+      evalSHA("unindexBake", ScriptReply.VALUE, keyList, argList)
+
+      deleted += deleteBake(bakeId)
+      storedLogsLengths.remove(bakeId)
+    }
+
+    return deleted
   }
 
-  @CompileStatic
-  private Set<String> scanIncompleteBakesKeys() {
-    def incompleteBakesKeys = new HashSet()
-    redisClientDelegate.withKeyScan(allIncompleteBakesKeyPattern, 100, { page ->
-      incompleteBakesKeys.addAll(page.getResults())
+  /**
+   * Move the bakes stored in the legacy layout over to the hash-tagged layout. Both layouts must be on the same,
+   * single redis; once moved, the keys can be imported into a redis cluster. Copies of bake records left on bake keys,
+   * gaps in the bake id index and image keys predating the region image indexes are dealt with first, since the
+   * hash-tagged layout has no fallbacks for them. Keys already in the hash-tagged layout are skipped, so running it
+   * again picks up whatever was stored in the legacy layout since. Returns the number of keys moved.
+   */
+  public long migrateToHashTaggedKeys(int pageSize) {
+    if (!keys.hashTagged) {
+      throw new IllegalStateException("Bakes can only be migrated to hash-tagged keys when rosco.bake-store.redis.hash-tagged-keys is enabled.")
+    }
+
+    def legacyKeys = RedisBakeStoreKeys.LEGACY
+
+    migrateLegacyBakeKeysIn(legacyKeys, pageSize)
+    backfillBakeIdIndexIn(legacyKeys, pageSize)
+
+    long folded = 0
+
+    redisClientDelegate.withKeyScan("*", pageSize, { page ->
+      page.results.each { String key -> folded += foldLegacyImageKey(key) }
     })
-    return incompleteBakesKeys
+
+    log.info("Folded $folded legacy image keys into the region image indexes.")
+
+    long moved = 0
+
+    redisClientDelegate.withKeyScan("*", pageSize, { page ->
+      page.results.each { String key -> moved += moveToHashTaggedKey(key) }
+    })
+
+    return moved
   }
 
-  @CompileStatic
-  private Object evalSHA(String scriptName, List<String> keyList, List<String> argList) {
-    String scriptSHA = scriptNameToSHAMap[scriptName]
+  private long foldLegacyImageKey(String key) {
+    def legacyKeys = RedisBakeStoreKeys.LEGACY
 
-    try {
-      if (!scriptSHA) {
-        cacheAllScripts()
+    if (key.contains("{") || !key.contains(":") || key.startsWith("bakeLogs:") || key.startsWith("lock:") ||
+        LEGACY_INDEX_KEY_PREFIXES.any { String prefix -> key.startsWith(prefix) }) {
+      return 0
+    }
+
+    def jedis = jedisPool.getResource()
+
+    jedis.withCloseable {
+      if (jedis.type(key) != "string") {
+        return 0
+      }
+
+      // Only keys holding the id of a known bake are image keys.
+      def bakeId = jedis.get(key)
+
+      if (!bakeId || jedis.zscore(legacyKeys.bakeIds, bakeId) == null) {
+        return 0
+      }
+
+      // Regions never contain a colon, images might.
+      def (String region, String image) = key.split(":", 2)
+
+      jedis.hsetnx(legacyKeys.imageIndex(region), image, bakeId)
+
+      if (jedis.exists(legacyKeys.bake(bakeId))) {
+        jedis.hset(legacyKeys.bake(bakeId), "$IMAGE_FIELD_PREFIX$region:$image".toString(), "")
+      }
+
+      jedis.del(key)
+
+      return 1
+    }
+  }
+
+  private long moveToHashTaggedKey(String key) {
+    def hashTaggedKeys = RedisBakeStoreKeys.HASH_TAGGED
+
+    // Locks are left to expire.
+    if (key.contains("{") || key.startsWith("lock:")) {
+      return 0
+    }
 
-        scriptSHA = scriptNameToSHAMap[scriptName]
+    String hashTaggedKey
+
+    if (key.startsWith("bakeLogs:")) {
+      hashTaggedKey = hashTaggedKeys.bakeLogs(key.substring("bakeLogs:".length()))
+    } else if (LEGACY_INDEX_KEY_PREFIXES.any { String prefix -> key.startsWith(prefix) }) {
+      hashTaggedKey = hashTaggedKeys.index(key)
+    } else {
+      def jedis = jedisPool.getResource()
+
+      jedis.withCloseable {
+        // Anything else is either a bake id hash or none of the bake store's business.
+        if (jedis.type(key) == "hash" && jedis.hexists(key, "bakeStatus")) {
+          hashTaggedKey = hashTaggedKeys.bake(key)
+        }
+      }
+    }
+
+    if (!hashTaggedKey) {
+      return 0
+    }
+
+    def jedis = jedisPool.getResource()
+
+    jedis.withCloseable {
+      if (jedis.renamenx(key, hashTaggedKey) == 1) {
+        return 1
       }
 
+      // The hash-tagged key was written since rosco switched layouts. Indexes are merged into it; for anything else,
+      // the hash-tagged key is the more recent.
+      switch (jedis.type(key)) {
+        case "zset":
+          jedis.zunionstore(hashTaggedKey, new ZParams().aggregate(ZParams.Aggregate.MAX), hashTaggedKey, key)
+          break
+        case "set":
+          jedis.sunionstore(hashTaggedKey, hashTaggedKey, key)
+          break
+        default:
+          log.warn("Leaving $key in place, since $hashTaggedKey already exists.")
+          return 0
+      }
+
+      jedis.del(key)
+
+      return 1
+    }
+  }
+
+  @CompileStatic
+  private Object evalScript(String scriptName, List<String> keyList, List<String> argList) {
+    if (!scriptNameToSHAMap[scriptName]) {
+      cacheAllScripts()
+    }
+
+    try {
       def jedis = jedisPool.getResource()
 
       jedis.withCloseable {
-        return jedis.evalsha((String)scriptSHA, keyList, argList)
+        return jedis.evalsha(scriptNameToSHAMap[scriptName], keyList, argList)
       }
     } catch (JedisDataException e) {
-      // If the redis server doesn't recognize the SHA1 hash, cache the scripts.
+      // If the redis server doesn't recognize the SHA1 hash, cache the scripts and try again.
       if (e.message?.startsWith("NOSCRIPT")) {
         cacheAllScripts()
 
         def jedis = jedisPool.getResource()
 
         jedis.withCloseable {
-          return jedis.evalsha((String)scriptSHA, keyList, argList)
+          return jedis.evalsha(scriptNameToSHAMap[scriptName], keyList, argList)
         }
       } else {
         throw e
       }
     }
   }
-
-  private static String getBakePipelineExecutionKey(String pipelineExecutionId) {
-    return "bake:pipeline_execution:$pipelineExecutionId"
-  }
-
-  private static String getPipelineExecutionId(String spinnakerExecutionId) {
-    return spinnakerExecutionId.split(":")[0]
-  }
 }
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import groovy.util.logging.Slf4j
+import redis.clients.jedis.JedisPool
+import redis.clients.jedis.JedisPubSub
+
+import java.util.concurrent.TimeUnit
+import java.util.function.Consumer
+
+/**
+ * Publishes bake invalidations on a redis pub/sub channel. Each subscription holds its own redis connection on a
+ * dedicated thread, and resubscribes after losing it.
+ */
+@Slf4j
+class RedisBakeStoreInvalidationChannel implements BakeStoreInvalidationChannel {
+
+  public static final String CHANNEL = "bakeStore:invalidations"
+
+  private static final long RESUBSCRIBE_DELAY_SECONDS = 5
+
+  private JedisPool jedisPool
+  private List<JedisPubSub> subscriptions = [].asSynchronized()
+  private volatile boolean closed
+
+  public RedisBakeStoreInvalidationChannel(JedisPool jedisPool) {
+    this.jedisPool = jedisPool
+  }
+
+  @Override
+  public void publish(String bakeId) {
+    def jedis = jedisPool.getResource()
+
+    jedis.withCloseable {
+      jedis.publish(CHANNEL, bakeId)
+    }
+  }
+
+  @Override
+  public void subscribe(Consumer<String> listener) {
+    def thread = new Thread({
+      while (!closed) {
+        def subscription = newSubscription(listener)
+        subscriptions << subscription
+
+        try {
+          def jedis = jedisPool.getResource()
+
+          jedis.withCloseable {
+            jedis.subscribe(subscription, CHANNEL)
+          }
+        } catch (Exception e) {
+          if (!closed) {
+            log.warn("Lost subscription to $CHANNEL, resubscribing in $RESUBSCRIBE_DELAY_SECONDS seconds.", e)
+            TimeUnit.SECONDS.sleep(RESUBSCRIBE_DELAY_SECONDS)
+          }
+        } finally {
+          subscriptions.remove(subscription)
+        }
+      }
+    }, "bakeStoreInvalidations")
+    thread.daemon = true
+    thread.start()
+  }
+
+  private static JedisPubSub newSubscription(Consumer<String> listener) {
+    return new JedisPubSub() {
+      @Override
+      void onMessage(String channel, String message) {
+        listener.accept(message)
+      }
+
+      @Override
+      void onSubscribe(String channel, int subscribedChannels) {
+        // Anything published while unsubscribed was missed.
+        listener.accept(ALL_BAKES)
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true
+
+    new ArrayList<JedisPubSub>(subscriptions).each { JedisPubSub subscription ->
+      if (subscription.subscribed) {
+        subscription.unsubscribe()
+      }
+    }
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+/**
+ * Names the redis keys of the redis bake stores. Whatever the layout, the values kept in redis (index members, bake
+ * key pointers, bake id hash fields) hold plain bake ids and bake keys; only the key names differ.
+ *
+ * The legacy layout is the one rosco has always used, and only works against a single redis. The hash-tagged layout
+ * puts all of the indexes under the {rosco} hash tag, so they share one slot, and tags each bake's record and logs
+ * with its bake id, so that every bake lands in a slot of its own. Since no script touches keys of more than one
+ * slot, a redis cluster can serve the hash-tagged layout, with the bake records and logs, the bulk of the data,
+ * spread across its nodes.
+ */
+class RedisBakeStoreKeys {
+
+  public static final String INDEX_HASH_TAG = "{rosco}"
+  public static final String IMAGE_FIELD_PREFIX = "image:"
+  public static final String PIPELINE_EXECUTION_PREFIX = "bake:pipeline_execution:"
+
+  public static final RedisBakeStoreKeys LEGACY = new RedisBakeStoreKeys(false)
+  public static final RedisBakeStoreKeys HASH_TAGGED = new RedisBakeStoreKeys(true)
+
+  final boolean hashTagged
+  private final String indexPrefix
+
+  private RedisBakeStoreKeys(boolean hashTagged) {
+    this.hashTagged = hashTagged
+    this.indexPrefix = hashTagged ? "$INDEX_HASH_TAG:" : ""
+  }
+
+  static RedisBakeStoreKeys forLayout(boolean hashTagged) {
+    return hashTagged ? HASH_TAGGED : LEGACY
+  }
+
+  /**
+   * The name of the index key legacyName is kept under. Bake keys and pipeline execution keys are index keys.
+   */
+  String index(String legacyName) {
+    return indexPrefix + legacyName
+  }
+
+  String getAllBakes() {
+    return index("allBakes")
+  }
+
+  String getBakeIds() {
+    return index("allBakes:ids")
+  }
+
+  String getBakeIdsBackfilled() {
+    return index("allBakes:ids:backfilled")
+  }
+
+  String getTrimmedBakeIds() {
+    return index("allBakes:trimmed")
+  }
+
+  String getInstanceRegistry() {
+    return index("allBakes:instances")
+  }
+
+  /**
+   * The rosco instances that have recorded that they heartbeat.
+   */
+  String getHeartbeatingInstances() {
+    return index("allBakes:heartbeating")
+  }
+
+  String getIncompleteBakesPrefix() {
+    return index("allBakes:incomplete:")
+  }
+
+  String incompleteBakes(String roscoInstanceId) {
+    return incompleteBakesPrefix + roscoInstanceId
+  }
+
+  String lock(String bakeKey) {
+    return index("lock:$bakeKey")
+  }
+
+  /**
+   * Leases are named like locks so that key migrations leave them to expire.
+   */
+  String lease(String leaseName) {
+    return index("lock:lease:$leaseName")
+  }
+
+  String bakeHistory(String bakeKey) {
+    return index("allBakes:history:$bakeKey")
+  }
+
+  String imageIndex(String region) {
+    return index("images:$region")
+  }
+
+  /**
+   * Images saved before the region image index was kept have a key of their own. The hash-tagged layout has none.
+   */
+  String legacyImage(String region, String image) {
+    return hashTagged ? null : "$region:$image".toString()
+  }
+
+  /**
+   * The bake id hash, which holds the bake record.
+   */
+  String bake(String bakeId) {
+    return hashTagged ? "bake:{$bakeId}".toString() : bakeId
+  }
+
+  String bakeLogs(String bakeId) {
+    return hashTagged ? "bakeLogs:{$bakeId}".toString() : "bakeLogs:$bakeId".toString()
+  }
+
+  /**
+   * The legacy name of the set of everything stored for a pipeline execution, which is also what bake id hashes
+   * record as their pipelineExecutionKey.
+   */
+  static String pipelineExecutionKey(String pipelineExecutionId) {
+    return PIPELINE_EXECUTION_PREFIX + pipelineExecutionId
+  }
+}
@@ -0,0 +1,669 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import com.netflix.spinnaker.rosco.api.BakeSummary
+
+/**
+ * The lua scripts behind the redis bake stores, keyed by name. Every redis client loads the same scripts, so bake
+ * stores on different clients can share a redis.
+ */
+class RedisBakeStoreScripts {
+
+  public static final String LOGS_OFFSET_MISMATCH = "logsOffsetMismatch"
+  public static final String BAKE_CANCELED = "bakeCanceled"
+  public static final String LEGACY_LOGS_MARKER = "legacyLogs"
+  public static final String[] BAKE_STATUS_FIELDS = ["bakeStatus", "createdTimestamp", "updatedTimestamp"]
+  public static final String[] BAKE_SUMMARY_FIELDS = ["bakeKey", "region", "bakeStatus", "createdTimestamp", "updatedTimestamp"]
+
+  // Bake ids read per round trip when listing the bake history, and the most read for any one page.
+  public static final int BAKE_HISTORY_READ_SIZE = 100
+  public static final int BAKE_HISTORY_MAX_READ = 2000
+
+  // Fields older rosco instances duplicated onto the bake key hash. Bake keys now only hold the bake id.
+  public static final List<String> LEGACY_BAKE_KEY_FIELDS = ["region", "bakeRecipe", "bakeRequest", "bakeStatus",
+                                                             "bakeLogs", "bakeDetails", "bakeError", "command",
+                                                             "roscoInstanceId", "createdTimestamp", "updatedTimestamp"]
+
+  public static final Map<String, String> SCRIPTS = Collections.unmodifiableMap(buildScripts())
+
+  private static Map<String, String> buildScripts() {
+    Map<String, String> scripts = [:]
+
+    // Bake keys written before they became pointers to the bake id hash carry a full copy of the bake record.
+    // Expects the local variable bake_key to be set.
+    def stripLegacyBakeKeyFieldsScript = """\
+            -- Drop any copy of the bake record left on the bake key by an older rosco.
+            redis.call('HDEL', bake_key, ${LEGACY_BAKE_KEY_FIELDS.collect { "'$it'" }.join(', ')})
+    """.trim()
+
+    // Bake statuses may be stored in a binary format, so their state is also kept in a field of its own. Defines a
+    // function reading the state of the bake on a bake id hash.
+    def readBakeStateScript = """\
+        local function read_bake_state(bake_id_key)
+          local bake_status = redis.call('HGET', bake_id_key, 'bakeStatus')
+
+          if not bake_status then
+            return nil
+          end
+
+          -- Bake statuses stored as JSON, including those written by older rosco instances, carry their own state.
+          if string.sub(bake_status, 1, 1) == '{' then
+            return cjson.decode(bake_status)['state']
+          end
+
+          return redis.call('HGET', bake_id_key, 'bakeState')
+        end
+    """.trim()
+
+    // Every key a script touches is passed in KEYS. In the hash-tagged layout, the keys of any one script share a slot:
+    // either they are all index keys, or they all belong to a single bake. Operations spanning both run one script
+    // per slot, writing the bake before indexing it and unindexing a bake before deleting it.
+    scripts.with {
+      // Expected key list: lock key, bake key
+      // Expected arg list: ttlMilliseconds
+      acquireBakeLock = """\
+        -- Set the lock key key if it's not already set.
+        if redis.call('SETNX', KEYS[1], 'locked') == 1 then
+          -- Set TTL of 5 seconds.
+          redis.call('PEXPIRE', KEYS[1], ARGV[1])
+
+          -- Delete the bake key key.
+          redis.call('DEL', KEYS[2])
+
+          -- We acquired the lock.
+          return true
+        else
+          -- We failed to acquire the lock.
+          return false
+        end
+      """
+      // Expected key list: lease key
+      // Expected arg list: rosco instance id, leaseMilliseconds
+      acquireLease = """\
+        local holder = redis.call('GET', KEYS[1])
+
+        -- Acquire the lease if it has expired, or renew it if we already hold it.
+        if not holder or holder == ARGV[1] then
+          redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2])
+
+          return true
+        end
+
+        return false
+      """
+      // Expected key list: bake id key, bake logs key
+      // Expected arg list: createdTimestampMilliseconds, region, bake recipe, bake request, bake status, bake logs, command, rosco instance id, bake logs length, bake key, pipeline execution key, bake state
+      storeNewBake = """\
+        redis.call('DEL', KEYS[1])
+
+        -- Set bake id hash values. This is the only copy of the bake record.
+        redis.call('HMSET', KEYS[1],
+                   'bakeKey', ARGV[10],
+                   'region', ARGV[2],
+                   'bakeRecipe', ARGV[3],
+                   'bakeRequest', ARGV[4],
+                   'bakeStatus', ARGV[5],
+                   'bakeState', ARGV[12],
+                   'bakeLogsLength', ARGV[9],
+                   'command', ARGV[7],
+                   'roscoInstanceId', ARGV[8],
+                   'pipelineExecutionKey', ARGV[11],
+                   'createdTimestamp', ARGV[1],
+                   'updatedTimestamp', ARGV[1])
+
+        -- Start the bake logs stream over. Each entry's id is the offset of its first character.
+        redis.call('DEL', KEYS[2])
+
+        if string.len(ARGV[6]) > 0 then
+          redis.call('XADD', KEYS[2], '0-1', 'data', ARGV[6])
+        end
+      """
+      // Expected key list: "allBakes", bake key, this instance incomplete bakes key, lock key, pipeline execution key, "allBakes:instances", "allBakes:ids", "allBakes:trimmed", bake history key
+      // Expected arg list: createdTimestampMilliseconds, bake id, bake key, rosco instance id, keep latest bakes per key, bake logs key, dangling bake id
+      // Returns the race winner's bake id if another bake was indexed under the bake key first, and nothing otherwise.
+      indexNewBake = """\
+        -- If we lost a race to initiate a new bake, leave the indexes alone and hand back the race winner's bake id. A
+        -- bake key the caller found pointing at a bake that no longer exists is taken over instead.
+        local winning_bake_id = redis.call('HGET', KEYS[2], 'id')
+
+        if winning_bake_id and winning_bake_id ~= ARGV[7] then
+          return winning_bake_id
+        end
+
+        -- Add bake id, bake key and bake logs key to set identified by pipeline execution key.
+        redis.call('SADD', KEYS[5], ARGV[2], ARGV[3], ARGV[6])
+
+        -- Add bake key to set of bakes.
+        redis.call('ZADD', KEYS[1], ARGV[1], ARGV[3])
+
+        -- Add bake id to set of bake ids, which outlives the bake key.
+        redis.call('ZADD', KEYS[7], ARGV[1], ARGV[2])
+
+        -- Hand older bakes with the same bake key beyond the ones kept to the compactor.
+        local keep_latest = tonumber(ARGV[5])
+
+        if keep_latest > 0 then
+          redis.call('ZADD', KEYS[9], ARGV[1], ARGV[2])
+
+          for _,trimmed_bake_id in ipairs(redis.call('ZRANGE', KEYS[9], 0, -(keep_latest + 1)))
+          do
+            redis.call('ZADD', KEYS[8], ARGV[1], trimmed_bake_id)
+          end
+
+          redis.call('ZREMRANGEBYRANK', KEYS[9], 0, -(keep_latest + 1))
+        end
+
+        -- Point the bake key at the bake id, dropping anything left behind by a dangling pointer.
+        redis.call('DEL', KEYS[2])
+        redis.call('HSET', KEYS[2], 'id', ARGV[2])
+
+        -- Add bake id to set of incomplete bakes.
+        redis.call('SADD', KEYS[3], ARGV[2])
+
+        -- Make sure the rosco instance owning the incomplete bake is registered.
+        redis.call('ZADD', KEYS[6], ARGV[1], ARGV[4])
+
+        -- Delete the lock key key instead of just allowing it to wait out the TTL.
+        redis.call('DEL', KEYS[4])
+      """
+      // Expected key list: bake id key
+      // Expected arg list: bake details
+      updateBakeDetails = """\
+        $readBakeStateScript
+
+        -- Ensure we don't update/resurrect a canceled bake (can happen due to a race).
+        if read_bake_state(KEYS[1]) == '$BakeStatus.State.CANCELED' then
+          return
+        end
+
+        -- Update the bake details set on the bake id hash.
+        redis.call('HSET', KEYS[1], 'bakeDetails', ARGV[1])
+      """
+      // Expected key list: bake id key, bake logs key
+      // Expected arg list: bake status, updatedTimestampMilliseconds, bake logs offset, bake logs chunk, bake logs length, bake state
+      // Returns the bake key, or a marker when the bake was canceled or the logs offset doesn't match the stored logs.
+      updateBakeStatus = """\
+        $readBakeStateScript
+
+        -- Ensure we don't update/resurrect a canceled bake (can happen due to a race).
+        if read_bake_state(KEYS[1]) == '$BakeStatus.State.CANCELED' then
+          return '$BAKE_CANCELED'
+        end
+
+        local append_logs = string.len(ARGV[4]) > 0
+
+        -- Only append logs that pick up exactly where the stored logs leave off. Offset 0 rewrites them instead.
+        if append_logs and ARGV[3] ~= '0' and ARGV[3] ~= redis.call('HGET', KEYS[1], 'bakeLogsLength') then
+          return '$LOGS_OFFSET_MISMATCH'
+        end
+
+        -- Update the bake status set on the bake id hash.
+        redis.call('HMSET', KEYS[1],
+                   'bakeStatus', ARGV[1],
+                   'bakeState', ARGV[6],
+                   'updatedTimestamp', ARGV[2])
+
+        if append_logs then
+          if ARGV[3] == '0' then
+            redis.call('DEL', KEYS[2])
+
+            -- Logs written before they were chunked are held in a single field.
+            redis.call('HDEL', KEYS[1], 'bakeLogs')
+          end
+
+          -- Append just the new output. Each entry's id is the offset of its first character.
+          redis.call('XADD', KEYS[2], ARGV[3] .. '-1', 'data', ARGV[4])
+          redis.call('HSET', KEYS[1], 'bakeLogsLength', ARGV[5])
+        end
+
+        return redis.call('HGET', KEYS[1], 'bakeKey') or ''
+      """
+      // Expected key list: this instance incomplete bakes key, bake key (if known)
+      // Expected arg list: bake id
+      completeBake = """\
+        -- Remove bake id from set of incomplete bakes.
+        redis.call('SREM', KEYS[1], ARGV[1])
+
+        if KEYS[2] then
+          local bake_key = KEYS[2]
+
+          $stripLegacyBakeKeyFieldsScript
+        end
+      """
+      // Expected key list: bake id key, bake logs key
+      // Expected arg list: bake logs offset
+      retrieveBakeLogs = """\
+        local bake_logs_length = redis.call('HGET', KEYS[1], 'bakeLogsLength')
+
+        if not bake_logs_length then
+          -- Logs written before they were chunked are held in a single field.
+          return {'$LEGACY_LOGS_MARKER', redis.call('HGET', KEYS[1], 'bakeLogs')}
+        end
+
+        -- Start from the entry holding the character at the requested offset.
+        local start_id = '-'
+        local first_entry = redis.call('XREVRANGE', KEYS[2], ARGV[1] .. '-1', '-', 'COUNT', 1)
+
+        if #first_entry > 0 then
+          start_id = first_entry[1][1]
+        end
+
+        local result = {bake_logs_length}
+
+        for _, entry in ipairs(redis.call('XRANGE', KEYS[2], start_id, '+')) do
+          table.insert(result, entry[1])
+          table.insert(result, entry[2][2])
+        end
+
+        return result
+      """
+      // Only used against the legacy layout, where every key lives on the same redis.
+      // Expected key list: bake key, bake id key
+      // Expected arg list: bake id
+      migrateLegacyBakeKey = """\
+        local bake_key = KEYS[1]
+
+        -- Only strip the copy if the canonical record under the bake id is still around.
+        if redis.call('HGET', bake_key, 'id') == ARGV[1] and redis.call('EXISTS', KEYS[2]) == 1 then
+          $stripLegacyBakeKeyFieldsScript
+
+          return 1
+        end
+
+        return 0
+      """
+      // Expected key list: bake id key
+      // Expected arg list: error
+      storeBakeError = """\
+        -- Update the error set on the bake id hash.
+        redis.call('HSET', KEYS[1], 'bakeError', ARGV[1])
+      """
+      // Expected key list: bake key, "allBakes", "allBakes:ids", bake history key, incomplete bake keys...
+      // Expected arg list: bake key, '1' to keep the bake id indexed or '0'
+      unindexBakeKey = """\
+        -- Retrieve the bake id associated with bake key.
+        local bake_id = redis.call('HGET', KEYS[1], 'id')
+
+        -- Remove bake key from the set of bakes.
+        redis.call('ZREM', KEYS[2], ARGV[1])
+
+        -- Delete the bake key key.
+        redis.call('DEL', KEYS[1])
+
+        if bake_id then
+          -- Remove bake id from whichever rosco instance's set of incomplete bakes holds it.
+          for i = 5, #KEYS
+          do
+            redis.call('SREM', KEYS[i], bake_id)
+          end
+
+          if ARGV[2] ~= '1' then
+            -- Remove bake id from the set of bake ids and the bake key's history.
+            redis.call('ZREM', KEYS[3], bake_id)
+            redis.call('ZREM', KEYS[4], bake_id)
+          end
+        end
+
+        return bake_id
+      """
+      // Expected key list: bake id key
+      // Expected arg list: canceled bake status, updatedTimestampMilliseconds
+      // Returns 1 if the bake was still queued or running and is now canceled, 0 otherwise.
+      cancelRunningBake = """\
+        $readBakeStateScript
+
+        -- Set bake state to CANCELED if still queued or running.
+        local bakeState = read_bake_state(KEYS[1])
+
+        if bakeState == '$BakeStatus.State.QUEUED' or bakeState == '$BakeStatus.State.RUNNING' then
+          -- Update the bake status set on the bake id hash.
+          redis.call('HMSET', KEYS[1],
+                     'bakeStatus', ARGV[1],
+                     'bakeState', '$BakeStatus.State.CANCELED',
+                     'updatedTimestamp', ARGV[2])
+
+          return 1
+        end
+
+        return 0
+      """
+      // Expected key list: bake id key
+      // Expected arg list: canceled bake status, updatedTimestampMilliseconds
+      // Returns the bake key and the rosco instance id of the bake, either of which may be empty.
+      cancelBake = """\
+        local fields = redis.call('HMGET', KEYS[1], 'bakeKey', 'roscoInstanceId')
+
+        -- Update the bake status set on the bake id hash.
+        redis.call('HMSET', KEYS[1],
+                   'bakeStatus', ARGV[1],
+                   'bakeState', '$BakeStatus.State.CANCELED',
+                   'updatedTimestamp', ARGV[2])
+
+        return {fields[1] or '', fields[2] or ''}
+      """
+      // Expected key list: "allBakes", bake key (if any), owning rosco instance incomplete bakes key (if any)
+      // Expected arg list: bake id, bake key or an empty string, '1' if the incomplete bakes key is passed or '0'
+      unindexCanceledBake = """\
+        local next_key = 2
+        local ret = 0
+
+        if ARGV[2] ~= '' then
+          -- Remove the bake key from the set of bakes.
+          redis.call('ZREM', KEYS[1], ARGV[2])
+
+          -- Delete the bake key key.
+          redis.call('DEL', KEYS[next_key])
+          next_key = next_key + 1
+        end
+
+        if ARGV[3] == '1' then
+          -- Remove bake id from that rosco instance's set of incomplete bakes.
+          ret = redis.call('SREM', KEYS[next_key], ARGV[1])
+        end
+
+        return ret
+      """
+      // Expected key list: region image index key, legacy image key (legacy layout only)
+      // Expected arg list: image, bake id
+      // Returns the bake id the image pointed at before, if any.
+      indexImage = """\
+        local previous_bake_id = redis.call('HGET', KEYS[1], ARGV[1])
+
+        redis.call('HSET', KEYS[1], ARGV[1], ARGV[2])
+
+        -- Image keys written before the region image index was kept are superseded.
+        if KEYS[2] then
+          redis.call('DEL', KEYS[2])
+        end
+
+        return previous_bake_id
+      """
+      // Expected key list: bake id key
+      // Expected arg list: image field
+      addBakeImage = """\
+        -- Record the image on the bake id hash too, to map the bake back to its images.
+        if redis.call('EXISTS', KEYS[1]) == 1 then
+          redis.call('HSET', KEYS[1], ARGV[1], '')
+        end
+      """
+      // Expected key list: "allBakes", "allBakes:ids", "allBakes:trimmed", then the keys flagged in the arg list: owning
+      //                    rosco instance incomplete bakes key, pipeline execution key, bake key and bake history key,
+      //                    then a region image index key per image, each followed by its legacy image key (legacy
+      //                    layout only)
+      // Expected arg list: bake id, bake key, '1' if the incomplete bakes key is passed, '1' if the pipeline execution
+      //                    key is passed, '1' if legacy image keys are passed, images...
+      unindexBake = """\
+        local bake_id = ARGV[1]
+        local bake_key = ARGV[2]
+        local next_key = 4
+        local pipeline_execution_key
+
+        if ARGV[3] == '1' then
+          redis.call('SREM', KEYS[next_key], bake_id)
+          next_key = next_key + 1
+        end
+
+        if ARGV[4] == '1' then
+          pipeline_execution_key = KEYS[next_key]
+          next_key = next_key + 1
+        end
+
+        if bake_key ~= '' then
+          local bake_key_key = KEYS[next_key]
+
+          -- Leave the bake key alone if it has since been pointed at a newer bake.
+          if redis.call('HGET', bake_key_key, 'id') == bake_id then
+            redis.call('ZREM', KEYS[1], bake_key)
+            redis.call('DEL', bake_key_key)
+
+            if pipeline_execution_key then
+              redis.call('SREM', pipeline_execution_key, bake_key)
+            end
+          end
+
+          redis.call('ZREM', KEYS[next_key + 1], bake_id)
+          next_key = next_key + 2
+        end
+
+        -- Drop the images still pointing at this bake.
+        for i = 6, #ARGV
+        do
+          if redis.call('HGET', KEYS[next_key], ARGV[i]) == bake_id then
+            redis.call('HDEL', KEYS[next_key], ARGV[i])
+          end
+
+          next_key = next_key + 1
+
+          if ARGV[5] == '1' then
+            if redis.call('GET', KEYS[next_key]) == bake_id then
+              redis.call('DEL', KEYS[next_key])
+            end
+
+            next_key = next_key + 1
+          end
+        end
+
+        if pipeline_execution_key then
+          -- The bake logs key is recorded under its name in either layout.
+          redis.call('SREM', pipeline_execution_key, bake_id, 'bakeLogs:' .. bake_id, 'bakeLogs:{' .. bake_id .. '}')
+
+          if redis.call('SCARD', pipeline_execution_key) == 0 then
+            redis.call('DEL', pipeline_execution_key)
+          end
+        end
+
+        redis.call('ZREM', KEYS[2], bake_id)
+        redis.call('ZREM', KEYS[3], bake_id)
+      """
+      // Expected key list: "allBakes:instances", incomplete bakes key per rosco instance id..., "allBakes:heartbeating"
+      // Expected arg list: expiryTimestampMilliseconds, rosco instance ids...
+      expireInstances = """\
+        local expired = 0
+
+        -- Only forget rosco instances that stopped refreshing their registration and have no incomplete bakes left.
+        for i = 2, #ARGV
+        do
+          local registered = redis.call('ZSCORE', KEYS[1], ARGV[i])
+
+          if registered and tonumber(registered) <= tonumber(ARGV[1]) and redis.call('EXISTS', KEYS[i]) == 0 then
+            redis.call('ZREM', KEYS[1], ARGV[i])
+            redis.call('SREM', KEYS[#KEYS], ARGV[i])
+            expired = expired + 1
+          end
+        end
+
+        return expired
+      """
+      // Expected key list: pipeline execution key, "allBakes", "allBakes:ids", bake key keys...
+      // Expected arg list: number of bake keys, number of bake ids, bake keys..., bake ids..., other members...
+      unindexPipelineExecution = """\
+        local bake_key_count = tonumber(ARGV[1])
+        local bake_id_count = tonumber(ARGV[2])
+
+        for i = 1, bake_key_count
+        do
+          redis.call('ZREM', KEYS[2], ARGV[i + 2])
+          redis.call('DEL', KEYS[i + 3])
+        end
+
+        for i = bake_key_count + 3, bake_key_count + bake_id_count + 2
+        do
+          redis.call('ZREM', KEYS[3], ARGV[i])
+        end
+
+        -- Only forget the members handled here, in case a bake was added to the pipeline execution since.
+        for i = 3, #ARGV
+        do
+          redis.call('SREM', KEYS[1], ARGV[i])
+        end
+
+        if redis.call('SCARD', KEYS[1]) == 0 then
+          redis.call('DEL', KEYS[1])
+        end
+      """
+    }
+
+    return scripts
+  }
+
+  /**
+   * A page of the members of a pipeline execution set, which holds bake keys, bake ids and the names of bake logs keys.
+   */
+  static class PipelineExecutionMembers {
+
+    final List<String> bakeKeys
+    final List<String> bakeLogsKeys
+    final List<String> bakeIds
+
+    PipelineExecutionMembers(Collection<String> members) {
+      bakeKeys = members.findAll { String member -> member.startsWith("bake:") } as List<String>
+      bakeLogsKeys = members.findAll { String member -> member.startsWith("bakeLogs:") } as List<String>
+      bakeIds = (members - bakeKeys - bakeLogsKeys) as List<String>
+    }
+
+    /**
+     * The key list of the unindexPipelineExecution script.
+     */
+    List<String> unindexKeyList(RedisBakeStoreKeys keys, String pipelineExecutionKey) {
+      return [pipelineExecutionKey, keys.allBakes, keys.bakeIds] + bakeKeys.collect { String bakeKey -> keys.index(bakeKey) }
+    }
+
+    /**
+     * The arg list of the unindexPipelineExecution script.
+     */
+    List<String> unindexArgList() {
+      return [bakeKeys.size() as String, bakeIds.size() as String] + bakeKeys + bakeIds + bakeLogsKeys
+    }
+
+    /**
+     * The keys holding the records and logs of the bakes, to delete once they are unindexed.
+     */
+    Set<String> bakeRecordKeys(RedisBakeStoreKeys keys) {
+      Set<String> bakeRecordKeys = new LinkedHashSet<>()
+
+      bakeIds.each { String bakeId ->
+        bakeRecordKeys << keys.bake(bakeId)
+        bakeRecordKeys << keys.bakeLogs(bakeId)
+      }
+
+      bakeRecordKeys.addAll(bakeLogsKeys)
+
+      return bakeRecordKeys
+    }
+  }
+
+  /**
+   * The bake state kept alongside a bake status, for the scripts to check without decoding the bake status.
+   */
+  static String bakeState(BakeStatus bakeStatus) {
+    return bakeStatus.state?.name() ?: ""
+  }
+
+  /**
+   * Read a bake status from the values of BAKE_STATUS_FIELDS.
+   */
+  static BakeStatus readBakeStatus(List<String> bakeStatusFields, BakeFieldSerializer serializer) {
+    def (String storedBakeStatus,
+         String createdTimestampStr,
+         String updatedTimestampStr) = bakeStatusFields
+
+    BakeStatus bakeStatus = serializer.deserialize(storedBakeStatus, BakeStatus)
+
+    if (bakeStatus && createdTimestampStr) {
+      bakeStatus.createdTimestamp = Long.parseLong(createdTimestampStr)
+      bakeStatus.updatedTimestamp = Long.parseLong(updatedTimestampStr)
+    }
+
+    return bakeStatus
+  }
+
+  /**
+   * Read a bake summary from the values of BAKE_SUMMARY_FIELDS. Returns null if the bake is gone, or doesn't match
+   * cloudProvider or state when given.
+   */
+  static BakeSummary readBakeSummary(String bakeId, List<String> bakeSummaryFields, String cloudProvider, BakeStatus.State state, BakeFieldSerializer serializer) {
+    def (String bakeKey,
+         String region,
+         String storedBakeStatus,
+         String createdTimestampStr,
+         String updatedTimestampStr) = bakeSummaryFields
+
+    BakeStatus bakeStatus = serializer.deserialize(storedBakeStatus, BakeStatus)
+
+    if (!bakeStatus) {
+      return null
+    }
+
+    // Bake key is always bake:$cloudProvider:...
+    def bakeSummary = new BakeSummary(id: bakeId,
+                                      cloudProvider: bakeKey?.split(":")?.getAt(1),
+                                      region: region,
+                                      state: bakeStatus.state,
+                                      result: bakeStatus.result,
+                                      createdTimestamp: createdTimestampStr ? Long.parseLong(createdTimestampStr) : 0,
+                                      updatedTimestamp: updatedTimestampStr ? Long.parseLong(updatedTimestampStr) : 0)
+
+    if ((cloudProvider && bakeSummary.cloudProvider != cloudProvider) || (state && bakeSummary.state != state)) {
+      return null
+    }
+
+    return bakeSummary
+  }
+
+  /**
+   * Read the logs returned by the retrieveBakeLogs script when asked for the logs from offset on.
+   */
+  static Map<String, String> readBakeLogs(List result, long offset, BakeFieldCompressor compressor, BakeFieldSerializer serializer) {
+    if (!result) {
+      return null
+    }
+
+    String logsContent
+
+    if (result[0] == LEGACY_LOGS_MARKER) {
+      if (result.size() < 2 || !result[1]) {
+        return null
+      }
+
+      String legacyLogsContent = serializer.deserialize(result[1] as String, Map).logsContent ?: ""
+      logsContent = offset < legacyLogsContent.length() ? legacyLogsContent.substring((int)Math.max(offset, 0)) : ""
+
+      return [logsContent: logsContent, nextOffset: Math.max(offset, legacyLogsContent.length()) + ""]
+    }
+
+    long logsLength = Long.parseLong(result[0] as String)
+    StringBuilder logsContentBuilder = new StringBuilder()
+    long firstEntryOffset = -1
+
+    for (int i = 1; i + 1 < result.size(); i += 2) {
+      if (firstEntryOffset < 0) {
+        // Entry ids are <offset of first character>-1.
+        firstEntryOffset = Long.parseLong((result[i] as String).split("-")[0])
+      }
+
+      logsContentBuilder.append(compressor.decompress(result[i + 1] as String))
+    }
+
+    // The first entry may start before the requested offset.
+    int skip = firstEntryOffset >= 0 ? (int)Math.min(Math.max(offset - firstEntryOffset, 0), logsContentBuilder.length()) : 0
+    logsContent = logsContentBuilder.substring(skip)
+
+    return [logsContent: logsContent, nextOffset: Math.max(offset, logsLength) + ""]
+  }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence;
+
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spinnaker.rosco.persistence.config.BakeStoreConfigurationProperties;
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import lombok.extern.slf4j.Slf4j;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * Serves redis server time without a round trip per call. The redis TIME is sampled every so often and the local
+ * monotonic clock is used to advance it in between. A sample is trusted for as long as the local clock can be off
+ * from redis by no more than the configured maximum drift, or until the maximum sync interval elapses, whichever
+ * comes first. Timestamps served by a clock never go backwards, even when a new sample corrects the offset.
+ *
+ * <p>Once started, the clock samples redis in the background, ahead of each sample running out, so
+ * neither the served time nor the skew metrics wait on a round trip after an idle spell. A clock
+ * that isn't started, or whose background sample failed, samples redis when asked for the time.
+ */
+@Slf4j
+public class RedisClock implements Closeable {
+
+  private static final long MIN_BACKGROUND_SAMPLE_DELAY_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+  private final LongSupplier serverTimeMillis;
+  private final LongSupplier localTimeMillis;
+  private final LongSupplier nanoTime;
+  private final long maxDriftNanos;
+  private final double driftRate;
+  private final long maxSyncIntervalNanos;
+  private final long maxValidForNanos;
+
+  private final AtomicLong lastServedMillis = new AtomicLong();
+  private final AtomicLong skewMillis = new AtomicLong();
+  private final AtomicLong sampleUncertaintyMillis = new AtomicLong();
+  private final Counter syncs;
+
+  private volatile Sample sample;
+  private volatile ScheduledExecutorService sampler;
+
+  public RedisClock(
+      JedisPool jedisPool, BakeStoreConfigurationProperties.Clock clock, Registry registry) {
+    this(() -> readServerTimeMillis(jedisPool), clock, registry);
+  }
+
+  /** serverTimeMillis reads the redis server time; it is only called when the clock samples redis. */
+  public RedisClock(
+      LongSupplier serverTimeMillis,
+      BakeStoreConfigurationProperties.Clock clock,
+      Registry registry) {
+    this(
+        serverTimeMillis,
+        System::currentTimeMillis,
+        System::nanoTime,
+        clock.getMaxDriftMillis(),
+        clock.getDriftRatePpm(),
+        clock.getMaxSyncIntervalSeconds(),
+        registry);
+  }
+
+  RedisClock(
+      LongSupplier serverTimeMillis,
+      LongSupplier localTimeMillis,
+      LongSupplier nanoTime,
+      long maxDriftMillis,
+      long driftRatePpm,
+      long maxSyncIntervalSeconds,
+      Registry registry) {
+    this.serverTimeMillis = serverTimeMillis;
+    this.localTimeMillis = localTimeMillis;
+    this.nanoTime = nanoTime;
+    this.maxDriftNanos = TimeUnit.MILLISECONDS.toNanos(maxDriftMillis);
+    this.driftRate = Math.max(driftRatePpm, 1) / 1_000_000d;
+    this.maxSyncIntervalNanos = TimeUnit.SECONDS.toNanos(maxSyncIntervalSeconds);
+    this.maxValidForNanos = Math.min((long) (maxDriftNanos / driftRate), maxSyncIntervalNanos);
+
+    // How far the local wall clock is behind redis, and how far off the last sample can be due to the round trip.
+    registry.gauge(registry.createId("bakeStoreClockSkew"), skewMillis, AtomicLong::doubleValue);
+    registry.gauge(
+        registry.createId("bakeStoreClockSampleUncertainty"),
+        sampleUncertaintyMillis,
+        AtomicLong::doubleValue);
+    this.syncs = registry.counter(registry.createId("bakeStoreClockSyncs"));
+  }
+
+  /** Current redis server time in milliseconds. */
+  public long currentTimeMillis() {
+    long now = nanoTime.getAsLong();
+    Sample current = sample;
+
+    if (current == null || now - current.sampledAtNanos >= current.validForNanos) {
+      current = sync(false);
+      now = nanoTime.getAsLong();
+    }
+
+    long millis = current.serverMillis + TimeUnit.NANOSECONDS.toMillis(now - current.sampledAtNanos);
+
+    return lastServedMillis.accumulateAndGet(millis, Math::max);
+  }
+
+  /** Sample redis in the background, on a thread of the clock's own, until the clock is closed. */
+  public void start() {
+    start(
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "redis-clock");
+              thread.setDaemon(true);
+              return thread;
+            }));
+  }
+
+  void start(ScheduledExecutorService sampler) {
+    this.sampler = sampler;
+    sampler.execute(this::sampleInBackground);
+  }
+
+  @Override
+  public void close() {
+    ScheduledExecutorService current = sampler;
+
+    if (current != null) {
+      current.shutdownNow();
+    }
+  }
+
+  private void sampleInBackground() {
+    // Should sampling fail, the next attempt is made as soon as a sample could have run out.
+    long delayNanos = maxValidForNanos;
+
+    try {
+      // Sample again once most of this sample's validity has passed, leaving the rest as a margin.
+      delayNanos =
+          Math.max(sync(true).validForNanos * 3 / 4, MIN_BACKGROUND_SAMPLE_DELAY_NANOS);
+    } catch (RuntimeException e) {
+      log.warn("Unable to sample the redis server time.", e);
+    }
+
+    ScheduledExecutorService current = sampler;
+
+    if (current != null && !current.isShutdown()) {
+      current.schedule(this::sampleInBackground, delayNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private synchronized Sample sync(boolean force) {
+    Sample current = sample;
+
+    // Another thread may have synced while this one waited.
+    if (!force
+        && current != null
+        && nanoTime.getAsLong() - current.sampledAtNanos < current.validForNanos) {
+      return current;
+    }
+
+    long requestedAtNanos = nanoTime.getAsLong();
+    long serverMillis = serverTimeMillis.getAsLong();
+    long respondedAtNanos = nanoTime.getAsLong();
+    long localMillis = localTimeMillis.getAsLong();
+
+    // Redis read its clock somewhere within the round trip; assume the middle of it.
+    long halfRoundTripNanos = (respondedAtNanos - requestedAtNanos) / 2;
+    long sampledAtNanos = requestedAtNanos + halfRoundTripNanos;
+
+    // Leave the part of the drift budget the round trip didn't use up for the local clock to drift into.
+    long driftBudgetNanos = Math.max(maxDriftNanos - halfRoundTripNanos, 0);
+    long validForNanos = Math.min((long) (driftBudgetNanos / driftRate), maxSyncIntervalNanos);
+
+    skewMillis.set(
+        serverMillis
+            + TimeUnit.NANOSECONDS.toMillis(respondedAtNanos - sampledAtNanos)
+            - localMillis);
+    sampleUncertaintyMillis.set(TimeUnit.NANOSECONDS.toMillis(halfRoundTripNanos));
+    syncs.increment();
+
+    sample = new Sample(serverMillis, sampledAtNanos, validForNanos);
+
+    return sample;
+  }
+
+  private static long readServerTimeMillis(JedisPool jedisPool) {
+    try (Jedis jedis = jedisPool.getResource()) {
+      List<String> time = jedis.time();
+      long timeSeconds = Long.parseLong(time.get(0));
+      long microseconds = Long.parseLong(time.get(1));
+
+      return TimeUnit.SECONDS.toMillis(timeSeconds) + TimeUnit.MICROSECONDS.toMillis(microseconds);
+    }
+  }
+
+  private static class Sample {
+    final long serverMillis;
+    final long sampledAtNanos;
+    final long validForNanos;
+
+    Sample(long serverMillis, long sampledAtNanos, long validForNanos) {
+      this.serverMillis = serverMillis;
+      this.sampledAtNanos = sampledAtNanos;
+      this.validForNanos = validForNanos;
+    }
+  }
+}
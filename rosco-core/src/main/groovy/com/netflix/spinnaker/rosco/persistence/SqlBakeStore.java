@@ -0,0 +1,937 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
+import com.netflix.spinnaker.rosco.api.Bake;
+import com.netflix.spinnaker.rosco.api.BakeHistoryPage;
+import com.netflix.spinnaker.rosco.api.BakeRequest;
+import com.netflix.spinnaker.rosco.api.BakeStatus;
+import com.netflix.spinnaker.rosco.api.BakeSummary;
+import com.netflix.spinnaker.rosco.jobs.BakeRecipe;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores bakes in a relational database. Each bake is a row in rosco_bakes, looked up by id, by owning rosco instance
+ * while incomplete, and by pipeline execution. Bake keys, bake locks and image relationships live in tables of their
+ * own. Bake locks are rows whose expiry is checked while holding a row lock, so only one rosco instance can acquire an
+ * expired lock.
+ */
+@Slf4j
+public class SqlBakeStore implements BakeStore {
+
+  /** Liquibase changelog of the tables the store uses. */
+  public static final String SCHEMA_CHANGELOG = "classpath:db/changelog-master.yml";
+
+  private static final long BAKE_LOCK_TTL_MILLISECONDS = 5000;
+
+  // Keeps IN clauses within the bind parameter limits of every supported database.
+  private static final int MAX_IN_CLAUSE_SIZE = 500;
+
+  private static final String BAKE_STATUS_COLUMNS = "id, bake_status, created_at, updated_at";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final String roscoInstanceId;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  public SqlBakeStore(DataSource dataSource, String roscoInstanceId) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.transactionTemplate =
+        new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    this.roscoInstanceId = roscoInstanceId;
+  }
+
+  @Override
+  public boolean acquireBakeLock(String bakeKey) {
+    String bakeKeyHash = hashBakeKey(bakeKey);
+    long now = getTimeInMilliseconds();
+
+    try {
+      return transactionTemplate.execute(
+          status -> {
+            List<Long> expiresAt =
+                jdbcTemplate.queryForList(
+                    "SELECT expires_at FROM rosco_bake_locks WHERE bake_key_hash = ? FOR UPDATE",
+                    Long.class,
+                    bakeKeyHash);
+
+            if (!expiresAt.isEmpty() && expiresAt.get(0) > now) {
+              return false;
+            }
+
+            if (expiresAt.isEmpty()) {
+              jdbcTemplate.update(
+                  "INSERT INTO rosco_bake_locks (bake_key_hash, expires_at) VALUES (?, ?)",
+                  bakeKeyHash,
+                  now + BAKE_LOCK_TTL_MILLISECONDS);
+            } else {
+              jdbcTemplate.update(
+                  "UPDATE rosco_bake_locks SET expires_at = ? WHERE bake_key_hash = ?",
+                  now + BAKE_LOCK_TTL_MILLISECONDS,
+                  bakeKeyHash);
+            }
+
+            // The bake key is about to be pointed at a new bake.
+            jdbcTemplate.update("DELETE FROM rosco_bake_keys WHERE bake_key_hash = ?", bakeKeyHash);
+
+            return true;
+          });
+    } catch (DuplicateKeyException e) {
+      // Another rosco instance inserted the lock first.
+      return false;
+    }
+  }
+
+  @Override
+  public void releaseBakeLock(String bakeKey) {
+    jdbcTemplate.update(
+        "DELETE FROM rosco_bake_locks WHERE bake_key_hash = ?", hashBakeKey(bakeKey));
+  }
+
+  @Override
+  public BakeStatus storeNewBakeStatus(
+      String bakeKey,
+      String region,
+      BakeRecipe bakeRecipe,
+      BakeRequest bakeRequest,
+      BakeStatus bakeStatus,
+      String command) {
+    String bakeKeyHash = hashBakeKey(bakeKey);
+    String bakeRecipeJson = toJson(bakeRecipe);
+    String bakeRequestJson = toJson(bakeRequest);
+    String bakeStatusJson = toJson(bakeStatus);
+    long createdTimestampMilliseconds = getTimeInMilliseconds();
+
+    BakeStatus storedBakeStatus;
+
+    try {
+      storedBakeStatus =
+          transactionTemplate.execute(
+              status -> {
+                // If we lost a race to initiate a new bake, just return the race winner's bake status.
+                BakeStatus existingBakeStatus = retrieveBakeStatusByKey(bakeKey);
+
+                if (existingBakeStatus != null) {
+                  return existingBakeStatus;
+                }
+
+                jdbcTemplate.update("DELETE FROM rosco_bakes WHERE id = ?", bakeStatus.getId());
+                jdbcTemplate.update(
+                    "INSERT INTO rosco_bakes (id, bake_key, region, bake_recipe, bake_request, bake_status, state, "
+                        + "bake_logs, bake_logs_length, command, rosco_instance_id, incomplete_instance_id, "
+                        + "pipeline_execution_id, created_at, updated_at) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    bakeStatus.getId(),
+                    bakeKey,
+                    region,
+                    bakeRecipeJson,
+                    bakeRequestJson,
+                    bakeStatusJson,
+                    stateName(bakeStatus),
+                    bakeStatus.getLogsContent(),
+                    logsLength(bakeStatus.getLogsContent()),
+                    command,
+                    roscoInstanceId,
+                    roscoInstanceId,
+                    getPipelineExecutionId(bakeRequest.getSpinnaker_execution_id()),
+                    createdTimestampMilliseconds,
+                    createdTimestampMilliseconds);
+                jdbcTemplate.update("DELETE FROM rosco_bake_keys WHERE bake_key_hash = ?", bakeKeyHash);
+                jdbcTemplate.update(
+                    "INSERT INTO rosco_bake_keys (bake_key_hash, bake_key, bake_id, created_at) VALUES (?, ?, ?, ?)",
+                    bakeKeyHash,
+                    bakeKey,
+                    bakeStatus.getId(),
+                    createdTimestampMilliseconds);
+
+                // Release the lock instead of just allowing it to wait out the TTL.
+                jdbcTemplate.update(
+                    "DELETE FROM rosco_bake_locks WHERE bake_key_hash = ?", bakeKeyHash);
+
+                return bakeStatus;
+              });
+    } catch (DuplicateKeyException e) {
+      BakeStatus existingBakeStatus = retrieveBakeStatusByKey(bakeKey);
+
+      return existingBakeStatus != null ? existingBakeStatus : bakeStatus;
+    }
+
+    // Make sure the rosco instance owning the incomplete bake is registered.
+    registerInstance(roscoInstanceId, createdTimestampMilliseconds);
+
+    return storedBakeStatus;
+  }
+
+  @Override
+  public void updateBakeDetails(Bake bakeDetails) {
+    saveImageToBakeRelationship(
+        bakeDetails.getArtifact().getLocation(),
+        bakeDetails.getArtifact().getReference(),
+        bakeDetails.getId());
+
+    // Ensure we don't update/resurrect a canceled bake (can happen due to a race).
+    jdbcTemplate.update(
+        "UPDATE rosco_bakes SET bake_details = ? WHERE id = ? AND (state IS NULL OR state <> ?)",
+        toJson(bakeDetails),
+        bakeDetails.getId(),
+        BakeStatus.State.CANCELED.name());
+  }
+
+  @Override
+  public void updateBakeStatus(BakeStatus bakeStatus) {
+    String logsContent = bakeStatus.getLogsContent();
+    List<Object> args = new ArrayList<>();
+    StringBuilder sql = new StringBuilder("UPDATE rosco_bakes SET bake_status = ?, state = ?, updated_at = ?");
+
+    args.add(toJson(bakeStatus));
+    args.add(stateName(bakeStatus));
+    args.add(getTimeInMilliseconds());
+
+    if (logsContent != null && !logsContent.isEmpty()) {
+      if (bakeStatus.getLogsOffset() > 0) {
+        // Only append logs that pick up exactly where the stored logs leave off. Offsets count UTF-16
+        // code units, as executors do, so they are compared with the stored length of the logs rather
+        // than with the database's own count of their characters.
+        sql.append(
+            ", bake_logs = CASE WHEN COALESCE(bake_logs_length, 0) = ? "
+                + "THEN CONCAT(COALESCE(bake_logs, ''), ?) ELSE bake_logs END"
+                + ", bake_logs_length = CASE WHEN COALESCE(bake_logs_length, 0) = ? "
+                + "THEN ? ELSE bake_logs_length END");
+        args.add(bakeStatus.getLogsOffset());
+        args.add(logsContent);
+        args.add(bakeStatus.getLogsOffset());
+        args.add(bakeStatus.getLogsOffset() + logsLength(logsContent));
+      } else {
+        sql.append(", bake_logs = ?, bake_logs_length = ?");
+        args.add(logsContent);
+        args.add(logsLength(logsContent));
+      }
+    }
+
+    if (bakeStatus.getState() == null || !bakeStatus.getState().isIncomplete()) {
+      sql.append(", incomplete_instance_id = NULL");
+    }
+
+    // Ensure we don't update/resurrect a canceled bake (can happen due to a race).
+    sql.append(" WHERE id = ? AND (state IS NULL OR state <> ?)");
+    args.add(bakeStatus.getId());
+    args.add(BakeStatus.State.CANCELED.name());
+
+    jdbcTemplate.update(sql.toString(), args.toArray());
+  }
+
+  @Override
+  public void storeBakeError(String bakeId, String error) {
+    jdbcTemplate.update("UPDATE rosco_bakes SET bake_error = ? WHERE id = ?", error, bakeId);
+  }
+
+  @Override
+  public String retrieveRegionById(String bakeId) {
+    return queryForColumn("region", bakeId);
+  }
+
+  @Override
+  public String retrieveCloudProviderById(String bakeId) {
+    String bakeKey = queryForColumn("bake_key", bakeId);
+
+    if (bakeKey == null) {
+      return null;
+    }
+
+    // Bake key is always bake:$cloudProvider:...
+    String[] bakeKeyParts = bakeKey.split(":");
+
+    return bakeKeyParts.length > 1 ? bakeKeyParts[1] : null;
+  }
+
+  @Override
+  public BakeStatus retrieveBakeStatusByKey(String bakeKey) {
+    if (bakeKey == null) {
+      return null;
+    }
+
+    List<BakeStatus> bakeStatuses =
+        jdbcTemplate.query(
+            "SELECT b.id, b.bake_status, b.created_at, b.updated_at FROM rosco_bake_keys k "
+                + "JOIN rosco_bakes b ON b.id = k.bake_id WHERE k.bake_key_hash = ?",
+            bakeStatusRowMapper(),
+            hashBakeKey(bakeKey));
+
+    return Iterables.getFirst(bakeStatuses, null);
+  }
+
+  @Override
+  public BakeStatus retrieveBakeStatusById(String bakeId) {
+    if (bakeId == null) {
+      return null;
+    }
+
+    List<BakeStatus> bakeStatuses =
+        jdbcTemplate.query(
+            "SELECT " + BAKE_STATUS_COLUMNS + " FROM rosco_bakes WHERE id = ?",
+            bakeStatusRowMapper(),
+            bakeId);
+
+    return Iterables.getFirst(bakeStatuses, null);
+  }
+
+  @Override
+  public Map<String, BakeStatus> retrieveBakeStatusesByIds(Collection<String> bakeIds) {
+    Map<String, BakeStatus> bakeStatuses = new LinkedHashMap<>();
+
+    if (bakeIds == null || bakeIds.isEmpty()) {
+      return bakeStatuses;
+    }
+
+    Map<String, BakeStatus> found = new HashMap<>();
+
+    for (List<String> batch : Iterables.partition(new LinkedHashSet<>(bakeIds), MAX_IN_CLAUSE_SIZE)) {
+      String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+
+      jdbcTemplate
+          .query(
+              "SELECT " + BAKE_STATUS_COLUMNS + " FROM rosco_bakes WHERE id IN (" + placeholders + ")",
+              bakeStatusRowMapper(),
+              batch.toArray())
+          .forEach(bakeStatus -> found.put(bakeStatus.getId(), bakeStatus));
+    }
+
+    for (String bakeId : bakeIds) {
+      if (found.containsKey(bakeId)) {
+        bakeStatuses.put(bakeId, found.get(bakeId));
+      }
+    }
+
+    return bakeStatuses;
+  }
+
+  @Override
+  public BakeRequest retrieveBakeRequestById(String bakeId) {
+    return fromJson(queryForColumn("bake_request", bakeId), BakeRequest.class);
+  }
+
+  @Override
+  public BakeRecipe retrieveBakeRecipeById(String bakeId) {
+    return fromJson(queryForColumn("bake_recipe", bakeId), BakeRecipe.class);
+  }
+
+  @Override
+  public BakeCompletionContext retrieveBakeCompletionContextById(String bakeId) {
+    if (bakeId == null) {
+      return null;
+    }
+
+    List<BakeCompletionContext> bakeCompletionContexts =
+        jdbcTemplate.query(
+            "SELECT bake_key, region, bake_request, bake_recipe FROM rosco_bakes WHERE id = ?",
+            (rs, rowNum) -> {
+              // Bake key is always bake:$cloudProvider:...
+              String[] bakeKeyParts = rs.getString("bake_key").split(":");
+
+              return new BakeCompletionContext(
+                  bakeKeyParts.length > 1 ? bakeKeyParts[1] : null,
+                  rs.getString("region"),
+                  fromJson(rs.getString("bake_request"), BakeRequest.class),
+                  fromJson(rs.getString("bake_recipe"), BakeRecipe.class));
+            },
+            bakeId);
+
+    return Iterables.getFirst(bakeCompletionContexts, null);
+  }
+
+  @Override
+  public Bake retrieveBakeDetailsById(String bakeId) {
+    return fromJson(queryForColumn("bake_details", bakeId), Bake.class);
+  }
+
+  @Override
+  public Map<String, String> retrieveBakeLogsById(String bakeId) {
+    Map<String, String> bakeLogs = retrieveBakeLogsById(bakeId, 0);
+
+    return bakeLogs != null
+        ? Collections.singletonMap("logsContent", bakeLogs.get("logsContent"))
+        : null;
+  }
+
+  @Override
+  public Map<String, String> retrieveBakeLogsById(String bakeId, long offset) {
+    if (bakeId == null) {
+      return null;
+    }
+
+    List<String> bakeLogs =
+        jdbcTemplate.query(
+            "SELECT bake_logs FROM rosco_bakes WHERE id = ?",
+            (rs, rowNum) -> rs.getString("bake_logs"),
+            bakeId);
+
+    if (bakeLogs.isEmpty()) {
+      return null;
+    }
+
+    String logsContent = bakeLogs.get(0) != null ? bakeLogs.get(0) : "";
+    long start = Math.max(offset, 0);
+    Map<String, String> result = new HashMap<>();
+
+    result.put(
+        "logsContent", start < logsContent.length() ? logsContent.substring((int) start) : "");
+    result.put("nextOffset", String.valueOf(Math.max(start, logsContent.length())));
+
+    return result;
+  }
+
+  @Override
+  public String deleteBakeByKey(String bakeKey) {
+    return transactionTemplate.execute(
+        status -> {
+          String bakeId = deleteBakeKey(bakeKey);
+
+          if (bakeId != null) {
+            jdbcTemplate.update("DELETE FROM rosco_bakes WHERE id = ?", bakeId);
+          }
+
+          return bakeId;
+        });
+  }
+
+  @Override
+  public String deleteBakeByKeyPreserveDetails(String bakeKey) {
+    long updatedTimestampMilliseconds = getTimeInMilliseconds();
+
+    return transactionTemplate.execute(
+        status -> {
+          String bakeId = deleteBakeKey(bakeKey);
+
+          if (bakeId == null) {
+            return null;
+          }
+
+          jdbcTemplate.update(
+              "UPDATE rosco_bakes SET incomplete_instance_id = NULL WHERE id = ?", bakeId);
+
+          BakeStatus bakeStatus = retrieveBakeStatusById(bakeId);
+
+          // Set bake state to CANCELED if still incomplete.
+          if (bakeStatus != null
+              && bakeStatus.getState() != null
+              && bakeStatus.getState().isIncomplete()) {
+            bakeStatus.setState(BakeStatus.State.CANCELED);
+            bakeStatus.setResult(BakeStatus.Result.FAILURE);
+
+            jdbcTemplate.update(
+                "UPDATE rosco_bakes SET bake_status = ?, state = ?, updated_at = ? WHERE id = ?",
+                toJson(bakeStatus),
+                BakeStatus.State.CANCELED.name(),
+                updatedTimestampMilliseconds,
+                bakeId);
+          }
+
+          return bakeId;
+        });
+  }
+
+  @Override
+  public void deleteBakeByPipelineExecutionId(String pipelineExecutionId) {
+    deleteBakesByPipelineExecutionIds(Collections.singleton(pipelineExecutionId));
+  }
+
+  @Override
+  public long deleteBakesByPipelineExecutionIds(Collection<String> pipelineExecutionIds) {
+    long deleted = 0;
+
+    // A transaction per pipeline execution keeps the rows locked for a short while only.
+    for (String pipelineExecutionId : pipelineExecutionIds) {
+      deleted +=
+          transactionTemplate.execute(
+              status -> {
+                jdbcTemplate.update(
+                    "DELETE FROM rosco_bake_keys WHERE bake_id IN "
+                        + "(SELECT id FROM rosco_bakes WHERE pipeline_execution_id = ?)",
+                    pipelineExecutionId);
+
+                return jdbcTemplate.update(
+                    "DELETE FROM rosco_bakes WHERE pipeline_execution_id = ?",
+                    pipelineExecutionId);
+              });
+    }
+
+    return deleted;
+  }
+
+  @Override
+  public boolean cancelBakeById(String bakeId) {
+    BakeStatus bakeStatus = new BakeStatus();
+    bakeStatus.setId(bakeId);
+    bakeStatus.setResource_id(bakeId);
+    bakeStatus.setState(BakeStatus.State.CANCELED);
+    bakeStatus.setResult(BakeStatus.Result.FAILURE);
+
+    String bakeStatusJson = toJson(bakeStatus);
+    long updatedTimestampMilliseconds = getTimeInMilliseconds();
+
+    return transactionTemplate.execute(
+        status -> {
+          List<String> incompleteInstanceIds =
+              jdbcTemplate.query(
+                  "SELECT incomplete_instance_id FROM rosco_bakes WHERE id = ? FOR UPDATE",
+                  (rs, rowNum) -> rs.getString("incomplete_instance_id"),
+                  bakeId);
+
+          if (incompleteInstanceIds.isEmpty()) {
+            return false;
+          }
+
+          jdbcTemplate.update(
+              "UPDATE rosco_bakes SET bake_status = ?, state = ?, updated_at = ?, incomplete_instance_id = NULL "
+                  + "WHERE id = ?",
+              bakeStatusJson,
+              BakeStatus.State.CANCELED.name(),
+              updatedTimestampMilliseconds,
+              bakeId);
+          jdbcTemplate.update("DELETE FROM rosco_bake_keys WHERE bake_id = ?", bakeId);
+
+          return incompleteInstanceIds.get(0) != null;
+        });
+  }
+
+  @Override
+  public void removeFromIncompletes(String roscoInstanceId, String bakeId) {
+    jdbcTemplate.update(
+        "UPDATE rosco_bakes SET incomplete_instance_id = NULL WHERE id = ? AND incomplete_instance_id = ?",
+        bakeId,
+        roscoInstanceId);
+  }
+
+  @Override
+  public boolean adoptBake(String roscoInstanceId, String bakeId) {
+    return jdbcTemplate.update(
+            "UPDATE rosco_bakes SET incomplete_instance_id = ?, rosco_instance_id = ? "
+                + "WHERE id = ? AND incomplete_instance_id = ?",
+            this.roscoInstanceId,
+            this.roscoInstanceId,
+            bakeId,
+            roscoInstanceId)
+        > 0;
+  }
+
+  @Override
+  public Set<String> getThisInstanceIncompleteBakeIds() {
+    return new LinkedHashSet<>(
+        jdbcTemplate.queryForList(
+            "SELECT id FROM rosco_bakes WHERE incomplete_instance_id = ?",
+            String.class,
+            roscoInstanceId));
+  }
+
+  @Override
+  public Map<String, Set<String>> getAllIncompleteBakeIds() {
+    Map<String, Set<String>> incompleteBakeIds = new HashMap<>();
+
+    jdbcTemplate.query(
+        "SELECT incomplete_instance_id, id FROM rosco_bakes WHERE incomplete_instance_id IS NOT NULL",
+        rs -> {
+          incompleteBakeIds
+              .computeIfAbsent(rs.getString("incomplete_instance_id"), k -> new LinkedHashSet<>())
+              .add(rs.getString("id"));
+        });
+
+    return incompleteBakeIds;
+  }
+
+  @Override
+  public void refreshInstanceRegistration() {
+    registerInstance(roscoInstanceId, getTimeInMilliseconds());
+  }
+
+  @Override
+  public long expireInstances(long expiryMilliseconds) {
+    // Only forget rosco instances that stopped refreshing their registration and have no incomplete bakes left.
+    return jdbcTemplate.update(
+        "DELETE FROM rosco_instances WHERE last_seen_at <= ? AND NOT EXISTS "
+            + "(SELECT 1 FROM rosco_bakes WHERE incomplete_instance_id = rosco_instances.instance_id)",
+        getTimeInMilliseconds() - expiryMilliseconds);
+  }
+
+  @Override
+  public void recordHeartbeating() {
+    String sql = "UPDATE rosco_instances SET heartbeating = ? WHERE instance_id = ?";
+
+    // The record lives on the instance's registration, so register first if need be.
+    if (jdbcTemplate.update(sql, true, roscoInstanceId) == 0) {
+      refreshInstanceRegistration();
+      jdbcTemplate.update(sql, true, roscoInstanceId);
+    }
+  }
+
+  @Override
+  public boolean hasRecordedHeartbeating(String roscoInstanceId) {
+    Integer count =
+        jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM rosco_instances WHERE instance_id = ? AND heartbeating = ?",
+            Integer.class,
+            roscoInstanceId,
+            true);
+
+    return count != null && count > 0;
+  }
+
+  @Override
+  public void forgetHeartbeating(String roscoInstanceId) {
+    jdbcTemplate.update(
+        "UPDATE rosco_instances SET heartbeating = ? WHERE instance_id = ?",
+        false,
+        roscoInstanceId);
+  }
+
+  @Override
+  public boolean acquireLease(String leaseName, long leaseMilliseconds) {
+    long now = getTimeInMilliseconds();
+
+    try {
+      return transactionTemplate.execute(
+          status -> {
+            List<Map<String, Object>> leases =
+                jdbcTemplate.queryForList(
+                    "SELECT holder, expires_at FROM rosco_leases WHERE name = ? FOR UPDATE",
+                    leaseName);
+
+            if (leases.isEmpty()) {
+              jdbcTemplate.update(
+                  "INSERT INTO rosco_leases (name, holder, expires_at) VALUES (?, ?, ?)",
+                  leaseName,
+                  roscoInstanceId,
+                  now + leaseMilliseconds);
+
+              return true;
+            }
+
+            String holder = (String) leases.get(0).get("holder");
+            long expiresAt = ((Number) leases.get(0).get("expires_at")).longValue();
+
+            if (expiresAt > now && !roscoInstanceId.equals(holder)) {
+              return false;
+            }
+
+            jdbcTemplate.update(
+                "UPDATE rosco_leases SET holder = ?, expires_at = ? WHERE name = ?",
+                roscoInstanceId,
+                now + leaseMilliseconds,
+                leaseName);
+
+            return true;
+          });
+    } catch (DuplicateKeyException e) {
+      // Another rosco instance inserted the lease first.
+      return false;
+    }
+  }
+
+  @Override
+  public boolean isLeaseHeld(String leaseName) {
+    List<Long> expiresAt =
+        jdbcTemplate.queryForList(
+            "SELECT expires_at FROM rosco_leases WHERE name = ?", Long.class, leaseName);
+
+    return !expiresAt.isEmpty() && expiresAt.get(0) > getTimeInMilliseconds();
+  }
+
+  @Override
+  public void saveImageToBakeRelationship(String region, String image, String bakeId) {
+    int updated =
+        jdbcTemplate.update(
+            "UPDATE rosco_bake_images SET bake_id = ? WHERE region = ? AND image = ?",
+            bakeId,
+            region,
+            image);
+
+    if (updated == 0) {
+      try {
+        jdbcTemplate.update(
+            "INSERT INTO rosco_bake_images (region, image, bake_id) VALUES (?, ?, ?)",
+            region,
+            image,
+            bakeId);
+      } catch (DuplicateKeyException e) {
+        jdbcTemplate.update(
+            "UPDATE rosco_bake_images SET bake_id = ? WHERE region = ? AND image = ?",
+            bakeId,
+            region,
+            image);
+      }
+    }
+  }
+
+  @Override
+  public String getBakeIdFromImage(String region, String image) {
+    List<String> bakeIds =
+        jdbcTemplate.queryForList(
+            "SELECT bake_id FROM rosco_bake_images WHERE region = ? AND image = ?",
+            String.class,
+            region,
+            image);
+
+    return Iterables.getFirst(bakeIds, null);
+  }
+
+  @Override
+  public Map<String, String> getBakeIdsFromImages(String region, Collection<String> images) {
+    Map<String, String> bakeIds = new LinkedHashMap<>();
+
+    if (images == null || images.isEmpty()) {
+      return bakeIds;
+    }
+
+    Map<String, String> found = new HashMap<>();
+
+    for (List<String> batch : Iterables.partition(new LinkedHashSet<>(images), MAX_IN_CLAUSE_SIZE)) {
+      String placeholders = String.join(", ", Collections.nCopies(batch.size(), "?"));
+      List<Object> args = new ArrayList<>();
+      args.add(region);
+      args.addAll(batch);
+
+      jdbcTemplate.query(
+          "SELECT image, bake_id FROM rosco_bake_images WHERE region = ? AND image IN ("
+              + placeholders
+              + ")",
+          rs -> {
+            found.put(rs.getString("image"), rs.getString("bake_id"));
+          },
+          args.toArray());
+    }
+
+    for (String image : images) {
+      if (found.containsKey(image)) {
+        bakeIds.put(image, found.get(image));
+      }
+    }
+
+    return bakeIds;
+  }
+
+  @Override
+  public Map<String, Set<String>> getImagesFromBakeId(String bakeId) {
+    Map<String, Set<String>> images = new LinkedHashMap<>();
+
+    if (bakeId == null) {
+      return images;
+    }
+
+    jdbcTemplate.query(
+        "SELECT region, image FROM rosco_bake_images WHERE bake_id = ? ORDER BY region, image",
+        rs -> {
+          images
+              .computeIfAbsent(rs.getString("region"), k -> new LinkedHashSet<>())
+              .add(rs.getString("image"));
+        },
+        bakeId);
+
+    return images;
+  }
+
+  @Override
+  public BakeHistoryPage retrieveBakeHistory(
+      long since,
+      long until,
+      String cloudProvider,
+      BakeStatus.State state,
+      String cursor,
+      int limit) {
+    BakeHistoryCursor after = BakeHistoryCursor.parse(cursor);
+    StringBuilder sql =
+        new StringBuilder(
+            "SELECT id, bake_key, region, bake_status, created_at, updated_at FROM rosco_bakes "
+                + "WHERE created_at >= ? AND created_at < ?");
+    List<Object> args = new ArrayList<>();
+    args.add(since);
+    args.add(until);
+
+    if (after != null) {
+      sql.append(" AND (created_at > ? OR (created_at = ? AND id > ?))");
+      args.add(after.getCreatedTimestamp());
+      args.add(after.getCreatedTimestamp());
+      args.add(after.getBakeId());
+    }
+
+    if (cloudProvider != null) {
+      sql.append(" AND bake_key LIKE ?");
+      args.add("bake:" + cloudProvider + ":%");
+    }
+
+    if (state != null) {
+      sql.append(" AND state = ?");
+      args.add(state.name());
+    }
+
+    sql.append(" ORDER BY created_at, id LIMIT ?");
+    args.add(limit + 1);
+
+    List<BakeSummary> bakeSummaries =
+        jdbcTemplate.query(sql.toString(), bakeSummaryRowMapper(), args.toArray());
+
+    return BakeHistoryCursor.page(bakeSummaries, limit);
+  }
+
+  /**
+   * Rosco instances may run against different database servers' clocks, so timestamps come from the local clock. Any
+   * skew between rosco instances only affects how soon orphaned bakes are detected.
+   */
+  @Override
+  public long getTimeInMilliseconds() {
+    return System.currentTimeMillis();
+  }
+
+  private void registerInstance(String instanceId, long lastSeenTimestampMilliseconds) {
+    int updated =
+        jdbcTemplate.update(
+            "UPDATE rosco_instances SET last_seen_at = ? WHERE instance_id = ?",
+            lastSeenTimestampMilliseconds,
+            instanceId);
+
+    if (updated == 0) {
+      try {
+        jdbcTemplate.update(
+            "INSERT INTO rosco_instances (instance_id, last_seen_at) VALUES (?, ?)",
+            instanceId,
+            lastSeenTimestampMilliseconds);
+      } catch (DuplicateKeyException e) {
+        // Registered concurrently; either timestamp will do.
+      }
+    }
+  }
+
+  /** Delete the bake key and return the id of the bake it pointed at, if any. */
+  private String deleteBakeKey(String bakeKey) {
+    String bakeKeyHash = hashBakeKey(bakeKey);
+    List<String> bakeIds =
+        jdbcTemplate.queryForList(
+            "SELECT bake_id FROM rosco_bake_keys WHERE bake_key_hash = ? FOR UPDATE",
+            String.class,
+            bakeKeyHash);
+
+    jdbcTemplate.update("DELETE FROM rosco_bake_keys WHERE bake_key_hash = ?", bakeKeyHash);
+
+    return Iterables.getFirst(bakeIds, null);
+  }
+
+  private String queryForColumn(String column, String bakeId) {
+    if (bakeId == null) {
+      return null;
+    }
+
+    List<String> values =
+        jdbcTemplate.query(
+            "SELECT " + column + " FROM rosco_bakes WHERE id = ?",
+            (rs, rowNum) -> rs.getString(column),
+            bakeId);
+
+    return Iterables.getFirst(values, null);
+  }
+
+  private RowMapper<BakeStatus> bakeStatusRowMapper() {
+    return (ResultSet rs, int rowNum) -> {
+      BakeStatus bakeStatus = fromJson(rs.getString("bake_status"), BakeStatus.class);
+
+      if (bakeStatus != null) {
+        bakeStatus.setCreatedTimestamp(rs.getLong("created_at"));
+        bakeStatus.setUpdatedTimestamp(rs.getLong("updated_at"));
+      }
+
+      return bakeStatus;
+    };
+  }
+
+  private RowMapper<BakeSummary> bakeSummaryRowMapper() {
+    return (ResultSet rs, int rowNum) -> {
+      BakeStatus bakeStatus = fromJson(rs.getString("bake_status"), BakeStatus.class);
+      BakeSummary bakeSummary = new BakeSummary();
+
+      // Bake key is always bake:$cloudProvider:...
+      String[] bakeKeyParts = rs.getString("bake_key").split(":");
+
+      bakeSummary.setId(rs.getString("id"));
+      bakeSummary.setCloudProvider(bakeKeyParts.length > 1 ? bakeKeyParts[1] : null);
+      bakeSummary.setRegion(rs.getString("region"));
+      bakeSummary.setCreatedTimestamp(rs.getLong("created_at"));
+      bakeSummary.setUpdatedTimestamp(rs.getLong("updated_at"));
+
+      if (bakeStatus != null) {
+        bakeSummary.setState(bakeStatus.getState());
+        bakeSummary.setResult(bakeStatus.getResult());
+      }
+
+      return bakeSummary;
+    };
+  }
+
+  private String toJson(Object value) {
+    try {
+      return mapper.writeValueAsString(value);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("Unable to serialize " + value.getClass().getSimpleName(), e);
+    }
+  }
+
+  private <T> T fromJson(String json, Class<T> type) {
+    if (json == null || json.isEmpty()) {
+      return null;
+    }
+
+    try {
+      return mapper.readValue(json, type);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Unable to deserialize " + type.getSimpleName(), e);
+    }
+  }
+
+  private static String stateName(BakeStatus bakeStatus) {
+    return bakeStatus.getState() != null ? bakeStatus.getState().name() : null;
+  }
+
+  private static String hashBakeKey(String bakeKey) {
+    return Hashing.sha256().hashString(bakeKey, StandardCharsets.UTF_8).toString();
+  }
+
+  // The length of bake logs in UTF-16 code units, which is what bake logs offsets count.
+  private static long logsLength(String logsContent) {
+    return logsContent != null ? logsContent.length() : 0;
+  }
+
+  private static String getPipelineExecutionId(String spinnakerExecutionId) {
+    return spinnakerExecutionId != null ? spinnakerExecutionId.split(":")[0] : null;
+  }
+}
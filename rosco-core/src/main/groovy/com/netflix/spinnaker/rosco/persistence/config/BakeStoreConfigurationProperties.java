@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence.config;
+
+import com.netflix.spinnaker.rosco.persistence.BakeFieldCompressor;
+import com.netflix.spinnaker.rosco.persistence.BakeFieldSerializer;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("rosco.bake-store")
+@Data
+public class BakeStoreConfigurationProperties {
+
+  /** Which bake store to use: redis (the default), lettuce, sql or memory. */
+  private String type = "redis";
+
+  private Compression compression = new Compression();
+
+  private Serialization serialization = new Serialization();
+
+  private Clock clock = new Clock();
+
+  private Sql sql = new Sql();
+
+  private Memory memory = new Memory();
+
+  private NearCache nearCache = new NearCache();
+
+  private Retention retention = new Retention();
+
+  @Data
+  public static class Compression {
+    /** Codec the redis bake store uses for bake recipes, requests, details and logs. Existing values are always readable. */
+    private BakeFieldCompressor.Codec codec = BakeFieldCompressor.Codec.NONE;
+
+    /** Values shorter than this are stored as-is. */
+    private int minSizeBytes = 1024;
+  }
+
+  @Data
+  public static class Serialization {
+    /**
+     * Format the redis bake store uses for bake statuses, recipes, requests and details. Existing values are always
+     * readable, but only switch away from JSON once no rosco instances older than this one share the redis.
+     */
+    private BakeFieldSerializer.Format format = BakeFieldSerializer.Format.JSON;
+
+    /** Register the jackson blackbird module, which speeds up serialization without changing its output. */
+    private boolean blackbird = true;
+  }
+
+  @Data
+  public static class Clock {
+    /** When disabled, the redis server time is read on every call. */
+    private boolean enabled = true;
+
+    /** How far the served time may be off from the redis server time before it is sampled again. */
+    private long maxDriftMillis = 50;
+
+    /** Worst-case rate at which the local clock is assumed to drift from the redis server clock. */
+    private long driftRatePpm = 200;
+
+    /** The redis server time is sampled at least this often, regardless of drift. */
+    private long maxSyncIntervalSeconds = 60;
+  }
+
+  @Data
+  public static class Sql {
+    private String url;
+
+    private String user;
+
+    private String password;
+
+    private int maxPoolSize = 10;
+
+    /** Apply the changes to the bake store tables that haven't been applied yet on startup. */
+    private boolean initializeSchema = true;
+  }
+
+  @Data
+  public static class Memory {
+    /** File the bakes are periodically written to and restored from on startup. Unset keeps bakes in memory only. */
+    private String snapshotPath;
+
+    private long snapshotIntervalSeconds = 30;
+  }
+
+  @Data
+  public static class NearCache {
+    /** Cache the statuses and details of completed and canceled bakes in front of the bake store. */
+    private boolean enabled = false;
+
+    private long maximumSize = 10000;
+
+    /** Upper bound on how long a cached bake can outlive a change whose invalidation was missed. */
+    private long expireAfterWriteSeconds = 600;
+  }
+
+  @Data
+  public static class Retention {
+    /** Periodically delete bakes from the redis bake store according to this policy. */
+    private boolean enabled = false;
+
+    /** Completed, successful bakes older than this are deleted. 0 keeps them forever. */
+    private long successfulMaxAgeDays = 0;
+
+    /** Failed and canceled bakes older than this are deleted. 0 keeps them forever. */
+    private long failedMaxAgeDays = 0;
+
+    /** Only this many of the latest bakes per bake key are kept. 0 keeps them all. */
+    private int keepLatestPerKey = 0;
+
+    private long intervalMinutes = 60;
+
+    private int batchSize = 100;
+
+    /** Batches are spaced out so no more than this many bakes are deleted per second. */
+    private int maxDeletesPerSecond = 200;
+  }
+}
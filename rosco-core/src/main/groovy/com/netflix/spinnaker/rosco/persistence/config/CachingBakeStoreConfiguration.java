@@ -0,0 +1,75 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence.config;
+
+import com.netflix.spectator.api.Registry;
+import com.netflix.spinnaker.rosco.persistence.BakeStore;
+import com.netflix.spinnaker.rosco.persistence.BakeStoreInvalidationChannel;
+import com.netflix.spinnaker.rosco.persistence.CachingBakeStore;
+import com.netflix.spinnaker.rosco.persistence.LettuceBakeStoreInvalidationChannel;
+import com.netflix.spinnaker.rosco.persistence.RedisBakeStoreInvalidationChannel;
+import io.lettuce.core.AbstractRedisClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * Puts a near-cache in front of whichever bake store is configured. Invalidations are broadcast over redis pub/sub when
+ * redis is available; otherwise each instance only sees its own changes until cached bakes expire.
+ */
+@Configuration
+@ConditionalOnProperty("rosco.bake-store.near-cache.enabled")
+public class CachingBakeStoreConfiguration {
+
+  @Bean
+  public static BeanPostProcessor cachingBakeStorePostProcessor(
+      ObjectProvider<BakeStoreConfigurationProperties> bakeStoreProperties,
+      ObjectProvider<JedisPool> jedisPool,
+      ObjectProvider<AbstractRedisClient> redisClient,
+      ObjectProvider<Registry> registry) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof BakeStore) || bean instanceof CachingBakeStore) {
+          return bean;
+        }
+
+        BakeStoreConfigurationProperties.NearCache nearCache =
+            bakeStoreProperties.getObject().getNearCache();
+        JedisPool pool = jedisPool.getIfAvailable();
+        AbstractRedisClient client = redisClient.getIfAvailable();
+        BakeStoreInvalidationChannel channel = null;
+
+        if (pool != null) {
+          channel = new RedisBakeStoreInvalidationChannel(pool);
+        } else if (client != null) {
+          channel = new LettuceBakeStoreInvalidationChannel(client);
+        }
+
+        return new CachingBakeStore(
+            (BakeStore) bean,
+            channel,
+            nearCache.getMaximumSize(),
+            nearCache.getExpireAfterWriteSeconds(),
+            registry.getObject());
+      }
+    };
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence.config;
+
+import com.netflix.spinnaker.rosco.persistence.BakeStore;
+import com.netflix.spinnaker.rosco.persistence.InMemoryBakeStore;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import rx.schedulers.Schedulers;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(value = "rosco.bake-store.type", havingValue = "memory")
+public class InMemoryBakeStoreConfiguration {
+
+  @Bean
+  public BakeStore bakeStore(
+      BakeStoreConfigurationProperties bakeStoreProperties, String roscoInstanceId) {
+    BakeStoreConfigurationProperties.Memory memory = bakeStoreProperties.getMemory();
+    Path snapshotPath =
+        memory.getSnapshotPath() != null ? Paths.get(memory.getSnapshotPath()) : null;
+    InMemoryBakeStore bakeStore = new InMemoryBakeStore(roscoInstanceId, snapshotPath);
+
+    if (snapshotPath != null) {
+      bakeStore.loadSnapshot();
+
+      Schedulers.io()
+          .createWorker()
+          .schedulePeriodically(
+              () -> {
+                try {
+                  bakeStore.writeSnapshot();
+                } catch (Exception e) {
+                  log.error("Bake Snapshot Error:", e);
+                }
+              },
+              memory.getSnapshotIntervalSeconds(),
+              memory.getSnapshotIntervalSeconds(),
+              TimeUnit.SECONDS);
+    }
+
+    return bakeStore;
+  }
+}
@@ -20,12 +20,14 @@ import org.apache.commons.pool2.impl.GenericObjectPoolConfig
 import org.springframework.beans.factory.annotation.Value
 import org.springframework.boot.actuate.health.Health
 import org.springframework.boot.actuate.health.HealthIndicator
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
 import redis.clients.jedis.Jedis
 import redis.clients.jedis.JedisPool
 
 @Configuration
+@ConditionalOnProperty(value = "rosco.bake-store.type", havingValue = "redis", matchIfMissing = true)
 class JedisConfig {
 
   @Bean
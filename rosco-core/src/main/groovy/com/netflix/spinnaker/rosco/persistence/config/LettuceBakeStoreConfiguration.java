@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence.config;
+
+import com.netflix.spectator.api.Registry;
+import com.netflix.spinnaker.rosco.persistence.BakeFieldCompressor;
+import com.netflix.spinnaker.rosco.persistence.BakeFieldSerializer;
+import com.netflix.spinnaker.rosco.persistence.BakeStore;
+import com.netflix.spinnaker.rosco.persistence.LettuceBakeStore;
+import com.netflix.spinnaker.rosco.persistence.RedisClock;
+import io.lettuce.core.AbstractRedisClient;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulConnection;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.cluster.RedisClusterClient;
+import io.lettuce.core.cluster.api.StatefulRedisClusterConnection;
+import io.lettuce.core.cluster.api.sync.RedisClusterCommands;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Backs the bake store with redis through the lettuce client, over a single multiplexed connection per rosco instance.
+ * Reads the same redis.connection and redis.timeout settings as the default, pooled redis bake store. Setting
+ * rosco.bake-store.redis.cluster treats redis.connection as a seed node of a redis cluster, which requires
+ * rosco.bake-store.redis.hash-tagged-keys.
+ */
+@Configuration
+@ConditionalOnProperty(value = "rosco.bake-store.type", havingValue = "lettuce")
+public class LettuceBakeStoreConfiguration {
+
+  @Bean(destroyMethod = "shutdown")
+  public AbstractRedisClient redisClient(
+      @Value("${redis.connection:redis://localhost:6379}") String connection,
+      @Value("${redis.timeout:2000}") int timeout,
+      @Value("${rosco.bake-store.redis.cluster:false}") boolean cluster,
+      @Value("${rosco.bake-store.redis.hash-tagged-keys:false}") boolean hashTaggedKeys) {
+    RedisURI redisUri = RedisURI.create(connection);
+    redisUri.setTimeout(Duration.ofMillis(timeout));
+
+    if (!cluster) {
+      return RedisClient.create(redisUri);
+    }
+
+    if (!hashTaggedKeys) {
+      throw new IllegalStateException(
+          "A redis cluster can only hold the bake store with rosco.bake-store.redis.hash-tagged-keys enabled.");
+    }
+
+    return RedisClusterClient.create(redisUri);
+  }
+
+  @Bean(destroyMethod = "close")
+  public StatefulConnection<String, String> redisConnection(AbstractRedisClient redisClient) {
+    return redisClient instanceof RedisClusterClient
+        ? ((RedisClusterClient) redisClient).connect()
+        : ((RedisClient) redisClient).connect();
+  }
+
+  @Bean
+  public BakeStore bakeStore(
+      StatefulConnection<String, String> redisConnection,
+      BakeStoreConfigurationProperties bakeStoreProperties,
+      Registry registry) {
+    BakeStoreConfigurationProperties.Compression compression =
+        bakeStoreProperties.getCompression();
+    BakeFieldCompressor compressor =
+        new BakeFieldCompressor(compression.getCodec(), compression.getMinSizeBytes());
+    BakeStoreConfigurationProperties.Serialization serialization =
+        bakeStoreProperties.getSerialization();
+    BakeFieldSerializer serializer =
+        new BakeFieldSerializer(serialization.getFormat(), serialization.isBlackbird());
+    RedisClusterCommands<String, String> commands = syncCommands(redisConnection);
+    RedisClock clock =
+        bakeStoreProperties.getClock().isEnabled()
+            ? new RedisClock(
+                () -> LettuceBakeStore.readServerTimeMillis(commands),
+                bakeStoreProperties.getClock(),
+                registry)
+            : null;
+
+    if (clock != null) {
+      clock.start();
+    }
+
+    if (redisConnection instanceof StatefulRedisClusterConnection) {
+      return new LettuceBakeStore(
+          (StatefulRedisClusterConnection<String, String>) redisConnection,
+          compressor,
+          serializer,
+          clock);
+    }
+
+    return new LettuceBakeStore(
+        (StatefulRedisConnection<String, String>) redisConnection, compressor, serializer, clock);
+  }
+
+  @Bean
+  public HealthIndicator redisHealth(StatefulConnection<String, String> redisConnection) {
+    RedisClusterCommands<String, String> commands = syncCommands(redisConnection);
+
+    return () -> {
+      try {
+        Health.Builder health = "PONG".equals(commands.ping()) ? Health.up() : Health.down();
+
+        return health.withDetail("open", redisConnection.isOpen()).build();
+      } catch (Exception e) {
+        return Health.down(e).build();
+      }
+    };
+  }
+
+  private static RedisClusterCommands<String, String> syncCommands(
+      StatefulConnection<String, String> redisConnection) {
+    return redisConnection instanceof StatefulRedisClusterConnection
+        ? ((StatefulRedisClusterConnection<String, String>) redisConnection).sync()
+        : ((StatefulRedisConnection<String, String>) redisConnection).sync();
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence.config;
+
+import com.netflix.spinnaker.rosco.persistence.BakeStore;
+import com.netflix.spinnaker.rosco.persistence.SqlBakeStore;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import liquibase.integration.spring.SpringLiquibase;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.DependsOn;
+
+@Configuration
+@ConditionalOnProperty(value = "rosco.bake-store.type", havingValue = "sql")
+public class SqlBakeStoreConfiguration {
+
+  @Bean(destroyMethod = "close")
+  public HikariDataSource bakeStoreDataSource(BakeStoreConfigurationProperties bakeStoreProperties) {
+    BakeStoreConfigurationProperties.Sql sql = bakeStoreProperties.getSql();
+    HikariConfig config = new HikariConfig();
+
+    config.setPoolName("bakeStore");
+    config.setJdbcUrl(sql.getUrl());
+    config.setUsername(sql.getUser());
+    config.setPassword(sql.getPassword());
+    config.setMaximumPoolSize(sql.getMaxPoolSize());
+
+    return new HikariDataSource(config);
+  }
+
+  @Bean
+  public SpringLiquibase bakeStoreLiquibase(
+      HikariDataSource bakeStoreDataSource, BakeStoreConfigurationProperties bakeStoreProperties) {
+    SpringLiquibase liquibase = new SpringLiquibase();
+
+    liquibase.setDataSource(bakeStoreDataSource);
+    liquibase.setChangeLog(SqlBakeStore.SCHEMA_CHANGELOG);
+    liquibase.setShouldRun(bakeStoreProperties.getSql().isInitializeSchema());
+
+    return liquibase;
+  }
+
+  @Bean
+  @DependsOn("bakeStoreLiquibase")
+  public BakeStore bakeStore(HikariDataSource bakeStoreDataSource, String roscoInstanceId) {
+    return new SqlBakeStore(bakeStoreDataSource, roscoInstanceId);
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence.config;
+
+import org.springframework.boot.autoconfigure.AutoConfigurationImportFilter;
+import org.springframework.boot.autoconfigure.AutoConfigurationMetadata;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+
+/**
+ * Leaves Spring Boot's data source auto-configuration out unless the SQL bake store is in use.
+ * HikariCP and spring-jdbc are always on the classpath for the SQL bake store, so without this
+ * rosco would try, and fail, to configure a data source no matter which bake store it uses.
+ */
+public class SqlBakeStoreDataSourceFilter
+    implements AutoConfigurationImportFilter, EnvironmentAware {
+
+  private static final String DATA_SOURCE_AUTO_CONFIGURATION =
+      DataSourceAutoConfiguration.class.getName();
+
+  private Environment environment;
+
+  @Override
+  public void setEnvironment(Environment environment) {
+    this.environment = environment;
+  }
+
+  @Override
+  public boolean[] match(
+      String[] autoConfigurationClasses, AutoConfigurationMetadata autoConfigurationMetadata) {
+    boolean sqlBakeStore = "sql".equals(environment.getProperty("rosco.bake-store.type"));
+    boolean[] matches = new boolean[autoConfigurationClasses.length];
+
+    for (int i = 0; i < autoConfigurationClasses.length; i++) {
+      matches[i] =
+          sqlBakeStore || !DATA_SOURCE_AUTO_CONFIGURATION.equals(autoConfigurationClasses[i]);
+    }
+
+    return matches;
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.executor
+
+import com.netflix.spectator.api.DefaultRegistry
+import com.netflix.spinnaker.rosco.jobs.JobExecutor
+import com.netflix.spinnaker.rosco.persistence.BakeStore
+import org.springframework.boot.actuate.health.Status
+import spock.lang.Specification
+import spock.lang.Subject
+
+class BakeDrainerSpec extends Specification {
+
+  void 'drains once the bakes of this instance are completed or adopted and its jobs have finished'() {
+    setup:
+      def bakeStoreMock = Mock(BakeStore)
+      def jobExecutorMock = Mock(JobExecutor)
+      def registry = new DefaultRegistry()
+
+      @Subject
+      def bakeDrainer = new BakeDrainer(roscoInstanceId: "this-rosco",
+                                        bakeStore: bakeStoreMock,
+                                        executor: jobExecutorMock,
+                                        registry: registry,
+                                        drainPollingIntervalMillis: 0)
+
+    expect:
+      bakeDrainer.health().status == Status.UP
+
+    when:
+      def drained = bakeDrainer.drain()
+
+    then:
+      3 * bakeStoreMock.acquireLease(BakeDrainer.drainingLease("this-rosco"), 20_000) >> true
+      3 * bakeStoreMock.getThisInstanceIncompleteBakeIds() >>> [["bake-1", "bake-2"] as Set, ["bake-1"] as Set, [] as Set]
+      3 * jobExecutorMock.runningJobCount() >>> [1, 1, 0]
+      drained
+      bakeDrainer.draining
+      bakeDrainer.health().status == Status.OUT_OF_SERVICE
+      registry.timer("instanceDrains", "drained", "true").count() == 1
+  }
+
+  void 'gives up on draining after the drain timeout'() {
+    setup:
+      def bakeStoreMock = Mock(BakeStore)
+      def registry = new DefaultRegistry()
+
+      @Subject
+      def bakeDrainer = new BakeDrainer(roscoInstanceId: "this-rosco",
+                                        bakeStore: bakeStoreMock,
+                                        executor: Mock(JobExecutor),
+                                        registry: registry,
+                                        drainTimeoutSeconds: 0)
+
+    when:
+      def drained = bakeDrainer.drain()
+
+    then:
+      1 * bakeStoreMock.getThisInstanceIncompleteBakeIds() >> (["bake-1"] as Set)
+      !drained
+      registry.timer("instanceDrains", "drained", "false").count() == 1
+
+    when:
+      drained = bakeDrainer.drain()
+
+    then:
+      0 * bakeStoreMock.getThisInstanceIncompleteBakeIds()
+      !drained
+  }
+}
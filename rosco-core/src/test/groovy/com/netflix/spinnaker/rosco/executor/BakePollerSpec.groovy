@@ -22,6 +22,8 @@ import com.netflix.spinnaker.rosco.api.Bake
 import com.netflix.spinnaker.rosco.api.BakeRequest
 import com.netflix.spinnaker.rosco.api.BakeStatus
 import com.netflix.spinnaker.rosco.jobs.BakeRecipe
+import com.netflix.spinnaker.rosco.jobs.JobCompletedEvent
+import com.netflix.spinnaker.rosco.persistence.BakeCompletionContext
 import com.netflix.spinnaker.rosco.persistence.BakeStore
 import com.netflix.spinnaker.rosco.persistence.RedisBackedBakeStore
 import com.netflix.spinnaker.rosco.providers.CloudProviderBakeHandler
@@ -32,6 +34,8 @@ import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.Unroll
 
+import java.util.concurrent.Executor
+
 class BakePollerSpec extends Specification implements TestDefaults {
 
   private static final String JOB_ID = "123"
@@ -98,15 +102,18 @@ class BakePollerSpec extends Specification implements TestDefaults {
 
     then:
       1 * jobExecutorMock.updateJob(JOB_ID) >> completeBakeStatus
-      1 * bakeStoreMock.retrieveCloudProviderById(JOB_ID) >> BakeRequest.CloudProviderType.gce.toString()
+      1 * bakeStoreMock.retrieveBakeCompletionContextById(JOB_ID) >>
+        new BakeCompletionContext(BakeRequest.CloudProviderType.gce.toString(), SOME_REGION, bakeRequest, bakeRecipe)
       1 * cloudProviderBakeHandlerRegistryMock.lookup(BakeRequest.CloudProviderType.gce) >> cloudProviderBakeHandlerMock
-      2 * bakeStoreMock.retrieveRegionById(JOB_ID) >> SOME_REGION  // 1 for metrics
       1 * cloudProviderBakeHandlerMock.scrapeCompletedBakeResults(SOME_REGION, JOB_ID, "$LOGS_CONTENT\n$LOGS_CONTENT") >> bakeDetails
-      1 * bakeStoreMock.retrieveBakeRequestById(JOB_ID) >> bakeRequest
-      1 * bakeStoreMock.retrieveBakeRecipeById(JOB_ID) >> bakeRecipe
       1 * bakeStoreMock.updateBakeDetails(bakeDetails)
+
+    then:
       1 * bakeStoreMock.updateBakeStatus(completeBakeStatus)
+
+    then:
       1 * bakeStoreMock.retrieveBakeStatusById(JOB_ID) >> completeBakeStatus
+      1 * bakeStoreMock.retrieveRegionById(JOB_ID) >> SOME_REGION
 
     where:
       bakeState                  | bakeResult
@@ -167,13 +174,11 @@ class BakePollerSpec extends Specification implements TestDefaults {
       bakePoller.completeBake(JOB_ID, LOGS_CONTENT)
 
     then:
-      1 * bakeStoreMock.retrieveCloudProviderById(JOB_ID) >> DOCKER_CLOUD_PROVIDER.toString()
+      1 * bakeStoreMock.retrieveBakeCompletionContextById(JOB_ID) >>
+        new BakeCompletionContext(DOCKER_CLOUD_PROVIDER.toString(), SOME_REGION, bakeRequest, bakeRecipe)
       1 * cloudProviderBakeHandlerRegistryMock.lookup(DOCKER_CLOUD_PROVIDER) >> cloudProviderBakeHandlerMock
-      1 * bakeStoreMock.retrieveRegionById(JOB_ID) >> SOME_REGION
       1 * cloudProviderBakeHandlerMock.scrapeCompletedBakeResults(SOME_REGION, JOB_ID, LOGS_CONTENT) >> bakeDetails
       1 * cloudProviderBakeHandlerMock.produceArtifactDecorationFrom(bakeRequest, bakeRecipe, bakeDetails, DOCKER_CLOUD_PROVIDER.toString(), SOME_REGION) >> bakedArtifact
-      1 * bakeStoreMock.retrieveBakeRequestById(JOB_ID) >> bakeRequest
-      1 * bakeStoreMock.retrieveBakeRecipeById(JOB_ID) >> bakeRecipe
       1 * bakeStoreMock.updateBakeDetails(decoratedBakeDetails)
   }
 
@@ -186,10 +191,11 @@ class BakePollerSpec extends Specification implements TestDefaults {
             .build()
 
     def bakeStoreMock = Mock(BakeStore) {
-      retrieveCloudProviderById(JOB_ID) >> BakeRequest.CloudProviderType.aws.toString()
-      retrieveRegionById(JOB_ID) >> SOME_REGION
-      retrieveBakeRequestById(JOB_ID) >> new BakeRequest(build_info_url: SOME_BUILD_INFO_URL)
-      retrieveBakeRecipeById(JOB_ID) >> new BakeRecipe(name: SOME_BAKE_RECIPE_NAME, version: SOME_APP_VERSION_STR, command: [])
+      retrieveBakeCompletionContextById(JOB_ID) >> new BakeCompletionContext(
+        BakeRequest.CloudProviderType.aws.toString(),
+        SOME_REGION,
+        new BakeRequest(build_info_url: SOME_BUILD_INFO_URL),
+        new BakeRecipe(name: SOME_BAKE_RECIPE_NAME, version: SOME_APP_VERSION_STR, command: []))
     }
 
     def cloudProviderBakeHandlerMock = Mock(CloudProviderBakeHandler) {
@@ -223,4 +229,233 @@ class BakePollerSpec extends Specification implements TestDefaults {
     }
   }
 
+  void 'polls every incomplete bake, skipping bakes still being polled'() {
+    setup:
+      def bakeStoreMock = Mock(BakeStore) {
+        // No stored creation times; the bakes are as old as this poller has known them.
+        retrieveBakeStatusesByIds(_) >> [:]
+      }
+      def jobExecutorMock = Mock(JobExecutor)
+      def registry = new DefaultRegistry()
+
+      @Subject
+      def bakePoller = new BakePoller(bakeStore: bakeStoreMock,
+                                      executor: jobExecutorMock,
+                                      cloudProviderBakeHandlerRegistry: Mock(CloudProviderBakeHandlerRegistry),
+                                      registry: registry,
+                                      maxConcurrentPolls: 2)
+      bakePoller.inFlightPolls["bake-3"] = 0L
+
+    when:
+      bakePoller.pollIncompleteBakes()
+
+    then:
+      1 * bakeStoreMock.getThisInstanceIncompleteBakeIds() >> (["bake-1", "bake-2", "bake-3"] as Set)
+      1 * jobExecutorMock.updateJob("bake-1") >> new BakeStatus(id: "bake-1", state: BakeStatus.State.RUNNING)
+      1 * jobExecutorMock.updateJob("bake-2") >> new BakeStatus(id: "bake-2", state: BakeStatus.State.RUNNING)
+      0 * jobExecutorMock.updateJob("bake-3")
+      registry.counter("bakePollsSkipped", "cause", "inFlight").count() == 1
+      registry.timer("bakePollCycles").count() == 1
+      bakePoller.inFlightPolls.keySet() == ["bake-3"] as Set
+  }
+
+  void 'polls a bake as soon as its job completes, and not again in the next cycle'() {
+    setup:
+      def bakeStoreMock = Mock(BakeStore) {
+        // No stored creation times; the bakes are as old as this poller has known them.
+        retrieveBakeStatusesByIds(_) >> [:]
+      }
+      def jobExecutorMock = Mock(JobExecutor)
+      def canceledBakeStatus = new BakeStatus(id: JOB_ID, state: BakeStatus.State.CANCELED, result: BakeStatus.Result.FAILURE)
+
+      @Subject
+      def bakePoller = new BakePoller(bakeStore: bakeStoreMock,
+                                      executor: jobExecutorMock,
+                                      cloudProviderBakeHandlerRegistry: Mock(CloudProviderBakeHandlerRegistry),
+                                      registry: new DefaultRegistry())
+
+    when:
+      bakePoller.onJobCompleted(new JobCompletedEvent(jobExecutorMock, JOB_ID))
+      sleep(500)
+
+    then:
+      2 * bakeStoreMock.retrieveBakeStatusById(JOB_ID) >>> [new BakeStatus(id: JOB_ID, state: BakeStatus.State.RUNNING), canceledBakeStatus]
+      1 * jobExecutorMock.updateJob(JOB_ID) >> canceledBakeStatus
+      1 * bakeStoreMock.updateBakeStatus(canceledBakeStatus)
+
+    when:
+      bakePoller.pollIncompleteBakes()
+
+    then:
+      1 * bakeStoreMock.getThisInstanceIncompleteBakeIds() >> ([JOB_ID] as Set)
+      0 * jobExecutorMock.updateJob(_)
+  }
+
+  void 'completes bakes off the poll thread, retrying and then canceling bakes that cannot be completed'() {
+    setup:
+      def bakeStoreMock = Mock(BakeStore) {
+        // No stored creation times; the bakes are as old as this poller has known them.
+        retrieveBakeStatusesByIds(_) >> [:]
+      }
+      def jobExecutorMock = Mock(JobExecutor)
+      def registry = new DefaultRegistry()
+      def completions = []
+      def completeBakeStatus = new BakeStatus(id: JOB_ID,
+                                              state: BakeStatus.State.COMPLETED,
+                                              result: BakeStatus.Result.SUCCESS,
+                                              logsContent: LOGS_CONTENT)
+
+      @Subject
+      def bakePoller = new BakePoller(bakeStore: bakeStoreMock,
+                                      executor: jobExecutorMock,
+                                      cloudProviderBakeHandlerRegistry: Mock(CloudProviderBakeHandlerRegistry),
+                                      registry: registry,
+                                      completionExecutor: { Runnable completion -> completions << completion } as Executor,
+                                      completionRetryBackoffMillis: 0)
+
+    when:
+      bakePoller.pollIncompleteBakes()
+
+    then:
+      1 * bakeStoreMock.getThisInstanceIncompleteBakeIds() >> ([JOB_ID] as Set)
+      1 * jobExecutorMock.updateJob(JOB_ID) >> completeBakeStatus
+      0 * bakeStoreMock.updateBakeStatus(_)
+      completions.size() == 1
+
+    when:
+      bakePoller.pollIncompleteBakes()
+
+    then:
+      1 * bakeStoreMock.getThisInstanceIncompleteBakeIds() >> ([JOB_ID] as Set)
+      0 * jobExecutorMock.updateJob(_)
+
+    when:
+      completions[0].run()
+
+    then:
+      3 * bakeStoreMock.retrieveBakeCompletionContextById(JOB_ID) >> { throw new IllegalStateException("Unavailable") }
+      0 * bakeStoreMock.updateBakeStatus(_)
+      1 * bakeStoreMock.storeBakeError(JOB_ID, "Unable to complete bake '$JOB_ID'.")
+      1 * bakeStoreMock.cancelBakeById(JOB_ID) >> true
+      1 * bakeStoreMock.retrieveBakeStatusById(JOB_ID) >> new BakeStatus(id: JOB_ID, state: BakeStatus.State.CANCELED)
+      1 * bakeStoreMock.retrieveRegionById(JOB_ID) >> SOME_REGION
+      registry.counter("bakeCompletionRetries").count() == 2
+      registry.timer("bakeCompletionSteps", "step", "read").count() == 3
+      registry.timer("bakesCompleted", "success", "false", "cause", "completionFailed", "region", SOME_REGION).count() == 1
+      bakePoller.completingBakeIds.isEmpty()
+  }
+
+  void 'only the holder of the orphan reaper lease looks for orphaned bakes'() {
+    setup:
+      def bakeStoreMock = Mock(BakeStore)
+      def registry = new DefaultRegistry()
+
+      @Subject
+      def bakePoller = new BakePoller(bakeStore: bakeStoreMock,
+                                      registry: registry,
+                                      roscoInstanceId: "this-rosco")
+
+    when:
+      def leader = bakePoller.holdsOrphanReaperLease()
+
+    then:
+      1 * bakeStoreMock.acquireLease(BakePoller.ORPHAN_REAPER_LEASE, 90_000) >> true
+      leader
+
+    when:
+      leader = bakePoller.holdsOrphanReaperLease()
+
+    then:
+      1 * bakeStoreMock.acquireLease(BakePoller.ORPHAN_REAPER_LEASE, 90_000) >> false
+      !leader
+      registry.counter("orphanReaperLeadershipAcquired").count() == 1
+  }
+
+  void 'adopts the bakes of draining rosco instances whose jobs it can see, and lets go of the orphan reaper lease while draining'() {
+    setup:
+      def bakeStoreMock = Mock(BakeStore)
+      def jobExecutorMock = Mock(JobExecutor)
+      def registry = new DefaultRegistry()
+
+      @Subject
+      def bakePoller = new BakePoller(bakeStore: bakeStoreMock,
+                                      executor: jobExecutorMock,
+                                      registry: registry,
+                                      roscoInstanceId: "this-rosco",
+                                      bakeDrainer: Stub(BakeDrainer) { isDraining() >>> [false, true] })
+
+    when:
+      def remaining = bakePoller.adoptDrainingBakes("other-rosco", ["bake-1", "bake-2"] as Set)
+
+    then:
+      1 * jobExecutorMock.jobExists("bake-1") >> true
+      1 * bakeStoreMock.adoptBake("other-rosco", "bake-1") >> true
+      1 * jobExecutorMock.jobExists("bake-2") >> false
+      0 * bakeStoreMock.adoptBake("other-rosco", "bake-2")
+      remaining == ["bake-2"] as Set
+      registry.counter("drainedBakesAdopted").count() == 1
+
+    when:
+      def leader = bakePoller.holdsOrphanReaperLease()
+
+    then:
+      1 * bakeStoreMock.acquireLease(BakePoller.ORPHAN_REAPER_LEASE, 90_000) >> true
+      leader
+
+    when:
+      leader = bakePoller.holdsOrphanReaperLease()
+
+    then:
+      1 * bakeStoreMock.acquireLease(BakePoller.ORPHAN_REAPER_LEASE, 1) >> true
+      !leader
+  }
+
+  void 'reclaims the bakes of rosco instances that stop heartbeating'() {
+    setup:
+      def bakeStoreMock = Mock(BakeStore)
+      def jobExecutorMock = Mock(JobExecutor)
+      def registry = new DefaultRegistry()
+
+      @Subject
+      def bakePoller = new BakePoller(bakeStore: bakeStoreMock,
+                                      executor: jobExecutorMock,
+                                      registry: registry,
+                                      roscoInstanceId: "this-rosco")
+
+    when:
+      def stoppedHeartbeating = bakePoller.hasStoppedHeartbeating("older-rosco")
+
+    then:
+      1 * bakeStoreMock.isLeaseHeld(BakePoller.heartbeatLease("older-rosco")) >> false
+      1 * bakeStoreMock.hasRecordedHeartbeating("older-rosco") >> false
+      !stoppedHeartbeating
+
+    when:
+      stoppedHeartbeating = bakePoller.hasStoppedHeartbeating("other-rosco")
+
+    then:
+      1 * bakeStoreMock.isLeaseHeld(BakePoller.heartbeatLease("other-rosco")) >> true
+      !stoppedHeartbeating
+
+    when:
+      stoppedHeartbeating = bakePoller.hasStoppedHeartbeating("other-rosco")
+
+    then:
+      1 * bakeStoreMock.isLeaseHeld(BakePoller.heartbeatLease("other-rosco")) >> false
+      1 * bakeStoreMock.hasRecordedHeartbeating("other-rosco") >> true
+      stoppedHeartbeating
+
+    when:
+      bakePoller.reclaimOrphanedBakes("other-rosco", ["bake-1", "bake-2"] as Set)
+
+    then:
+      1 * jobExecutorMock.jobExists("bake-1") >> true
+      1 * bakeStoreMock.adoptBake("other-rosco", "bake-1") >> true
+      1 * jobExecutorMock.jobExists("bake-2") >> false
+      1 * bakeStoreMock.cancelBakeById("bake-2") >> true
+      0 * bakeStoreMock.adoptBake("other-rosco", "bake-2")
+      registry.counter("orphanedBakesAdopted").count() == 1
+      registry.counter("orphanedBakesReaped", "cause", "ownerGone").count() == 1
+      1 * bakeStoreMock.forgetHeartbeating("other-rosco")
+  }
 }
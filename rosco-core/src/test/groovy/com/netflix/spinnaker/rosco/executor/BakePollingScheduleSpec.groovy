@@ -0,0 +1,121 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.executor
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+class BakePollingScheduleSpec extends Specification {
+
+  private static final long NOW = 1_700_000_000_000L
+
+  @Subject
+  def schedule = new BakePollingSchedule(5_000, 60_000, 0, false)
+
+  void 'new bakes are due at once and stay due until polled'() {
+    when:
+      schedule.track(["bake-1", "bake-2"] as Set, [:], NOW)
+
+    then:
+      schedule.due(NOW) as Set == ["bake-1", "bake-2"] as Set
+      schedule.due(NOW + 1) as Set == ["bake-1", "bake-2"] as Set
+
+    when:
+      schedule.polled("bake-1", NOW)
+
+    then:
+      schedule.due(NOW + 1) == ["bake-2"]
+      schedule.due(NOW + 5_000) as Set == ["bake-1", "bake-2"] as Set
+  }
+
+  void 'bakes without history are polled less often as they age'() {
+    setup:
+      schedule.track(["bake-1"] as Set, [:], NOW)
+
+    expect:
+      schedule.nextInterval(schedule.scheduledBakes["bake-1"], NOW + age) == interval
+
+    where:
+      age       | interval
+      0         | 5_000
+      100_000   | 20_000
+      1_000_000 | 60_000
+  }
+
+  void 'bakes are polled more often as they near the expected duration of their recipe'() {
+    setup:
+      schedule.track(["bake-1"] as Set, [:], NOW)
+      schedule.setRecipe("bake-1", "aws:ubuntu:kato")
+      schedule.completed("bake-1", 300_000)
+      schedule.track(["bake-2"] as Set, [:], NOW)
+      schedule.setRecipe("bake-2", "aws:ubuntu:kato")
+
+    expect:
+      schedule.getExpectedDuration("aws:ubuntu:kato") == 300_000
+      schedule.nextInterval(schedule.scheduledBakes["bake-2"], NOW + age) == interval
+
+    where:
+      age     | interval
+      0       | 60_000
+      240_000 | 30_000
+      290_000 | 5_000
+      400_000 | 20_000
+  }
+
+  void 'bakes that are no longer incomplete are dropped'() {
+    setup:
+      schedule.track(["bake-1", "bake-2"] as Set, [:], NOW)
+
+    when:
+      schedule.track(["bake-2"] as Set, [:], NOW)
+
+    then:
+      schedule.due(NOW) == ["bake-2"]
+  }
+
+  void 'bakes are as old as their created timestamp'() {
+    when:
+      schedule.track(["bake-1", "bake-2", "bake-3"] as Set, ["bake-1": NOW - 100_000, "bake-2": NOW + 100_000], NOW)
+
+    then:
+      schedule.due(NOW) as Set == ["bake-1", "bake-2", "bake-3"] as Set
+      schedule.nextInterval(schedule.scheduledBakes["bake-1"], NOW) == 20_000
+      schedule.nextInterval(schedule.scheduledBakes["bake-2"], NOW) == 5_000
+      schedule.nextInterval(schedule.scheduledBakes["bake-3"], NOW) == 5_000
+  }
+
+  void 'bakes whose completions are published only back off with age'() {
+    setup:
+      def publishedSchedule = new BakePollingSchedule(5_000, 60_000, 0, true)
+      publishedSchedule.track(["bake-1"] as Set, [:], NOW)
+      publishedSchedule.setRecipe("bake-1", "aws:ubuntu:kato")
+      publishedSchedule.completed("bake-1", 300_000)
+      publishedSchedule.track(["bake-2"] as Set, [:], NOW)
+      publishedSchedule.setRecipe("bake-2", "aws:ubuntu:kato")
+
+    expect:
+      publishedSchedule.nextInterval(publishedSchedule.scheduledBakes["bake-2"], NOW + age) == interval
+
+    where:
+      age     | interval
+      0       | 5_000
+      100_000 | 20_000
+      290_000 | 58_000
+      400_000 | 60_000
+  }
+}
@@ -1,13 +1,21 @@
 package com.netflix.spinnaker.rosco.jobs.local
 
 import com.netflix.spectator.api.DefaultRegistry
+import com.netflix.spinnaker.rosco.api.BakeRequest
 import com.netflix.spinnaker.rosco.api.BakeStatus
+import com.netflix.spinnaker.rosco.jobs.BakeRecipe
+import com.netflix.spinnaker.rosco.jobs.JobCompletedEvent
+import com.netflix.spinnaker.rosco.jobs.JobQueueFullException
 import com.netflix.spinnaker.rosco.jobs.JobRequest
+import com.netflix.spinnaker.rosco.persistence.InMemoryBakeStore
 import com.netflix.spinnaker.rosco.providers.util.TestDefaults
+import org.springframework.context.ApplicationEventPublisher
 import spock.lang.Specification
 import spock.lang.Subject
 import spock.lang.Unroll
 
+import java.util.concurrent.atomic.AtomicBoolean
+
 class JobExecutorLocalSpec extends Specification implements TestDefaults {
 
   private static final String BASH_SCRIPT = """\
@@ -104,4 +112,243 @@ Final output
       bakeStatus.outputContent == ""
       bakeStatus.logsContent == "No output from command."
   }
+
+  void 'job executor reports just the logs written since the last poll while the job runs'() {
+    setup:
+      def jobRequest = new JobRequest(
+          tokenizedCommand: ["/bin/bash", "-c", 'echo "Part 1"; sleep 2; echo "Part 2"; sleep 2; echo "Part 3"'],
+          jobId: SOME_JOB_ID,
+          combineStdOutAndErr: true)
+
+      @Subject
+      def jobExecutorLocal = new JobExecutorLocal(
+          registry: new DefaultRegistry(),
+          maxBufferedOutputBytes: 4,
+          timeoutMinutes: 1)
+
+    when:
+      def jobId = jobExecutorLocal.startJob(jobRequest)
+      sleep(1000)
+      def firstBakeStatus = jobExecutorLocal.updateJob(jobId)
+      sleep(2000)
+      def secondBakeStatus = jobExecutorLocal.updateJob(jobId)
+      sleep(2500)
+      def finalBakeStatus = jobExecutorLocal.updateJob(jobId)
+
+    then:
+      firstBakeStatus.state == BakeStatus.State.RUNNING
+      firstBakeStatus.logsContent == "Part 1\n"
+      firstBakeStatus.logsOffset == 0
+      secondBakeStatus.state == BakeStatus.State.RUNNING
+      secondBakeStatus.logsContent == "Part 2\n"
+      secondBakeStatus.logsOffset == 7
+      finalBakeStatus.state == BakeStatus.State.COMPLETED
+      finalBakeStatus.logsContent == "Part 3\n"
+      finalBakeStatus.logsOffset == 14
+  }
+
+  void 'job executor reports only the end of logs longer than the output limit'() {
+    setup:
+      def jobRequest = new JobRequest(
+          tokenizedCommand: ["/bin/bash", "-c", 'echo "Part 1"; echo "Part 2"'],
+          jobId: SOME_JOB_ID,
+          combineStdOutAndErr: true)
+
+      @Subject
+      def jobExecutorLocal = new JobExecutorLocal(
+          registry: new DefaultRegistry(),
+          maxBufferedOutputBytes: 4,
+          maxOutputBytes: 7,
+          timeoutMinutes: 1)
+
+    when:
+      def jobId = jobExecutorLocal.startJob(jobRequest)
+      sleep(3000)
+      def bakeStatus = jobExecutorLocal.updateJob(jobId)
+
+    then:
+      bakeStatus.state == BakeStatus.State.COMPLETED
+      bakeStatus.result == BakeStatus.Result.SUCCESS
+      bakeStatus.logsContent == "[7 bytes of earlier output left out]\nPart 2\n"
+      bakeStatus.logsOffset == 0
+  }
+
+  void 'job executor appends the end of logs longer than the output limit to those already stored'() {
+    setup:
+      def jobRequest = new JobRequest(
+          tokenizedCommand: ["/bin/bash", "-c", 'echo "Part 1"; sleep 2; echo "Part 2"; echo "Part 3"'],
+          jobId: SOME_JOB_ID,
+          combineStdOutAndErr: true)
+      def bakeStore = new InMemoryBakeStore("some-rosco", null)
+      bakeStore.storeNewBakeStatus("some-bake-key", "us-east-1", new BakeRecipe(), new BakeRequest(),
+                                   new BakeStatus(id: SOME_JOB_ID, resource_id: SOME_JOB_ID, state: BakeStatus.State.RUNNING), "")
+
+      @Subject
+      def jobExecutorLocal = new JobExecutorLocal(
+          registry: new DefaultRegistry(),
+          maxOutputBytes: 7,
+          timeoutMinutes: 1)
+
+    when:
+      def jobId = jobExecutorLocal.startJob(jobRequest)
+      sleep(1000)
+      bakeStore.updateBakeStatus(jobExecutorLocal.updateJob(jobId))
+      sleep(2500)
+      def bakeStatus = jobExecutorLocal.updateJob(jobId)
+      bakeStore.updateBakeStatus(bakeStatus)
+
+    then:
+      bakeStatus.state == BakeStatus.State.COMPLETED
+      bakeStatus.logsOffset == 7
+      bakeStore.retrieveBakeLogsById(SOME_JOB_ID).logsContent == "Part 1\n[7 bytes of earlier output left out]\nPart 3\n"
+  }
+
+  void 'job executor fails jobs whose output is longer than the output limit'() {
+    setup:
+      def jobRequest = new JobRequest(
+          tokenizedCommand: ["/bin/bash", "-c", 'echo "Some output"; echo "Some logs" >&2'],
+          jobId: SOME_JOB_ID,
+          combineStdOutAndErr: false)
+
+      @Subject
+      def jobExecutorLocal = new JobExecutorLocal(
+          registry: new DefaultRegistry(),
+          maxOutputBytes: 10,
+          timeoutMinutes: 1)
+
+    when:
+      def jobId = jobExecutorLocal.startJob(jobRequest)
+      sleep(3000)
+      def bakeStatus = jobExecutorLocal.updateJob(jobId)
+
+    then:
+      bakeStatus.state == BakeStatus.State.CANCELED
+      bakeStatus.result == BakeStatus.Result.FAILURE
+      bakeStatus.outputContent == ""
+      bakeStatus.logsContent.startsWith("Some logs\n")
+  }
+
+  void 'job executor announces completed jobs'() {
+    setup:
+      def jobRequest = new JobRequest(
+          tokenizedCommand: ["true"],
+          jobId: SOME_JOB_ID,
+          combineStdOutAndErr: false)
+      def applicationEventPublisherMock = Mock(ApplicationEventPublisher)
+
+      @Subject
+      def jobExecutorLocal = new JobExecutorLocal(
+          registry: new DefaultRegistry(),
+          applicationEventPublisher: applicationEventPublisherMock,
+          timeoutMinutes: 1)
+
+    when:
+      jobExecutorLocal.startJob(jobRequest)
+      sleep(3000)
+
+    then:
+      (1.._) * applicationEventPublisherMock.publishEvent({ JobCompletedEvent event -> event.jobId == SOME_JOB_ID })
+  }
+
+  void 'job executor queues bakes beyond its concurrency limit, starting the highest priority first'() {
+    setup:
+      def bakeRequest = { String jobId, int priority ->
+        new JobRequest(tokenizedCommand: ["sleep", "2"], jobId: jobId, cloudProvider: "aws", priority: priority)
+      }
+
+      @Subject
+      def jobExecutorLocal = new JobExecutorLocal(
+          registry: new DefaultRegistry(),
+          maxConcurrentJobs: 1,
+          maxQueuedJobs: 2,
+          timeoutMinutes: 1)
+
+    when:
+      jobExecutorLocal.startJob(bakeRequest("job-1", 0))
+      jobExecutorLocal.startJob(bakeRequest("job-2", 0))
+      jobExecutorLocal.startJob(bakeRequest("job-3", 5))
+      jobExecutorLocal.startJob(bakeRequest("job-4", 0))
+
+    then:
+      def e = thrown(JobQueueFullException)
+      e.retryAfterSeconds == 30
+      jobExecutorLocal.updateJob("job-2").state == BakeStatus.State.QUEUED
+      jobExecutorLocal.updateJob("job-3").state == BakeStatus.State.QUEUED
+
+    when:
+      sleep(3000)
+
+    then:
+      jobExecutorLocal.updateJob("job-1").state == BakeStatus.State.COMPLETED
+      jobExecutorLocal.updateJob("job-2").state == BakeStatus.State.QUEUED
+      jobExecutorLocal.updateJob("job-3").state == BakeStatus.State.RUNNING
+
+    when:
+      jobExecutorLocal.cancelJob("job-2")
+      sleep(1500)
+
+    then:
+      jobExecutorLocal.updateJob("job-2") == null
+      jobExecutorLocal.updateJob("job-3").state == BakeStatus.State.COMPLETED
+      jobExecutorLocal.runningJobCount() == 0
+  }
+
+  void 'job executor limits the bakes of a cloud provider without holding up those of others'() {
+    setup:
+      def bakeRequest = { String jobId, String cloudProvider ->
+        new JobRequest(tokenizedCommand: ["sleep", "1"], jobId: jobId, cloudProvider: cloudProvider)
+      }
+
+      @Subject
+      def jobExecutorLocal = new JobExecutorLocal(
+          registry: new DefaultRegistry(),
+          maxConcurrentJobs: 2,
+          maxConcurrentJobsPerProvider: [gce: 1],
+          timeoutMinutes: 1)
+
+    when:
+      jobExecutorLocal.startJob(bakeRequest("job-1", "gce"))
+      jobExecutorLocal.startJob(bakeRequest("job-2", "gce"))
+      jobExecutorLocal.startJob(bakeRequest("job-3", "aws"))
+      sleep(800)
+
+    then:
+      jobExecutorLocal.updateJob("job-1").state == BakeStatus.State.RUNNING
+      jobExecutorLocal.updateJob("job-2").state == BakeStatus.State.QUEUED
+      jobExecutorLocal.updateJob("job-3").state == BakeStatus.State.RUNNING
+  }
+
+  void 'job executor frees the slot of a bake that fails to start'() {
+    setup:
+      def bakeRequest = { String jobId ->
+        new JobRequest(tokenizedCommand: ["sleep", "2"], jobId: jobId, cloudProvider: "aws")
+      }
+      def failToStart = new AtomicBoolean(true)
+
+      @Subject
+      def jobExecutorLocal = new JobExecutorLocal() {
+        @Override
+        protected JobOutputBuffer newOutputBuffer() {
+          if (failToStart.getAndSet(false)) {
+            throw new IOException("No space left on device.")
+          }
+
+          return super.newOutputBuffer()
+        }
+      }
+      jobExecutorLocal.registry = new DefaultRegistry()
+      jobExecutorLocal.maxConcurrentJobs = 1
+      jobExecutorLocal.timeoutMinutes = 1
+
+    when:
+      jobExecutorLocal.startJob(bakeRequest("job-1"))
+      sleep(200)
+      jobExecutorLocal.startJob(bakeRequest("job-2"))
+      sleep(1000)
+
+    then:
+      jobExecutorLocal.updateJob("job-1") == null
+      jobExecutorLocal.updateJob("job-2").state == BakeStatus.State.RUNNING
+      jobExecutorLocal.runningJobCount() == 1
+  }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.jobs.local
+
+import spock.lang.Specification
+import spock.lang.Subject
+
+import java.nio.charset.StandardCharsets
+
+class JobOutputBufferSpec extends Specification {
+
+  void 'holds the most recent output in memory and spills the rest to disk'() {
+    setup:
+      @Subject
+      def outputBuffer = new JobOutputBuffer(8, null)
+
+    when:
+      outputBuffer.write("Starting...".bytes)
+
+    then:
+      outputBuffer.hasSpilled()
+      outputBuffer.size() == 11
+
+    when:
+      outputBuffer.write("Done.".bytes)
+
+    then:
+      outputBuffer.size() == 16
+      new String(outputBuffer.read(0)) == "Starting...Done."
+      new String(outputBuffer.read(8)) == "...Done."
+      new String(outputBuffer.read(11)) == "Done."
+      new String(outputBuffer.read(16)) == ""
+  }
+
+  void 'does not spill output that fits in memory'() {
+    setup:
+      @Subject
+      def outputBuffer = new JobOutputBuffer(1024, null)
+
+    when:
+      outputBuffer.write("Starting...".bytes)
+      outputBuffer.write("Done.".bytes)
+
+    then:
+      !outputBuffer.hasSpilled()
+      new String(outputBuffer.read(11)) == "Done."
+  }
+
+  void 'discards output once closed'() {
+    setup:
+      @Subject
+      def outputBuffer = new JobOutputBuffer(4, null)
+      outputBuffer.write("Starting...".bytes)
+
+    when:
+      outputBuffer.close()
+      outputBuffer.write("Done.".bytes)
+      outputBuffer.read(0)
+
+    then:
+      outputBuffer.size() == 11
+      thrown(IOException)
+  }
+
+  void 'finds where the last complete utf-8 encoded character ends'() {
+    expect:
+      JobOutputBuffer.completeUtf8Length(text.getBytes(StandardCharsets.UTF_8)[0..<prefixLength] as byte[]) == length
+
+    where:
+      text            | prefixLength || length
+      ""              | 0            || 0
+      "abc"           | 3            || 3
+      "ab\u00e9"      | 4            || 4
+      "ab\u00e9"      | 3            || 2
+      "a\u20ac"       | 3            || 1
+      "a\ud83d\ude00" | 4            || 1
+      "a\ud83d\ude00" | 5            || 5
+  }
+
+  void 'finds where the first whole utf-8 encoded character starts'() {
+    expect:
+      JobOutputBuffer.partialUtf8Length((text.getBytes(StandardCharsets.UTF_8) as List).drop(skip) as byte[]) == length
+
+    where:
+      text            | skip || length
+      ""              | 0    || 0
+      "abc"           | 1    || 0
+      "\u00e9b"       | 1    || 1
+      "\u20acb"       | 1    || 2
+      "\ud83d\ude00b" | 1    || 3
+      "\ud83d\ude00b" | 3    || 1
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class BakeFieldCompressorSpec extends Specification {
+
+  void 'large values are compressed and read back unchanged'() {
+    setup:
+      def compressor = new BakeFieldCompressor(BakeFieldCompressor.Codec.GZIP, 1024)
+      def logs = "==> amazon-ebs: Provisioning with shell script...\n" * 200
+
+    when:
+      def compressed = compressor.compress(logs)
+
+    then:
+      compressed.startsWith(BakeFieldCompressor.GZIP_MARKER)
+      compressed.length() < logs.length()
+      compressor.decompress(compressed) == logs
+  }
+
+  @Unroll
+  void 'values are stored as-is when #scenario'() {
+    setup:
+      def compressor = new BakeFieldCompressor(codec, 1024)
+
+    expect:
+      compressor.compress(value) == value
+      compressor.decompress(value) == value
+
+    where:
+      scenario                     | codec                             | value
+      "compression is disabled"    | BakeFieldCompressor.Codec.NONE    | "a" * 4096
+      "below the size threshold"   | BakeFieldCompressor.Codec.GZIP    | '{"package_name":"kato"}'
+      "the value is null"          | BakeFieldCompressor.Codec.GZIP    | null
+  }
+
+  void 'values written before compression was enabled are read back unchanged'() {
+    setup:
+      def compressor = new BakeFieldCompressor(BakeFieldCompressor.Codec.GZIP, 0)
+
+    expect:
+      compressor.decompress('{"id":"some-bake-id"}') == '{"id":"some-bake-id"}'
+  }
+
+  void 'compressed values are read back when compression is later disabled'() {
+    setup:
+      def logs = "some packer output\n" * 500
+      def compressed = new BakeFieldCompressor(BakeFieldCompressor.Codec.GZIP, 0).compress(logs)
+
+    expect:
+      BakeFieldCompressor.none().decompress(compressed) == logs
+  }
+
+  void 'values that look compressed are always encoded'() {
+    setup:
+      def compressor = BakeFieldCompressor.none()
+      def value = BakeFieldCompressor.GZIP_MARKER + "not really compressed"
+
+    when:
+      def stored = compressor.compress(value)
+
+    then:
+      stored != value
+      compressor.decompress(stored) == value
+  }
+}
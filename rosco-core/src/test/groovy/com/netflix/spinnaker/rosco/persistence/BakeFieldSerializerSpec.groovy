@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spinnaker.rosco.api.BakeRequest
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import com.netflix.spinnaker.rosco.jobs.BakeRecipe
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class BakeFieldSerializerSpec extends Specification {
+
+  @Unroll
+  void 'bake objects round-trip in #format with blackbird #blackbird'() {
+    setup:
+      def serializer = new BakeFieldSerializer(format, blackbird)
+      def bakeStatus = new BakeStatus(id: "some-bake-id", resource_id: "some-bake-id", state: BakeStatus.State.RUNNING)
+      def bakeRecipe = new BakeRecipe(name: "kato", version: "1.0", command: ["packer", "build", "-var", "aws_region=us-east-1"])
+      def bakeRequest = new BakeRequest(package_name: "kato", base_os: "trusty", spinnaker_execution_id: "some-execution-id")
+
+    expect:
+      serializer.deserialize(serializer.serialize(bakeStatus), BakeStatus).state == BakeStatus.State.RUNNING
+      serializer.deserialize(serializer.serialize(bakeRecipe), BakeRecipe).command == bakeRecipe.command
+      serializer.deserialize(serializer.serialize(bakeRequest), BakeRequest) == bakeRequest
+
+    where:
+      format                              | blackbird
+      BakeFieldSerializer.Format.JSON     | false
+      BakeFieldSerializer.Format.JSON     | true
+      BakeFieldSerializer.Format.SMILE    | true
+      BakeFieldSerializer.Format.CBOR     | true
+  }
+
+  @Unroll
+  void 'values in #format are tagged with a marker'() {
+    setup:
+      def serializer = new BakeFieldSerializer(format, true)
+
+    expect:
+      serializer.serialize(new BakeStatus(id: "some-bake-id")).startsWith(marker)
+
+    where:
+      format                              | marker
+      BakeFieldSerializer.Format.SMILE    | BakeFieldSerializer.SMILE_MARKER
+      BakeFieldSerializer.Format.CBOR     | BakeFieldSerializer.CBOR_MARKER
+  }
+
+  void 'values written as JSON stay readable once a binary format is configured'() {
+    setup:
+      def serializer = new BakeFieldSerializer(BakeFieldSerializer.Format.SMILE, true)
+
+    expect:
+      serializer.deserialize('{"id":"some-bake-id","state":"COMPLETED"}', BakeStatus).state == BakeStatus.State.COMPLETED
+  }
+
+  void 'values written in a binary format stay readable once JSON is configured again'() {
+    setup:
+      def stored = new BakeFieldSerializer(BakeFieldSerializer.Format.CBOR, true).serialize(new BakeStatus(id: "some-bake-id", state: BakeStatus.State.CANCELED))
+
+    expect:
+      BakeFieldSerializer.json().deserialize(stored, BakeStatus).state == BakeStatus.State.CANCELED
+  }
+
+  void 'binary values survive compression'() {
+    setup:
+      def serializer = new BakeFieldSerializer(BakeFieldSerializer.Format.SMILE, true)
+      def compressor = new BakeFieldCompressor(BakeFieldCompressor.Codec.GZIP, 0)
+      def bakeRecipe = new BakeRecipe(name: "kato", version: "1.0", command: ["-var"] * 500)
+
+    when:
+      def stored = compressor.compress(serializer.serialize(bakeRecipe))
+
+    then:
+      stored.startsWith(BakeFieldCompressor.GZIP_MARKER)
+      serializer.deserialize(compressor.decompress(stored), BakeRecipe).command == bakeRecipe.command
+  }
+
+  void 'missing values read back as null'() {
+    expect:
+      BakeFieldSerializer.json().deserialize(null, BakeStatus) == null
+      BakeFieldSerializer.json().deserialize("", BakeStatus) == null
+  }
+}
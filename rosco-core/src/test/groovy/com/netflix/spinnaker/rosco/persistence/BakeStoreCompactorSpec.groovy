@@ -0,0 +1,98 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spectator.api.DefaultRegistry
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import com.netflix.spinnaker.rosco.persistence.config.BakeStoreConfigurationProperties
+import spock.lang.Specification
+
+import java.util.concurrent.TimeUnit
+
+class BakeStoreCompactorSpec extends Specification {
+
+  static final long NOW = 1_700_000_000_000L
+
+  def registry = new DefaultRegistry()
+  def bakeStore = Mock(RedisBackedBakeStore)
+  def bakeStoreProperties = new BakeStoreConfigurationProperties()
+  def compactor = new BakeStoreCompactor(bakeStore: bakeStore, bakeStoreProperties: bakeStoreProperties, registry: registry)
+
+  def setup() {
+    bakeStoreProperties.retention.with {
+      enabled = true
+      batchSize = 3
+      maxDeletesPerSecond = 0
+    }
+  }
+
+  void 'deletes done bakes older than the maximum age for their result'() {
+    setup:
+      bakeStoreProperties.retention.successfulMaxAgeDays = 30
+      bakeStoreProperties.retention.failedMaxAgeDays = 7
+      def successfulBefore = NOW - TimeUnit.DAYS.toMillis(30)
+      def failedBefore = NOW - TimeUnit.DAYS.toMillis(7)
+      def statuses = [
+        "old-success"   : bakeStatus("old-success", BakeStatus.State.COMPLETED, BakeStatus.Result.SUCCESS, successfulBefore - 1),
+        "recent-success": bakeStatus("recent-success", BakeStatus.State.COMPLETED, BakeStatus.Result.SUCCESS, failedBefore - 1),
+        "old-failure"   : bakeStatus("old-failure", BakeStatus.State.CANCELED, BakeStatus.Result.FAILURE, failedBefore - 1),
+        "old-running"   : bakeStatus("old-running", BakeStatus.State.RUNNING, null, successfulBefore - 1)
+      ]
+
+    when:
+      def deleted = compactor.compact(bakeStore)
+
+    then:
+      1 * bakeStore.backfillBakeIdIndex(3) >> 0
+      1 * bakeStore.retrieveTrimmedBakeIds(0, 3) >> []
+      1 * bakeStore.getTimeInMilliseconds() >> NOW
+      1 * bakeStore.retrieveBakeIdsCreatedBefore(failedBefore, 0, 3) >> ["old-success", "recent-success", "old-failure"]
+      1 * bakeStore.retrieveBakeStatusesByIds(["old-success", "recent-success", "old-failure"]) >> statuses
+      1 * bakeStore.deleteBakesById(["old-success", "old-failure"]) >> 2
+
+    then:
+      // Only the bake kept from the first page is still ahead of the second page.
+      1 * bakeStore.retrieveBakeIdsCreatedBefore(failedBefore, 1, 3) >> ["old-running", "already-deleted"]
+      1 * bakeStore.retrieveBakeStatusesByIds(["old-running", "already-deleted"]) >> statuses.subMap(["old-running"])
+      1 * bakeStore.deleteBakesById(["already-deleted"]) >> 0
+      0 * bakeStore.deleteBakesById(_)
+
+    and:
+      deleted == 2
+      registry.counter("bakesCompacted", "reason", "expired").count() == 2
+  }
+
+  void 'deletes trimmed bakes once they are done'() {
+    when:
+      def deleted = compactor.compact(bakeStore)
+
+    then:
+      1 * bakeStore.retrieveTrimmedBakeIds(0, 3) >> ["trimmed-1", "trimmed-2"]
+      1 * bakeStore.retrieveBakeStatusesByIds(["trimmed-1", "trimmed-2"]) >> [
+        "trimmed-1": bakeStatus("trimmed-1", BakeStatus.State.CANCELED, BakeStatus.Result.FAILURE, NOW),
+        "trimmed-2": bakeStatus("trimmed-2", BakeStatus.State.RUNNING, null, NOW)
+      ]
+      1 * bakeStore.deleteBakesById(["trimmed-1"]) >> 1
+      0 * bakeStore.retrieveBakeIdsCreatedBefore(*_)
+      deleted == 1
+      registry.counter("bakesCompacted", "reason", "trimmed").count() == 1
+  }
+
+  private static BakeStatus bakeStatus(String id, BakeStatus.State state, BakeStatus.Result result, long createdTimestamp) {
+    return new BakeStatus(id: id, resource_id: id, state: state, result: result, createdTimestamp: createdTimestamp)
+  }
+}
@@ -0,0 +1,491 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spinnaker.kork.artifacts.model.Artifact
+import com.netflix.spinnaker.rosco.api.Bake
+import com.netflix.spinnaker.rosco.api.BakeRequest
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import com.netflix.spinnaker.rosco.jobs.BakeRecipe
+import spock.lang.Requires
+import spock.lang.Specification
+
+/**
+ * The behavior every bake store implementation must share. Extend with a spec that supplies the store under test.
+ */
+abstract class BakeStoreContractSpec extends Specification {
+
+  static final String INSTANCE_ID = "this-rosco"
+  static final String OTHER_INSTANCE_ID = "other-rosco"
+  static final String BAKE_KEY = "bake:aws:centos:kato:us-east-1"
+  static final String REGION = "us-east-1"
+  static final String EXECUTION_ID = "some-execution-id"
+
+  BakeStore bakeStore
+
+  abstract BakeStore createBakeStore(String roscoInstanceId)
+
+  /**
+   * Whether bake stores created for different rosco instances see each other's bakes.
+   */
+  boolean isShared() {
+    return true
+  }
+
+  def setup() {
+    bakeStore = createBakeStore(INSTANCE_ID)
+  }
+
+  void 'stores a new bake and retrieves it by key and id'() {
+    when:
+      def stored = storeBake("bake-1", BAKE_KEY)
+
+    then:
+      stored.id == "bake-1"
+      bakeStore.retrieveBakeStatusByKey(BAKE_KEY).id == "bake-1"
+      bakeStore.retrieveBakeStatusById("bake-1").state == BakeStatus.State.RUNNING
+      bakeStore.retrieveBakeStatusById("bake-1").createdTimestamp > 0
+      bakeStore.retrieveRegionById("bake-1") == REGION
+      bakeStore.retrieveCloudProviderById("bake-1") == "aws"
+      bakeStore.retrieveBakeRequestById("bake-1").package_name == "kato"
+      bakeStore.retrieveBakeRecipeById("bake-1").name == "kato-recipe"
+      bakeStore.retrieveBakeLogsById("bake-1").logsContent == "Starting..."
+      bakeStore.thisInstanceIncompleteBakeIds == ["bake-1"] as Set
+      bakeStore.allIncompleteBakeIds == [(INSTANCE_ID): ["bake-1"] as Set]
+  }
+
+  void 'retrieves what completing a bake needs in one read'() {
+    given:
+      storeBake("bake-1", BAKE_KEY)
+
+    when:
+      def context = bakeStore.retrieveBakeCompletionContextById("bake-1")
+
+    then:
+      context.cloudProvider == "aws"
+      context.region == REGION
+      context.bakeRequest.package_name == "kato"
+      context.bakeRecipe.name == "kato-recipe"
+      bakeStore.retrieveBakeCompletionContextById("unknown-bake") == null
+      bakeStore.retrieveBakeCompletionContextById(null) == null
+  }
+
+  void 'returns the status of the bake that won a race to store the same bake key'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+
+    when:
+      def stored = storeBake("bake-2", BAKE_KEY)
+
+    then:
+      stored.id == "bake-1"
+      bakeStore.retrieveBakeStatusById("bake-2") == null
+  }
+
+  void 'only one caller acquires a bake lock until it is released by storing the bake'() {
+    expect:
+      bakeStore.acquireBakeLock(BAKE_KEY)
+      !bakeStore.acquireBakeLock(BAKE_KEY)
+
+    when:
+      storeBake("bake-1", BAKE_KEY)
+
+    then:
+      bakeStore.acquireBakeLock(BAKE_KEY)
+  }
+
+  void 'a released bake lock can be acquired again at once'() {
+    expect:
+      bakeStore.acquireBakeLock(BAKE_KEY)
+
+    when:
+      bakeStore.releaseBakeLock(BAKE_KEY)
+
+    then:
+      bakeStore.acquireBakeLock(BAKE_KEY)
+  }
+
+  void 'missing bakes are reported as null'() {
+    expect:
+      bakeStore.retrieveBakeStatusByKey(BAKE_KEY) == null
+      bakeStore.retrieveBakeStatusById("no-such-bake") == null
+      bakeStore.retrieveBakeStatusById(null) == null
+      bakeStore.retrieveBakeDetailsById("no-such-bake") == null
+      bakeStore.retrieveBakeLogsById("no-such-bake") == null
+      bakeStore.retrieveRegionById(null) == null
+      bakeStore.deleteBakeByKey(BAKE_KEY) == null
+  }
+
+  void 'completing a bake removes it from the incomplete bakes and stores its details'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+
+    when:
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.COMPLETED,
+                                                result: BakeStatus.Result.SUCCESS, logsContent: "Starting...Done."))
+      bakeStore.updateBakeDetails(bakeDetails("bake-1"))
+
+    then:
+      bakeStore.retrieveBakeStatusById("bake-1").state == BakeStatus.State.COMPLETED
+      bakeStore.retrieveBakeDetailsById("bake-1").ami == "ami-1234"
+      bakeStore.retrieveBakeLogsById("bake-1").logsContent == "Starting...Done."
+      bakeStore.getBakeIdFromImage(REGION, "ami-1234") == "bake-1"
+      bakeStore.thisInstanceIncompleteBakeIds.isEmpty()
+  }
+
+  void 'images are resolved to bakes in bulk and back'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+      storeBake("bake-2", "some-other-bake-key")
+      bakeStore.saveImageToBakeRelationship(REGION, "ami-1", "bake-1")
+      bakeStore.saveImageToBakeRelationship(REGION, "ami-2", "bake-2")
+      bakeStore.saveImageToBakeRelationship(REGION, "ami-3", "bake-1")
+      bakeStore.saveImageToBakeRelationship("us-west-2", "ami-4", "bake-1")
+
+    expect:
+      bakeStore.getBakeIdsFromImages(REGION, ["ami-3", "ami-missing", "ami-2", "ami-1"]) ==
+        ["ami-3": "bake-1", "ami-2": "bake-2", "ami-1": "bake-1"]
+      bakeStore.getBakeIdsFromImages(REGION, []).isEmpty()
+      bakeStore.getBakeIdsFromImages("us-west-2", ["ami-1"]).isEmpty()
+      bakeStore.getImagesFromBakeId("bake-1") == [(REGION): ["ami-1", "ami-3"] as Set, "us-west-2": ["ami-4"] as Set]
+      bakeStore.getImagesFromBakeId("no-such-bake").isEmpty()
+      bakeStore.getImagesFromBakeId(null).isEmpty()
+  }
+
+  void 'logs are read back from an offset'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.RUNNING,
+                                                logsContent: "Starting...Provisioning..."))
+
+    when:
+      def fromOffset = bakeStore.retrieveBakeLogsById("bake-1", 11)
+      def fromEnd = bakeStore.retrieveBakeLogsById("bake-1", fromOffset.nextOffset as long)
+
+    then:
+      fromOffset.logsContent == "Provisioning..."
+      fromOffset.nextOffset == "26"
+      fromEnd.logsContent == ""
+      fromEnd.nextOffset == "26"
+  }
+
+  void 'logs reported from an offset are appended only where the stored logs leave off'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+
+    when:
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.RUNNING,
+                                                logsContent: "Provisioning...", logsOffset: 11))
+
+    then:
+      bakeStore.retrieveBakeLogsById("bake-1").logsContent == "Starting...Provisioning..."
+
+    when:
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.RUNNING,
+                                                logsContent: "Done.", logsOffset: 30))
+
+    then:
+      bakeStore.retrieveBakeLogsById("bake-1").logsContent == "Starting...Provisioning..."
+
+    when:
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.COMPLETED,
+                                                result: BakeStatus.Result.SUCCESS,
+                                                logsContent: "Starting...Provisioning...Baking...Done."))
+
+    then:
+      bakeStore.retrieveBakeLogsById("bake-1").logsContent == "Starting...Provisioning...Baking...Done."
+  }
+
+  void 'logs offsets count UTF-16 code units'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+
+      // The emoji is one code point, but two UTF-16 code units.
+      def logsContent = "Starting...\uD83D\uDE80"
+
+    when:
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.RUNNING,
+                                                logsContent: logsContent))
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.RUNNING,
+                                                logsContent: "Done.", logsOffset: logsContent.length()))
+
+    then:
+      bakeStore.retrieveBakeLogsById("bake-1").logsContent == logsContent + "Done."
+  }
+
+  void 'a canceled bake is not resurrected by a late update'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+
+    when:
+      def canceled = bakeStore.cancelBakeById("bake-1")
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.COMPLETED,
+                                                result: BakeStatus.Result.SUCCESS))
+      bakeStore.updateBakeDetails(bakeDetails("bake-1"))
+
+    then:
+      canceled
+      bakeStore.retrieveBakeStatusById("bake-1").state == BakeStatus.State.CANCELED
+      bakeStore.retrieveBakeStatusById("bake-1").result == BakeStatus.Result.FAILURE
+      bakeStore.retrieveBakeDetailsById("bake-1") == null
+      bakeStore.retrieveBakeStatusByKey(BAKE_KEY) == null
+      bakeStore.thisInstanceIncompleteBakeIds.isEmpty()
+      !bakeStore.cancelBakeById("bake-1")
+  }
+
+  void 'deleting a bake by key removes the bake'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+
+    when:
+      def deletedBakeId = bakeStore.deleteBakeByKey(BAKE_KEY)
+
+    then:
+      deletedBakeId == "bake-1"
+      bakeStore.retrieveBakeStatusByKey(BAKE_KEY) == null
+      bakeStore.retrieveBakeStatusById("bake-1") == null
+      bakeStore.retrieveBakeLogsById("bake-1") == null
+      bakeStore.thisInstanceIncompleteBakeIds.isEmpty()
+  }
+
+  void 'deleting a bake by key while preserving details cancels a running bake'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+
+    when:
+      def deletedBakeId = bakeStore.deleteBakeByKeyPreserveDetails(BAKE_KEY)
+
+    then:
+      deletedBakeId == "bake-1"
+      bakeStore.retrieveBakeStatusByKey(BAKE_KEY) == null
+      bakeStore.retrieveBakeStatusById("bake-1").state == BakeStatus.State.CANCELED
+      bakeStore.thisInstanceIncompleteBakeIds.isEmpty()
+  }
+
+  void 'a queued bake stays incomplete until it finishes, and can be canceled'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+      storeBake("bake-2", "bake:aws:centos:mort:us-east-1")
+
+    when:
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.QUEUED))
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-2", resource_id: "bake-2", state: BakeStatus.State.QUEUED))
+
+    then:
+      bakeStore.retrieveBakeStatusById("bake-1").state == BakeStatus.State.QUEUED
+      bakeStore.thisInstanceIncompleteBakeIds == ["bake-1", "bake-2"] as Set
+
+    when:
+      bakeStore.deleteBakeByKeyPreserveDetails(BAKE_KEY)
+
+    then:
+      bakeStore.retrieveBakeStatusById("bake-1").state == BakeStatus.State.CANCELED
+      bakeStore.thisInstanceIncompleteBakeIds == ["bake-2"] as Set
+  }
+
+  void 'deleting by pipeline execution removes that execution\'s bakes only'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY, "$EXECUTION_ID:stage-1")
+      storeBake("bake-2", "bake:aws:centos:other:us-east-1", "another-execution-id")
+
+    when:
+      bakeStore.deleteBakeByPipelineExecutionId(EXECUTION_ID)
+
+    then:
+      bakeStore.retrieveBakeStatusById("bake-1") == null
+      bakeStore.retrieveBakeStatusByKey(BAKE_KEY) == null
+      bakeStore.retrieveBakeStatusById("bake-2") != null
+  }
+
+  void 'deletes the bakes of several pipeline executions at once'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY, "$EXECUTION_ID:stage-1")
+      storeBake("bake-2", "bake:aws:centos:other:us-east-1", "another-execution-id")
+      storeBake("bake-3", "bake:aws:centos:third:us-east-1", "a-third-execution-id")
+
+    when:
+      def deleted = bakeStore.deleteBakesByPipelineExecutionIds([EXECUTION_ID, "another-execution-id", "no-such-execution-id"])
+
+    then:
+      deleted == 2
+      bakeStore.retrieveBakeStatusById("bake-1") == null
+      bakeStore.retrieveBakeStatusById("bake-2") == null
+      bakeStore.retrieveBakeStatusById("bake-3") != null
+  }
+
+  void 'retrieves bake statuses in bulk, in the order asked for'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+      storeBake("bake-2", "bake:aws:centos:other:us-east-1")
+
+    when:
+      def bakeStatuses = bakeStore.retrieveBakeStatusesByIds(["bake-2", "no-such-bake", "bake-1"])
+
+    then:
+      bakeStatuses.keySet() as List == ["bake-2", "bake-1"]
+      bakeStatuses["bake-1"].state == BakeStatus.State.RUNNING
+      bakeStore.retrieveBakeStatusesByIds([]).isEmpty()
+  }
+
+  void 'pages through bake history, oldest first'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+      storeBake("bake-2", "bake:gce:centos:kato:us-east-1")
+      storeBake("bake-3", "bake:aws:centos:other:us-east-1")
+      bakeStore.cancelBakeById("bake-3")
+
+    expect:
+      bakeHistory(null, null) == ["bake-1", "bake-2", "bake-3"]
+      bakeHistory("aws", null) == ["bake-1", "bake-3"]
+      bakeHistory(null, BakeStatus.State.RUNNING) == ["bake-1", "bake-2"]
+      bakeHistory("gce", BakeStatus.State.CANCELED).isEmpty()
+      bakeStore.retrieveBakeHistory(0, Long.MAX_VALUE, null, null, null, 10).nextCursor == null
+  }
+
+  @Requires({ instance.shared })
+  void 'removes a bake from another instance\'s incomplete bakes'() {
+    setup:
+      def otherBakeStore = createBakeStore(OTHER_INSTANCE_ID)
+      otherBakeStore.storeNewBakeStatus(BAKE_KEY, REGION, bakeRecipe(), bakeRequest(EXECUTION_ID), runningStatus("bake-1"), "packer build")
+
+    expect:
+      bakeStore.allIncompleteBakeIds == [(OTHER_INSTANCE_ID): ["bake-1"] as Set]
+
+    when:
+      bakeStore.removeFromIncompletes(OTHER_INSTANCE_ID, "bake-1")
+
+    then:
+      bakeStore.allIncompleteBakeIds.isEmpty()
+  }
+
+  @Requires({ instance.shared })
+  void 'only expires instances without incomplete bakes'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+      def otherBakeStore = createBakeStore(OTHER_INSTANCE_ID)
+      otherBakeStore.refreshInstanceRegistration()
+
+    expect:
+      bakeStore.expireInstances(-60_000) == 1
+      bakeStore.expireInstances(-60_000) == 0
+  }
+
+  void 'remembers that a rosco instance heartbeats until it is forgotten'() {
+    when:
+      bakeStore.recordHeartbeating()
+
+    then:
+      bakeStore.hasRecordedHeartbeating(INSTANCE_ID)
+      !bakeStore.hasRecordedHeartbeating(OTHER_INSTANCE_ID)
+
+    when:
+      bakeStore.forgetHeartbeating(INSTANCE_ID)
+
+    then:
+      !bakeStore.hasRecordedHeartbeating(INSTANCE_ID)
+  }
+
+  @Requires({ instance.shared })
+  void 'forgets that an expired rosco instance heartbeats'() {
+    setup:
+      def otherBakeStore = createBakeStore(OTHER_INSTANCE_ID)
+      otherBakeStore.refreshInstanceRegistration()
+      otherBakeStore.recordHeartbeating()
+
+    expect:
+      bakeStore.hasRecordedHeartbeating(OTHER_INSTANCE_ID)
+
+    when:
+      bakeStore.expireInstances(-60_000)
+
+    then:
+      !bakeStore.hasRecordedHeartbeating(OTHER_INSTANCE_ID)
+  }
+
+  @Requires({ instance.shared })
+  void 'only one rosco instance holds a lease at a time'() {
+    setup:
+      def otherBakeStore = createBakeStore(OTHER_INSTANCE_ID)
+
+    expect:
+      bakeStore.acquireLease("some-lease", 60_000)
+      bakeStore.acquireLease("some-lease", 60_000)
+      !otherBakeStore.acquireLease("some-lease", 60_000)
+      otherBakeStore.acquireLease("another-lease", 60_000)
+      !bakeStore.acquireLease("another-lease", 60_000)
+      bakeStore.isLeaseHeld("another-lease")
+      !bakeStore.isLeaseHeld("no-such-lease")
+  }
+
+  @Requires({ instance.shared })
+  void 'adopts an incomplete bake from another rosco instance'() {
+    setup:
+      def otherBakeStore = createBakeStore(OTHER_INSTANCE_ID)
+      otherBakeStore.storeNewBakeStatus(BAKE_KEY, REGION, bakeRecipe(), bakeRequest(EXECUTION_ID), runningStatus("bake-1"), "packer build")
+
+    when:
+      def adopted = bakeStore.adoptBake(OTHER_INSTANCE_ID, "bake-1")
+
+    then:
+      adopted
+      bakeStore.thisInstanceIncompleteBakeIds == ["bake-1"] as Set
+      otherBakeStore.thisInstanceIncompleteBakeIds.isEmpty()
+      !bakeStore.adoptBake(OTHER_INSTANCE_ID, "bake-1")
+  }
+
+  protected BakeStatus storeBake(String bakeId, String bakeKey, String executionId = EXECUTION_ID) {
+    return bakeStore.storeNewBakeStatus(bakeKey, REGION, bakeRecipe(), bakeRequest(executionId), runningStatus(bakeId), "packer build")
+  }
+
+  /**
+   * Follow the cursors one bake at a time and collect every bake id in the history.
+   */
+  protected List<String> bakeHistory(String cloudProvider, BakeStatus.State state) {
+    def bakeIds = []
+    String cursor = null
+
+    while (true) {
+      def page = bakeStore.retrieveBakeHistory(0, Long.MAX_VALUE, cloudProvider, state, cursor, 1)
+
+      bakeIds.addAll(page.bakes*.id)
+
+      if (!page.nextCursor) {
+        return bakeIds
+      }
+
+      cursor = page.nextCursor
+    }
+  }
+
+  protected static BakeStatus runningStatus(String bakeId) {
+    return new BakeStatus(id: bakeId, resource_id: bakeId, state: BakeStatus.State.RUNNING, logsContent: "Starting...")
+  }
+
+  protected static BakeRequest bakeRequest(String executionId) {
+    return new BakeRequest(package_name: "kato", spinnaker_execution_id: executionId)
+  }
+
+  protected static BakeRecipe bakeRecipe() {
+    return new BakeRecipe(name: "kato-recipe", version: "1.0", command: ["packer", "build"])
+  }
+
+  protected static Bake bakeDetails(String bakeId) {
+    def artifact = Artifact.builder().type("aws/image").location(REGION).reference("ami-1234").build()
+
+    return new Bake(id: bakeId, ami: "ami-1234", artifact: artifact)
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spectator.api.DefaultRegistry
+import com.netflix.spinnaker.rosco.api.Bake
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import spock.lang.Specification
+
+import java.util.function.Consumer
+
+class CachingBakeStoreSpec extends Specification {
+
+  static final String BAKE_ID = "some-bake-id"
+
+  def registry = new DefaultRegistry()
+  def delegate = Mock(BakeStore)
+  def invalidationChannel = Mock(BakeStoreInvalidationChannel)
+  Consumer<String> invalidationListener
+
+  void 'serves completed bake statuses from the cache'() {
+    setup:
+      def bakeStore = newBakeStore()
+
+    when:
+      def first = bakeStore.retrieveBakeStatusById(BAKE_ID)
+      def second = bakeStore.retrieveBakeStatusById(BAKE_ID)
+
+    then:
+      1 * delegate.retrieveBakeStatusById(BAKE_ID) >> bakeStatus(BakeStatus.State.COMPLETED)
+      first.state == BakeStatus.State.COMPLETED
+      second.state == BakeStatus.State.COMPLETED
+      !first.is(second)
+      registry.counter("bakeStoreNearCacheMisses", "cache", "status").count() == 1
+      registry.counter("bakeStoreNearCacheHits", "cache", "status").count() == 1
+  }
+
+  void 'keeps the timestamps of cached bake statuses'() {
+    setup:
+      def bakeStore = newBakeStore()
+      def completed = bakeStatus(BakeStatus.State.COMPLETED)
+      completed.createdTimestamp = 1_700_000_000_000L
+      completed.updatedTimestamp = 1_700_000_060_000L
+
+    when:
+      def first = bakeStore.retrieveBakeStatusById(BAKE_ID)
+      def second = bakeStore.retrieveBakeStatusById(BAKE_ID)
+
+    then:
+      1 * delegate.retrieveBakeStatusById(BAKE_ID) >> completed
+      first.is(completed)
+      second.createdTimestamp == 1_700_000_000_000L
+      second.updatedTimestamp == 1_700_000_060_000L
+  }
+
+  void 'does not cache running bake statuses'() {
+    setup:
+      def bakeStore = newBakeStore()
+
+    when:
+      bakeStore.retrieveBakeStatusById(BAKE_ID)
+      def status = bakeStore.retrieveBakeStatusById(BAKE_ID)
+
+    then:
+      2 * delegate.retrieveBakeStatusById(BAKE_ID) >> bakeStatus(BakeStatus.State.RUNNING)
+      status.state == BakeStatus.State.RUNNING
+  }
+
+  void 'does not cache missing bake details'() {
+    setup:
+      def bakeStore = newBakeStore()
+
+    when:
+      def first = bakeStore.retrieveBakeDetailsById(BAKE_ID)
+      def second = bakeStore.retrieveBakeDetailsById(BAKE_ID)
+      def third = bakeStore.retrieveBakeDetailsById(BAKE_ID)
+
+    then:
+      2 * delegate.retrieveBakeDetailsById(BAKE_ID) >>> [null, new Bake(id: BAKE_ID, ami: "ami-1234")]
+      first == null
+      second.ami == "ami-1234"
+      third.ami == "ami-1234"
+  }
+
+  void 'canceling a bake invalidates it here and on other instances'() {
+    setup:
+      def bakeStore = newBakeStore()
+
+    when:
+      bakeStore.retrieveBakeStatusById(BAKE_ID)
+      bakeStore.retrieveBakeDetailsById(BAKE_ID)
+      bakeStore.cancelBakeById(BAKE_ID)
+      bakeStore.retrieveBakeStatusById(BAKE_ID)
+      bakeStore.retrieveBakeDetailsById(BAKE_ID)
+
+    then:
+      2 * delegate.retrieveBakeStatusById(BAKE_ID) >> bakeStatus(BakeStatus.State.CANCELED)
+      2 * delegate.retrieveBakeDetailsById(BAKE_ID) >> new Bake(id: BAKE_ID)
+      1 * delegate.cancelBakeById(BAKE_ID) >> true
+      1 * invalidationChannel.publish(BAKE_ID)
+  }
+
+  void 'drops bakes invalidated by other instances'() {
+    setup:
+      def bakeStore = newBakeStore()
+
+    when:
+      bakeStore.retrieveBakeStatusById(BAKE_ID)
+      invalidationListener.accept(BAKE_ID)
+      bakeStore.retrieveBakeStatusById(BAKE_ID)
+      invalidationListener.accept(BakeStoreInvalidationChannel.ALL_BAKES)
+      bakeStore.retrieveBakeStatusById(BAKE_ID)
+
+    then:
+      3 * delegate.retrieveBakeStatusById(BAKE_ID) >> bakeStatus(BakeStatus.State.COMPLETED)
+  }
+
+  void 'rebaking invalidates the previous bake'() {
+    setup:
+      def bakeStore = newBakeStore()
+
+    when:
+      def bakeId = bakeStore.deleteBakeByKeyPreserveDetails("some-bake-key")
+
+    then:
+      1 * delegate.deleteBakeByKeyPreserveDetails("some-bake-key") >> BAKE_ID
+      1 * invalidationChannel.publish(BAKE_ID)
+      bakeId == BAKE_ID
+  }
+
+  void 'unwraps the bake store behind the cache'() {
+    expect:
+      CachingBakeStore.unwrap(newBakeStore()).is(delegate)
+      CachingBakeStore.unwrap(delegate).is(delegate)
+  }
+
+  private CachingBakeStore newBakeStore() {
+    invalidationChannel.subscribe(_) >> { Consumer<String> listener -> invalidationListener = listener }
+
+    return new CachingBakeStore(delegate, invalidationChannel, 100, 600, registry)
+  }
+
+  private static BakeStatus bakeStatus(BakeStatus.State state) {
+    return new BakeStatus(id: BAKE_ID, resource_id: BAKE_ID, state: state)
+  }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spectator.api.DefaultRegistry
+import com.netflix.spinnaker.rosco.api.DeleteBakesRequestStatus
+import spock.lang.Specification
+
+class DeleteBakesRequestProcessorSpec extends Specification {
+
+  def registry = new DefaultRegistry()
+  def bakeStore = Mock(BakeStore)
+  def processor = new DeleteBakesRequestProcessor(bakeStore: bakeStore, registry: registry, batchSize: 2)
+
+  void 'deletes the bakes of the pipeline executions a batch at a time, reporting progress'() {
+    setup:
+      def status = new DeleteBakesRequestStatus(id: "some-request-id", pipelineExecutionIds: ["execution-1", "execution-2", "execution-3"])
+
+    when:
+      processor.process(status)
+
+    then:
+      1 * bakeStore.deleteBakesByPipelineExecutionIds(["execution-1", "execution-2"]) >> 5
+      1 * bakeStore.deleteBakesByPipelineExecutionIds(["execution-3"]) >> 1
+
+    and:
+      status.state == DeleteBakesRequestStatus.State.COMPLETED
+      status.pipelineExecutionsDeleted == 3
+      status.bakesDeleted == 6
+      registry.counter("pipelineExecutionBakesDeleted").count() == 6
+      registry.timer("deleteBakesRequests", "success", "true").count() == 1
+  }
+
+  void 'a failed batch fails the request, keeping the progress made'() {
+    setup:
+      def status = new DeleteBakesRequestStatus(id: "some-request-id", pipelineExecutionIds: ["execution-1", "execution-2", "execution-3"])
+
+    when:
+      processor.process(status)
+
+    then:
+      1 * bakeStore.deleteBakesByPipelineExecutionIds(["execution-1", "execution-2"]) >> 5
+      1 * bakeStore.deleteBakesByPipelineExecutionIds(["execution-3"]) >> { throw new IllegalStateException("Connection reset") }
+
+    and:
+      status.state == DeleteBakesRequestStatus.State.FAILED
+      status.error == "Connection reset"
+      status.pipelineExecutionsDeleted == 2
+      status.bakesDeleted == 5
+      registry.timer("deleteBakesRequests", "success", "false").count() == 1
+  }
+}
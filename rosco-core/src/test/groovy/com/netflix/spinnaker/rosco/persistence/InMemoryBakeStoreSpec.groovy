@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import spock.lang.TempDir
+
+import java.nio.file.Path
+import java.util.function.LongSupplier
+
+class InMemoryBakeStoreSpec extends BakeStoreContractSpec {
+
+  @TempDir
+  Path snapshotDir
+
+  long now = 1_700_000_000_000L
+
+  @Override
+  BakeStore createBakeStore(String roscoInstanceId) {
+    return new InMemoryBakeStore(roscoInstanceId, snapshotDir.resolve("bakes.json"), { now } as LongSupplier)
+  }
+
+  @Override
+  boolean isShared() {
+    return false
+  }
+
+  void 'a bake lock can be acquired again once its TTL has passed'() {
+    expect:
+      bakeStore.acquireBakeLock(BAKE_KEY)
+
+    when:
+      now += 4999
+
+    then:
+      !bakeStore.acquireBakeLock(BAKE_KEY)
+
+    when:
+      now += 1
+
+    then:
+      bakeStore.acquireBakeLock(BAKE_KEY)
+  }
+
+  void 'bakes are restored from a snapshot'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+      bakeStore.updateBakeStatus(new BakeStatus(id: "bake-1", resource_id: "bake-1", state: BakeStatus.State.COMPLETED,
+                                                result: BakeStatus.Result.SUCCESS, logsContent: "Done."))
+      bakeStore.updateBakeDetails(bakeDetails("bake-1"))
+
+    when:
+      bakeStore.close()
+      def restoredBakeStore = createBakeStore(INSTANCE_ID)
+      restoredBakeStore.loadSnapshot()
+
+    then:
+      restoredBakeStore.retrieveBakeStatusByKey(BAKE_KEY).state == BakeStatus.State.COMPLETED
+      restoredBakeStore.retrieveBakeDetailsById("bake-1").ami == "ami-1234"
+      restoredBakeStore.retrieveBakeLogsById("bake-1").logsContent == "Done."
+      restoredBakeStore.getBakeIdFromImage(REGION, "ami-1234") == "bake-1"
+  }
+
+  void 'a missing snapshot leaves the bake store empty'() {
+    when:
+      bakeStore.loadSnapshot()
+
+    then:
+      bakeStore.allIncompleteBakeIds.isEmpty()
+  }
+}
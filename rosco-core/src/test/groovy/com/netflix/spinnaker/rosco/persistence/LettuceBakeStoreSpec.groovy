@@ -0,0 +1,57 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import io.lettuce.core.RedisClient
+import io.lettuce.core.RedisURI
+import io.lettuce.core.api.StatefulRedisConnection
+import spock.lang.Requires
+import spock.lang.Shared
+
+@Requires({ RedisTestContainer.dockerAvailable })
+class LettuceBakeStoreSpec extends RedisBakeStoreContractSpec {
+
+  @Shared
+  RedisClient redisClient
+
+  @Shared
+  StatefulRedisConnection<String, String> connection
+
+  def setupSpec() {
+    redisClient = RedisClient.create(RedisURI.create(RedisTestContainer.host, RedisTestContainer.port))
+    connection = redisClient.connect()
+  }
+
+  def cleanupSpec() {
+    connection?.close()
+    redisClient?.shutdown()
+  }
+
+  @Override
+  AbstractRedisBakeStore createRedisBakeStore() {
+    return new LettuceBakeStore(connection, BakeFieldCompressor.none(), null)
+  }
+
+  void 'reads bakes without blocking'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+
+    expect:
+      bakeStore.retrieveBakeStatusByIdAsync("bake-1").get().state == BakeStatus.State.RUNNING
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spinnaker.kork.jedis.JedisClientDelegate
+import redis.clients.jedis.JedisPool
+import spock.lang.Requires
+import spock.lang.Shared
+
+@Requires({ RedisTestContainer.dockerAvailable })
+class RedisBackedBakeStoreSpec extends RedisBakeStoreContractSpec {
+
+  @Shared
+  JedisPool jedisPool
+
+  def setupSpec() {
+    jedisPool = new JedisPool(RedisTestContainer.host, RedisTestContainer.port)
+  }
+
+  def cleanupSpec() {
+    jedisPool?.close()
+  }
+
+  @Override
+  AbstractRedisBakeStore createRedisBakeStore() {
+    return new RedisBackedBakeStore(jedisPool, new JedisClientDelegate(jedisPool))
+  }
+}
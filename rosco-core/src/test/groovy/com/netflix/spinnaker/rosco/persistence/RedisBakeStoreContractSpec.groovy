@@ -0,0 +1,58 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import redis.clients.jedis.Jedis
+
+/**
+ * Runs the bake store contract against a redis bake store and a real redis, in the legacy or the hash-tagged key
+ * layout. Extend with a spec that supplies the redis bake store under test. Redis is emptied after every feature.
+ * Spock doesn't skip subclasses of a spec whose requirements aren't met, so each spec extending this one requires
+ * docker itself.
+ */
+abstract class RedisBakeStoreContractSpec extends BakeStoreContractSpec {
+
+  abstract AbstractRedisBakeStore createRedisBakeStore()
+
+  boolean isHashTaggedKeys() {
+    return false
+  }
+
+  def cleanup() {
+    RedisTestContainer.flushAll()
+  }
+
+  @Override
+  BakeStore createBakeStore(String roscoInstanceId) {
+    def bakeStore = createRedisBakeStore()
+    bakeStore.roscoInstanceId = roscoInstanceId
+    bakeStore.hashTaggedKeys = hashTaggedKeys
+    return bakeStore
+  }
+
+  void 'stores bakes in its key layout only'() {
+    when:
+      storeBake("bake-1", BAKE_KEY)
+      bakeStore.updateBakeDetails(bakeDetails("bake-1"))
+      bakeStore.refreshInstanceRegistration()
+
+    then:
+      def keys = RedisTestContainer.newJedis().withCloseable { Jedis jedis -> jedis.keys("*") }
+      !keys.isEmpty()
+      keys.every { String key -> key.contains("{") == hashTaggedKeys }
+  }
+}
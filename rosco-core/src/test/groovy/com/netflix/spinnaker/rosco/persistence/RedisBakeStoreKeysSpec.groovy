@@ -0,0 +1,71 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import spock.lang.Specification
+
+class RedisBakeStoreKeysSpec extends Specification {
+
+  private static final String BAKE_KEY = "bake:aws:centos:kato:us-east-1"
+  private static final String BAKE_ID = "some-bake-id"
+
+  void 'legacy key names are unchanged'() {
+    setup:
+      def keys = RedisBakeStoreKeys.LEGACY
+
+    expect:
+      keys.allBakes == "allBakes"
+      keys.bakeIds == "allBakes:ids"
+      keys.incompleteBakes("some-instance") == "allBakes:incomplete:some-instance"
+      keys.index(BAKE_KEY) == BAKE_KEY
+      keys.lock(BAKE_KEY) == "lock:$BAKE_KEY"
+      keys.lease("orphanReaper") == "lock:lease:orphanReaper"
+      keys.bake(BAKE_ID) == BAKE_ID
+      keys.bakeLogs(BAKE_ID) == "bakeLogs:$BAKE_ID"
+      keys.legacyImage("us-east-1", "ami-12345") == "us-east-1:ami-12345"
+  }
+
+  void 'hash-tagged index keys share a slot'() {
+    setup:
+      def keys = RedisBakeStoreKeys.HASH_TAGGED
+      def indexKeys = [keys.allBakes, keys.bakeIds, keys.trimmedBakeIds, keys.instanceRegistry,
+                       keys.incompleteBakes("some-instance"), keys.index(BAKE_KEY), keys.lock(BAKE_KEY),
+                       keys.bakeHistory(BAKE_KEY), keys.index(RedisBakeStoreKeys.pipelineExecutionKey("some-execution")),
+                       keys.imageIndex("us-east-1")]
+
+    expect:
+      indexKeys.collect { hashTag(it) }.unique() == ["rosco"]
+  }
+
+  void 'hash-tagged bake keys share a slot of their own'() {
+    setup:
+      def keys = RedisBakeStoreKeys.HASH_TAGGED
+
+    expect:
+      hashTag(keys.bake(BAKE_ID)) == BAKE_ID
+      hashTag(keys.bakeLogs(BAKE_ID)) == BAKE_ID
+      keys.legacyImage("us-east-1", "ami-12345") == null
+  }
+
+  // What redis cluster hashes to find the slot of a key.
+  private static String hashTag(String key) {
+    int start = key.indexOf("{")
+    int end = start >= 0 ? key.indexOf("}", start + 1) : -1
+
+    return end > start + 1 ? key.substring(start + 1, end) : key
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spinnaker.kork.jedis.JedisClientDelegate
+import com.netflix.spinnaker.rosco.api.BakeStatus
+import redis.clients.jedis.Jedis
+import redis.clients.jedis.JedisPool
+import spock.lang.Requires
+import spock.lang.Shared
+import spock.lang.Specification
+import spock.util.concurrent.PollingConditions
+
+import static com.netflix.spinnaker.rosco.persistence.BakeStoreContractSpec.*
+
+@Requires({ RedisTestContainer.dockerAvailable })
+class RedisBakeStoreMigrationSpec extends Specification {
+
+  static final String OTHER_BAKE_KEY = "bake:aws:centos:clouddriver:us-east-1"
+  static final String THIRD_BAKE_KEY = "bake:aws:centos:echo:us-east-1"
+
+  @Shared
+  JedisPool jedisPool
+
+  RedisBackedBakeStore legacyBakeStore = createBakeStore(false)
+
+  def setupSpec() {
+    jedisPool = new JedisPool(RedisTestContainer.host, RedisTestContainer.port)
+  }
+
+  def cleanupSpec() {
+    jedisPool?.close()
+  }
+
+  def cleanup() {
+    RedisTestContainer.flushAll()
+  }
+
+  void 'completing a bake strips the copy of its record an older rosco left on the bake key'() {
+    setup:
+      storeBake(legacyBakeStore, "bake-1", BAKE_KEY)
+      copyBakeRecordToBakeKey("bake-1", BAKE_KEY)
+
+    when:
+      legacyBakeStore.updateBakeStatus(completedStatus("bake-1"))
+
+    then:
+      hkeys(BAKE_KEY) == ["id"] as Set
+      legacyBakeStore.retrieveBakeStatusByKey(BAKE_KEY).state == BakeStatus.State.COMPLETED
+  }
+
+  void 'the legacy bake key migration strips every copy of a bake record in the background'() {
+    setup:
+      ["bake-1": BAKE_KEY, "bake-2": OTHER_BAKE_KEY, "bake-3": THIRD_BAKE_KEY].each { String bakeId, String bakeKey ->
+        storeBake(legacyBakeStore, bakeId, bakeKey)
+        copyBakeRecordToBakeKey(bakeId, bakeKey)
+      }
+
+    when:
+      new LegacyBakeKeyMigration(bakeStore: legacyBakeStore, pageSize: 2).onApplicationEvent(null)
+
+    then:
+      new PollingConditions(timeout: 10).eventually {
+        assert [BAKE_KEY, OTHER_BAKE_KEY, THIRD_BAKE_KEY].every { String bakeKey -> hkeys(bakeKey) == ["id"] as Set }
+      }
+      legacyBakeStore.retrieveBakeStatusByKey(OTHER_BAKE_KEY).id == "bake-2"
+  }
+
+  void 'moves bakes stored in the legacy key layout over to hash-tagged keys'() {
+    setup:
+      storeBake(legacyBakeStore, "bake-1", BAKE_KEY)
+      legacyBakeStore.updateBakeStatus(completedStatus("bake-1"))
+      legacyBakeStore.updateBakeDetails(bakeDetails("bake-1"))
+      storeBake(legacyBakeStore, "bake-2", OTHER_BAKE_KEY)
+      copyBakeRecordToBakeKey("bake-2", OTHER_BAKE_KEY)
+      withJedis { Jedis jedis -> jedis.set("$REGION:ami-old".toString(), "bake-2") }
+
+      def hashTaggedBakeStore = createBakeStore(true)
+
+    when:
+      new HashTaggedKeyMigration(bakeStore: hashTaggedBakeStore, pageSize: 2).afterSingletonsInstantiated()
+
+    then:
+      withJedis { Jedis jedis -> jedis.keys("*") }.every { String key -> key.contains("{") }
+      hkeys(RedisBakeStoreKeys.HASH_TAGGED.index(OTHER_BAKE_KEY)) == ["id"] as Set
+      hashTaggedBakeStore.retrieveBakeStatusByKey(BAKE_KEY).state == BakeStatus.State.COMPLETED
+      hashTaggedBakeStore.retrieveBakeDetailsById("bake-1").ami == "ami-1234"
+      hashTaggedBakeStore.retrieveBakeLogsById("bake-1").logsContent == "Done."
+      hashTaggedBakeStore.getBakeIdFromImage(REGION, "ami-1234") == "bake-1"
+      hashTaggedBakeStore.getBakeIdFromImage(REGION, "ami-old") == "bake-2"
+      hashTaggedBakeStore.retrieveBakeStatusById("bake-2").state == BakeStatus.State.RUNNING
+      hashTaggedBakeStore.thisInstanceIncompleteBakeIds == ["bake-2"] as Set
+
+    when:
+      // Bakes stored in the legacy layout since are picked up by running the migration again.
+      storeBake(legacyBakeStore, "bake-3", THIRD_BAKE_KEY)
+      new HashTaggedKeyMigration(bakeStore: hashTaggedBakeStore, pageSize: 2).afterSingletonsInstantiated()
+
+    then:
+      hashTaggedBakeStore.retrieveBakeStatusByKey(THIRD_BAKE_KEY).id == "bake-3"
+      hashTaggedBakeStore.thisInstanceIncompleteBakeIds == ["bake-2", "bake-3"] as Set
+  }
+
+  void 'only a bake store using hash-tagged keys migrates to them'() {
+    when:
+      legacyBakeStore.migrateToHashTaggedKeys(2)
+
+    then:
+      thrown(IllegalStateException)
+  }
+
+  private RedisBackedBakeStore createBakeStore(boolean hashTaggedKeys) {
+    def bakeStore = new RedisBackedBakeStore(jedisPool, new JedisClientDelegate(jedisPool))
+    bakeStore.roscoInstanceId = INSTANCE_ID
+    bakeStore.hashTaggedKeys = hashTaggedKeys
+    return bakeStore
+  }
+
+  private static BakeStatus storeBake(BakeStore bakeStore, String bakeId, String bakeKey) {
+    return bakeStore.storeNewBakeStatus(bakeKey, REGION, bakeRecipe(), bakeRequest(EXECUTION_ID), runningStatus(bakeId),
+                                        "packer build")
+  }
+
+  private static BakeStatus completedStatus(String bakeId) {
+    return new BakeStatus(id: bakeId, resource_id: bakeId, state: BakeStatus.State.COMPLETED,
+                          result: BakeStatus.Result.SUCCESS, logsContent: "Done.")
+  }
+
+  /**
+   * Write the copy of the bake record older rosco instances kept on the bake key, next to the pointer to the bake id.
+   */
+  private void copyBakeRecordToBakeKey(String bakeId, String bakeKey) {
+    withJedis { Jedis jedis ->
+      def bakeRecord = jedis.hgetAll(bakeId).findAll { String field, String value ->
+        field in RedisBakeStoreScripts.LEGACY_BAKE_KEY_FIELDS
+      }
+
+      jedis.hset(bakeKey, bakeRecord)
+    }
+  }
+
+  private Set<String> hkeys(String key) {
+    return withJedis { Jedis jedis -> jedis.hkeys(key) }
+  }
+
+  private <T> T withJedis(Closure<T> closure) {
+    return jedisPool.resource.withCloseable(closure)
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import com.netflix.spectator.api.DefaultRegistry
+import spock.lang.Specification
+
+import java.util.concurrent.ScheduledExecutorService
+import java.util.concurrent.TimeUnit
+import java.util.function.LongSupplier
+
+class RedisClockSpec extends Specification {
+
+  static final long SERVER_TIME_MILLIS = 1_700_000_000_000L
+  static final long LOCAL_TIME_MILLIS = SERVER_TIME_MILLIS - 250
+
+  long nanos = 0
+  int serverTimeReads = 0
+  def registry = new DefaultRegistry()
+
+  void 'serves redis server time locally between samples'() {
+    setup:
+      def clock = newClock(50, 200, 60)
+
+    when:
+      def first = clock.currentTimeMillis()
+      advanceMillis(1500)
+      def second = clock.currentTimeMillis()
+
+    then:
+      serverTimeReads == 1
+      first == SERVER_TIME_MILLIS
+      second == SERVER_TIME_MILLIS + 1500
+      registry.counter("bakeStoreClockSyncs").count() == 1
+  }
+
+  void 'samples redis again once the local clock may have drifted too far'() {
+    setup:
+      // 10ms at 200ppm allows 50 seconds between samples.
+      def clock = newClock(10, 200, 300)
+
+    when:
+      clock.currentTimeMillis()
+      advanceMillis(49_000)
+      clock.currentTimeMillis()
+
+    then:
+      serverTimeReads == 1
+
+    when:
+      advanceMillis(1_000)
+      clock.currentTimeMillis()
+
+    then:
+      serverTimeReads == 2
+  }
+
+  void 'samples redis again once the maximum sync interval elapses'() {
+    setup:
+      def clock = newClock(1000, 1, 60)
+
+    when:
+      clock.currentTimeMillis()
+      advanceMillis(60_000)
+      clock.currentTimeMillis()
+
+    then:
+      serverTimeReads == 2
+  }
+
+  void 'never serves a timestamp earlier than one already served'() {
+    setup:
+      long serverTime = SERVER_TIME_MILLIS
+      def clock = new RedisClock(
+        { serverTimeReads++; serverTime } as LongSupplier,
+        { LOCAL_TIME_MILLIS } as LongSupplier,
+        { nanos } as LongSupplier,
+        50, 200, 60, registry)
+
+    when:
+      clock.currentTimeMillis()
+      advanceMillis(59_999)
+      def beforeSync = clock.currentTimeMillis()
+      advanceMillis(1)
+      // The local clock ran fast; redis is 100ms behind where the local clock put it.
+      serverTime = SERVER_TIME_MILLIS + 60_000 - 100
+      def afterSync = clock.currentTimeMillis()
+
+    then:
+      serverTimeReads == 2
+      beforeSync == SERVER_TIME_MILLIS + 59_999
+      afterSync == beforeSync
+  }
+
+  void 'samples redis in the background ahead of each sample running out'() {
+    setup:
+      def sampler = Mock(ScheduledExecutorService)
+      def clock = newClock(1000, 1, 60)
+      Runnable sample = null
+
+    when:
+      clock.start(sampler)
+
+    then:
+      1 * sampler.execute(_) >> { Runnable runnable -> sample = runnable }
+
+    when:
+      sample.run()
+
+    then:
+      serverTimeReads == 1
+      // Samples are valid for 60 seconds; the next one is taken once 45 of them have passed.
+      1 * sampler.schedule(_, TimeUnit.SECONDS.toNanos(45), TimeUnit.NANOSECONDS) >> { arguments ->
+        sample = arguments[0]
+        return null
+      }
+
+    when:
+      advanceMillis(45_000)
+      sample.run()
+      advanceMillis(30_000)
+      def time = clock.currentTimeMillis()
+
+    then:
+      serverTimeReads == 2
+      time == SERVER_TIME_MILLIS + 75_000
+      1 * sampler.schedule(_, TimeUnit.SECONDS.toNanos(45), TimeUnit.NANOSECONDS)
+  }
+
+  void 'falls back to sampling redis when asked for the time if a background sample fails'() {
+    setup:
+      def sampler = Mock(ScheduledExecutorService)
+      boolean redisDown = true
+      def clock = new RedisClock(
+        {
+          serverTimeReads++
+          if (redisDown) {
+            throw new IllegalStateException("Redis is down.")
+          }
+          SERVER_TIME_MILLIS
+        } as LongSupplier,
+        { LOCAL_TIME_MILLIS } as LongSupplier,
+        { nanos } as LongSupplier,
+        1000, 1, 60, registry)
+
+    when:
+      clock.start(sampler)
+
+    then:
+      1 * sampler.execute(_) >> { Runnable runnable -> runnable.run() }
+      // The next attempt is made as soon as a sample could have run out.
+      1 * sampler.schedule(_, TimeUnit.SECONDS.toNanos(60), TimeUnit.NANOSECONDS)
+      serverTimeReads == 1
+
+    when:
+      redisDown = false
+      def time = clock.currentTimeMillis()
+
+    then:
+      serverTimeReads == 2
+      time == SERVER_TIME_MILLIS
+  }
+
+  void 'stops sampling in the background once closed'() {
+    setup:
+      def sampler = Mock(ScheduledExecutorService)
+      def clock = newClock(1000, 1, 60)
+
+    when:
+      clock.start(sampler)
+      clock.close()
+
+    then:
+      1 * sampler.execute(_)
+      1 * sampler.shutdownNow()
+  }
+
+  private RedisClock newClock(long maxDriftMillis, long driftRatePpm, long maxSyncIntervalSeconds) {
+    return new RedisClock(
+      { serverTimeReads++; SERVER_TIME_MILLIS + TimeUnit.NANOSECONDS.toMillis(nanos) } as LongSupplier,
+      { LOCAL_TIME_MILLIS + TimeUnit.NANOSECONDS.toMillis(nanos) } as LongSupplier,
+      { nanos } as LongSupplier,
+      maxDriftMillis, driftRatePpm, maxSyncIntervalSeconds, registry)
+  }
+
+  private void advanceMillis(long millis) {
+    nanos += TimeUnit.MILLISECONDS.toNanos(millis)
+  }
+}
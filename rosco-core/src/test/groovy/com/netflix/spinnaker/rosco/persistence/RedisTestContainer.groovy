@@ -0,0 +1,65 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import org.testcontainers.DockerClientFactory
+import org.testcontainers.containers.GenericContainer
+import org.testcontainers.utility.DockerImageName
+import redis.clients.jedis.Jedis
+
+/**
+ * The redis the redis bake store specs run against, started the first time a spec asks for it and shared by all of
+ * them. Specs using it are skipped where docker isn't available.
+ */
+class RedisTestContainer {
+
+  private static final int REDIS_PORT = 6379
+
+  private static GenericContainer redis
+
+  static boolean isDockerAvailable() {
+    return DockerClientFactory.instance().isDockerAvailable()
+  }
+
+  static synchronized GenericContainer getRedis() {
+    if (!redis) {
+      redis = new GenericContainer(DockerImageName.parse("library/redis:5-alpine")).withExposedPorts(REDIS_PORT)
+      redis.start()
+    }
+
+    return redis
+  }
+
+  static String getHost() {
+    return getRedis().host
+  }
+
+  static int getPort() {
+    return getRedis().getMappedPort(REDIS_PORT)
+  }
+
+  static Jedis newJedis() {
+    return new Jedis(host, port)
+  }
+
+  /**
+   * Start every spec from an empty redis.
+   */
+  static void flushAll() {
+    newJedis().withCloseable { Jedis jedis -> jedis.flushAll() }
+  }
+}
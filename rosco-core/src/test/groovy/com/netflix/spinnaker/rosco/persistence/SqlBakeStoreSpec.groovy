@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence
+
+import liquibase.integration.spring.SpringLiquibase
+import org.springframework.core.io.DefaultResourceLoader
+import org.springframework.jdbc.core.JdbcTemplate
+import org.springframework.jdbc.datasource.DriverManagerDataSource
+
+class SqlBakeStoreSpec extends BakeStoreContractSpec {
+
+  DriverManagerDataSource dataSource = new DriverManagerDataSource(
+    "jdbc:h2:mem:${UUID.randomUUID()};MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "")
+
+  @Override
+  BakeStore createBakeStore(String roscoInstanceId) {
+    applySchemaChangelog()
+    return new SqlBakeStore(dataSource, roscoInstanceId)
+  }
+
+  void 'applying the schema changelog again leaves existing bakes in place'() {
+    setup:
+      storeBake("bake-1", BAKE_KEY)
+
+    when:
+      createBakeStore(INSTANCE_ID)
+
+    then:
+      bakeStore.retrieveBakeStatusById("bake-1") != null
+  }
+
+  void 'applying the schema changelog brings tables created before it up to date'() {
+    setup:
+      def dataSource = new DriverManagerDataSource(
+        "jdbc:h2:mem:${UUID.randomUUID()};MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "")
+      def jdbcTemplate = new JdbcTemplate(dataSource)
+      // The tables as the schema scripts created them, before leases, the logs length and heartbeating were added.
+      jdbcTemplate.execute("CREATE TABLE rosco_bakes (id VARCHAR(255) NOT NULL PRIMARY KEY, bake_key TEXT NOT NULL, " +
+        "region VARCHAR(255), bake_recipe TEXT, bake_request TEXT, bake_status TEXT, state VARCHAR(32), " +
+        "bake_logs TEXT, bake_details TEXT, bake_error TEXT, command TEXT, rosco_instance_id VARCHAR(255), " +
+        "incomplete_instance_id VARCHAR(255), pipeline_execution_id VARCHAR(255), created_at BIGINT NOT NULL, " +
+        "updated_at BIGINT NOT NULL)")
+      jdbcTemplate.execute("CREATE TABLE rosco_instances (instance_id VARCHAR(255) NOT NULL PRIMARY KEY, " +
+        "last_seen_at BIGINT NOT NULL)")
+      jdbcTemplate.update(
+        "INSERT INTO rosco_bakes (id, bake_key, created_at, updated_at) VALUES ('bake-1', 'key', 1, 1)")
+
+    when:
+      applySchemaChangelog(dataSource)
+
+    then:
+      jdbcTemplate.queryForList("SELECT id, exectype FROM databasechangelog ORDER BY orderexecuted").collect {
+        [it.ID, it.EXECTYPE]
+      } == [
+        ["create-bake-store", "MARK_RAN"],
+        ["create-leases", "EXECUTED"],
+        ["add-bake-logs-length", "EXECUTED"],
+        ["add-instance-heartbeating", "EXECUTED"]
+      ]
+      jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rosco_bakes WHERE bake_logs_length IS NULL", Integer) == 1
+      jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rosco_instances WHERE heartbeating IS NULL", Integer) == 0
+      jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rosco_leases", Integer) == 0
+  }
+
+  private void applySchemaChangelog(DriverManagerDataSource dataSource = this.dataSource) {
+    new SpringLiquibase(
+      dataSource: dataSource,
+      changeLog: SqlBakeStore.SCHEMA_CHANGELOG,
+      resourceLoader: new DefaultResourceLoader()).afterPropertiesSet()
+  }
+}
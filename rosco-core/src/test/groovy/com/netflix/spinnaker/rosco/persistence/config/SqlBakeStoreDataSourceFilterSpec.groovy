@@ -0,0 +1,47 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence.config
+
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration
+import org.springframework.mock.env.MockEnvironment
+import spock.lang.Specification
+import spock.lang.Unroll
+
+class SqlBakeStoreDataSourceFilterSpec extends Specification {
+
+  @Unroll
+  void 'configures a data source #description'() {
+    setup:
+      def environment = new MockEnvironment()
+      if (bakeStoreType) {
+        environment.setProperty("rosco.bake-store.type", bakeStoreType)
+      }
+      def filter = new SqlBakeStoreDataSourceFilter()
+      filter.environment = environment
+
+    expect:
+      filter.match([DataSourceAutoConfiguration.name, JdbcTemplateAutoConfiguration.name, null] as String[], null) ==
+        [dataSource, true, true] as boolean[]
+
+    where:
+      description                          | bakeStoreType || dataSource
+      "only for the SQL bake store"        | "sql"         || true
+      "not for the redis bake store"       | "redis"       || false
+      "not when no bake store type is set" | null          || false
+  }
+}
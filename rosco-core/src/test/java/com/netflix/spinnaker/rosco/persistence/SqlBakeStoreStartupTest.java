@@ -0,0 +1,55 @@
+/*
+ * Copyright 2026 Netflix, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.netflix.spinnaker.rosco.persistence;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.netflix.spinnaker.rosco.Main;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = {Main.class})
+@TestPropertySource(
+    properties = {
+      "spring.application.name=rosco",
+      "rosco.bake-store.type=sql",
+      "rosco.bake-store.sql.url=jdbc:h2:mem:sqlBakeStoreStartupTest;MODE=MySQL;DB_CLOSE_DELAY=-1",
+      "rosco.bake-store.sql.user=sa",
+      "rosco.config-dir=/some/path"
+    })
+public class SqlBakeStoreStartupTest {
+
+  @Autowired BakeStore bakeStore;
+
+  @Autowired DataSource dataSource;
+
+  @Test
+  public void startupTest() {
+    assertThat(CachingBakeStore.unwrap(bakeStore)).isInstanceOf(SqlBakeStore.class);
+    assertThat(
+            new JdbcTemplate(dataSource)
+                .queryForObject("SELECT COUNT(*) FROM databasechangelog", Integer.class))
+        .isEqualTo(4);
+  }
+}
@@ -46,11 +46,14 @@ public abstract class BakeManifestService<T extends BakeManifestRequest> {
             new ArrayList<>(),
             UUID.randomUUID().toString(),
             AuthenticatedRequest.getSpinnakerExecutionId().orElse(null),
-            false);
+            false,
+            // Renders aren't bakes for a cloud provider, so they start right away rather than queueing.
+            null,
+            0);
 
     String jobId = jobExecutor.startJob(jobRequest);
     BakeStatus bakeStatus = jobExecutor.updateJob(jobId);
-    while (bakeStatus == null || bakeStatus.getState() == BakeStatus.State.RUNNING) {
+    while (bakeStatus == null || bakeStatus.getState().isIncomplete()) {
       try {
         Thread.sleep(1000);
       } catch (InterruptedException ie) {
@@ -18,14 +18,19 @@ package com.netflix.spinnaker.rosco.controllers
 
 import com.netflix.spectator.api.Registry
 import com.netflix.spinnaker.rosco.api.Bake
+import com.netflix.spinnaker.rosco.api.BakeHistoryPage
 import com.netflix.spinnaker.rosco.api.BakeOptions
 import com.netflix.spinnaker.rosco.api.BakeRequest
 import com.netflix.spinnaker.rosco.api.BakeStatus
 import com.netflix.spinnaker.rosco.api.DeleteBakesRequest
+import com.netflix.spinnaker.rosco.api.DeleteBakesRequestStatus
+import com.netflix.spinnaker.rosco.executor.BakeDrainer
 import com.netflix.spinnaker.rosco.jobs.BakeRecipe
 import com.netflix.spinnaker.rosco.jobs.JobExecutor
+import com.netflix.spinnaker.rosco.jobs.JobQueueFullException
 import com.netflix.spinnaker.rosco.jobs.JobRequest
 import com.netflix.spinnaker.rosco.persistence.BakeStore
+import com.netflix.spinnaker.rosco.persistence.DeleteBakesRequestProcessor
 import com.netflix.spinnaker.rosco.providers.CloudProviderBakeHandler
 import com.netflix.spinnaker.rosco.providers.registry.CloudProviderBakeHandlerRegistry
 import com.netflix.spinnaker.security.AuthenticatedRequest
@@ -35,7 +40,9 @@ import io.swagger.v3.oas.annotations.Operation
 import io.swagger.v3.oas.annotations.Parameter
 import org.springframework.beans.factory.annotation.Autowired
 import org.springframework.beans.factory.annotation.Value
+import org.springframework.http.HttpHeaders
 import org.springframework.http.HttpStatus
+import org.springframework.http.ResponseEntity
 import org.springframework.web.bind.annotation.*
 import org.springframework.web.method.annotation.RequestHeaderMapMethodArgumentResolver
 
@@ -54,9 +61,15 @@ class BakeryController {
   @Autowired
   CloudProviderBakeHandlerRegistry cloudProviderBakeHandlerRegistry
 
+  @Autowired
+  DeleteBakesRequestProcessor deleteBakesRequestProcessor
+
   @Autowired
   Registry registry
 
+  @Autowired(required = false)
+  BakeDrainer bakeDrainer
+
   @Value('${default-cloud-provider-type:aws}')
   BakeRequest.CloudProviderType defaultCloudProviderType
 
@@ -66,6 +79,12 @@ class BakeryController {
   @Value('${rosco.polling.wait-for-job-start-polling-interval-millis:500}')
   long waitForJobStartPollingIntervalMillis
 
+  @Value('${rosco.max-image-ids-per-lookup:10000}')
+  int maxImageIdsPerLookup = 10000
+
+  @Value('${rosco.max-bakes-per-history-page:1000}')
+  int maxBakesPerHistoryPage = 1000
+
   @RequestMapping(value = '/bakeOptions', method = RequestMethod.GET)
   List<BakeOptions> bakeOptions() {
     cloudProviderBakeHandlerRegistry.list().collect { it.getBakeOptions() }
@@ -97,8 +116,24 @@ class BakeryController {
     [error: "bake.options.not.found", status: HttpStatus.NOT_FOUND, messages: ["Bake options not found. " + e.message]]
   }
 
+  @ExceptionHandler(JobQueueFullException)
+  ResponseEntity<Map> handleJobQueueFullException(JobQueueFullException e) {
+    ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+      .header(HttpHeaders.RETRY_AFTER, e.retryAfterSeconds as String)
+      .body([error: "bake.queue.full", status: HttpStatus.TOO_MANY_REQUESTS, messages: [e.message]])
+  }
+
   private BakeStatus runBake(String bakeKey, String region, BakeRecipe bakeRecipe, BakeRequest bakeRequest, JobRequest jobRequest) {
-    String jobId = jobExecutor.startJob(jobRequest)
+    String jobId
+
+    try {
+      jobId = jobExecutor.startJob(jobRequest)
+    } catch (JobQueueFullException e) {
+      // Nothing was started, so let a retry of this bake start it without waiting out the lock.
+      bakeStore.releaseBakeLock(bakeKey)
+
+      throw e
+    }
 
     // Give the job jobExecutor some time to kick off the job.
     // Poll for bake status by job id every 1/2 second for 5 seconds.
@@ -151,6 +186,10 @@ class BakeryController {
   BakeStatus createBake(@PathVariable("region") String region,
                         @RequestBody BakeRequest bakeRequest,
                         @RequestParam(value = "rebake", defaultValue = "0") String rebake) {
+    if (bakeDrainer?.draining) {
+      throw new InstanceDrainingException()
+    }
+
     String executionId = AuthenticatedRequest.getSpinnakerExecutionId().orElse(null)
 
     if (!bakeRequest.cloud_provider_type) {
@@ -191,7 +230,9 @@ class BakeryController {
       def jobRequest = new JobRequest(tokenizedCommand: bakeRecipe.command,
                                       maskedParameters: cloudProviderBakeHandler.getMaskedPackerParameters(),
                                       jobId: bakeRequest.request_id,
-                                      executionId: bakeRequest.spinnaker_execution_id)
+                                      executionId: bakeRequest.spinnaker_execution_id,
+                                      cloudProvider: bakeRequest.cloud_provider_type.toString(),
+                                      priority: bakeRequest.priority ?: 0)
 
       if (bakeStore.acquireBakeLock(bakeKey)) {
         return runBake(bakeKey, region, bakeRecipe, bakeRequest, jobRequest)
@@ -266,6 +307,21 @@ class BakeryController {
     }
   }
 
+  @Operation(summary = "Look up bake logs written since the given offset")
+  @RequestMapping(value = "/api/v1/{region}/logs/{statusId}", params = "offset", produces = ["application/json"], method = RequestMethod.GET)
+  Map lookupLogsFromOffset(@Parameter(description = "The region of the bake request", required = true) @PathVariable("region") String region,
+                           @Parameter(description = "The id of the bake request", required = true) @PathVariable("statusId") String statusId,
+                           @Parameter(description = "The character offset to read from; pass the nextOffset of the previous response to tail the logs", required = true) @RequestParam("offset") long offset) {
+    Map logsContentMap = bakeStore.retrieveBakeLogsById(statusId, offset)
+
+    // No new output since the last read is not an error here.
+    if (logsContentMap != null) {
+      return logsContentMap
+    } else {
+      throw new LogsNotFoundException("Unable to retrieve logs for '$statusId'.")
+    }
+  }
+
   @RequestMapping(value = "/api/v1/{region}/logs/image/{imageId}", produces = ["application/json"], method = RequestMethod.GET)
   Map lookupLogsByImageId(@PathVariable("region") String region, @PathVariable("imageId") String imageId) {
     def bakeId = bakeStore.getBakeIdFromImage(region, imageId)
@@ -281,10 +337,46 @@ class BakeryController {
     }
   }
 
+  @Operation(summary = "Look up the bakes that produced a batch of images")
+  @RequestMapping(value = "/api/v1/{region}/images/bakes", method = RequestMethod.POST)
+  Map<String, String> lookupBakeIdsByImageIds(@Parameter(description = "The region the images were baked in", required = true) @PathVariable("region") String region,
+                                              @Parameter(description = "The image ids to look up; images that aren't found are left out of the response", required = true) @RequestBody List<String> imageIds) {
+    if (imageIds.size() > maxImageIdsPerLookup) {
+      throw new IllegalArgumentException("Unable to look up more than $maxImageIdsPerLookup image ids at once.")
+    }
+
+    return bakeStore.getBakeIdsFromImages(region, imageIds)
+  }
+
+  @Operation(summary = "Look up the images produced by a bake")
+  @RequestMapping(value = "/api/v1/{region}/bake/{bakeId}/images", method = RequestMethod.GET)
+  Map<String, Set<String>> lookupImagesByBakeId(@Parameter(description = "The region of the bake", required = true) @PathVariable("region") String region,
+                                                @Parameter(description = "The id of the bake", required = true) @PathVariable("bakeId") String bakeId) {
+    return bakeStore.getImagesFromBakeId(bakeId)
+  }
+
+  @Operation(summary = "Look up the bakes created in a time window, oldest first")
+  @RequestMapping(value = "/api/v1/bakes", method = RequestMethod.GET)
+  BakeHistoryPage lookupBakeHistory(@Parameter(description = "Only include bakes created at or after this time, in epoch milliseconds") @RequestParam(value = "since", defaultValue = "0") long since,
+                                    @Parameter(description = "Only include bakes created before this time, in epoch milliseconds") @RequestParam(value = "until", required = false) Long until,
+                                    @Parameter(description = "Only include bakes for this cloud provider") @RequestParam(value = "provider", required = false) BakeRequest.CloudProviderType provider,
+                                    @Parameter(description = "Only include bakes in this state") @RequestParam(value = "state", required = false) BakeStatus.State state,
+                                    @Parameter(description = "The cursor returned with the previous page") @RequestParam(value = "cursor", required = false) String cursor,
+                                    @Parameter(description = "The maximum number of bakes to return") @RequestParam(value = "limit", defaultValue = "100") int limit) {
+    if (limit < 1 || limit > maxBakesPerHistoryPage) {
+      throw new IllegalArgumentException("Unable to return pages of $limit bakes; the limit must be between 1 and $maxBakesPerHistoryPage.")
+    }
+
+    return bakeStore.retrieveBakeHistory(since, until ?: Long.MAX_VALUE, provider?.name(), state, cursor, limit)
+  }
+
   @InheritConstructors
   @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Logs not found.")
   static class LogsNotFoundException extends RuntimeException {}
 
+  @ResponseStatus(value = HttpStatus.SERVICE_UNAVAILABLE, reason = "This rosco instance is shutting down.")
+  static class InstanceDrainingException extends RuntimeException {}
+
   // TODO(duftler): Synchronize this with existing bakery api.
   @RequestMapping(value = '/api/v1/{region}/bake', method = RequestMethod.DELETE)
   String deleteBake(@PathVariable("region") String region,
@@ -309,13 +401,29 @@ class BakeryController {
     }
   }
 
+  @Operation(summary = "Delete the bakes of pipeline executions in the background")
+  @ResponseStatus(HttpStatus.ACCEPTED)
   @RequestMapping(value = '/api/v1/bakes/delete-requests', method = RequestMethod.POST)
-  void createDeleteBakesRequest(@RequestBody DeleteBakesRequest deleteBakesRequest) {
-    deleteBakesRequest.getPipelineExecutionIds().forEach({ pipelineExecutionId ->
-      bakeStore.deleteBakeByPipelineExecutionId(pipelineExecutionId)
-    })
+  DeleteBakesRequestStatus createDeleteBakesRequest(@RequestBody DeleteBakesRequest deleteBakesRequest) {
+    return deleteBakesRequestProcessor.submit(deleteBakesRequest)
   }
 
+  @Operation(summary = "Look up the progress of a request to delete bakes")
+  @RequestMapping(value = '/api/v1/bakes/delete-requests/{requestId}', method = RequestMethod.GET)
+  DeleteBakesRequestStatus lookupDeleteBakesRequest(@Parameter(description = "The id returned when the request was created", required = true) @PathVariable("requestId") String requestId) {
+    def status = deleteBakesRequestProcessor.getStatus(requestId)
+
+    if (!status) {
+      throw new DeleteBakesRequestNotFoundException("Unable to locate delete bakes request '$requestId'.")
+    }
+
+    return status
+  }
+
+  @InheritConstructors
+  @ResponseStatus(value = HttpStatus.NOT_FOUND, reason = "Delete bakes request not found.")
+  static class DeleteBakesRequestNotFoundException extends RuntimeException {}
+
   // TODO(duftler): Synchronize this with existing bakery api.
   @Operation(summary = "Cancel bake request")
   @RequestMapping(value = "/api/v1/{region}/cancel/{statusId}", method = RequestMethod.GET)
@@ -340,7 +448,7 @@ class BakeryController {
 
     if (!bakeStatus) {
       return null
-    } else if (bakeStatus.state == BakeStatus.State.RUNNING) {
+    } else if (bakeStatus.state?.incomplete) {
       return bakeStatus
     } else if (bakeStatus.state == BakeStatus.State.COMPLETED && bakeStatus.result == BakeStatus.Result.SUCCESS) {
       return bakeStatus
@@ -71,15 +71,8 @@ class StatusController {
     return Collections.unmodifiableMap(["status": instanceStatus.name(), "bakes": bakes])
   }
 
-  private List<BakeStatus> getBakes(instanceIncompleteBakeIds) {
-    def status = []
-    for (bakeId in instanceIncompleteBakeIds) {
-      def bakeStatus = bakeStore.retrieveBakeStatusById(bakeId)
-      if (bakeStatus) {
-        status << bakeStatus
-      }
-    }
-    return status
+  private List<BakeStatus> getBakes(Set<String> instanceIncompleteBakeIds) {
+    return bakeStore.retrieveBakeStatusesByIds(instanceIncompleteBakeIds).values() as List
   }
 
 }
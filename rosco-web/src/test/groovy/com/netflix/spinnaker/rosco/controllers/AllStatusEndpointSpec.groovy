@@ -43,8 +43,8 @@ class AllStatusEndpointSpec extends Specification {
     def instances = statusHandler.allIncompleteBakes()
     then:
     1 * bakeStoreMock.getAllIncompleteBakeIds() >> [(localInstanceId): Sets.newHashSet(LOCAL_JOB_ID), (remoteInstanceId): Sets.newHashSet(REMOTE_JOB_ID)]
-    1 * bakeStoreMock.retrieveBakeStatusById(LOCAL_JOB_ID) >> localRunningBakeStatus
-    1 * bakeStoreMock.retrieveBakeStatusById(REMOTE_JOB_ID) >> remoteRunningBakeStatus
+    1 * bakeStoreMock.retrieveBakeStatusesByIds([LOCAL_JOB_ID] as Set) >> [(LOCAL_JOB_ID): localRunningBakeStatus]
+    1 * bakeStoreMock.retrieveBakeStatusesByIds([REMOTE_JOB_ID] as Set) >> [(REMOTE_JOB_ID): remoteRunningBakeStatus]
     instances == [instance: localInstanceId, instances: [(localInstanceId): [status: "RUNNING", bakes: [localRunningBakeStatus]], (remoteInstanceId): [status: "RUNNING", bakes: [remoteRunningBakeStatus]]]]
   }
 
@@ -91,8 +91,7 @@ class AllStatusEndpointSpec extends Specification {
     setup:
     def bakeStoreMock = Mock(RedisBackedBakeStore)
     bakeStoreMock.getAllIncompleteBakeIds() >> [(localInstanceId): Sets.newHashSet(LOCAL_JOB_ID), (remoteInstanceId): Sets.newHashSet(REMOTE_JOB_ID)]
-    bakeStoreMock.retrieveBakeStatusById(LOCAL_JOB_ID) >> { throw new RuntimeException() }
-    bakeStoreMock.retrieveBakeStatusById(REMOTE_JOB_ID) >> { throw new RuntimeException() }
+    bakeStoreMock.retrieveBakeStatusesByIds(_) >> { throw new RuntimeException() }
     def statusHandler = new StatusController(bakeStoreMock, localInstanceId)
 
     when:
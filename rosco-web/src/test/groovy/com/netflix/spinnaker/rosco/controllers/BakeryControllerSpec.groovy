@@ -18,17 +18,25 @@ package com.netflix.spinnaker.rosco.controllers
 
 import com.netflix.spectator.api.DefaultRegistry
 import com.netflix.spinnaker.rosco.api.Bake
+import com.netflix.spinnaker.rosco.api.BakeHistoryPage
 import com.netflix.spinnaker.rosco.api.BakeOptions
 import com.netflix.spinnaker.rosco.api.BakeRequest
 import com.netflix.spinnaker.rosco.api.BakeStatus
 import com.netflix.spinnaker.rosco.api.DeleteBakesRequest
+import com.netflix.spinnaker.rosco.api.DeleteBakesRequestStatus
+import com.netflix.spinnaker.rosco.executor.BakeDrainer
 import com.netflix.spinnaker.rosco.jobs.BakeRecipe
+import com.netflix.spinnaker.rosco.persistence.BakeStore
+import com.netflix.spinnaker.rosco.persistence.DeleteBakesRequestProcessor
 import com.netflix.spinnaker.rosco.persistence.RedisBackedBakeStore
 import com.netflix.spinnaker.rosco.providers.CloudProviderBakeHandler
 import com.netflix.spinnaker.rosco.providers.registry.CloudProviderBakeHandlerRegistry
 import com.netflix.spinnaker.rosco.providers.registry.DefaultCloudProviderBakeHandlerRegistry
 import com.netflix.spinnaker.rosco.jobs.JobExecutor
+import com.netflix.spinnaker.rosco.jobs.JobQueueFullException
 import com.netflix.spinnaker.rosco.jobs.JobRequest
+import org.springframework.http.HttpHeaders
+import org.springframework.http.HttpStatus
 import spock.lang.Specification
 import spock.lang.Subject
 
@@ -78,7 +86,7 @@ class BakeryControllerSpec extends Specification {
       1 * bakeStoreMock.retrieveBakeStatusByKey(BAKE_KEY) >> null
       1 * cloudProviderBakeHandlerMock.produceBakeRecipe(REGION, bakeRequest) >> bakeRecipe
       1 * bakeStoreMock.acquireBakeLock(BAKE_KEY) >> true
-      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID)) >> JOB_ID
+      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID, cloudProvider: "gce")) >> JOB_ID
       1 * jobExecutorMock.updateJob(JOB_ID) >> runningBakeStatus
       1 * bakeStoreMock.storeNewBakeStatus(BAKE_KEY, REGION, bakeRecipe, bakeRequest, runningBakeStatus, PACKER_COMMAND) >> runningBakeStatus
       returnedBakeStatus == runningBakeStatus
@@ -123,7 +131,7 @@ class BakeryControllerSpec extends Specification {
       1 * bakeStoreMock.retrieveBakeStatusByKey(BAKE_KEY) >> null
       1 * cloudProviderBakeHandlerMock.produceBakeRecipe(REGION, bakeRequest) >> bakeRecipe
       1 * bakeStoreMock.acquireBakeLock(BAKE_KEY) >> true
-      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID)) >> JOB_ID
+      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID, cloudProvider: "gce")) >> JOB_ID
       1 * jobExecutorMock.updateJob(JOB_ID) >> failedBakeStatus
       IllegalArgumentException e = thrown()
       e.message == "Some kind of failure..."
@@ -206,7 +214,7 @@ class BakeryControllerSpec extends Specification {
       1 * bakeStoreMock.acquireBakeLock(BAKE_KEY) >> false
       (10.._) * bakeStoreMock.retrieveBakeStatusByKey(BAKE_KEY) >> null
       1 * bakeStoreMock.acquireBakeLock(BAKE_KEY) >> true
-      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID)) >> JOB_ID
+      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID, cloudProvider: "gce")) >> JOB_ID
       1 * jobExecutorMock.updateJob(JOB_ID) >> runningBakeStatus
       1 * bakeStoreMock.storeNewBakeStatus(BAKE_KEY, REGION, bakeRecipe, bakeRequest, runningBakeStatus, PACKER_COMMAND) >> runningBakeStatus
       returnedBakeStatus == new BakeStatus(id: JOB_ID, resource_id: JOB_ID, state: BakeStatus.State.RUNNING)
@@ -275,6 +283,77 @@ class BakeryControllerSpec extends Specification {
       e.message == "Unknown provider type 'gce'."
   }
 
+  void 'create bake refuses new bakes while the instance drains'() {
+    setup:
+      def cloudProviderBakeHandlerRegistryMock = Mock(CloudProviderBakeHandlerRegistry)
+      def jobExecutorMock = Mock(JobExecutor)
+      def bakeRequest = new BakeRequest(user: "someuser@gmail.com",
+                                        package_name: PACKAGE_NAME,
+                                        base_os: "ubuntu",
+                                        cloud_provider_type: BakeRequest.CloudProviderType.gce,
+                                        request_id: SOME_UUID)
+
+      @Subject
+      def bakeryController = new BakeryController(cloudProviderBakeHandlerRegistry: cloudProviderBakeHandlerRegistryMock,
+                                                  jobExecutor: jobExecutorMock,
+                                                  bakeDrainer: Stub(BakeDrainer) { isDraining() >> true })
+
+    when:
+      bakeryController.createBake(REGION, bakeRequest, null)
+
+    then:
+      thrown(BakeryController.InstanceDrainingException)
+      0 * cloudProviderBakeHandlerRegistryMock.lookup(_)
+      0 * jobExecutorMock.startJob(_)
+  }
+
+  void 'create bake passes the bake priority on and rejects the bake with a retry-after when the job queue is full'() {
+    setup:
+      def cloudProviderBakeHandlerRegistryMock = Mock(CloudProviderBakeHandlerRegistry)
+      def cloudProviderBakeHandlerMock = Mock(CloudProviderBakeHandler) {
+        getMaskedPackerParameters() >> []
+      }
+      def bakeStoreMock = Mock(RedisBackedBakeStore)
+      def jobExecutorMock = Mock(JobExecutor)
+      def bakeRequest = new BakeRequest(user: "someuser@gmail.com",
+                                        package_name: PACKAGE_NAME,
+                                        base_os: "ubuntu",
+                                        cloud_provider_type: BakeRequest.CloudProviderType.gce,
+                                        request_id: SOME_UUID,
+                                        priority: 5)
+      def bakeRecipe = new BakeRecipe(name: "myBake", version: "appVersionStr-1.0", command: [PACKER_COMMAND])
+
+      @Subject
+      def bakeryController = new BakeryController(cloudProviderBakeHandlerRegistry: cloudProviderBakeHandlerRegistryMock,
+                                                  bakeStore: bakeStoreMock,
+                                                  jobExecutor: jobExecutorMock,
+                                                  registry: new DefaultRegistry())
+
+    when:
+      bakeryController.createBake(REGION, bakeRequest, null)
+
+    then:
+      1 * cloudProviderBakeHandlerRegistryMock.lookup(BakeRequest.CloudProviderType.gce) >> cloudProviderBakeHandlerMock
+      1 * cloudProviderBakeHandlerMock.produceBakeKey(REGION, bakeRequest) >> BAKE_KEY
+      1 * bakeStoreMock.retrieveBakeStatusByKey(BAKE_KEY) >> null
+      1 * cloudProviderBakeHandlerMock.produceBakeRecipe(REGION, bakeRequest) >> bakeRecipe
+      1 * bakeStoreMock.acquireBakeLock(BAKE_KEY) >> true
+      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID, cloudProvider: "gce", priority: 5)) >> {
+        throw new JobQueueFullException("Unable to start job $SOME_UUID: 500 jobs are already waiting to start.", 30)
+      }
+      1 * bakeStoreMock.releaseBakeLock(BAKE_KEY)
+      0 * bakeStoreMock.storeNewBakeStatus(*_)
+      def e = thrown(JobQueueFullException)
+
+    when:
+      def response = bakeryController.handleJobQueueFullException(e)
+
+    then:
+      response.statusCode == HttpStatus.TOO_MANY_REQUESTS
+      response.headers.getFirst(HttpHeaders.RETRY_AFTER) == "30"
+      response.body.error == "bake.queue.full"
+  }
+
   void 'create bake returns existing status when prior bake is running'() {
     setup:
       def registry = new DefaultRegistry()
@@ -384,7 +463,7 @@ class BakeryControllerSpec extends Specification {
       1 * bakeStoreMock.retrieveBakeStatusByKey(BAKE_KEY) >> failedBakeStatus
       1 * cloudProviderBakeHandlerMock.produceBakeRecipe(REGION, bakeRequest) >> bakeRecipe
       1 * bakeStoreMock.acquireBakeLock(BAKE_KEY) >> true
-      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID)) >> JOB_ID
+      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID, cloudProvider: "gce")) >> JOB_ID
       1 * jobExecutorMock.updateJob(JOB_ID) >> newBakeStatus
       1 * bakeStoreMock.storeNewBakeStatus(BAKE_KEY, REGION, bakeRecipe, bakeRequest, newBakeStatus, PACKER_COMMAND) >> newBakeStatus
       returnedBakeStatus == newBakeStatus
@@ -427,7 +506,7 @@ class BakeryControllerSpec extends Specification {
       1 * bakeStoreMock.retrieveBakeStatusByKey(BAKE_KEY) >> canceledBakeStatus
       1 * cloudProviderBakeHandlerMock.produceBakeRecipe(REGION, bakeRequest) >> bakeRecipe
       1 * bakeStoreMock.acquireBakeLock(BAKE_KEY) >> true
-      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID)) >> JOB_ID
+      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID, cloudProvider: "gce")) >> JOB_ID
       1 * jobExecutorMock.updateJob(JOB_ID) >> newBakeStatus
       1 * bakeStoreMock.storeNewBakeStatus(BAKE_KEY, REGION, bakeRecipe, bakeRequest, newBakeStatus, PACKER_COMMAND) >> newBakeStatus
       returnedBakeStatus == newBakeStatus
@@ -468,7 +547,7 @@ class BakeryControllerSpec extends Specification {
       1 * bakeStoreMock.deleteBakeByKeyPreserveDetails(BAKE_KEY) >> BAKE_ID
       1 * cloudProviderBakeHandlerMock.produceBakeRecipe(REGION, bakeRequest) >> bakeRecipe
       1 * bakeStoreMock.acquireBakeLock(BAKE_KEY) >> true
-      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID)) >> JOB_ID
+      1 * jobExecutorMock.startJob(new JobRequest(tokenizedCommand: [PACKER_COMMAND], jobId: SOME_UUID, cloudProvider: "gce")) >> JOB_ID
       1 * jobExecutorMock.updateJob(JOB_ID) >> newBakeStatus
       1 * bakeStoreMock.storeNewBakeStatus(BAKE_KEY, REGION, bakeRecipe, bakeRequest, newBakeStatus, PACKER_COMMAND) >> newBakeStatus
       returnedBakeStatus == newBakeStatus
@@ -559,6 +638,36 @@ class BakeryControllerSpec extends Specification {
       response == [logsContent: LOGS_CONTENT]
   }
 
+  void 'lookup logs from offset queries bake store and returns logs content written since the offset'() {
+    setup:
+      def bakeStoreMock = Mock(RedisBackedBakeStore)
+
+      @Subject
+      def bakeryController = new BakeryController(bakeStore: bakeStoreMock)
+
+    when:
+      def response = bakeryController.lookupLogsFromOffset(REGION, JOB_ID, 20)
+
+    then:
+      1 * bakeStoreMock.retrieveBakeLogsById(JOB_ID, 20) >> [logsContent: LOGS_CONTENT, nextOffset: "40"]
+      response == [logsContent: LOGS_CONTENT, nextOffset: "40"]
+
+    when:
+      response = bakeryController.lookupLogsFromOffset(REGION, JOB_ID, 40)
+
+    then:
+      1 * bakeStoreMock.retrieveBakeLogsById(JOB_ID, 40) >> [logsContent: "", nextOffset: "40"]
+      response == [logsContent: "", nextOffset: "40"]
+
+    when:
+      bakeryController.lookupLogsFromOffset(REGION, JOB_ID, 0)
+
+    then:
+      1 * bakeStoreMock.retrieveBakeLogsById(JOB_ID, 0) >> null
+      BakeryController.LogsNotFoundException e = thrown()
+      e.message == "Unable to retrieve logs for '123'."
+  }
+
   void 'lookup logs by image id queries bake store and returns logs content'() {
     setup:
     def bakeStoreMock = Mock(RedisBackedBakeStore)
@@ -575,6 +684,36 @@ class BakeryControllerSpec extends Specification {
     response == [logsContent: LOGS_CONTENT]
   }
 
+  void 'lookup bake ids by image ids queries bake store in bulk'() {
+    setup:
+      def bakeStoreMock = Mock(RedisBackedBakeStore)
+
+      @Subject
+      def bakeryController = new BakeryController(bakeStore: bakeStoreMock, maxImageIdsPerLookup: 10)
+
+    when:
+      def response = bakeryController.lookupBakeIdsByImageIds(REGION, ["ami-1", "ami-2"])
+
+    then:
+      1 * bakeStoreMock.getBakeIdsFromImages(REGION, ["ami-1", "ami-2"]) >> ["ami-2": JOB_ID]
+      response == ["ami-2": JOB_ID]
+  }
+
+  void 'lookup bake ids by image ids rejects too many image ids'() {
+    setup:
+      def bakeStoreMock = Mock(RedisBackedBakeStore)
+
+      @Subject
+      def bakeryController = new BakeryController(bakeStore: bakeStoreMock, maxImageIdsPerLookup: 1)
+
+    when:
+      bakeryController.lookupBakeIdsByImageIds(REGION, ["ami-1", "ami-2"])
+
+    then:
+      0 * bakeStoreMock.getBakeIdsFromImages(*_)
+      thrown(IllegalArgumentException)
+  }
+
   void 'lookup logs throws exception when job logs are empty or malformed'() {
     setup:
       def bakeStoreMock = Mock(RedisBackedBakeStore)
@@ -785,18 +924,66 @@ class BakeryControllerSpec extends Specification {
 
   void 'delete bakes by pipeline execution ids'() {
     setup:
-    def bakeStoreMock = Mock(RedisBackedBakeStore)
+    def processorMock = Mock(DeleteBakesRequestProcessor)
     def pipelineExecutionId = UUID.randomUUID().toString()
     def deleteBakesRequest = new DeleteBakesRequest()
     deleteBakesRequest.pipelineExecutionIds.add(pipelineExecutionId)
+    def status = new DeleteBakesRequestStatus(id: "some-request-id", pipelineExecutionIds: [pipelineExecutionId])
+
+    @Subject
+    def bakeryController = new BakeryController(deleteBakesRequestProcessor: processorMock)
+
+    when:
+    def returnedStatus = bakeryController.createDeleteBakesRequest(deleteBakesRequest)
+
+    then:
+    1 * processorMock.submit(deleteBakesRequest) >> status
+    returnedStatus == status
+  }
+
+  void 'looking up an unknown delete bakes request fails'() {
+    setup:
+    def processorMock = Mock(DeleteBakesRequestProcessor)
+
+    @Subject
+    def bakeryController = new BakeryController(deleteBakesRequestProcessor: processorMock)
+
+    when:
+    bakeryController.lookupDeleteBakesRequest("some-request-id")
+
+    then:
+    1 * processorMock.getStatus("some-request-id") >> null
+    thrown BakeryController.DeleteBakesRequestNotFoundException
+  }
+
+  void 'look up bake history passes the filters through to the bake store'() {
+    setup:
+    def bakeStoreMock = Mock(BakeStore)
+    def page = new BakeHistoryPage([], null)
+
+    @Subject
+    def bakeryController = new BakeryController(bakeStore: bakeStoreMock)
+
+    when:
+    def returnedPage = bakeryController.lookupBakeHistory(1000, null, BakeRequest.CloudProviderType.gce, BakeStatus.State.COMPLETED, "some-cursor", 10)
+
+    then:
+    1 * bakeStoreMock.retrieveBakeHistory(1000, Long.MAX_VALUE, "gce", BakeStatus.State.COMPLETED, "some-cursor", 10) >> page
+    returnedPage == page
+  }
+
+  void 'look up bake history rejects page sizes over the maximum'() {
+    setup:
+    def bakeStoreMock = Mock(BakeStore)
 
     @Subject
     def bakeryController = new BakeryController(bakeStore: bakeStoreMock)
 
     when:
-    bakeryController.createDeleteBakesRequest(deleteBakesRequest)
+    bakeryController.lookupBakeHistory(0, null, null, null, null, 1001)
 
     then:
-    1 * bakeStoreMock.deleteBakeByPipelineExecutionId(pipelineExecutionId)
+    0 * bakeStoreMock._
+    thrown IllegalArgumentException
   }
 }
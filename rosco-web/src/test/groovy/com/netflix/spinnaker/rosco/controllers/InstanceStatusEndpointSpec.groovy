@@ -42,7 +42,7 @@ class InstanceStatusEndpointSpec extends Specification {
 
     then:
     1 * bakeStoreMock.getThisInstanceIncompleteBakeIds() >> Sets.newHashSet(JOB_ID)
-    1 * bakeStoreMock.retrieveBakeStatusById(JOB_ID) >> runningBakeStatus
+    1 * bakeStoreMock.retrieveBakeStatusesByIds([JOB_ID] as Set) >> [(JOB_ID): runningBakeStatus]
     instanceInfo.bakes == [runningBakeStatus]
     instanceInfo.status == "RUNNING"
   }
@@ -98,7 +98,7 @@ class InstanceStatusEndpointSpec extends Specification {
     setup:
     def bakeStoreMock = Mock(RedisBackedBakeStore)
     bakeStoreMock.getThisInstanceIncompleteBakeIds() >> Sets.newHashSet(JOB_ID)
-    bakeStoreMock.retrieveBakeStatusById(JOB_ID) >> { throw new RuntimeException() }
+    bakeStoreMock.retrieveBakeStatusesByIds(_) >> { throw new RuntimeException() }
 
     @Subject
     def statusHandler = new StatusController(bakeStoreMock, instanceId)